@@ -38,6 +38,7 @@ public enum ThreadName {
   COMPACTION_SERVICE("Compaction"),
   COMPACTION_SUB_SERVICE("Sub-Compaction"),
   COMPACTION_SCHEDULE("Compaction_Schedule"),
+  COMPACTION_LOAD_CONTROL("Compaction-Load-Control"),
   WAL_SERIALIZE("WAL-Serialize"),
   WAL_SYNC("WAL-Sync"),
   WAL_DELETE("WAL-Delete"),
@@ -50,6 +51,7 @@ public enum ThreadName {
   TTL_CHECK_SERVICE("TTL-CHECK"),
   TIMED_FLUSH_SEQ_MEMTABLE("Timed-Flush-Seq-Memtable"),
   TIMED_FLUSH_UNSEQ_MEMTABLE("Timed-Flush-Unseq-Memtable"),
+  TSFILE_MIGRATION("TsFile-Migration"),
   SETTLE_SERVICE("Settle"),
   SYNC_SENDER_PIPE("Sync-Pipe"),
   SYNC_SENDER_HEARTBEAT("Sync-Heartbeat"),
@@ -63,7 +65,9 @@ public enum ThreadName {
   ASYNC_DATANODE_MPP_DATA_EXCHANGE_CLIENT_POOL("AsyncDataNodeMPPDataExchangeServiceClientPool"),
   ASYNC_DATANODE_IOT_CONSENSUS_CLIENT_POOL("AsyncDataNodeMPPDataExchangeServiceClientPool"),
   SCHEMA_REGION_RELEASE_POOL("SchemaRegion-Release-Task"),
-  SCHEMA_REGION_FLUSH_POOL("SchemaRegion-Flush-Task");
+  SCHEMA_REGION_FLUSH_POOL("SchemaRegion-Flush-Task"),
+  SCHEMA_REGION_SNAPSHOT_LOAD_POOL("SchemaRegion-Snapshot-Load"),
+  TAG_INDEX_SEGMENT_FLUSH_MERGE("TagIndex-Segment-Flush-Merge");
 
   private final String name;
 
@@ -36,6 +36,8 @@ public enum BuiltinAggregationFunction {
   AVG("avg"),
   SUM("sum"),
   COUNT_IF("count_if"),
+  APPROX_COUNT_DISTINCT("approx_count_distinct"),
+  APPROX_PERCENTILE("approx_percentile"),
   ;
 
   private final String functionName;
@@ -72,6 +74,10 @@ public enum BuiltinAggregationFunction {
       case "count":
       case "avg":
       case "sum":
+        // sketch based aggregations are computed by SeriesAggregationScan as well, their
+        // accumulators decide whether to use statistics or to read the raw data
+      case "approx_count_distinct":
+      case "approx_percentile":
         return true;
       case "count_if":
         return false;
@@ -96,6 +102,8 @@ public enum BuiltinAggregationFunction {
       case "count":
       case "avg":
       case "sum":
+      case "approx_count_distinct":
+      case "approx_percentile":
         return true;
       case "count_if":
         return false;
@@ -199,6 +199,11 @@ public class RSchemaRegion implements ISchemaRegion {
     return storageGroupFullPath;
   }
 
+  @Override
+  public long countDatabaseChildren() {
+    throw new UnsupportedOperationException();
+  }
+
   @Override
   public void deleteSchemaRegion() throws MetadataException {
     clear();
@@ -164,6 +164,11 @@ public class TagSchemaRegion implements ISchemaRegion {
     return storageGroupFullPath;
   }
 
+  @Override
+  public long countDatabaseChildren() {
+    throw new UnsupportedOperationException("countDatabaseChildren");
+  }
+
   @Override
   public void deleteSchemaRegion() throws MetadataException {
     clear();
@@ -182,11 +187,16 @@ public class TagSchemaRegion implements ISchemaRegion {
     throw new UnsupportedOperationException("Tag mode currently doesn't support snapshot feature.");
   }
 
-  private void createTagInvertedIndex(PartialPath devicePath) {
+  private void createTagInvertedIndex(PartialPath devicePath) throws MetadataException {
     Map<String, String> tagsMap =
         PathTagConverterUtils.pathToTags(storageGroupFullPath, devicePath.getFullPath());
     synchronized (idTableWithDeviceIDList) {
-      tagInvertedIndex.addTags(tagsMap, idTableWithDeviceIDList.size() - 1);
+      try {
+        tagInvertedIndex.addTags(tagsMap, idTableWithDeviceIDList.size() - 1);
+      } catch (IOException e) {
+        throw new MetadataException(
+            String.format("Failed to index tags of device %s", devicePath.getFullPath()), e);
+      }
     }
   }
 
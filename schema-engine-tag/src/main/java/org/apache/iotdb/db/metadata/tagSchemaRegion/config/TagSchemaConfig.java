@@ -27,6 +27,9 @@ public class TagSchemaConfig {
   // the size of wal buffer used to store a wal record
   private int walBufferSize = 1024 * 1024;
 
+  // the number of segments of the same level merged into one segment of the next level
+  private int numOfSegmentsToMerge = 10;
+
   public int getNumOfDeviceIdsInMemTable() {
     return numOfDeviceIdsInMemTable;
   }
@@ -43,6 +46,14 @@ public class TagSchemaConfig {
     this.walBufferSize = walBufferSize;
   }
 
+  public int getNumOfSegmentsToMerge() {
+    return numOfSegmentsToMerge;
+  }
+
+  public void setNumOfSegmentsToMerge(int numOfSegmentsToMerge) {
+    this.numOfSegmentsToMerge = numOfSegmentsToMerge;
+  }
+
   @Override
   public String toString() {
     return "TagSchemaConfig["
@@ -50,6 +61,8 @@ public class TagSchemaConfig {
         + numOfDeviceIdsInMemTable
         + ", walBufferSize="
         + walBufferSize
+        + ", numOfSegmentsToMerge="
+        + numOfSegmentsToMerge
         + "]";
   }
 }
@@ -73,6 +73,10 @@ public class TagSchemaDescriptor {
               properties.getProperty(
                   "num_of_deviceIds_in_memTable",
                   String.valueOf(conf.getNumOfDeviceIdsInMemTable()))));
+      conf.setNumOfSegmentsToMerge(
+          Integer.parseInt(
+              properties.getProperty(
+                  "num_of_segments_to_merge", String.valueOf(conf.getNumOfSegmentsToMerge()))));
     } catch (FileNotFoundException e) {
       logger.warn("Fail to find tag schema region config file {}", tagSchemaConfigPath);
     } catch (IOException e) {
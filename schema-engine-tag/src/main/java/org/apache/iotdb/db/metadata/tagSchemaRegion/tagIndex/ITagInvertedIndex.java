@@ -32,8 +32,9 @@ public interface ITagInvertedIndex {
    *
    * @param tags tags like: <tagKey,tagValue>
    * @param id INT32 device id
+   * @throws IOException if the tags cannot be persisted
    */
-  void addTags(Map<String, String> tags, int id);
+  void addTags(Map<String, String> tags, int id) throws IOException;
 
   /**
    * delete tags and id using delete request context
@@ -24,8 +24,10 @@ import org.apache.iotdb.db.metadata.tagSchemaRegion.config.TagSchemaDescriptor;
 import org.apache.iotdb.db.metadata.tagSchemaRegion.tagIndex.Request.DeletionRequest;
 import org.apache.iotdb.db.metadata.tagSchemaRegion.tagIndex.Request.InsertionRequest;
 import org.apache.iotdb.db.metadata.tagSchemaRegion.tagIndex.Request.QueryRequest;
+import org.apache.iotdb.db.metadata.tagSchemaRegion.tagIndex.memtable.MemTable;
 import org.apache.iotdb.db.metadata.tagSchemaRegion.tagIndex.memtable.MemTableGroup;
 import org.apache.iotdb.db.metadata.tagSchemaRegion.tagIndex.response.QueryResponse;
+import org.apache.iotdb.db.metadata.tagSchemaRegion.tagIndex.segment.TagIndexSegmentManager;
 import org.apache.iotdb.db.metadata.tagSchemaRegion.tagIndex.wal.WALEntry;
 import org.apache.iotdb.db.metadata.tagSchemaRegion.tagIndex.wal.WALManager;
 import org.apache.iotdb.lsm.engine.LSMEngine;
@@ -35,11 +37,15 @@ import org.roaringbitmap.RoaringBitmap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
 /** tag inverted index, tag is <tagkey,tagValue> and id is int32 auto increment id */
@@ -58,6 +64,20 @@ public class TagInvertedIndex implements ITagInvertedIndex {
   // index
   LSMEngine<MemTableGroup> lsmEngine;
 
+  // root memory node, used to manage working and immutableMemTables
+  private MemTableGroup memTableGroup;
+
+  private WALManager walManager;
+
+  // manage the segments flushed from immutableMemTables
+  private TagIndexSegmentManager segmentManager;
+
+  // whether a flush of immutableMemTables is submitted and not finished, guarded by this
+  private boolean flushing = false;
+
+  // the failure of the last flush, reported on the next insertion, guarded by this
+  private IOException flushFailure;
+
   /**
    * initialization method
    *
@@ -65,16 +85,15 @@ public class TagInvertedIndex implements ITagInvertedIndex {
    */
   public TagInvertedIndex(String schemaDirPath) {
     try {
-      WALManager walManager =
+      walManager =
           new WALManager(
               schemaDirPath,
               WAL_FILE_NAME,
               tagSchemaConfig.getWalBufferSize(),
               new WALEntry(),
               false);
-      // root memory node, used to manage working and immutableMemTables
-      MemTableGroup memTableGroup =
-          new MemTableGroup(tagSchemaConfig.getNumOfDeviceIdsInMemTable());
+      memTableGroup = new MemTableGroup(tagSchemaConfig.getNumOfDeviceIdsInMemTable());
+      segmentManager = new TagIndexSegmentManager(schemaDirPath);
 
       // build lsm engine
       lsmEngine =
@@ -83,8 +102,12 @@ public class TagInvertedIndex implements ITagInvertedIndex {
               .buildRootMemNode(memTableGroup)
               .build();
 
-      // recover the lsm engine
+      // recover the lsm engine, the memTables already flushed before restart are dropped
       lsmEngine.recover();
+      Map.Entry<Integer, MemTable> entry;
+      while ((entry = getFirstImmutableMemTable()) != null) {
+        flushImmutableMemTable(entry.getKey(), entry.getValue());
+      }
     } catch (IOException e) {
       logger.info("TagInvertedIndex initialization failed");
       logger.error(e.getMessage());
@@ -96,14 +119,25 @@ public class TagInvertedIndex implements ITagInvertedIndex {
    *
    * @param tags tags like: <tagKey,tagValue>
    * @param id INT32 device id
+   * @throws IOException if the last flush of immutableMemTables failed, the flush is retried on the
+   *     next insertion
    */
   @Override
-  public synchronized void addTags(Map<String, String> tags, int id) {
+  public synchronized void addTags(Map<String, String> tags, int id) throws IOException {
+    if (flushFailure != null) {
+      IOException e = flushFailure;
+      flushFailure = null;
+      throw e;
+    }
     for (Map.Entry<String, String> tag : tags.entrySet()) {
       InsertionRequest insertionRequest =
           new InsertionRequest(generateKeys(tag.getKey(), tag.getValue()), id);
       lsmEngine.insert(insertionRequest);
     }
+    if (!flushing && !memTableGroup.getImmutableMemTables().isEmpty()) {
+      flushing = true;
+      segmentManager.submit(this::flushImmutableMemTables);
+    }
   }
 
   /**
@@ -114,6 +148,14 @@ public class TagInvertedIndex implements ITagInvertedIndex {
    */
   @Override
   public synchronized void removeTags(Map<String, String> tags, int id) {
+    try {
+      if (segmentManager.delete(id)) {
+        return;
+      }
+    } catch (IOException e) {
+      logger.error("Failed to delete device {} from tag index segment", id, e);
+      return;
+    }
     for (Map.Entry<String, String> tag : tags.entrySet()) {
       DeletionRequest deletionRequest =
           new DeletionRequest(generateKeys(tag.getKey(), tag.getValue()), id);
@@ -167,7 +209,94 @@ public class TagInvertedIndex implements ITagInvertedIndex {
   private RoaringBitmap getMatchedIDs(String tagKey, String tagValue) {
     QueryRequest queryRequest = new QueryRequest(generateKeys(tagKey, tagValue));
     QueryResponse response = lsmEngine.query(queryRequest);
-    return response.getValue();
+    RoaringBitmap memTableIds = response.getValue();
+    RoaringBitmap segmentIds;
+    try {
+      segmentIds = segmentManager.query(tagKey, tagValue);
+    } catch (IOException e) {
+      logger.error("Failed to query tag index segments", e);
+      segmentIds = null;
+    }
+    if (memTableIds == null || segmentIds == null) {
+      return memTableIds == null ? segmentIds : memTableIds;
+    }
+    return RoaringBitmap.or(memTableIds, segmentIds);
+  }
+
+  /**
+   * Flush immutableMemTables into segments in the order of ids, run in the background thread of
+   * segments. A memTable is kept for queries and deletions until its segment is committed.
+   */
+  private void flushImmutableMemTables() {
+    try {
+      Map.Entry<Integer, MemTable> entry;
+      while ((entry = getFirstImmutableMemTable()) != null) {
+        flushImmutableMemTable(entry.getKey(), entry.getValue());
+      }
+    } catch (IOException e) {
+      logger.error("Failed to flush immutable memTables of tag inverted index", e);
+      synchronized (this) {
+        flushFailure = e;
+        flushing = false;
+      }
+    }
+  }
+
+  /** @return null if there is no immutableMemTable, and the flush is finished */
+  private synchronized Map.Entry<Integer, MemTable> getFirstImmutableMemTable() {
+    Map<Integer, MemTable> immutableMemTables = memTableGroup.getImmutableMemTables();
+    if (immutableMemTables.isEmpty()) {
+      flushing = false;
+      return null;
+    }
+    return new TreeMap<>(immutableMemTables).firstEntry();
+  }
+
+  /**
+   * Write the memTable into a segment without holding the lock, as an immutableMemTable only
+   * receives deletions. The segment is committed together with the deletions arriving during the
+   * write, then the memTable is removed. The wal is truncated once no immutableMemTable is left, so
+   * that only the working memTable needs replaying on restart.
+   */
+  private void flushImmutableMemTable(int index, MemTable memTable) throws IOException {
+    int numOfDeviceIdsInMemTable = memTableGroup.getNumOfDeviceIdsInMemTable();
+    int minId = index * numOfDeviceIdsInMemTable;
+    int maxId = (int) Math.min(Integer.MAX_VALUE, (long) minId + numOfDeviceIdsInMemTable - 1);
+    RoaringBitmap deletedIds;
+    synchronized (this) {
+      deletedIds = toBitmap(memTable.getDeletionList());
+    }
+    File file = null;
+    // the memTable may be recovered from wal records which had been flushed before restart
+    if (!memTable.getMemChunkGroupMap().isEmpty() && !segmentManager.covers(minId)) {
+      file = segmentManager.write(memTable, deletedIds, minId, maxId);
+    }
+
+    synchronized (this) {
+      if (file != null) {
+        segmentManager.commit(
+            file, RoaringBitmap.andNot(toBitmap(memTable.getDeletionList()), deletedIds));
+      }
+      Map<Integer, MemTable> immutableMemTables = memTableGroup.getImmutableMemTables();
+      immutableMemTables.remove(index);
+      if (immutableMemTables.isEmpty()) {
+        walManager.rewrite(memTableGroup.getWorkingMemTable());
+      }
+    }
+  }
+
+  private RoaringBitmap toBitmap(Set<Integer> ids) {
+    RoaringBitmap bitmap = new RoaringBitmap();
+    for (Integer id : ids) {
+      bitmap.add(id);
+    }
+    return bitmap;
+  }
+
+  /** Wait until the submitted flush of immutableMemTables and the merges of segments finish. */
+  @TestOnly
+  public void waitForFlush() throws InterruptedException, ExecutionException {
+    segmentManager.waitForTasks();
   }
 
   /**
@@ -179,5 +308,6 @@ public class TagInvertedIndex implements ITagInvertedIndex {
   @TestOnly
   public void clear() throws IOException {
     lsmEngine.clear();
+    segmentManager.close();
   }
 }
@@ -48,8 +48,12 @@ public class MemTableGroupDeletion
     if (memNode.inWorkingMemTable(id)) {
       memTables.add(memNode.getWorkingMemTable());
     } else {
-      memTables.add(
-          memNode.getImmutableMemTables().get(id / memNode.getNumOfDeviceIdsInMemTable()));
+      // the memTable may have been flushed into a segment
+      MemTable memTable =
+          memNode.getImmutableMemTables().get(id / memNode.getNumOfDeviceIdsInMemTable());
+      if (memTable != null) {
+        memTables.add(memTable);
+      }
     }
     return memTables;
   }
@@ -42,6 +42,10 @@ public class MemChunkGroup {
     return memChunkMap.toString();
   }
 
+  public Map<String, MemChunk> getMemChunkMap() {
+    return memChunkMap;
+  }
+
   public MemChunk get(String tagValue) {
     return memChunkMap.get(tagValue);
   }
@@ -65,6 +65,10 @@ public class MemTable {
         + '}';
   }
 
+  public Map<String, MemChunkGroup> getMemChunkGroupMap() {
+    return memChunkGroupMap;
+  }
+
   public MemChunkGroup get(String tagKey) {
     return memChunkGroupMap.get(tagKey);
   }
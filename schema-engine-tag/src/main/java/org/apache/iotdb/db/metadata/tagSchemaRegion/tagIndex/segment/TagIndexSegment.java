@@ -0,0 +1,353 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata.tagSchemaRegion.tagIndex.segment;
+
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An immutable on-disk segment of the tag inverted index, holding the posting bitmaps of all tags
+ * for devices whose id is within [minId, maxId]. The file is memory-mapped and a posting bitmap is
+ * only deserialized when queried.
+ *
+ * <p>File layout: serialized bitmaps | tag index | index offset (int) | magic number (int), where
+ * the tag index records tagKey -> tagValue -> offset of the bitmap. Devices deleted after the
+ * segment is written are appended to a separate deletion file.
+ */
+public class TagIndexSegment {
+
+  public static final String SEGMENT_FILE_PREFIX = "tag_index_segment";
+  public static final String SEGMENT_FILE_SUFFIX = ".seg";
+  public static final String DELETION_FILE_SUFFIX = ".del";
+  public static final String TMP_FILE_SUFFIX = ".tmp";
+
+  private static final String SEPARATOR = "-";
+  private static final int MAGIC_NUMBER = 0x7461_6773;
+  private static final int FOOTER_SIZE = 2 * Integer.BYTES;
+
+  private final File file;
+  private final int minId;
+  private final int maxId;
+  // number of merges the segment has experienced
+  private final int level;
+
+  private final MappedByteBuffer buffer;
+  // tagKey -> tagValue -> offset of the bitmap in file
+  private final Map<String, Map<String, Integer>> offsets;
+
+  private final RoaringBitmap deletedIds;
+  private FileOutputStream deletionOutput;
+
+  private TagIndexSegment(File file, int minId, int maxId, int level) throws IOException {
+    this.file = file;
+    this.minId = minId;
+    this.maxId = maxId;
+    this.level = level;
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    this.offsets = readIndex(buffer, file);
+    this.deletedIds = readDeletions(getDeletionFile(file));
+  }
+
+  /**
+   * Write the posting bitmaps into a temporary file, which becomes a segment after {@link
+   * #commit(File, RoaringBitmap)}.
+   *
+   * @param postings tagKey -> tagValue -> ids, the empty bitmaps are skipped
+   * @return the segment file to commit
+   */
+  public static File write(
+      File dir, int minId, int maxId, int level, Map<String, Map<String, RoaringBitmap>> postings)
+      throws IOException {
+    File file = new File(dir, getFileName(minId, maxId, level));
+    Map<String, Map<String, Integer>> index = new TreeMap<>();
+    try (FileOutputStream fileOutputStream = new FileOutputStream(getTmpFile(file));
+        DataOutputStream outputStream =
+            new DataOutputStream(new BufferedOutputStream(fileOutputStream))) {
+      for (Map.Entry<String, Map<String, RoaringBitmap>> keyEntry :
+          new TreeMap<>(postings).entrySet()) {
+        for (Map.Entry<String, RoaringBitmap> valueEntry :
+            new TreeMap<>(keyEntry.getValue()).entrySet()) {
+          if (valueEntry.getValue().isEmpty()) {
+            continue;
+          }
+          index
+              .computeIfAbsent(keyEntry.getKey(), k -> new TreeMap<>())
+              .put(valueEntry.getKey(), outputStream.size());
+          valueEntry.getValue().runOptimize();
+          valueEntry.getValue().serialize(outputStream);
+        }
+      }
+
+      int indexOffset = outputStream.size();
+      ReadWriteIOUtils.write(index.size(), outputStream);
+      for (Map.Entry<String, Map<String, Integer>> keyEntry : index.entrySet()) {
+        ReadWriteIOUtils.write(keyEntry.getKey(), outputStream);
+        ReadWriteIOUtils.write(keyEntry.getValue().size(), outputStream);
+        for (Map.Entry<String, Integer> valueEntry : keyEntry.getValue().entrySet()) {
+          ReadWriteIOUtils.write(valueEntry.getKey(), outputStream);
+          ReadWriteIOUtils.write(valueEntry.getValue(), outputStream);
+        }
+      }
+      ReadWriteIOUtils.write(indexOffset, outputStream);
+      ReadWriteIOUtils.write(MAGIC_NUMBER, outputStream);
+      outputStream.flush();
+      fileOutputStream.getFD().sync();
+    }
+    return file;
+  }
+
+  /**
+   * Make the written segment visible atomically and open it. The deletions, if any, are persisted
+   * before the segment appears.
+   */
+  public static TagIndexSegment commit(File file, RoaringBitmap deletedIds) throws IOException {
+    if (!deletedIds.isEmpty()) {
+      try (FileOutputStream outputStream = new FileOutputStream(getDeletionFile(file))) {
+        ByteBuffer content = ByteBuffer.allocate(deletedIds.getCardinality() * Integer.BYTES);
+        IntIterator iterator = deletedIds.getIntIterator();
+        while (iterator.hasNext()) {
+          content.putInt(iterator.next());
+        }
+        outputStream.write(content.array());
+        outputStream.getFD().sync();
+      }
+    }
+    Files.move(getTmpFile(file).toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+    return open(file);
+  }
+
+  public static TagIndexSegment open(File file) throws IOException {
+    int[] range = parseFileName(file.getName());
+    if (range == null) {
+      throw new IOException(String.format("Illegal tag index segment file name %s", file));
+    }
+    return new TagIndexSegment(file, range[0], range[1], range[2]);
+  }
+
+  public static boolean isSegmentFile(String fileName) {
+    return fileName.endsWith(SEGMENT_FILE_SUFFIX) && parseFileName(fileName) != null;
+  }
+
+  /** The deletion file shares the name of the segment with a different suffix. */
+  public static File getDeletionFile(File segmentFile) {
+    String name = segmentFile.getName();
+    return new File(
+        segmentFile.getParentFile(),
+        name.substring(0, name.length() - SEGMENT_FILE_SUFFIX.length()) + DELETION_FILE_SUFFIX);
+  }
+
+  public static File getTmpFile(File segmentFile) {
+    return new File(segmentFile.getParentFile(), segmentFile.getName() + TMP_FILE_SUFFIX);
+  }
+
+  private static String getFileName(int minId, int maxId, int level) {
+    return SEGMENT_FILE_PREFIX
+        + SEPARATOR
+        + minId
+        + SEPARATOR
+        + maxId
+        + SEPARATOR
+        + level
+        + SEGMENT_FILE_SUFFIX;
+  }
+
+  /** @return [minId, maxId, level], or null if it is not the name of a segment file */
+  private static int[] parseFileName(String fileName) {
+    if (!fileName.startsWith(SEGMENT_FILE_PREFIX + SEPARATOR)) {
+      return null;
+    }
+    int end = fileName.indexOf('.');
+    String[] items =
+        fileName
+            .substring(SEGMENT_FILE_PREFIX.length() + 1, end < 0 ? fileName.length() : end)
+            .split(SEPARATOR);
+    if (items.length != 3) {
+      return null;
+    }
+    try {
+      return new int[] {
+        Integer.parseInt(items[0]), Integer.parseInt(items[1]), Integer.parseInt(items[2])
+      };
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private static Map<String, Map<String, Integer>> readIndex(ByteBuffer buffer, File file)
+      throws IOException {
+    ByteBuffer duplicate = buffer.duplicate();
+    if (duplicate.limit() < FOOTER_SIZE) {
+      throw new IOException(String.format("Tag index segment %s is broken", file));
+    }
+    duplicate.position(duplicate.limit() - FOOTER_SIZE);
+    int indexOffset = ReadWriteIOUtils.readInt(duplicate);
+    if (ReadWriteIOUtils.readInt(duplicate) != MAGIC_NUMBER) {
+      throw new IOException(String.format("Tag index segment %s is broken", file));
+    }
+    duplicate.position(indexOffset);
+    int keyNum = ReadWriteIOUtils.readInt(duplicate);
+    Map<String, Map<String, Integer>> index = new HashMap<>(keyNum);
+    for (int i = 0; i < keyNum; i++) {
+      String tagKey = ReadWriteIOUtils.readString(duplicate);
+      int valueNum = ReadWriteIOUtils.readInt(duplicate);
+      Map<String, Integer> value2Offset = new HashMap<>(valueNum);
+      for (int j = 0; j < valueNum; j++) {
+        String tagValue = ReadWriteIOUtils.readString(duplicate);
+        value2Offset.put(tagValue, ReadWriteIOUtils.readInt(duplicate));
+      }
+      index.put(tagKey, value2Offset);
+    }
+    return index;
+  }
+
+  private static RoaringBitmap readDeletions(File deletionFile) throws IOException {
+    RoaringBitmap deletions = new RoaringBitmap();
+    if (deletionFile.exists()) {
+      ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(deletionFile.toPath()));
+      // a partially written id is ignored
+      while (content.remaining() >= Integer.BYTES) {
+        deletions.add(content.getInt());
+      }
+    }
+    return deletions;
+  }
+
+  public boolean covers(int id) {
+    return minId <= id && id <= maxId;
+  }
+
+  /**
+   * Get ids of devices with the tag.
+   *
+   * @return null if no device in this segment has the tag
+   */
+  public RoaringBitmap query(String tagKey, String tagValue) throws IOException {
+    Map<String, Integer> value2Offset = offsets.get(tagKey);
+    Integer offset = value2Offset == null ? null : value2Offset.get(tagValue);
+    if (offset == null) {
+      return null;
+    }
+    RoaringBitmap result = readBitmap(offset);
+    synchronized (deletedIds) {
+      result.andNot(deletedIds);
+    }
+    return result;
+  }
+
+  /** Get all postings in this segment with deleted devices excluded, used by merge. */
+  public Map<String, Map<String, RoaringBitmap>> readAll() throws IOException {
+    Map<String, Map<String, RoaringBitmap>> postings = new HashMap<>();
+    for (Map.Entry<String, Map<String, Integer>> keyEntry : offsets.entrySet()) {
+      Map<String, RoaringBitmap> value2Ids = new HashMap<>();
+      for (Map.Entry<String, Integer> valueEntry : keyEntry.getValue().entrySet()) {
+        RoaringBitmap ids = query(keyEntry.getKey(), valueEntry.getKey());
+        if (ids != null && !ids.isEmpty()) {
+          value2Ids.put(valueEntry.getKey(), ids);
+        }
+      }
+      if (!value2Ids.isEmpty()) {
+        postings.put(keyEntry.getKey(), value2Ids);
+      }
+    }
+    return postings;
+  }
+
+  private RoaringBitmap readBitmap(int offset) throws IOException {
+    ByteBuffer duplicate = buffer.duplicate();
+    duplicate.position(offset);
+    RoaringBitmap bitmap = new RoaringBitmap();
+    bitmap.deserialize(duplicate);
+    return bitmap;
+  }
+
+  /** Mark the device as deleted, the deletion is appended to the deletion file. */
+  public void delete(int id) throws IOException {
+    synchronized (deletedIds) {
+      if (!deletedIds.checkedAdd(id)) {
+        return;
+      }
+      if (deletionOutput == null) {
+        deletionOutput = new FileOutputStream(getDeletionFile(file), true);
+      }
+      deletionOutput.write(ByteBuffer.allocate(Integer.BYTES).putInt(id).array());
+    }
+  }
+
+  public RoaringBitmap getDeletedIds() {
+    synchronized (deletedIds) {
+      return deletedIds.clone();
+    }
+  }
+
+  public void close() throws IOException {
+    synchronized (deletedIds) {
+      if (deletionOutput != null) {
+        deletionOutput.close();
+        deletionOutput = null;
+      }
+    }
+  }
+
+  /** Remove files of the segment, the mapped buffer is released once unreachable. */
+  public void deleteFiles() throws IOException {
+    close();
+    Files.deleteIfExists(getDeletionFile(file).toPath());
+    Files.deleteIfExists(file.toPath());
+  }
+
+  public File getFile() {
+    return file;
+  }
+
+  public int getMinId() {
+    return minId;
+  }
+
+  public int getMaxId() {
+    return maxId;
+  }
+
+  public int getLevel() {
+    return level;
+  }
+
+  @Override
+  public String toString() {
+    return "TagIndexSegment{" + "file=" + file + '}';
+  }
+}
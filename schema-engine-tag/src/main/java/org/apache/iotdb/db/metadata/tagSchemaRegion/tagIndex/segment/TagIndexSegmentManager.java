@@ -0,0 +1,416 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata.tagSchemaRegion.tagIndex.segment;
+
+import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.commons.concurrent.ThreadName;
+import org.apache.iotdb.commons.utils.TestOnly;
+import org.apache.iotdb.db.metadata.tagSchemaRegion.config.TagSchemaConfig;
+import org.apache.iotdb.db.metadata.tagSchemaRegion.config.TagSchemaDescriptor;
+import org.apache.iotdb.db.metadata.tagSchemaRegion.tagIndex.memtable.MemChunk;
+import org.apache.iotdb.db.metadata.tagSchemaRegion.tagIndex.memtable.MemChunkGroup;
+import org.apache.iotdb.db.metadata.tagSchemaRegion.tagIndex.memtable.MemTable;
+
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Manage the on-disk segments of a tag inverted index. Immutable memTables are flushed into
+ * segments of level 0, and once enough segments of the same level accumulate, they are merged into
+ * one segment of the next level, so the number of segments grows logarithmically. Both flushes and
+ * merges run in a background thread.
+ *
+ * <p>Segments cover disjoint id ranges and are kept in the order of ids. As device ids are
+ * allocated incrementally, segments of the same level are always adjacent.
+ */
+public class TagIndexSegmentManager {
+
+  private static final Logger logger = LoggerFactory.getLogger(TagIndexSegmentManager.class);
+
+  private static final TagSchemaConfig tagSchemaConfig =
+      TagSchemaDescriptor.getInstance().getTagSchemaConfig();
+
+  private final File dir;
+
+  // replaced as a whole on modification, guarded by lock
+  private List<TagIndexSegment> segments;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  // flushes and merges run in the same thread
+  private ExecutorService executor;
+  private final AtomicBoolean mergeScheduled = new AtomicBoolean(false);
+  private volatile boolean closed = false;
+
+  public TagIndexSegmentManager(String dirPath) throws IOException {
+    this.dir = new File(dirPath);
+    this.segments = recover();
+  }
+
+  private List<TagIndexSegment> recover() throws IOException {
+    List<TagIndexSegment> recovered = new ArrayList<>();
+    File[] files = dir.listFiles();
+    if (files == null) {
+      return recovered;
+    }
+    List<TagIndexSegment> opened = new ArrayList<>();
+    for (File file : files) {
+      String name = file.getName();
+      if (!name.startsWith(TagIndexSegment.SEGMENT_FILE_PREFIX)) {
+        continue;
+      }
+      if (name.endsWith(TagIndexSegment.TMP_FILE_SUFFIX)) {
+        Files.deleteIfExists(file.toPath());
+      } else if (TagIndexSegment.isSegmentFile(name)) {
+        opened.add(TagIndexSegment.open(file));
+      }
+    }
+
+    // a merged segment appears before its sources are removed, so segments covered by another one
+    // are the sources of an interrupted merge
+    opened.sort(
+        Comparator.comparingInt(TagIndexSegment::getMinId)
+            .thenComparing(TagIndexSegment::getMaxId, Comparator.reverseOrder()));
+    for (TagIndexSegment segment : opened) {
+      if (!recovered.isEmpty()
+          && segment.getMaxId() <= recovered.get(recovered.size() - 1).getMaxId()) {
+        logger.info("Remove tag index segment {} which has been merged", segment.getFile());
+        segment.deleteFiles();
+      } else {
+        recovered.add(segment);
+      }
+    }
+
+    // deletion files written by an interrupted merge
+    for (File file : files) {
+      String name = file.getName();
+      if (name.startsWith(TagIndexSegment.SEGMENT_FILE_PREFIX)
+          && name.endsWith(TagIndexSegment.DELETION_FILE_SUFFIX)) {
+        String segmentName =
+            name.substring(0, name.length() - TagIndexSegment.DELETION_FILE_SUFFIX.length())
+                + TagIndexSegment.SEGMENT_FILE_SUFFIX;
+        if (!new File(dir, segmentName).exists()) {
+          Files.deleteIfExists(file.toPath());
+        }
+      }
+    }
+    return recovered;
+  }
+
+  /**
+   * Write the immutable memTable holding devices of [minId, maxId] into a segment file, which
+   * becomes visible after {@link #commit(File, RoaringBitmap)}.
+   *
+   * @param deletedIds devices deleted from the memTable, they are excluded from the segment
+   */
+  public File write(MemTable memTable, RoaringBitmap deletedIds, int minId, int maxId)
+      throws IOException {
+    Map<String, Map<String, RoaringBitmap>> postings = new HashMap<>();
+    for (Map.Entry<String, MemChunkGroup> keyEntry : memTable.getMemChunkGroupMap().entrySet()) {
+      Map<String, RoaringBitmap> value2Ids = new HashMap<>();
+      for (Map.Entry<String, MemChunk> valueEntry :
+          keyEntry.getValue().getMemChunkMap().entrySet()) {
+        value2Ids.put(
+            valueEntry.getKey(),
+            RoaringBitmap.andNot(valueEntry.getValue().getRoaringBitmap(), deletedIds));
+      }
+      postings.put(keyEntry.getKey(), value2Ids);
+    }
+    return TagIndexSegment.write(dir, minId, maxId, 0, postings);
+  }
+
+  /**
+   * Make the segment file written by {@link #write(MemTable, RoaringBitmap, int, int)} durable and
+   * visible to queries.
+   *
+   * @param deletedIds devices deleted after the segment file is written
+   */
+  public void commit(File file, RoaringBitmap deletedIds) throws IOException {
+    TagIndexSegment segment = TagIndexSegment.commit(file, deletedIds);
+    lock.writeLock().lock();
+    try {
+      List<TagIndexSegment> newSegments = new ArrayList<>(segments);
+      newSegments.add(segment);
+      newSegments.sort(Comparator.comparingInt(TagIndexSegment::getMinId));
+      segments = newSegments;
+    } finally {
+      lock.writeLock().unlock();
+    }
+    scheduleMergeIfNecessary();
+  }
+
+  /**
+   * Run the task in the background thread of segments, so flushes and merges never run
+   * concurrently.
+   */
+  public synchronized void submit(Runnable task) {
+    if (closed) {
+      return;
+    }
+    getExecutor().submit(task);
+  }
+
+  /** @return true if the device belongs to a flushed segment */
+  public boolean covers(int id) {
+    lock.readLock().lock();
+    try {
+      return findSegment(id) != null;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Get ids of devices with the tag among all segments.
+   *
+   * @return null if no segment contains the tag
+   */
+  public RoaringBitmap query(String tagKey, String tagValue) throws IOException {
+    lock.readLock().lock();
+    try {
+      RoaringBitmap result = null;
+      for (TagIndexSegment segment : segments) {
+        RoaringBitmap ids = segment.query(tagKey, tagValue);
+        if (ids == null) {
+          continue;
+        }
+        if (result == null) {
+          result = ids;
+        } else {
+          result.or(ids);
+        }
+      }
+      return result;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Delete the device from the segment it belongs to.
+   *
+   * @return false if the device does not belong to any segment
+   */
+  public boolean delete(int id) throws IOException {
+    lock.readLock().lock();
+    try {
+      TagIndexSegment segment = findSegment(id);
+      if (segment == null) {
+        return false;
+      }
+      segment.delete(id);
+      return true;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private TagIndexSegment findSegment(int id) {
+    int low = 0;
+    int high = segments.size() - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      TagIndexSegment segment = segments.get(mid);
+      if (id < segment.getMinId()) {
+        high = mid - 1;
+      } else if (id > segment.getMaxId()) {
+        low = mid + 1;
+      } else {
+        return segment;
+      }
+    }
+    return null;
+  }
+
+  private synchronized void scheduleMergeIfNecessary() {
+    if (closed || selectMergeSources() == null || !mergeScheduled.compareAndSet(false, true)) {
+      return;
+    }
+    getExecutor().submit(this::mergeSegments);
+  }
+
+  private ExecutorService getExecutor() {
+    if (executor == null) {
+      executor =
+          IoTDBThreadPoolFactory.newSingleThreadExecutor(
+              ThreadName.TAG_INDEX_SEGMENT_FLUSH_MERGE.getName());
+    }
+    return executor;
+  }
+
+  private void mergeSegments() {
+    try {
+      List<TagIndexSegment> sources;
+      while (!closed && (sources = selectMergeSources()) != null) {
+        merge(sources);
+      }
+    } catch (IOException e) {
+      logger.error("Failed to merge tag index segments in {}", dir, e);
+    } finally {
+      mergeScheduled.set(false);
+    }
+  }
+
+  /** Select the first run of adjacent segments of the same level which is long enough. */
+  private List<TagIndexSegment> selectMergeSources() {
+    int mergeNum = tagSchemaConfig.getNumOfSegmentsToMerge();
+    if (mergeNum < 2) {
+      return null;
+    }
+    lock.readLock().lock();
+    try {
+      int runStart = 0;
+      for (int i = 1; i < segments.size(); i++) {
+        if (segments.get(i).getLevel() != segments.get(runStart).getLevel()) {
+          runStart = i;
+        } else if (i - runStart + 1 == mergeNum) {
+          return new ArrayList<>(segments.subList(runStart, i + 1));
+        }
+      }
+      return null;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private void merge(List<TagIndexSegment> sources) throws IOException {
+    // deletions arriving during the merge are carried over to the merged segment on commit
+    List<RoaringBitmap> deletedIdsSnapshot = new ArrayList<>();
+    for (TagIndexSegment source : sources) {
+      deletedIdsSnapshot.add(source.getDeletedIds());
+    }
+    Map<String, Map<String, RoaringBitmap>> postings = new HashMap<>();
+    for (TagIndexSegment source : sources) {
+      for (Map.Entry<String, Map<String, RoaringBitmap>> keyEntry : source.readAll().entrySet()) {
+        Map<String, RoaringBitmap> value2Ids =
+            postings.computeIfAbsent(keyEntry.getKey(), k -> new HashMap<>());
+        for (Map.Entry<String, RoaringBitmap> valueEntry : keyEntry.getValue().entrySet()) {
+          RoaringBitmap ids = value2Ids.get(valueEntry.getKey());
+          if (ids == null) {
+            value2Ids.put(valueEntry.getKey(), valueEntry.getValue());
+          } else {
+            ids.or(valueEntry.getValue());
+          }
+        }
+      }
+    }
+
+    TagIndexSegment first = sources.get(0);
+    TagIndexSegment last = sources.get(sources.size() - 1);
+    File file =
+        TagIndexSegment.write(
+            dir, first.getMinId(), last.getMaxId(), first.getLevel() + 1, postings);
+
+    lock.writeLock().lock();
+    try {
+      if (closed) {
+        Files.deleteIfExists(TagIndexSegment.getTmpFile(file).toPath());
+        return;
+      }
+      RoaringBitmap newDeletedIds = new RoaringBitmap();
+      for (int i = 0; i < sources.size(); i++) {
+        RoaringBitmap deletedIds = sources.get(i).getDeletedIds();
+        deletedIds.andNot(deletedIdsSnapshot.get(i));
+        newDeletedIds.or(deletedIds);
+      }
+      TagIndexSegment merged = TagIndexSegment.commit(file, newDeletedIds);
+
+      List<TagIndexSegment> newSegments = new ArrayList<>(segments);
+      int index = newSegments.indexOf(first);
+      newSegments.subList(index, index + sources.size()).clear();
+      newSegments.add(index, merged);
+      segments = newSegments;
+      for (TagIndexSegment source : sources) {
+        source.deleteFiles();
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+    logger.info(
+        "Merged {} tag index segments of level {} in {}", sources.size(), first.getLevel(), dir);
+  }
+
+  public List<TagIndexSegment> getSegments() {
+    lock.readLock().lock();
+    try {
+      return Collections.unmodifiableList(segments);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** Wait until the submitted flushes and the scheduled merges are finished. */
+  @TestOnly
+  public void waitForTasks() throws InterruptedException, ExecutionException {
+    Future<?> future;
+    do {
+      synchronized (this) {
+        if (executor == null) {
+          return;
+        }
+        future = executor.submit(() -> {});
+      }
+      future.get();
+    } while (mergeScheduled.get());
+  }
+
+  /** Wait for the running flushes and merge, then release all segments. */
+  public void close() throws IOException {
+    synchronized (this) {
+      closed = true;
+      if (executor != null) {
+        executor.shutdown();
+      }
+    }
+    if (executor != null) {
+      try {
+        if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+          logger.warn("Tasks of tag index segments in {} are not finished in time", dir);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    lock.writeLock().lock();
+    try {
+      for (TagIndexSegment segment : segments) {
+        segment.close();
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+}
@@ -20,14 +20,24 @@ package org.apache.iotdb.db.metadata.tagSchemaRegion.tagIndex.wal;
 
 import org.apache.iotdb.db.metadata.tagSchemaRegion.tagIndex.Request.DeletionRequest;
 import org.apache.iotdb.db.metadata.tagSchemaRegion.tagIndex.Request.InsertionRequest;
+import org.apache.iotdb.db.metadata.tagSchemaRegion.tagIndex.memtable.MemChunk;
+import org.apache.iotdb.db.metadata.tagSchemaRegion.tagIndex.memtable.MemChunkGroup;
+import org.apache.iotdb.db.metadata.tagSchemaRegion.tagIndex.memtable.MemTable;
 import org.apache.iotdb.lsm.request.IRequest;
 import org.apache.iotdb.lsm.wal.IWALRecord;
 import org.apache.iotdb.lsm.wal.WALReader;
+import org.apache.iotdb.lsm.wal.WALWriter;
 
+import org.roaringbitmap.IntIterator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Map;
 
 /** Manage wal entry writes and reads */
 public class WALManager extends org.apache.iotdb.lsm.manager.WALManager {
@@ -38,6 +48,14 @@ public class WALManager extends org.apache.iotdb.lsm.manager.WALManager {
 
   private static final int DELETE = 2;
 
+  private static final String TMP_FILE_SUFFIX = ".tmp";
+
+  private int walBufferSize;
+
+  private IWALRecord walRecord;
+
+  private boolean forceEachWrite;
+
   public WALManager(
       String schemaDirPath,
       String walFileName,
@@ -46,6 +64,11 @@ public class WALManager extends org.apache.iotdb.lsm.manager.WALManager {
       boolean forceEachWrite)
       throws IOException {
     super(schemaDirPath, walFileName, walBufferSize, walRecord, forceEachWrite);
+    this.walBufferSize = walBufferSize;
+    this.walRecord = walRecord;
+    this.forceEachWrite = forceEachWrite;
+    // left by an interrupted rewrite
+    Files.deleteIfExists(getTmpFile().toPath());
   }
 
   public WALManager(String schemaDirPath) {
@@ -97,6 +120,52 @@ public class WALManager extends org.apache.iotdb.lsm.manager.WALManager {
     return null;
   }
 
+  /**
+   * Replace the wal with the content of the working memTable, after immutable memTables have been
+   * flushed into segments and their records are no longer needed for recovery.
+   *
+   * @param workingMemTable working memTable
+   * @throws IOException
+   */
+  public synchronized void rewrite(MemTable workingMemTable) throws IOException {
+    File walFile = getWalFile();
+    File tmpFile = getTmpFile();
+    WALWriter tmpWriter = new WALWriter(tmpFile, walBufferSize, false);
+    try {
+      for (Map.Entry<String, MemChunkGroup> keyEntry :
+          workingMemTable.getMemChunkGroupMap().entrySet()) {
+        for (Map.Entry<String, MemChunk> valueEntry :
+            keyEntry.getValue().getMemChunkMap().entrySet()) {
+          IntIterator iterator = valueEntry.getValue().getRoaringBitmap().getIntIterator();
+          while (iterator.hasNext()) {
+            tmpWriter.write(
+                new WALEntry(
+                    INSERT,
+                    Arrays.asList(keyEntry.getKey(), valueEntry.getKey()),
+                    iterator.next()));
+          }
+        }
+      }
+    } finally {
+      // force on close
+      tmpWriter.close();
+    }
+
+    getWalWriter().close();
+    getWalReader().close();
+    Files.move(
+        tmpFile.toPath(),
+        walFile.toPath(),
+        StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    setWalWriter(new WALWriter(walFile, walBufferSize, forceEachWrite));
+    setWalReader(new WALReader(walFile, walRecord));
+  }
+
+  private File getTmpFile() {
+    return new File(getWalFile().getPath() + TMP_FILE_SUFFIX);
+  }
+
   /**
    * generate insert context from wal entry
    *
@@ -36,6 +36,8 @@ import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 public class TagTagInvertedIndexTest {
   private String[][] record =
@@ -93,7 +95,7 @@ public class TagTagInvertedIndexTest {
     FileUtils.deleteDirectoryAndEmptyParent(new File(schemaDir));
   }
 
-  public void addTags() {
+  public void addTags() throws IOException {
     List<Pair<Map<String, String>, Integer>> records = generateTags();
     for (Pair<Map<String, String>, Integer> pair : records) {
       tagInvertedIndex.addTags(pair.left, pair.right);
@@ -112,7 +114,7 @@ public class TagTagInvertedIndexTest {
   }
 
   @Test
-  public void getMatchedIDs() {
+  public void getMatchedIDs() throws IOException {
     addTags();
     Map<String, String> tags1 = new HashMap<>();
     tags1.put("tag1", "q");
@@ -141,7 +143,7 @@ public class TagTagInvertedIndexTest {
   }
 
   @Test
-  public void testRecover() throws IOException {
+  public void testRecover() throws Exception {
     Map<String, String> tags1 = new HashMap<>();
     tags1.put("tag1", "q");
 
@@ -150,6 +152,7 @@ public class TagTagInvertedIndexTest {
     tags2.put("tag2", "a");
     addTags();
     removeTags();
+    tagInvertedIndex.waitForFlush();
 
     tagInvertedIndex.clear();
     tagInvertedIndex = new TagInvertedIndex(schemaRegionDirPath);
@@ -163,6 +166,58 @@ public class TagTagInvertedIndexTest {
     assertEquals(verify, ids);
   }
 
+  @Test
+  public void testSegmentFlush() throws Exception {
+    Map<String, String> tags1 = new HashMap<>();
+    tags1.put("tag1", "q");
+    addTags();
+    tagInvertedIndex.waitForFlush();
+
+    File[] segments =
+        new File(schemaRegionDirPath).listFiles(file -> file.getName().endsWith(".seg"));
+    assertTrue(segments != null && segments.length > 0);
+
+    removeTags();
+    tagInvertedIndex.clear();
+    tagInvertedIndex = new TagInvertedIndex(schemaRegionDirPath);
+
+    List<Integer> ids = tagInvertedIndex.getMatchedIDs(tags1);
+    List<Integer> verify = Arrays.asList(3, 5, 7, 15, 16, 18);
+    assertEquals(verify, ids);
+  }
+
+  @Test
+  public void testSegmentMerge() throws Exception {
+    int numOfSegmentsToMerge =
+        TagSchemaDescriptor.getInstance().getTagSchemaConfig().getNumOfSegmentsToMerge();
+    TagSchemaDescriptor.getInstance().getTagSchemaConfig().setNumOfSegmentsToMerge(2);
+    try {
+      Map<String, String> tags1 = new HashMap<>();
+      tags1.put("tag1", "q");
+      addTags();
+      tagInvertedIndex.waitForFlush();
+
+      // ids of [0, 17] are flushed into 6 segments, which are merged into segments of [0, 11]
+      // and [12, 17]
+      File[] segments =
+          new File(schemaRegionDirPath).listFiles(file -> file.getName().endsWith(".seg"));
+      assertNotNull(segments);
+      assertEquals(2, segments.length);
+
+      removeTags();
+      List<Integer> verify = Arrays.asList(3, 5, 7, 15, 16, 18);
+      assertEquals(verify, tagInvertedIndex.getMatchedIDs(tags1));
+
+      tagInvertedIndex.clear();
+      tagInvertedIndex = new TagInvertedIndex(schemaRegionDirPath);
+      assertEquals(verify, tagInvertedIndex.getMatchedIDs(tags1));
+    } finally {
+      TagSchemaDescriptor.getInstance()
+          .getTagSchemaConfig()
+          .setNumOfSegmentsToMerge(numOfSegmentsToMerge);
+    }
+  }
+
   private List<Pair<Map<String, String>, Integer>> generateTags() {
     List<Pair<Map<String, String>, Integer>> pairs = new ArrayList<>();
     for (String[] strings : record) {
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata.tagSchemaRegion.tagIndex.segment;
+
+import org.apache.iotdb.commons.utils.FileUtils;
+import org.apache.iotdb.db.metadata.tagSchemaRegion.config.TagSchemaDescriptor;
+import org.apache.iotdb.db.metadata.tagSchemaRegion.tagIndex.memtable.MemChunkGroup;
+import org.apache.iotdb.db.metadata.tagSchemaRegion.tagIndex.memtable.MemTable;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class TagIndexSegmentManagerTest {
+
+  private static final String DIR = "target" + File.separator + "tagIndexSegmentManagerTest";
+
+  private int numOfSegmentsToMerge;
+
+  private TagIndexSegmentManager segmentManager;
+
+  @Before
+  public void setUp() throws Exception {
+    numOfSegmentsToMerge =
+        TagSchemaDescriptor.getInstance().getTagSchemaConfig().getNumOfSegmentsToMerge();
+    TagSchemaDescriptor.getInstance().getTagSchemaConfig().setNumOfSegmentsToMerge(2);
+    new File(DIR).mkdirs();
+    segmentManager = new TagIndexSegmentManager(DIR);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    segmentManager.close();
+    TagSchemaDescriptor.getInstance()
+        .getTagSchemaConfig()
+        .setNumOfSegmentsToMerge(numOfSegmentsToMerge);
+    FileUtils.deleteDirectory(new File(DIR));
+  }
+
+  @Test
+  public void testFlushWithDeletions() throws Exception {
+    MemTable memTable = createMemTable(0, 9);
+    File file = segmentManager.write(memTable, RoaringBitmap.bitmapOf(1), 0, 9);
+    // deleted after the segment file is written
+    segmentManager.commit(file, RoaringBitmap.bitmapOf(2));
+
+    assertEquals(RoaringBitmap.bitmapOf(0, 3, 4, 5, 6, 7, 8, 9), query("k", "v"));
+    assertEquals(RoaringBitmap.bitmapOf(0, 4, 6, 8), query("k", "even"));
+
+    segmentManager.close();
+    segmentManager = new TagIndexSegmentManager(DIR);
+    assertEquals(RoaringBitmap.bitmapOf(0, 3, 4, 5, 6, 7, 8, 9), query("k", "v"));
+  }
+
+  @Test
+  public void testMergeWithDeletions() throws Exception {
+    for (int i = 0; i < 4; i++) {
+      int minId = i * 10;
+      int maxId = minId + 9;
+      File file =
+          segmentManager.write(createMemTable(minId, maxId), new RoaringBitmap(), minId, maxId);
+      segmentManager.commit(file, new RoaringBitmap());
+      // deleted before the merge
+      segmentManager.delete(minId);
+    }
+    segmentManager.waitForTasks();
+
+    List<TagIndexSegment> segments = segmentManager.getSegments();
+    assertEquals(1, segments.size());
+    assertEquals(0, segments.get(0).getMinId());
+    assertEquals(39, segments.get(0).getMaxId());
+    assertEquals(2, segments.get(0).getLevel());
+
+    // deleted after the merge
+    segmentManager.delete(25);
+    RoaringBitmap expected = new RoaringBitmap();
+    expected.add(0L, 40L);
+    expected.remove(0);
+    expected.remove(10);
+    expected.remove(20);
+    expected.remove(25);
+    expected.remove(30);
+    assertEquals(expected, query("k", "v"));
+
+    segmentManager.close();
+    segmentManager = new TagIndexSegmentManager(DIR);
+    assertEquals(1, segmentManager.getSegments().size());
+    assertEquals(expected, query("k", "v"));
+  }
+
+  private RoaringBitmap query(String tagKey, String tagValue) throws IOException {
+    RoaringBitmap result = segmentManager.query(tagKey, tagValue);
+    return result == null ? new RoaringBitmap() : result;
+  }
+
+  /** All devices of [minId, maxId] have tag k=v, and the even ones also have tag k=even. */
+  private MemTable createMemTable(int minId, int maxId) {
+    MemTable memTable = new MemTable(MemTable.WORKING);
+    memTable.put("k");
+    MemChunkGroup memChunkGroup = memTable.get("k");
+    memChunkGroup.put("v");
+    memChunkGroup.put("even");
+    for (int id = minId; id <= maxId; id++) {
+      memChunkGroup.get("v").put(id);
+      if (id % 2 == 0) {
+        memChunkGroup.get("even").put(id);
+      }
+    }
+    memTable.setStatus(MemTable.IMMUTABLE);
+    return memTable;
+  }
+}
@@ -43,6 +43,7 @@ import org.apache.iotdb.rpc.RpcTransportFactory;
 import org.apache.iotdb.rpc.RpcUtils;
 import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
 import org.apache.iotdb.tsfile.common.constant.TsFileConstant;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.fileSystem.FSType;
@@ -289,6 +290,27 @@ public class IoTDBConfig {
   private String loadTsFileDir =
       dataDirs[0] + File.separator + IoTDBConstant.LOAD_TSFILE_FOLDER_NAME;
 
+  /**
+   * Directories of the cold tier. Sealed TsFiles in dataDirs are migrated to them when they get old
+   * or the disks of dataDirs get full. Tiered storage is disabled when it is empty.
+   */
+  private String[] coldDataDirs = {};
+
+  /** The interval of checking TsFiles to migrate to the cold tier. Unit: millisecond */
+  private long tieredStorageMigrateCheckIntervalInMs = 600_000L;
+
+  /** TsFiles older than this are migrated to the cold tier. Unit: millisecond */
+  private long tieredStorageMigrateFileAgeInMs = 7 * 24 * 3600 * 1000L;
+
+  /** TsFiles read more than this many times in one check interval stay in the hot tier */
+  private int tieredStorageMigrateReadCountThreshold = 10;
+
+  /** The oldest TsFiles are migrated regardless of age when the hot tier is used over this ratio */
+  private double tieredStorageHotSpaceUsageThreshold = 0.8;
+
+  /** The max throughput of migrating TsFiles. Unit: MB/s */
+  private int tieredStorageMigrateThroughputMbPerSec = 16;
+
   /** Strategy of multiple directories. */
   private String multiDirStrategyClassName = null;
 
@@ -323,6 +345,18 @@ public class IoTDBConfig {
   /** How many queries can be concurrently executed. When <= 0, use 1000. */
   private int maxAllowedConcurrentQueries = 1000;
 
+  /**
+   * How many distinct query shapes keep their parse tree cached, so that repeated queries which
+   * only differ in literals skip ANTLR parsing. When <= 0, the cache is disabled.
+   */
+  private int queryParseCacheSize = 1000;
+
+  /**
+   * How many per-window results of GROUP BY time aggregations are cached for windows covered only
+   * by sealed files without modifications. When <= 0, the cache is disabled.
+   */
+  private int aggregationResultCacheSize = 0;
+
   /** How many threads can concurrently evaluate windows. When <= 0, use CPU core number. */
   private int windowEvaluationThreadCount = Runtime.getRuntime().availableProcessors();
 
@@ -389,6 +423,13 @@ public class IoTDBConfig {
   /** When average series point number reaches this, flush the memtable to disk */
   private int avgSeriesPointNumberThreshold = 100000;
 
+  /**
+   * When > 0, flush and compaction seal pages at every multiple of this interval, so that the page
+   * statistics act as pre-aggregated rollups for GROUP BY intervals that are multiples of it. The
+   * unit is the same as timestamp_precision after the config is loaded.
+   */
+  private long rollupInterval = 0;
+
   /** Enable inner space compaction for sequence files */
   private boolean enableSeqSpaceCompaction = true;
 
@@ -488,6 +529,28 @@ public class IoTDBConfig {
 
   private boolean enableCompactionValidation = true;
 
+  /**
+   * Whether to adjust the running compaction thread number and the compaction write throughput
+   * according to the load of the system. When enabled, compaction_thread_count and
+   * compaction_write_throughput_mb_per_sec are used as upper bounds.
+   */
+  private boolean enableAdaptiveCompaction = false;
+
+  /** The interval of checking the system load for adaptive compaction. Unit: millisecond */
+  private long adaptiveCompactionCheckIntervalInMs = 10_000L;
+
+  /** Adaptive compaction backs off when the system cpu load is higher than this value */
+  private double adaptiveCompactionCpuLoadThreshold = 0.8;
+
+  /**
+   * Adaptive compaction backs off when more flush tasks than this value are waiting, i.e. flush
+   * can't keep up with writes
+   */
+  private int adaptiveCompactionPendingFlushTaskThreshold = 4;
+
+  /** Adaptive compaction backs off when more queries than this value run slowly */
+  private int adaptiveCompactionSlowQueryNumThreshold = 2;
+
   /** whether to cache meta data(ChunkMetaData and TsFileMetaData) or not. */
   private boolean metaDataCacheEnable = true;
 
@@ -630,6 +693,18 @@ public class IoTDBConfig {
   /** TEXT encoding when creating schema automatically is enabled */
   private TSEncoding defaultTextEncoding = TSEncoding.PLAIN;
 
+  /**
+   * How long a batch of concurrent auto-creation requests waits for more requests before being
+   * sent to the schema regions. 0 means only requests queued behind an in-flight batch are merged.
+   */
+  private long autoCreateSchemaBatchWindowInMs = 0;
+
+  /** Max number of timeseries auto-created by one batch */
+  private int autoCreateSchemaMaxBatchSize = 10000;
+
+  /** Compression of the schema trees sent back by schema fetch, UNCOMPRESSED or LZ4 for example */
+  private CompressionType schemaFetchCompressor = CompressionType.UNCOMPRESSED;
+
   /** How many threads will be set up to perform upgrade tasks. */
   private int upgradeThreadCount = 1;
 
@@ -835,6 +910,9 @@ public class IoTDBConfig {
   /** cache size for pages in one schema file */
   private int pageCacheSizeInSchemaFile = 1024;
 
+  /** whether to read pages of schema file through memory-mapped regions */
+  private boolean enableMmapInSchemaFile = false;
+
   /** maximum number of logged pages before log erased */
   private int schemaFileLogSize = 16384;
 
@@ -976,6 +1054,12 @@ public class IoTDBConfig {
   /** Memory allocated for LastCache */
   private long allocateMemoryForLastCache = allocateMemoryForSchema / 10;
 
+  /**
+   * The proportion of SchemaCache memory taken by devices using schema template, whose
+   * measurements are resolved through the template. 0 means caching them series by series.
+   */
+  private double deviceTemplateCacheProportion = 0.1;
+
   private String readConsistencyLevel = "strong";
 
   /** Maximum execution time of a DriverTask */
@@ -1152,11 +1236,17 @@ public class IoTDBConfig {
       for (int i = 0; i < dataDirs.length; i++) {
         dataDirs[i] = hdfsDir + File.separatorChar + dataDirs[i];
       }
+      for (int i = 0; i < coldDataDirs.length; i++) {
+        coldDataDirs[i] = hdfsDir + File.separatorChar + coldDataDirs[i];
+      }
     } else {
       queryDir = addDataHomeDir(queryDir);
       for (int i = 0; i < dataDirs.length; i++) {
         dataDirs[i] = addDataHomeDir(dataDirs[i]);
       }
+      for (int i = 0; i < coldDataDirs.length; i++) {
+        coldDataDirs[i] = addDataHomeDir(coldDataDirs[i]);
+      }
     }
   }
 
@@ -1253,6 +1343,56 @@ public class IoTDBConfig {
     setLoadTsFileDir(dataDirs[0] + File.separator + IoTDBConstant.LOAD_TSFILE_FOLDER_NAME);
   }
 
+  public String[] getColdDataDirs() {
+    return coldDataDirs;
+  }
+
+  public void setColdDataDirs(String[] coldDataDirs) {
+    this.coldDataDirs = coldDataDirs;
+  }
+
+  public long getTieredStorageMigrateCheckIntervalInMs() {
+    return tieredStorageMigrateCheckIntervalInMs;
+  }
+
+  public void setTieredStorageMigrateCheckIntervalInMs(long tieredStorageMigrateCheckIntervalInMs) {
+    this.tieredStorageMigrateCheckIntervalInMs = tieredStorageMigrateCheckIntervalInMs;
+  }
+
+  public long getTieredStorageMigrateFileAgeInMs() {
+    return tieredStorageMigrateFileAgeInMs;
+  }
+
+  public void setTieredStorageMigrateFileAgeInMs(long tieredStorageMigrateFileAgeInMs) {
+    this.tieredStorageMigrateFileAgeInMs = tieredStorageMigrateFileAgeInMs;
+  }
+
+  public int getTieredStorageMigrateReadCountThreshold() {
+    return tieredStorageMigrateReadCountThreshold;
+  }
+
+  public void setTieredStorageMigrateReadCountThreshold(
+      int tieredStorageMigrateReadCountThreshold) {
+    this.tieredStorageMigrateReadCountThreshold = tieredStorageMigrateReadCountThreshold;
+  }
+
+  public double getTieredStorageHotSpaceUsageThreshold() {
+    return tieredStorageHotSpaceUsageThreshold;
+  }
+
+  public void setTieredStorageHotSpaceUsageThreshold(double tieredStorageHotSpaceUsageThreshold) {
+    this.tieredStorageHotSpaceUsageThreshold = tieredStorageHotSpaceUsageThreshold;
+  }
+
+  public int getTieredStorageMigrateThroughputMbPerSec() {
+    return tieredStorageMigrateThroughputMbPerSec;
+  }
+
+  public void setTieredStorageMigrateThroughputMbPerSec(
+      int tieredStorageMigrateThroughputMbPerSec) {
+    this.tieredStorageMigrateThroughputMbPerSec = tieredStorageMigrateThroughputMbPerSec;
+  }
+
   public String getRpcAddress() {
     return rpcAddress;
   }
@@ -1487,6 +1627,22 @@ public class IoTDBConfig {
     this.maxAllowedConcurrentQueries = maxAllowedConcurrentQueries;
   }
 
+  public int getQueryParseCacheSize() {
+    return queryParseCacheSize;
+  }
+
+  public void setQueryParseCacheSize(int queryParseCacheSize) {
+    this.queryParseCacheSize = queryParseCacheSize;
+  }
+
+  public int getAggregationResultCacheSize() {
+    return aggregationResultCacheSize;
+  }
+
+  public void setAggregationResultCacheSize(int aggregationResultCacheSize) {
+    this.aggregationResultCacheSize = aggregationResultCacheSize;
+  }
+
   public long getMaxBytesPerFragmentInstance() {
     return maxBytesPerFragmentInstance;
   }
@@ -1966,6 +2122,14 @@ public class IoTDBConfig {
     this.avgSeriesPointNumberThreshold = avgSeriesPointNumberThreshold;
   }
 
+  public long getRollupInterval() {
+    return rollupInterval;
+  }
+
+  public void setRollupInterval(long rollupInterval) {
+    this.rollupInterval = rollupInterval;
+  }
+
   public long getCrossCompactionFileSelectionTimeBudget() {
     return crossCompactionFileSelectionTimeBudget;
   }
@@ -2268,6 +2432,30 @@ public class IoTDBConfig {
     this.defaultTextEncoding = TSEncoding.valueOf(defaultTextEncoding);
   }
 
+  public long getAutoCreateSchemaBatchWindowInMs() {
+    return autoCreateSchemaBatchWindowInMs;
+  }
+
+  public void setAutoCreateSchemaBatchWindowInMs(long autoCreateSchemaBatchWindowInMs) {
+    this.autoCreateSchemaBatchWindowInMs = autoCreateSchemaBatchWindowInMs;
+  }
+
+  public int getAutoCreateSchemaMaxBatchSize() {
+    return autoCreateSchemaMaxBatchSize;
+  }
+
+  public void setAutoCreateSchemaMaxBatchSize(int autoCreateSchemaMaxBatchSize) {
+    this.autoCreateSchemaMaxBatchSize = autoCreateSchemaMaxBatchSize;
+  }
+
+  public CompressionType getSchemaFetchCompressor() {
+    return schemaFetchCompressor;
+  }
+
+  public void setSchemaFetchCompressor(String schemaFetchCompressor) {
+    this.schemaFetchCompressor = CompressionType.valueOf(schemaFetchCompressor);
+  }
+
   FSType getTsFileStorageFs() {
     return tsFileStorageFs;
   }
@@ -2876,6 +3064,14 @@ public class IoTDBConfig {
     this.pageCacheSizeInSchemaFile = pageCacheSizeInSchemaFile;
   }
 
+  public boolean isEnableMmapInSchemaFile() {
+    return enableMmapInSchemaFile;
+  }
+
+  public void setEnableMmapInSchemaFile(boolean enableMmapInSchemaFile) {
+    this.enableMmapInSchemaFile = enableMmapInSchemaFile;
+  }
+
   public int getSchemaFileLogSize() {
     return schemaFileLogSize;
   }
@@ -3201,6 +3397,14 @@ public class IoTDBConfig {
     this.allocateMemoryForLastCache = allocateMemoryForLastCache;
   }
 
+  public double getDeviceTemplateCacheProportion() {
+    return deviceTemplateCacheProportion;
+  }
+
+  public void setDeviceTemplateCacheProportion(double deviceTemplateCacheProportion) {
+    this.deviceTemplateCacheProportion = deviceTemplateCacheProportion;
+  }
+
   public String getReadConsistencyLevel() {
     return readConsistencyLevel;
   }
@@ -3596,6 +3800,48 @@ public class IoTDBConfig {
     this.enableCompactionValidation = enableCompactionValidation;
   }
 
+  public boolean isEnableAdaptiveCompaction() {
+    return enableAdaptiveCompaction;
+  }
+
+  public void setEnableAdaptiveCompaction(boolean enableAdaptiveCompaction) {
+    this.enableAdaptiveCompaction = enableAdaptiveCompaction;
+  }
+
+  public long getAdaptiveCompactionCheckIntervalInMs() {
+    return adaptiveCompactionCheckIntervalInMs;
+  }
+
+  public void setAdaptiveCompactionCheckIntervalInMs(long adaptiveCompactionCheckIntervalInMs) {
+    this.adaptiveCompactionCheckIntervalInMs = adaptiveCompactionCheckIntervalInMs;
+  }
+
+  public double getAdaptiveCompactionCpuLoadThreshold() {
+    return adaptiveCompactionCpuLoadThreshold;
+  }
+
+  public void setAdaptiveCompactionCpuLoadThreshold(double adaptiveCompactionCpuLoadThreshold) {
+    this.adaptiveCompactionCpuLoadThreshold = adaptiveCompactionCpuLoadThreshold;
+  }
+
+  public int getAdaptiveCompactionPendingFlushTaskThreshold() {
+    return adaptiveCompactionPendingFlushTaskThreshold;
+  }
+
+  public void setAdaptiveCompactionPendingFlushTaskThreshold(
+      int adaptiveCompactionPendingFlushTaskThreshold) {
+    this.adaptiveCompactionPendingFlushTaskThreshold = adaptiveCompactionPendingFlushTaskThreshold;
+  }
+
+  public int getAdaptiveCompactionSlowQueryNumThreshold() {
+    return adaptiveCompactionSlowQueryNumThreshold;
+  }
+
+  public void setAdaptiveCompactionSlowQueryNumThreshold(
+      int adaptiveCompactionSlowQueryNumThreshold) {
+    this.adaptiveCompactionSlowQueryNumThreshold = adaptiveCompactionSlowQueryNumThreshold;
+  }
+
   public boolean isEnableAuditLog() {
     return enableAuditLog;
   }
@@ -333,6 +333,11 @@ public class IoTDBDescriptor {
 
     conf.setDataDirs(properties.getProperty("dn_data_dirs", conf.getDataDirs()[0]).split(","));
 
+    String coldDataDirs = properties.getProperty("dn_cold_data_dirs", "").trim();
+    if (!coldDataDirs.isEmpty()) {
+      conf.setColdDataDirs(coldDataDirs.split(","));
+    }
+
     conf.setConsensusDir(properties.getProperty("dn_consensus_dir", conf.getConsensusDir()));
 
     int mlogBufferSize =
@@ -391,6 +396,11 @@ public class IoTDBDescriptor {
                 "avg_series_point_number_threshold",
                 Integer.toString(conf.getAvgSeriesPointNumberThreshold()))));
 
+    conf.setRollupInterval(
+        Long.parseLong(
+            properties.getProperty(
+                "rollup_interval_in_ms", Long.toString(conf.getRollupInterval()))));
+
     conf.setCheckPeriodWhenInsertBlocked(
         Integer.parseInt(
             properties.getProperty(
@@ -560,6 +570,17 @@ public class IoTDBDescriptor {
       conf.setMaxAllowedConcurrentQueries(1000);
     }
 
+    conf.setQueryParseCacheSize(
+        Integer.parseInt(
+            properties.getProperty(
+                "query_parse_cache_size", Integer.toString(conf.getQueryParseCacheSize()))));
+
+    conf.setAggregationResultCacheSize(
+        Integer.parseInt(
+            properties.getProperty(
+                "aggregation_result_cache_size",
+                Integer.toString(conf.getAggregationResultCacheSize()))));
+
     conf.setmRemoteSchemaCacheSize(
         Integer.parseInt(
             properties
@@ -646,6 +667,66 @@ public class IoTDBDescriptor {
                 "enable_compaction_validation",
                 Boolean.toString(conf.isEnableCompactionValidation()))));
 
+    conf.setEnableAdaptiveCompaction(
+        Boolean.parseBoolean(
+            properties.getProperty(
+                "enable_adaptive_compaction",
+                Boolean.toString(conf.isEnableAdaptiveCompaction()))));
+
+    conf.setAdaptiveCompactionCheckIntervalInMs(
+        Long.parseLong(
+            properties.getProperty(
+                "adaptive_compaction_check_interval_in_ms",
+                Long.toString(conf.getAdaptiveCompactionCheckIntervalInMs()))));
+
+    conf.setAdaptiveCompactionCpuLoadThreshold(
+        Double.parseDouble(
+            properties.getProperty(
+                "adaptive_compaction_cpu_load_threshold",
+                Double.toString(conf.getAdaptiveCompactionCpuLoadThreshold()))));
+
+    conf.setAdaptiveCompactionPendingFlushTaskThreshold(
+        Integer.parseInt(
+            properties.getProperty(
+                "adaptive_compaction_pending_flush_task_threshold",
+                Integer.toString(conf.getAdaptiveCompactionPendingFlushTaskThreshold()))));
+
+    conf.setAdaptiveCompactionSlowQueryNumThreshold(
+        Integer.parseInt(
+            properties.getProperty(
+                "adaptive_compaction_slow_query_num_threshold",
+                Integer.toString(conf.getAdaptiveCompactionSlowQueryNumThreshold()))));
+
+    conf.setTieredStorageMigrateCheckIntervalInMs(
+        Long.parseLong(
+            properties.getProperty(
+                "tiered_storage_migrate_check_interval_in_ms",
+                Long.toString(conf.getTieredStorageMigrateCheckIntervalInMs()))));
+
+    conf.setTieredStorageMigrateFileAgeInMs(
+        Long.parseLong(
+            properties.getProperty(
+                "tiered_storage_migrate_file_age_in_ms",
+                Long.toString(conf.getTieredStorageMigrateFileAgeInMs()))));
+
+    conf.setTieredStorageMigrateReadCountThreshold(
+        Integer.parseInt(
+            properties.getProperty(
+                "tiered_storage_migrate_read_count_threshold",
+                Integer.toString(conf.getTieredStorageMigrateReadCountThreshold()))));
+
+    conf.setTieredStorageHotSpaceUsageThreshold(
+        Double.parseDouble(
+            properties.getProperty(
+                "tiered_storage_hot_space_usage_threshold",
+                Double.toString(conf.getTieredStorageHotSpaceUsageThreshold()))));
+
+    conf.setTieredStorageMigrateThroughputMbPerSec(
+        Integer.parseInt(
+            properties.getProperty(
+                "tiered_storage_migrate_throughput_mb_per_sec",
+                Integer.toString(conf.getTieredStorageMigrateThroughputMbPerSec()))));
+
     conf.setEnablePartialInsert(
         Boolean.parseBoolean(
             properties.getProperty(
@@ -851,6 +932,11 @@ public class IoTDBDescriptor {
             properties.getProperty(
                 "page_cache_in_schema_file", String.valueOf(conf.getPageCacheSizeInSchemaFile()))));
 
+    conf.setEnableMmapInSchemaFile(
+        Boolean.parseBoolean(
+            properties.getProperty(
+                "enable_mmap_in_schema_file", String.valueOf(conf.isEnableMmapInSchemaFile()))));
+
     conf.setSchemaFileLogSize(
         Integer.parseInt(
             properties.getProperty(
@@ -985,6 +1071,10 @@ public class IoTDBDescriptor {
     conf.setTimePartitionInterval(
         DateTimeUtils.convertMilliTimeWithPrecision(
             conf.getTimePartitionInterval(), conf.getTimestampPrecision()));
+
+    conf.setRollupInterval(
+        DateTimeUtils.convertMilliTimeWithPrecision(
+            conf.getRollupInterval(), conf.getTimestampPrecision()));
   }
 
   private void loadAuthorCache(Properties properties) {
@@ -1158,6 +1248,22 @@ public class IoTDBDescriptor {
             "default_double_encoding", conf.getDefaultDoubleEncoding().toString()));
     conf.setDefaultTextEncoding(
         properties.getProperty("default_text_encoding", conf.getDefaultTextEncoding().toString()));
+    conf.setAutoCreateSchemaBatchWindowInMs(
+        Long.parseLong(
+            properties.getProperty(
+                "auto_create_schema_batch_window_in_ms",
+                Long.toString(conf.getAutoCreateSchemaBatchWindowInMs()))));
+    int autoCreateSchemaMaxBatchSize =
+        Integer.parseInt(
+            properties.getProperty(
+                "auto_create_schema_max_batch_size",
+                Integer.toString(conf.getAutoCreateSchemaMaxBatchSize())));
+    if (autoCreateSchemaMaxBatchSize > 0) {
+      conf.setAutoCreateSchemaMaxBatchSize(autoCreateSchemaMaxBatchSize);
+    }
+    conf.setSchemaFetchCompressor(
+        properties.getProperty(
+            "schema_fetch_compressor", conf.getSchemaFetchCompressor().toString()));
   }
 
   private void loadTsFileProps(Properties properties) {
@@ -1208,6 +1314,36 @@ public class IoTDBDescriptor {
                     "bloom_filter_error_rate",
                     Double.toString(
                         TSFileDescriptor.getInstance().getConfig().getBloomFilterErrorRate()))));
+    TSFileDescriptor.getInstance()
+        .getConfig()
+        .setBloomFilterPartitionSeriesNum(
+            Integer.parseInt(
+                properties.getProperty(
+                    "bloom_filter_partition_series_num",
+                    Integer.toString(
+                        TSFileDescriptor.getInstance()
+                            .getConfig()
+                            .getBloomFilterPartitionSeriesNum()))));
+    TSFileDescriptor.getInstance()
+        .getConfig()
+        .setEnableQuantileSketchStatistics(
+            Boolean.parseBoolean(
+                properties.getProperty(
+                    "enable_quantile_sketch_statistics",
+                    Boolean.toString(
+                        TSFileDescriptor.getInstance()
+                            .getConfig()
+                            .isEnableQuantileSketchStatistics()))));
+    TSFileDescriptor.getInstance()
+        .getConfig()
+        .setQuantileSketchStatisticsK(
+            Integer.parseInt(
+                properties.getProperty(
+                    "quantile_sketch_statistics_k",
+                    Integer.toString(
+                        TSFileDescriptor.getInstance()
+                            .getConfig()
+                            .getQuantileSketchStatisticsK()))));
     TSFileDescriptor.getInstance()
         .getConfig()
         .setFloatPrecision(
@@ -1674,6 +1810,21 @@ public class IoTDBDescriptor {
 
     conf.setAllocateMemoryForLastCache(schemaMemoryTotal * lastCacheProportion / proportionSum);
     logger.info("allocateMemoryForLastCache = {}", conf.getAllocateMemoryForLastCache());
+
+    double deviceTemplateCacheProportion =
+        Double.parseDouble(
+            properties
+                .getProperty(
+                    "device_template_cache_proportion",
+                    Double.toString(conf.getDeviceTemplateCacheProportion()))
+                .trim());
+    if (deviceTemplateCacheProportion >= 0 && deviceTemplateCacheProportion < 1) {
+      conf.setDeviceTemplateCacheProportion(deviceTemplateCacheProportion);
+    } else {
+      logger.warn(
+          "device_template_cache_proportion should be in [0, 1), use default value {}",
+          conf.getDeviceTemplateCacheProportion());
+    }
   }
 
   @SuppressWarnings("squid:S3518") // "proportionSum" can't be zero
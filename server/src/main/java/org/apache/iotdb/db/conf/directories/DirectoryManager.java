@@ -21,6 +21,7 @@ package org.apache.iotdb.db.conf.directories;
 import org.apache.iotdb.commons.cluster.NodeStatus;
 import org.apache.iotdb.commons.conf.CommonDescriptor;
 import org.apache.iotdb.commons.conf.IoTDBConstant;
+import org.apache.iotdb.commons.utils.JVMCommonUtils;
 import org.apache.iotdb.commons.utils.TestOnly;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.conf.directories.strategy.DirectoryStrategy;
@@ -46,6 +47,11 @@ public class DirectoryManager {
   private DirectoryStrategy sequenceStrategy;
   private DirectoryStrategy unsequenceStrategy;
 
+  /** folders of the cold tier, they only receive TsFiles migrated from the folders above */
+  private List<String> coldSequenceFileFolders;
+
+  private List<String> coldUnsequenceFileFolders;
+
   private DirectoryManager() {
     sequenceFileFolders =
         new ArrayList<>(Arrays.asList(IoTDBDescriptor.getInstance().getConfig().getDataDirs()));
@@ -63,6 +69,11 @@ public class DirectoryManager {
     }
     mkDataDirs(unsequenceFileFolders);
 
+    coldSequenceFileFolders = getColdFileFolders(IoTDBConstant.SEQUENCE_FLODER_NAME);
+    mkDataDirs(coldSequenceFileFolders);
+    coldUnsequenceFileFolders = getColdFileFolders(IoTDBConstant.UNSEQUENCE_FLODER_NAME);
+    mkDataDirs(coldUnsequenceFileFolders);
+
     String strategyName = "";
     try {
       strategyName = IoTDBDescriptor.getInstance().getConfig().getMultiDirStrategyClassName();
@@ -127,6 +138,14 @@ public class DirectoryManager {
     }
   }
 
+  private List<String> getColdFileFolders(String folderName) {
+    List<String> folders = new ArrayList<>();
+    for (String coldDataDir : IoTDBDescriptor.getInstance().getConfig().getColdDataDirs()) {
+      folders.add(coldDataDir + File.separator + folderName);
+    }
+    return folders;
+  }
+
   public static DirectoryManager getInstance() {
     return DirectoriesHolder.INSTANCE;
   }
@@ -153,8 +172,11 @@ public class DirectoryManager {
     }
   }
 
+  /** @return the hot folders followed by the cold folders of sequence files */
   public List<String> getAllSequenceFileFolders() {
-    return new ArrayList<>(sequenceFileFolders);
+    List<String> folders = new ArrayList<>(sequenceFileFolders);
+    folders.addAll(coldSequenceFileFolders);
+    return folders;
   }
 
   public String getNextFolderForUnSequenceFile() throws DiskSpaceInsufficientException {
@@ -167,16 +189,96 @@ public class DirectoryManager {
     }
   }
 
+  /** @return the hot folders followed by the cold folders of unsequence files */
   public List<String> getAllUnSequenceFileFolders() {
-    return new ArrayList<>(unsequenceFileFolders);
+    List<String> folders = new ArrayList<>(unsequenceFileFolders);
+    folders.addAll(coldUnsequenceFileFolders);
+    return folders;
   }
 
   public List<String> getAllFilesFolders() {
     List<String> folders = new ArrayList<>(sequenceFileFolders);
     folders.addAll(unsequenceFileFolders);
+    folders.addAll(coldSequenceFileFolders);
+    folders.addAll(coldUnsequenceFileFolders);
     return folders;
   }
 
+  public boolean isTieredStorageEnabled() {
+    return !coldSequenceFileFolders.isEmpty();
+  }
+
+  /**
+   * Choose the cold folder with the most usable space for a migrated TsFile. Unlike the hot
+   * folders, running out of cold space does not turn the node read-only, the migration is just
+   * skipped.
+   *
+   * @param fileSize the size of the TsFile to migrate
+   */
+  public String getNextFolderForColdFile(boolean sequence, long fileSize)
+      throws DiskSpaceInsufficientException {
+    List<String> folders = sequence ? coldSequenceFileFolders : coldUnsequenceFileFolders;
+    String selected = null;
+    long maxUsableSpace = fileSize;
+    for (String folder : folders) {
+      long usableSpace = JVMCommonUtils.getUsableSpace(folder);
+      if (usableSpace > maxUsableSpace) {
+        maxUsableSpace = usableSpace;
+        selected = folder;
+      }
+    }
+    if (selected == null) {
+      throw new DiskSpaceInsufficientException(folders);
+    }
+    return selected;
+  }
+
+  /** Whether the TsFile is stored in the cold tier. */
+  public boolean isInColdFolder(File tsFile) {
+    String path = tsFile.getAbsolutePath();
+    for (String folder : coldSequenceFileFolders) {
+      if (path.startsWith(new File(folder).getAbsolutePath() + File.separator)) {
+        return true;
+      }
+    }
+    for (String folder : coldUnsequenceFileFolders) {
+      if (path.startsWith(new File(folder).getAbsolutePath() + File.separator)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** @return the ratio of used space of the disks holding the hot data dirs */
+  public double getHotTierSpaceUsage() {
+    return getSpaceUsage(IoTDBDescriptor.getInstance().getConfig().getDataDirs());
+  }
+
+  /** @return the total space of the disks holding the hot data dirs */
+  public long getHotTierTotalSpace() {
+    long totalSpace = 0;
+    for (String dir : IoTDBDescriptor.getInstance().getConfig().getDataDirs()) {
+      totalSpace += FSFactoryProducer.getFSFactory().getFile(dir).getTotalSpace();
+    }
+    return totalSpace;
+  }
+
+  /** @return the ratio of used space of the disks holding the cold data dirs */
+  public double getColdTierSpaceUsage() {
+    return getSpaceUsage(IoTDBDescriptor.getInstance().getConfig().getColdDataDirs());
+  }
+
+  private double getSpaceUsage(String[] dirs) {
+    long totalSpace = 0;
+    long usableSpace = 0;
+    for (String dir : dirs) {
+      File file = FSFactoryProducer.getFSFactory().getFile(dir);
+      totalSpace += file.getTotalSpace();
+      usableSpace += file.getFreeSpace();
+    }
+    return totalSpace == 0 ? 0 : (double) (totalSpace - usableSpace) / totalSpace;
+  }
+
   @TestOnly
   public void resetFolders() {
     sequenceFileFolders =
@@ -191,6 +293,8 @@ public class DirectoryManager {
       unsequenceFileFolders.set(
           i, unsequenceFileFolders.get(i) + File.separator + IoTDBConstant.UNSEQUENCE_FLODER_NAME);
     }
+    coldSequenceFileFolders = getColdFileFolders(IoTDBConstant.SEQUENCE_FLODER_NAME);
+    coldUnsequenceFileFolders = getColdFileFolders(IoTDBConstant.UNSEQUENCE_FLODER_NAME);
   }
 
   private static class DirectoriesHolder {
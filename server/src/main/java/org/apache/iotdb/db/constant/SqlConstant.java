@@ -54,6 +54,15 @@ public class SqlConstant {
   public static final String AVG = "avg";
   public static final String SUM = "sum";
   public static final String COUNT_IF = "count_if";
+  public static final String APPROX_COUNT_DISTINCT = "approx_count_distinct";
+  public static final String APPROX_PERCENTILE = "approx_percentile";
+
+  // names of partial results of sketch based aggregations
+  public static final String HLL_SKETCH = "hll_sketch";
+  public static final String KLL_SKETCH = "kll_sketch";
+
+  // attributes of aggregations
+  public static final String QUANTILE = "quantile";
 
   // names of scalar functions
   public static final String DIFF = "diff";
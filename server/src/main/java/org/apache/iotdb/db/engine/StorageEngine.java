@@ -35,6 +35,7 @@ import org.apache.iotdb.commons.utils.TestOnly;
 import org.apache.iotdb.consensus.ConsensusFactory;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.conf.directories.DirectoryManager;
 import org.apache.iotdb.db.consensus.statemachine.visitor.DataExecutionVisitor;
 import org.apache.iotdb.db.engine.cache.BloomFilterCache;
 import org.apache.iotdb.db.engine.cache.ChunkCache;
@@ -44,6 +45,7 @@ import org.apache.iotdb.db.engine.flush.FlushListener;
 import org.apache.iotdb.db.engine.flush.TsFileFlushPolicy;
 import org.apache.iotdb.db.engine.flush.TsFileFlushPolicy.DirectFlushPolicy;
 import org.apache.iotdb.db.engine.load.LoadTsFileManager;
+import org.apache.iotdb.db.engine.migration.TsFileMigrationManager;
 import org.apache.iotdb.db.engine.storagegroup.DataRegion;
 import org.apache.iotdb.db.engine.storagegroup.TsFileProcessor;
 import org.apache.iotdb.db.exception.DataRegionException;
@@ -131,6 +133,7 @@ public class StorageEngine implements IService {
   private ScheduledExecutorService ttlCheckThread;
   private ScheduledExecutorService seqMemtableTimedFlushCheckThread;
   private ScheduledExecutorService unseqMemtableTimedFlushCheckThread;
+  private ScheduledExecutorService tsFileMigrationThread;
 
   private TsFileFlushPolicy fileFlushPolicy = new DirectFlushPolicy();
   /** used to do short-lived asynchronous tasks */
@@ -322,9 +325,30 @@ public class StorageEngine implements IService {
         TimeUnit.MILLISECONDS);
     logger.info("start ttl check thread successfully.");
 
+    if (DirectoryManager.getInstance().isTieredStorageEnabled()) {
+      tsFileMigrationThread =
+          IoTDBThreadPoolFactory.newSingleThreadScheduledExecutor(
+              ThreadName.TSFILE_MIGRATION.getName());
+      ScheduledExecutorUtil.safelyScheduleWithFixedDelay(
+          tsFileMigrationThread,
+          this::migrateTsFiles,
+          config.getTieredStorageMigrateCheckIntervalInMs(),
+          config.getTieredStorageMigrateCheckIntervalInMs(),
+          TimeUnit.MILLISECONDS);
+      logger.info("start tsfile migration thread successfully.");
+    }
+
     startTimedService();
   }
 
+  private void migrateTsFiles() {
+    try {
+      TsFileMigrationManager.getInstance().checkAndMigrate(dataRegionMap.values());
+    } catch (Exception e) {
+      logger.error("An error occurred when migrating TsFiles to the cold tier", e);
+    }
+  }
+
   private void checkTTL() {
     try {
       for (DataRegion dataRegion : dataRegionMap.values()) {
@@ -394,6 +418,7 @@ public class StorageEngine implements IService {
     }
     syncCloseAllProcessor();
     ThreadUtils.stopThreadPool(ttlCheckThread, ThreadName.TTL_CHECK_SERVICE);
+    ThreadUtils.stopThreadPool(tsFileMigrationThread, ThreadName.TSFILE_MIGRATION);
     ThreadUtils.stopThreadPool(
         seqMemtableTimedFlushCheckThread, ThreadName.TIMED_FLUSH_SEQ_MEMTABLE);
     ThreadUtils.stopThreadPool(
@@ -416,6 +441,7 @@ public class StorageEngine implements IService {
       throw new ShutdownException(e);
     }
     shutdownTimedService(ttlCheckThread, "TTlCheckThread");
+    shutdownTimedService(tsFileMigrationThread, "TsFileMigrationThread");
     shutdownTimedService(seqMemtableTimedFlushCheckThread, "SeqMemtableTimedFlushCheckThread");
     shutdownTimedService(unseqMemtableTimedFlushCheckThread, "UnseqMemtableTimedFlushCheckThread");
     cachedThreadPool.shutdownNow();
@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.engine.cache;
+
+import org.apache.iotdb.commons.path.AlignedPath;
+import org.apache.iotdb.commons.path.PartialPath;
+import org.apache.iotdb.commons.utils.TestOnly;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.AggregationDescriptor;
+import org.apache.iotdb.tsfile.read.common.TimeRange;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * This class is used to cache the aggregation result of one series in one time window. Only windows
+ * whose data is immutable are cached, i.e. windows covered by sealed sequence files without
+ * modifications and without any unsequence data. The data version of the data region is part of
+ * the key, so compaction, deletion, load and sealing a sequence file, which increase the version
+ * through {@link org.apache.iotdb.db.engine.storagegroup.TsFileManager}, make the old results
+ * unreachable. The caching strategy is LRU.
+ */
+public class AggregationResultCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(AggregationResultCache.class);
+  private static final int CACHE_SIZE =
+      IoTDBDescriptor.getInstance().getConfig().getAggregationResultCacheSize();
+  private static final boolean CACHE_ENABLE = CACHE_SIZE > 0;
+
+  private final Cache<WindowKey, TsBlock> lruCache;
+
+  private AggregationResultCache() {
+    if (CACHE_ENABLE) {
+      logger.info("AggregationResultCache size = {}", CACHE_SIZE);
+    }
+    lruCache = Caffeine.newBuilder().maximumSize(Math.max(CACHE_SIZE, 0)).recordStats().build();
+  }
+
+  public static AggregationResultCache getInstance() {
+    return AggregationResultCacheHolder.INSTANCE;
+  }
+
+  public static boolean isCacheEnable() {
+    return CACHE_ENABLE;
+  }
+
+  /**
+   * Identifies the aggregations of one scan: the same signature with the same window and data
+   * version always produces the same result.
+   */
+  public static String getSignature(
+      PartialPath seriesPath, List<AggregationDescriptor> descriptors, boolean ascending) {
+    StringBuilder signature = new StringBuilder(seriesPath.getFullPath());
+    if (seriesPath instanceof AlignedPath) {
+      signature.append(((AlignedPath) seriesPath).getMeasurementList());
+    }
+    signature.append(ascending ? "|asc" : "|desc");
+    for (AggregationDescriptor descriptor : descriptors) {
+      signature
+          .append('|')
+          .append(descriptor.getStep())
+          .append(descriptor.getOutputColumnNames());
+    }
+    return signature.toString();
+  }
+
+  /**
+   * @return the key of the window, or null if the result of the window may still change and cannot
+   *     be cached
+   */
+  public WindowKey getKey(
+      String signature,
+      String deviceId,
+      QueryDataSource dataSource,
+      Filter timeFilter,
+      TimeRange window) {
+    if (dataSource.getDataRegionId() == null
+        || dataSource.getDataTTL() != Long.MAX_VALUE
+        || (timeFilter != null
+            && !timeFilter.containStartEndTime(window.getMin(), window.getMax()))) {
+      return null;
+    }
+    if (!isImmutable(dataSource.getSeqResources(), deviceId, window, true)
+        || !isImmutable(dataSource.getUnseqResources(), deviceId, window, false)) {
+      return null;
+    }
+    return new WindowKey(
+        dataSource.getDataRegionId(),
+        dataSource.getDataVersion(),
+        signature,
+        window.getMin(),
+        window.getMax());
+  }
+
+  private static boolean isImmutable(
+      List<TsFileResource> resources, String deviceId, TimeRange window, boolean isSeq) {
+    for (TsFileResource resource : resources) {
+      if (!resource.mayContainsDevice(deviceId)) {
+        continue;
+      }
+      boolean closed = resource.isClosed();
+      long startTime = resource.getStartTime(deviceId);
+      long endTime = closed ? resource.getEndTime(deviceId) : Long.MAX_VALUE;
+      if (startTime > window.getMax() || endTime < window.getMin()) {
+        continue;
+      }
+      // data in memory, unsequence data and deletions may all change the result later
+      if (!closed || !isSeq || resource.getModFile().exists()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public TsBlock get(WindowKey key) {
+    return lruCache.getIfPresent(key);
+  }
+
+  public void put(WindowKey key, TsBlock result) {
+    lruCache.put(key, result);
+  }
+
+  public double getHitRate() {
+    return lruCache.stats().hitRate() * 100;
+  }
+
+  /** clear LRUCache. */
+  public void clear() {
+    lruCache.invalidateAll();
+    lruCache.cleanUp();
+  }
+
+  @TestOnly
+  public boolean isEmpty() {
+    return lruCache.asMap().isEmpty();
+  }
+
+  @TestOnly
+  public void setMaximumSize(long maximumSize) {
+    lruCache.policy().eviction().ifPresent(eviction -> eviction.setMaximum(maximumSize));
+  }
+
+  public static class WindowKey {
+
+    private final String dataRegionId;
+    private final long dataVersion;
+    private final String signature;
+    private final long startTime;
+    private final long endTime;
+
+    public WindowKey(
+        String dataRegionId, long dataVersion, String signature, long startTime, long endTime) {
+      this.dataRegionId = dataRegionId;
+      this.dataVersion = dataVersion;
+      this.signature = signature;
+      this.startTime = startTime;
+      this.endTime = endTime;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      WindowKey that = (WindowKey) o;
+      return dataVersion == that.dataVersion
+          && startTime == that.startTime
+          && endTime == that.endTime
+          && dataRegionId.equals(that.dataRegionId)
+          && signature.equals(that.signature);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(dataRegionId, dataVersion, signature, startTime, endTime);
+    }
+  }
+
+  /** singleton pattern. */
+  private static class AggregationResultCacheHolder {
+
+    private static final AggregationResultCache INSTANCE = new AggregationResultCache();
+  }
+}
@@ -38,7 +38,10 @@ import java.io.IOException;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicLong;
 
-/** This class is used to cache <code>BloomFilter</code> in IoTDB. The caching strategy is LRU. */
+/**
+ * This class is used to cache <code>BloomFilter</code> in IoTDB. The caching strategy is LRU. If
+ * the bloom filter of a TsFile is partitioned, each partition is cached as a separate entry.
+ */
 public class BloomFilterCache {
 
   private static final Logger logger = LoggerFactory.getLogger(BloomFilterCache.class);
@@ -71,10 +74,11 @@ public class BloomFilterCache {
                   try {
                     TsFileSequenceReader reader =
                         FileReaderManager.getInstance().get(key.filePath, true);
-                    return reader.readBloomFilter();
+                    return reader.readBloomFilter(key.partitionIndex);
                   } catch (IOException e) {
                     logger.error(
-                        "Something wrong happened in reading bloom filter in tsfile {}",
+                        "Something wrong happened in reading bloom filter {} in tsfile {}",
+                        key.partitionIndex,
                         key.filePath,
                         e);
                     throw e;
@@ -93,13 +97,16 @@ public class BloomFilterCache {
   public BloomFilter get(BloomFilterCacheKey key, boolean debug) throws IOException {
     if (!CACHE_ENABLE) {
       TsFileSequenceReader reader = FileReaderManager.getInstance().get(key.filePath, true);
-      return reader.readBloomFilter();
+      return reader.readBloomFilter(key.partitionIndex);
     }
 
     BloomFilter bloomFilter = lruCache.get(key);
 
     if (debug) {
-      DEBUG_LOGGER.info("get bloomFilter from cache where filePath is: {}", key.filePath);
+      DEBUG_LOGGER.info(
+          "get bloomFilter from cache where filePath is: {}, partition is: {}",
+          key.filePath,
+          key.partitionIndex);
     }
 
     return bloomFilter;
@@ -151,9 +158,16 @@ public class BloomFilterCache {
     private final long tsFileVersion;
     // high 32 bit is compaction level, low 32 bit is merge count
     private final long compactionVersion;
+    // index of the bloom filter partition, -1 means the file level bloom filter
+    private final int partitionIndex;
 
     public BloomFilterCacheKey(String filePath) {
+      this(filePath, -1);
+    }
+
+    public BloomFilterCacheKey(String filePath, int partitionIndex) {
       this.filePath = filePath;
+      this.partitionIndex = partitionIndex;
       Pair<String, long[]> tsFilePrefixPathAndTsFileVersionPair =
           FilePathUtils.getTsFilePrefixPathAndTsFileVersionPair(filePath);
       this.tsFilePrefixPath = tsFilePrefixPathAndTsFileVersionPair.left;
@@ -172,12 +186,13 @@ public class BloomFilterCache {
       BloomFilterCache.BloomFilterCacheKey that = (BloomFilterCache.BloomFilterCacheKey) o;
       return tsFileVersion == that.tsFileVersion
           && compactionVersion == that.compactionVersion
+          && partitionIndex == that.partitionIndex
           && tsFilePrefixPath.equals(that.tsFilePrefixPath);
     }
 
     @Override
     public int hashCode() {
-      return Objects.hash(tsFilePrefixPath, tsFileVersion, compactionVersion);
+      return Objects.hash(tsFilePrefixPath, tsFileVersion, compactionVersion, partitionIndex);
     }
   }
 
@@ -133,7 +133,7 @@ public class TimeSeriesMetadataCache {
 
         // bloom filter part
         TsFileSequenceReader reader = FileReaderManager.getInstance().get(key.filePath, true);
-        BloomFilter bloomFilter = reader.readBloomFilter();
+        BloomFilter bloomFilter = reader.readBloomFilter(key.device);
         if (bloomFilter != null
             && !bloomFilter.contains(key.device + IoTDBConstant.PATH_SEPARATOR + key.measurement)) {
           return null;
@@ -164,9 +164,13 @@ public class TimeSeriesMetadataCache {
 
             Path path = new Path(key.device, key.measurement, true);
             // bloom filter part
+            TsFileSequenceReader reader = FileReaderManager.getInstance().get(key.filePath, true);
             BloomFilter bloomFilter =
                 BloomFilterCache.getInstance()
-                    .get(new BloomFilterCache.BloomFilterCacheKey(key.filePath), debug);
+                    .get(
+                        new BloomFilterCache.BloomFilterCacheKey(
+                            key.filePath, reader.getBloomFilterPartition(key.device)),
+                        debug);
             if (bloomFilter != null) {
               bloomFilterRequestCount.incrementAndGet();
               if (!bloomFilter.contains(path.getFullPath())) {
@@ -177,7 +181,6 @@ public class TimeSeriesMetadataCache {
                 return null;
               }
             }
-            TsFileSequenceReader reader = FileReaderManager.getInstance().get(key.filePath, true);
             List<TimeseriesMetadata> timeSeriesMetadataList =
                 reader.readTimeseriesMetadata(path, allSensors);
             // put TimeSeriesMetadata of all sensors used in this query into cache
@@ -25,15 +25,21 @@ import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.TsFileMetricManager;
 import org.apache.iotdb.db.engine.compaction.execute.performer.ISeqCompactionPerformer;
 import org.apache.iotdb.db.engine.compaction.execute.task.CompactionTaskSummary;
+import org.apache.iotdb.db.engine.compaction.execute.task.subtask.ReadChunkPerformerSubTask;
 import org.apache.iotdb.db.engine.compaction.execute.utils.MultiTsFileDeviceIterator;
 import org.apache.iotdb.db.engine.compaction.execute.utils.executor.readchunk.AlignedSeriesCompactionExecutor;
 import org.apache.iotdb.db.engine.compaction.execute.utils.executor.readchunk.SingleSeriesCompactionExecutor;
+import org.apache.iotdb.db.engine.compaction.schedule.CompactionTaskManager;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.rescon.SystemInfo;
 import org.apache.iotdb.tsfile.file.metadata.AlignedChunkMetadata;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.file.metadata.IChunkMetadata;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.utils.Binary;
 import org.apache.iotdb.tsfile.utils.Pair;
 import org.apache.iotdb.tsfile.write.writer.TsFileIOWriter;
 
@@ -41,8 +47,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 public class ReadChunkCompactionPerformer implements ISeqCompactionPerformer {
   private static final Logger LOGGER =
@@ -52,6 +64,13 @@ public class ReadChunkCompactionPerformer implements ISeqCompactionPerformer {
   private CompactionTaskSummary summary;
   private long tempFileSize = 0L;
 
+  // sub tasks of devices compacted in parallel, in the order of devices
+  private final Deque<Pair<ReadChunkPerformerSubTask, Future<Void>>> runningSubTasks =
+      new ArrayDeque<>();
+  private int subTaskNum = 1;
+  // devices whose estimated size exceeds this are compacted directly into the target file
+  private long maxSubTaskBufferSize = 0L;
+
   public ReadChunkCompactionPerformer(List<TsFileResource> sourceFiles, TsFileResource targetFile) {
     this.seqFiles = sourceFiles;
     this.targetResource = targetFile;
@@ -66,43 +85,155 @@ public class ReadChunkCompactionPerformer implements ISeqCompactionPerformer {
   @Override
   public void perform()
       throws IOException, MetadataException, InterruptedException, StorageEngineException {
+    long memoryForTask =
+        SystemInfo.getInstance().getMemorySizeForCompaction()
+            / IoTDBDescriptor.getInstance().getConfig().getCompactionThreadCount();
+    double chunkMetadataSizeProportion =
+        IoTDBDescriptor.getInstance().getConfig().getChunkMetadataSizeProportion();
     // size for file writer is 5% of per compaction task memory budget
-    long sizeForFileWriter =
-        (long)
-            ((double) SystemInfo.getInstance().getMemorySizeForCompaction()
-                / IoTDBDescriptor.getInstance().getConfig().getCompactionThreadCount()
-                * IoTDBDescriptor.getInstance().getConfig().getChunkMetadataSizeProportion());
+    long sizeForFileWriter = (long) (memoryForTask * chunkMetadataSizeProportion);
+    // the rest is shared by the chunk groups buffered by the sub tasks
+    subTaskNum = IoTDBDescriptor.getInstance().getConfig().getSubCompactionTaskNum();
+    maxSubTaskBufferSize = (long) (memoryForTask * (1 - chunkMetadataSizeProportion) / subTaskNum);
     TsFileMetricManager.getInstance().addCompactionTempFileNum(true, true, 1);
     try (MultiTsFileDeviceIterator deviceIterator = new MultiTsFileDeviceIterator(seqFiles);
         TsFileIOWriter writer =
             new TsFileIOWriter(targetResource.getTsFile(), true, sizeForFileWriter)) {
-      while (deviceIterator.hasNextDevice()) {
-        Pair<String, Boolean> deviceInfo = deviceIterator.nextDevice();
-        String device = deviceInfo.left;
-        boolean aligned = deviceInfo.right;
-
-        if (aligned) {
-          compactAlignedSeries(device, targetResource, writer, deviceIterator);
-        } else {
-          compactNotAlignedSeries(device, targetResource, writer, deviceIterator);
+      try {
+        while (deviceIterator.hasNextDevice()) {
+          Pair<String, Boolean> deviceInfo = deviceIterator.nextDevice();
+          String device = deviceInfo.left;
+          boolean aligned = deviceInfo.right;
+
+          if (aligned) {
+            compactAlignedSeries(device, targetResource, writer, deviceIterator);
+          } else {
+            compactNotAlignedSeries(device, targetResource, writer, deviceIterator);
+          }
+          updateTempFileSize(writer);
         }
-        // update temporal file metrics
-        long newTempFileSize = writer.getPos();
-        TsFileMetricManager.getInstance()
-            .addCompactionTempFileSize(true, true, newTempFileSize - tempFileSize);
-        tempFileSize = newTempFileSize;
-      }
+        waitSubTasks(writer, 0);
 
-      for (TsFileResource tsFileResource : seqFiles) {
-        targetResource.updatePlanIndexes(tsFileResource);
+        for (TsFileResource tsFileResource : seqFiles) {
+          targetResource.updatePlanIndexes(tsFileResource);
+        }
+        writer.endFile();
+      } finally {
+        // the sub tasks read the source files, so they must be stopped before the readers are
+        // closed
+        abortSubTasks();
       }
-      writer.endFile();
     } finally {
       TsFileMetricManager.getInstance().addCompactionTempFileSize(true, true, -tempFileSize);
       TsFileMetricManager.getInstance().addCompactionTempFileNum(true, true, -1);
     }
   }
 
+  private void updateTempFileSize(TsFileIOWriter writer) throws IOException {
+    // update temporal file metrics
+    long newTempFileSize = writer.getPos();
+    TsFileMetricManager.getInstance()
+        .addCompactionTempFileSize(true, true, newTempFileSize - tempFileSize);
+    tempFileSize = newTempFileSize;
+  }
+
+  private void submitSubTask(ReadChunkPerformerSubTask subTask, TsFileIOWriter writer)
+      throws IOException, InterruptedException {
+    waitSubTasks(writer, subTaskNum - 1);
+    Future<Void> future = CompactionTaskManager.getInstance().submitSubTask(subTask);
+    if (future != null) {
+      runningSubTasks.addLast(new Pair<>(subTask, future));
+      return;
+    }
+    // the sub task pool is not running, compact the device in the current thread
+    waitSubTasks(writer, 0);
+    try {
+      subTask.call();
+    } catch (IOException | InterruptedException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IOException(e);
+    }
+    subTask.appendTo(writer, targetResource, summary);
+    updateTempFileSize(writer);
+  }
+
+  /**
+   * Wait for the earliest submitted sub tasks and append their chunk groups to the target file,
+   * until no more than the given number of sub tasks are running.
+   */
+  private void waitSubTasks(TsFileIOWriter writer, int remainingNum)
+      throws IOException, InterruptedException {
+    while (runningSubTasks.size() > remainingNum) {
+      Pair<ReadChunkPerformerSubTask, Future<Void>> subTask = runningSubTasks.peekFirst();
+      try {
+        subTask.right.get();
+      } catch (ExecutionException e) {
+        LOGGER.error("[Compaction] SubCompactionTask meet errors ", e);
+        throw new IOException(e);
+      }
+      runningSubTasks.removeFirst();
+      subTask.left.appendTo(writer, targetResource, summary);
+      updateTempFileSize(writer);
+    }
+  }
+
+  /** Cancel the unfinished sub tasks and wait until none of them is running. */
+  private void abortSubTasks() {
+    for (Pair<ReadChunkPerformerSubTask, Future<Void>> subTask : runningSubTasks) {
+      subTask.right.cancel(true);
+    }
+    for (Pair<ReadChunkPerformerSubTask, Future<Void>> subTask : runningSubTasks) {
+      subTask.left.abortOrWaitUntilFinished();
+    }
+    runningSubTasks.clear();
+  }
+
+  private static long estimateAlignedDeviceSize(
+      List<Pair<TsFileSequenceReader, List<AlignedChunkMetadata>>> readerAndChunkMetadataList) {
+    long size = 0;
+    for (Pair<TsFileSequenceReader, List<AlignedChunkMetadata>> readerListPair :
+        readerAndChunkMetadataList) {
+      for (AlignedChunkMetadata alignedChunkMetadata : readerListPair.right) {
+        size += estimateChunkSize(alignedChunkMetadata.getTimeChunkMetadata());
+        for (IChunkMetadata valueChunkMetadata :
+            alignedChunkMetadata.getValueChunkMetadataList()) {
+          size += estimateChunkSize(valueChunkMetadata);
+        }
+      }
+    }
+    return size;
+  }
+
+  private static long estimateSeriesSize(
+      List<Pair<TsFileSequenceReader, List<ChunkMetadata>>> readerAndChunkMetadataList) {
+    long size = 0;
+    for (Pair<TsFileSequenceReader, List<ChunkMetadata>> readerListPair :
+        readerAndChunkMetadataList) {
+      for (ChunkMetadata chunkMetadata : readerListPair.right) {
+        size += estimateChunkSize(chunkMetadata);
+      }
+    }
+    return size;
+  }
+
+  private static long estimateChunkSize(IChunkMetadata chunkMetadata) {
+    if (chunkMetadata == null) {
+      return 0;
+    }
+    Statistics<? extends Serializable> statistics = chunkMetadata.getStatistics();
+    if (chunkMetadata.getDataType() == TSDataType.TEXT) {
+      // the size of a TEXT value is its length plus the 4 bytes length prefix, the length is
+      // estimated by the longer one of the first and the last values
+      int valueLength =
+          Math.max(
+              ((Binary) statistics.getFirstValue()).getLength(),
+              ((Binary) statistics.getLastValue()).getLength());
+      return statistics.getCount() * (Integer.BYTES + valueLength);
+    }
+    return statistics.getCount() * chunkMetadata.getDataType().getDataTypeSize();
+  }
+
   @Override
   public void setTargetFiles(List<TsFileResource> targetFiles) {
     if (targetFiles.size() != 1) {
@@ -131,6 +262,15 @@ public class ReadChunkCompactionPerformer implements ISeqCompactionPerformer {
     if (!checkAlignedSeriesExists(readerAndChunkMetadataList)) {
       return;
     }
+    if (subTaskNum > 1
+        && estimateAlignedDeviceSize(readerAndChunkMetadataList) <= maxSubTaskBufferSize) {
+      submitSubTask(
+          ReadChunkPerformerSubTask.forAlignedDevice(
+              device, targetResource, readerAndChunkMetadataList, summary),
+          writer);
+      return;
+    }
+    waitSubTasks(writer, 0);
     writer.startChunkGroup(device);
     AlignedSeriesCompactionExecutor compactionExecutor =
         new AlignedSeriesCompactionExecutor(
@@ -165,9 +305,39 @@ public class ReadChunkCompactionPerformer implements ISeqCompactionPerformer {
       TsFileIOWriter writer,
       MultiTsFileDeviceIterator deviceIterator)
       throws IOException, MetadataException, InterruptedException {
-    writer.startChunkGroup(device);
     MultiTsFileDeviceIterator.MeasurementIterator seriesIterator =
         deviceIterator.iterateNotAlignedSeries(device, true);
+    // collect the series of the device for a sub task until it is too large to be buffered
+    List<Pair<PartialPath, LinkedList<Pair<TsFileSequenceReader, List<ChunkMetadata>>>>>
+        collectedSeries = new ArrayList<>();
+    long estimatedSize = 0;
+    while (subTaskNum > 1
+        && estimatedSize <= maxSubTaskBufferSize
+        && seriesIterator.hasNextSeries()) {
+      checkThreadInterrupted();
+      PartialPath p = new PartialPath(device, seriesIterator.nextSeries());
+      LinkedList<Pair<TsFileSequenceReader, List<ChunkMetadata>>> readerAndChunkMetadataList =
+          seriesIterator.getMetadataListForCurrentSeries();
+      estimatedSize += estimateSeriesSize(readerAndChunkMetadataList);
+      collectedSeries.add(new Pair<>(p, readerAndChunkMetadataList));
+    }
+    if (subTaskNum > 1 && estimatedSize <= maxSubTaskBufferSize) {
+      submitSubTask(
+          ReadChunkPerformerSubTask.forNotAlignedDevice(
+              device, targetResource, collectedSeries, summary),
+          writer);
+      return;
+    }
+
+    waitSubTasks(writer, 0);
+    writer.startChunkGroup(device);
+    for (Pair<PartialPath, LinkedList<Pair<TsFileSequenceReader, List<ChunkMetadata>>>> series :
+        collectedSeries) {
+      checkThreadInterrupted();
+      new SingleSeriesCompactionExecutor(
+              series.left, series.right, writer, targetResource, summary)
+          .execute();
+    }
     while (seriesIterator.hasNextSeries()) {
       checkThreadInterrupted();
       // TODO: we can provide a configuration item to enable concurrent between each series
@@ -28,6 +28,7 @@ public class CompactionTaskSummary {
   protected long startTime = -1L;
   protected int processChunkNum = 0;
   protected int directlyFlushChunkNum = 0;
+  protected int directlyFlushPageNum = 0;
   protected int deserializeChunkCount = 0;
   protected int deserializePageCount = 0;
   protected int mergedChunkNum = 0;
@@ -82,6 +83,10 @@ public class CompactionTaskSummary {
     directlyFlushChunkNum += increment;
   }
 
+  public void increaseDirectlyFlushPageNum(int increment) {
+    directlyFlushPageNum += increment;
+  }
+
   public void increaseDeserializedChunkNum(int increment) {
     deserializeChunkCount += increment;
   }
@@ -114,6 +119,10 @@ public class CompactionTaskSummary {
     return directlyFlushChunkNum;
   }
 
+  public int getDirectlyFlushPageNum() {
+    return directlyFlushPageNum;
+  }
+
   public int getDeserializeChunkCount() {
     return deserializeChunkCount;
   }
@@ -139,11 +148,12 @@ public class CompactionTaskSummary {
     String startTimeInStr = new SimpleDateFormat().format(new Date(startTime));
     return String.format(
         "Task start time: %s, total process chunk num: %d, "
-            + "directly flush chunk num: %d, merge chunk num: %d, deserialize chunk num: %d,"
-            + " total process point num: %d",
+            + "directly flush chunk num: %d, directly flush page num: %d, merge chunk num: %d,"
+            + " deserialize chunk num: %d, total process point num: %d",
         startTimeInStr,
         processChunkNum,
         directlyFlushChunkNum,
+        directlyFlushPageNum,
         mergedChunkNum,
         deserializeChunkCount,
         processPointNum);
@@ -64,6 +64,8 @@ public class CrossSpaceCompactionTask extends AbstractCompactionTask {
   protected double selectedSeqFileSize = 0;
   protected double selectedUnseqFileSize = 0;
   protected long memoryCost = 0L;
+  // read count of the selected files when the task is created, a stable priority in the queue
+  protected long selectedFilesReadCount = 0L;
 
   public CrossSpaceCompactionTask(
       long timePartition,
@@ -92,6 +94,12 @@ public class CrossSpaceCompactionTask extends AbstractCompactionTask {
     this.memoryCost = memoryCost;
     this.crossTask = true;
     this.innerSeqTask = false;
+    for (TsFileResource resource : selectedSequenceFiles) {
+      selectedFilesReadCount += resource.getReadCount();
+    }
+    for (TsFileResource resource : selectedUnsequenceFiles) {
+      selectedFilesReadCount += resource.getReadCount();
+    }
     createSummary();
   }
 
@@ -318,6 +326,10 @@ public class CrossSpaceCompactionTask extends AbstractCompactionTask {
     return selectedUnsequenceFiles;
   }
 
+  public long getSelectedFilesReadCount() {
+    return selectedFilesReadCount;
+  }
+
   @Override
   public String toString() {
     return storageGroupName
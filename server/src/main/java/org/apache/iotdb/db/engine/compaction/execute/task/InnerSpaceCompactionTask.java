@@ -59,6 +59,8 @@ public class InnerSpaceCompactionTask extends AbstractCompactionTask {
   protected int sumOfCompactionCount;
   protected long maxFileVersion;
   protected int maxCompactionCount;
+  // read count of the selected files when the task is created, a stable priority in the queue
+  protected long selectedFilesReadCount;
 
   protected TsFileResourceList tsFileResourceList;
   protected List<TsFileResource> targetTsFileList;
@@ -323,10 +325,12 @@ public class InnerSpaceCompactionTask extends AbstractCompactionTask {
     sumOfCompactionCount = 0;
     maxFileVersion = -1L;
     maxCompactionCount = -1;
+    selectedFilesReadCount = 0L;
     if (selectedTsFileResourceList == null) {
       return;
     }
     for (TsFileResource resource : selectedTsFileResourceList) {
+      selectedFilesReadCount += resource.getReadCount();
       try {
         selectedFileSize += resource.getTsFileSize();
         TsFileNameGenerator.TsFileName fileName =
@@ -364,6 +368,10 @@ public class InnerSpaceCompactionTask extends AbstractCompactionTask {
     return maxFileVersion;
   }
 
+  public long getSelectedFilesReadCount() {
+    return selectedFilesReadCount;
+  }
+
   @Override
   public String toString() {
     return storageGroupName
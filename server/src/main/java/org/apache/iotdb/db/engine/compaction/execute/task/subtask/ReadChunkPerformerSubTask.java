@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction.execute.task.subtask;
+
+import org.apache.iotdb.commons.path.PartialPath;
+import org.apache.iotdb.db.engine.compaction.execute.task.CompactionTaskSummary;
+import org.apache.iotdb.db.engine.compaction.execute.utils.executor.readchunk.AlignedSeriesCompactionExecutor;
+import org.apache.iotdb.db.engine.compaction.execute.utils.executor.readchunk.SingleSeriesCompactionExecutor;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.engine.storagegroup.timeindex.DeviceTimeIndex;
+import org.apache.iotdb.tsfile.file.metadata.AlignedChunkMetadata;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.utils.Pair;
+import org.apache.iotdb.tsfile.write.writer.MemoryTsFileOutput;
+import org.apache.iotdb.tsfile.write.writer.TsFileIOWriter;
+
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This class is used to compact one device in parallel with other devices in {@link
+ * org.apache.iotdb.db.engine.compaction.execute.performer.impl.ReadChunkCompactionPerformer}. The
+ * chunk group of the device is written into memory, and then appended to the target file by the
+ * performer in the order of devices, so the layout of the target file is the same as compacting
+ * the devices one by one.
+ */
+public class ReadChunkPerformerSubTask implements Callable<Void> {
+  private final String device;
+  private final LinkedList<Pair<TsFileSequenceReader, List<AlignedChunkMetadata>>>
+      alignedReaderAndChunkMetadataList;
+  private final List<Pair<PartialPath, LinkedList<Pair<TsFileSequenceReader, List<ChunkMetadata>>>>>
+      seriesReaderAndChunkMetadataList;
+  private final CompactionTaskSummary parentSummary;
+
+  private final MemoryTsFileOutput output = new MemoryTsFileOutput();
+  private final TsFileIOWriter writer = new TsFileIOWriter(output, true);
+  // the executors update the time index and summary without synchronization, so each sub task
+  // keeps its own ones and merges them into the target in the performer thread
+  private final TsFileResource timeRecorder;
+  private final CompactionTaskSummary summary = new CompactionTaskSummary();
+
+  // set by the first one of call() and abortOrWaitUntilFinished(), so that an aborted sub task
+  // which has not started will never run
+  private final AtomicBoolean started = new AtomicBoolean(false);
+  private final CountDownLatch finished = new CountDownLatch(1);
+
+  private ReadChunkPerformerSubTask(
+      String device,
+      TsFileResource targetResource,
+      LinkedList<Pair<TsFileSequenceReader, List<AlignedChunkMetadata>>>
+          alignedReaderAndChunkMetadataList,
+      List<Pair<PartialPath, LinkedList<Pair<TsFileSequenceReader, List<ChunkMetadata>>>>>
+          seriesReaderAndChunkMetadataList,
+      CompactionTaskSummary parentSummary) {
+    this.device = device;
+    this.alignedReaderAndChunkMetadataList = alignedReaderAndChunkMetadataList;
+    this.seriesReaderAndChunkMetadataList = seriesReaderAndChunkMetadataList;
+    this.parentSummary = parentSummary;
+    this.timeRecorder = new TsFileResource(targetResource.getTsFile());
+    this.timeRecorder.setTimeIndex(new DeviceTimeIndex());
+  }
+
+  public static ReadChunkPerformerSubTask forAlignedDevice(
+      String device,
+      TsFileResource targetResource,
+      LinkedList<Pair<TsFileSequenceReader, List<AlignedChunkMetadata>>> readerAndChunkMetadataList,
+      CompactionTaskSummary parentSummary) {
+    return new ReadChunkPerformerSubTask(
+        device, targetResource, readerAndChunkMetadataList, null, parentSummary);
+  }
+
+  public static ReadChunkPerformerSubTask forNotAlignedDevice(
+      String device,
+      TsFileResource targetResource,
+      List<Pair<PartialPath, LinkedList<Pair<TsFileSequenceReader, List<ChunkMetadata>>>>>
+          readerAndChunkMetadataList,
+      CompactionTaskSummary parentSummary) {
+    return new ReadChunkPerformerSubTask(
+        device, targetResource, null, readerAndChunkMetadataList, parentSummary);
+  }
+
+  @Override
+  public Void call() throws Exception {
+    if (!started.compareAndSet(false, true)) {
+      throw new InterruptedException(
+          String.format("[Compaction] compaction for device %s abort", device));
+    }
+    try {
+      writer.startChunkGroup(device);
+      if (alignedReaderAndChunkMetadataList != null) {
+        new AlignedSeriesCompactionExecutor(
+                device, timeRecorder, alignedReaderAndChunkMetadataList, writer, summary)
+            .execute();
+      } else {
+        for (Pair<PartialPath, LinkedList<Pair<TsFileSequenceReader, List<ChunkMetadata>>>>
+            series : seriesReaderAndChunkMetadataList) {
+          if (Thread.interrupted() || parentSummary.isCancel()) {
+            throw new InterruptedException(
+                String.format("[Compaction] compaction for device %s abort", device));
+          }
+          new SingleSeriesCompactionExecutor(
+                  series.left, series.right, writer, timeRecorder, summary)
+              .execute();
+        }
+      }
+      writer.endChunkGroup();
+      return null;
+    } finally {
+      finished.countDown();
+    }
+  }
+
+  /**
+   * Prevent this sub task from running if it has not started, otherwise wait until it finishes.
+   * It is called by the performer after the sub task is cancelled, so that the source files are
+   * not closed while the sub task is still reading them.
+   */
+  public void abortOrWaitUntilFinished() {
+    if (started.compareAndSet(false, true)) {
+      return;
+    }
+    boolean interrupted = false;
+    while (true) {
+      try {
+        finished.await();
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Append the compacted chunk group to the target file, and merge the time index and summary of
+   * this sub task into the target. It must be called by the performer thread after this sub task
+   * is finished.
+   */
+  public void appendTo(
+      TsFileIOWriter targetWriter,
+      TsFileResource targetResource,
+      CompactionTaskSummary targetSummary)
+      throws IOException {
+    targetWriter.appendChunkGroups(output, writer.getChunkGroupMetadataList());
+    targetWriter.checkMetadataSizeAndMayFlush();
+    if (timeRecorder.isDeviceIdExist(device)) {
+      targetResource.updateStartTime(device, timeRecorder.getStartTime(device));
+      targetResource.updateEndTime(device, timeRecorder.getEndTime(device));
+    }
+    targetSummary.increaseProcessChunkNum(summary.getProcessChunkNum());
+    targetSummary.increaseProcessPointNum(summary.getProcessPointNum());
+    targetSummary.increaseDirectlyFlushChunkNum(summary.getDirectlyFlushChunkNum());
+    targetSummary.increaseDirectlyFlushPageNum(summary.getDirectlyFlushPageNum());
+    targetSummary.increaseDeserializedChunkNum(summary.getDeserializeChunkCount());
+    targetSummary.increaseMergedChunkNum(summary.getMergedChunkNum());
+  }
+}
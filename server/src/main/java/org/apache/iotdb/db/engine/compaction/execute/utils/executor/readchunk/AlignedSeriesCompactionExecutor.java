@@ -27,6 +27,7 @@ import org.apache.iotdb.db.engine.compaction.schedule.constant.CompactionType;
 import org.apache.iotdb.db.engine.compaction.schedule.constant.ProcessChunkType;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.service.metrics.recorder.CompactionMetricsManager;
+import org.apache.iotdb.db.utils.RollupUtils;
 import org.apache.iotdb.tsfile.file.header.ChunkHeader;
 import org.apache.iotdb.tsfile.file.metadata.AlignedChunkMetadata;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
@@ -63,6 +64,8 @@ public class AlignedSeriesCompactionExecutor {
   private final AlignedChunkWriterImpl chunkWriter;
   private final List<IMeasurementSchema> schemaList;
   private long remainingPointInChunkWriter = 0L;
+  // the rollup window of the last point written to the chunkWriter
+  private long lastRollupWindow = Long.MIN_VALUE;
   private final CompactionTaskSummary summary;
   private final RateLimiter rateLimiter =
       CompactionTaskManager.getInstance().getMergeWriteRateLimiter();
@@ -177,6 +180,7 @@ public class AlignedSeriesCompactionExecutor {
       while (batchDataIterator.hasNext()) {
         TsPrimitiveType[] pointsData = (TsPrimitiveType[]) batchDataIterator.currentValue();
         long time = batchDataIterator.currentTime();
+        checkRollupWindowAndMaySealPage(time);
         chunkWriter.write(time, pointsData);
         ++remainingPointInChunkWriter;
 
@@ -189,6 +193,21 @@ public class AlignedSeriesCompactionExecutor {
     flushChunkWriterIfLargeEnough();
   }
 
+  /**
+   * Seal the unsealed page if the point to write is in a different rollup window, so that no page
+   * crosses the boundary of a rollup window.
+   */
+  private void checkRollupWindowAndMaySealPage(long time) {
+    if (!RollupUtils.isRollupEnabled()) {
+      return;
+    }
+    long rollupWindow = RollupUtils.getRollupWindow(time);
+    if (rollupWindow != lastRollupWindow) {
+      chunkWriter.sealCurrentPage();
+      lastRollupWindow = rollupWindow;
+    }
+  }
+
   /**
    * if the avg size of each chunk is larger than the threshold, or the chunk point num is larger
    * than the threshold, flush it
@@ -26,11 +26,18 @@ import org.apache.iotdb.db.engine.compaction.schedule.constant.CompactionType;
 import org.apache.iotdb.db.engine.compaction.schedule.constant.ProcessChunkType;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.service.metrics.recorder.CompactionMetricsManager;
+import org.apache.iotdb.db.utils.RollupUtils;
+import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
+import org.apache.iotdb.tsfile.exception.write.PageException;
+import org.apache.iotdb.tsfile.file.MetaMarker;
 import org.apache.iotdb.tsfile.file.header.ChunkHeader;
+import org.apache.iotdb.tsfile.file.header.PageHeader;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.read.TimeValuePair;
 import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.apache.iotdb.tsfile.read.common.TimeRange;
 import org.apache.iotdb.tsfile.read.reader.IChunkReader;
 import org.apache.iotdb.tsfile.read.reader.IPointReader;
 import org.apache.iotdb.tsfile.read.reader.chunk.ChunkReader;
@@ -43,6 +50,8 @@ import org.apache.iotdb.tsfile.write.writer.TsFileIOWriter;
 import com.google.common.util.concurrent.RateLimiter;
 
 import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -64,6 +73,8 @@ public class SingleSeriesCompactionExecutor {
   private long minStartTimestamp = Long.MAX_VALUE;
   private long maxEndTimestamp = Long.MIN_VALUE;
   private long pointCountInChunkWriter = 0;
+  // the rollup window of the last point written to the target file
+  private long lastRollupWindow = Long.MIN_VALUE;
   private final CompactionTaskSummary summary;
 
   private final long targetChunkSize =
@@ -74,6 +85,12 @@ public class SingleSeriesCompactionExecutor {
       IoTDBDescriptor.getInstance().getConfig().getChunkSizeLowerBoundInCompaction();
   private final long chunkPointNumLowerBound =
       IoTDBDescriptor.getInstance().getConfig().getChunkPointNumLowerBoundInCompaction();
+  // full pages are appended to the chunkWriter without decoding, because decoding and encoding
+  // them again produces the same pages
+  private final long maxPointNumInPage =
+      TSFileDescriptor.getInstance().getConfig().getMaxNumberOfPointsInPage();
+  private final long pageSizeInByte =
+      TSFileDescriptor.getInstance().getConfig().getPageSizeInByte();
 
   public SingleSeriesCompactionExecutor(
       PartialPath series,
@@ -133,8 +150,10 @@ public class SingleSeriesCompactionExecutor {
                 (long) currentChunk.getHeader().getSerializedSize()
                     + currentChunk.getHeader().getDataSize());
 
-        // if this chunk is modified, deserialize it into points
-        if (chunkMetadata.getDeleteIntervalList() != null) {
+        // if this chunk is modified or has pages crossing rollup windows, deserialize it into
+        // points
+        if (chunkMetadata.getDeleteIntervalList() != null
+            || hasPageCrossingRollupWindow(currentChunk)) {
           processModifiedChunk(currentChunk);
           continue;
         }
@@ -180,6 +199,35 @@ public class SingleSeriesCompactionExecutor {
     return (long) chunk.getHeader().getSerializedSize() + chunk.getHeader().getDataSize();
   }
 
+  /**
+   * Check whether a page of the chunk crosses the boundary of a rollup window, e.g. it is written
+   * before the rollup is enabled, so that the chunk and the page must not be appended directly.
+   */
+  private boolean hasPageCrossingRollupWindow(Chunk chunk) {
+    if (!RollupUtils.isRollupEnabled()) {
+      return false;
+    }
+    Statistics<? extends Serializable> chunkStatistics = chunk.getChunkStatistic();
+    if (RollupUtils.getRollupWindow(chunkStatistics.getStartTime())
+        == RollupUtils.getRollupWindow(chunkStatistics.getEndTime())) {
+      return false;
+    }
+    ChunkHeader chunkHeader = chunk.getHeader();
+    if (((byte) (chunkHeader.getChunkType() & 0x3F)) == MetaMarker.ONLY_ONE_PAGE_CHUNK_HEADER) {
+      return true;
+    }
+    ByteBuffer chunkDataBuffer = chunk.getData().duplicate();
+    while (chunkDataBuffer.remaining() > 0) {
+      PageHeader pageHeader =
+          PageHeader.deserializeFrom(chunkDataBuffer, chunkHeader.getDataType());
+      if (isPageCrossingRollupWindow(pageHeader)) {
+        return true;
+      }
+      chunkDataBuffer.position(chunkDataBuffer.position() + pageHeader.getCompressedSize());
+    }
+    return false;
+  }
+
   private void processModifiedChunk(Chunk chunk) throws IOException {
     if (cachedChunk != null) {
       // if there is a cached chunk, deserialize it and write it to ChunkWriter
@@ -246,23 +294,164 @@ public class SingleSeriesCompactionExecutor {
     flushChunkWriterIfLargeEnough();
   }
 
-  /** Deserialize a chunk into points and write it to the chunkWriter */
+  /**
+   * Write a chunk to the chunkWriter. If the chunk is encoded and compressed in the same way as the
+   * chunkWriter, its full pages which are not modified are appended to the chunkWriter directly
+   * when the chunkWriter has no unsealed points, and the other pages are deserialized into points.
+   * A full page following unsealed points is deserialized as well, so that the unsealed points are
+   * merged into it instead of being sealed as a small page, and the pages in the target chunk are
+   * the same as deserializing all the pages. When the rollup is enabled, the unsealed points in
+   * another rollup window do not prevent a page from being appended, because they are sealed at the
+   * boundary of the window anyway, and a small page which ends its rollup window, i.e. the next
+   * page of the chunk is in a later window, is appended directly instead of being repacked.
+   */
   private void writeChunkIntoChunkWriter(Chunk chunk) throws IOException {
+    ChunkHeader chunkHeader = chunk.getHeader();
+    if (chunk.isFromOldFile()
+        || chunkHeader.getDataType() != schema.getType()
+        || chunkHeader.getEncodingType() != schema.getEncodingType()
+        || chunkHeader.getCompressionType() != schema.getCompressor()) {
+      deserializeChunkIntoChunkWriter(chunk);
+      return;
+    }
+    ChunkReader chunkReader = new ChunkReader(chunk);
+    ByteBuffer chunkDataBuffer = chunk.getData();
+    while (chunkDataBuffer.remaining() > 0) {
+      PageHeader pageHeader;
+      if (((byte) (chunkHeader.getChunkType() & 0x3F)) == MetaMarker.ONLY_ONE_PAGE_CHUNK_HEADER) {
+        pageHeader = PageHeader.deserializeFrom(chunkDataBuffer, chunk.getChunkStatistic());
+      } else {
+        pageHeader = PageHeader.deserializeFrom(chunkDataBuffer, chunkHeader.getDataType());
+      }
+      ByteBuffer compressedPageData = chunkReader.readPageDataWithoutUncompressing(pageHeader);
+      if (canFlushPageDirectly(pageHeader, chunk, chunkDataBuffer)) {
+        chunkWriter.sealCurrentPage();
+        flushPageToChunkWriter(compressedPageData, pageHeader);
+      } else {
+        writePointsIntoChunkWriter(
+            chunkReader
+                .readPageData(pageHeader, compressedPageData)
+                .getTsBlockSingleColumnIterator());
+      }
+    }
+  }
+
+  /** Deserialize a chunk into points and write it to the chunkWriter */
+  private void deserializeChunkIntoChunkWriter(Chunk chunk) throws IOException {
     IChunkReader chunkReader = new ChunkReader(chunk, null);
     while (chunkReader.hasNextSatisfiedPage()) {
-      IPointReader batchIterator = chunkReader.nextPageData().getBatchDataIterator();
-      while (batchIterator.hasNextTimeValuePair()) {
-        TimeValuePair timeValuePair = batchIterator.nextTimeValuePair();
-        writeTimeAndValueToChunkWriter(timeValuePair);
-        if (timeValuePair.getTimestamp() > maxEndTimestamp) {
-          maxEndTimestamp = timeValuePair.getTimestamp();
-        }
-        if (timeValuePair.getTimestamp() < minStartTimestamp) {
-          minStartTimestamp = timeValuePair.getTimestamp();
-        }
+      writePointsIntoChunkWriter(chunkReader.nextPageData().getBatchDataIterator());
+    }
+  }
+
+  private void writePointsIntoChunkWriter(IPointReader pointReader) throws IOException {
+    while (pointReader.hasNextTimeValuePair()) {
+      TimeValuePair timeValuePair = pointReader.nextTimeValuePair();
+      checkRollupWindowAndMaySealPage(timeValuePair.getTimestamp());
+      writeTimeAndValueToChunkWriter(timeValuePair);
+      if (timeValuePair.getTimestamp() > maxEndTimestamp) {
+        maxEndTimestamp = timeValuePair.getTimestamp();
       }
+      if (timeValuePair.getTimestamp() < minStartTimestamp) {
+        minStartTimestamp = timeValuePair.getTimestamp();
+      }
+      pointCountInChunkWriter++;
+    }
+  }
+
+  /**
+   * Seal the unsealed page if the point to write is in a different rollup window, so that no page
+   * crosses the boundary of a rollup window.
+   */
+  private void checkRollupWindowAndMaySealPage(long timestamp) {
+    if (!RollupUtils.isRollupEnabled()) {
+      return;
+    }
+    long rollupWindow = RollupUtils.getRollupWindow(timestamp);
+    if (rollupWindow != lastRollupWindow) {
+      chunkWriter.sealCurrentPage();
+      lastRollupWindow = rollupWindow;
+    }
+  }
+
+  private void updateRollupWindow(long endTime) {
+    if (RollupUtils.isRollupEnabled()) {
+      lastRollupWindow = RollupUtils.getRollupWindow(endTime);
+    }
+  }
+
+  /**
+   * Check whether a page can be appended to the chunkWriter directly.
+   *
+   * @param nextPagesBuffer the data buffer of the chunk positioned at the header of the next page
+   */
+  private boolean canFlushPageDirectly(
+      PageHeader pageHeader, Chunk chunk, ByteBuffer nextPagesBuffer) {
+    if (isPageModified(pageHeader, chunk.getDeleteIntervalList())) {
+      return false;
+    }
+    if (!RollupUtils.isRollupEnabled()) {
+      return chunkWriter.getPageWriter().getPointNumber() == 0 && isPageFull(pageHeader);
+    }
+    if (isPageCrossingRollupWindow(pageHeader)) {
+      return false;
+    }
+    long rollupWindow = RollupUtils.getRollupWindow(pageHeader.getStartTime());
+    if (chunkWriter.getPageWriter().getPointNumber() != 0 && rollupWindow == lastRollupWindow) {
+      return false;
+    }
+    if (isPageFull(pageHeader)) {
+      return true;
+    }
+    if (nextPagesBuffer.remaining() == 0) {
+      // the next chunk may continue the rollup window of the last page
+      return false;
+    }
+    PageHeader nextPageHeader =
+        PageHeader.deserializeFrom(nextPagesBuffer.duplicate(), chunk.getHeader().getDataType());
+    return RollupUtils.getRollupWindow(nextPageHeader.getStartTime()) != rollupWindow;
+  }
+
+  private boolean isPageCrossingRollupWindow(PageHeader pageHeader) {
+    return RollupUtils.getRollupWindow(pageHeader.getStartTime())
+        != RollupUtils.getRollupWindow(pageHeader.getEndTime());
+  }
+
+  private boolean isPageFull(PageHeader pageHeader) {
+    return pageHeader.getStatistics().getCount() >= maxPointNumInPage
+        || pageHeader.getUncompressedSize() >= pageSizeInByte;
+  }
+
+  private boolean isPageModified(PageHeader pageHeader, List<TimeRange> deleteIntervalList) {
+    if (deleteIntervalList == null) {
+      return false;
+    }
+    TimeRange pageTimeRange = new TimeRange(pageHeader.getStartTime(), pageHeader.getEndTime());
+    for (TimeRange deleteInterval : deleteIntervalList) {
+      if (deleteInterval.overlaps(pageTimeRange)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Append a compressed page to the chunkWriter without decompressing and decoding it. */
+  private void flushPageToChunkWriter(ByteBuffer compressedPageData, PageHeader pageHeader)
+      throws IOException {
+    try {
+      chunkWriter.writePageHeaderAndDataIntoBuff(compressedPageData, pageHeader);
+    } catch (PageException e) {
+      throw new IOException(e);
+    }
+    summary.increaseDirectlyFlushPageNum(1);
+    if (pageHeader.getStartTime() < minStartTimestamp) {
+      minStartTimestamp = pageHeader.getStartTime();
+    }
+    if (pageHeader.getEndTime() > maxEndTimestamp) {
+      maxEndTimestamp = pageHeader.getEndTime();
     }
-    pointCountInChunkWriter += chunk.getChunkStatistic().getCount();
+    pointCountInChunkWriter += pageHeader.getStatistics().getCount();
+    updateRollupWindow(pageHeader.getEndTime());
   }
 
   private void writeCachedChunkIntoChunkWriter() throws IOException {
@@ -329,6 +518,7 @@ public class SingleSeriesCompactionExecutor {
             false,
             getChunkSize(chunk));
     fileWriter.writeChunk(chunk, chunkMetadata);
+    updateRollupWindow(chunkMetadata.getEndTime());
   }
 
   private void flushChunkWriterIfLargeEnough() throws IOException {
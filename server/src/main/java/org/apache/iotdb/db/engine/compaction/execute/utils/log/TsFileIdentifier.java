@@ -21,6 +21,8 @@ package org.apache.iotdb.db.engine.compaction.execute.utils.log;
 import org.apache.iotdb.commons.conf.IoTDBConstant;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 
+import org.apache.commons.lang3.ArrayUtils;
+
 import java.io.File;
 
 /**
@@ -180,7 +182,10 @@ public class TsFileIdentifier {
    * the file is not found, it will return null.
    */
   public File getFileFromDataDirs() {
-    String[] dataDirs = IoTDBDescriptor.getInstance().getConfig().getDataDirs();
+    String[] dataDirs =
+        ArrayUtils.addAll(
+            IoTDBDescriptor.getInstance().getConfig().getDataDirs(),
+            IoTDBDescriptor.getInstance().getConfig().getColdDataDirs());
     String partialFileString =
         (sequence ? IoTDBConstant.SEQUENCE_FLODER_NAME : IoTDBConstant.UNSEQUENCE_FLODER_NAME)
             + File.separator
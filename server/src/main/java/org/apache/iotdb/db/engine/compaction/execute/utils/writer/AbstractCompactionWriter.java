@@ -23,6 +23,7 @@ import org.apache.iotdb.db.engine.compaction.schedule.CompactionTaskManager;
 import org.apache.iotdb.db.engine.compaction.schedule.constant.CompactionType;
 import org.apache.iotdb.db.engine.compaction.schedule.constant.ProcessChunkType;
 import org.apache.iotdb.db.service.metrics.recorder.CompactionMetricsManager;
+import org.apache.iotdb.db.utils.RollupUtils;
 import org.apache.iotdb.tsfile.exception.write.PageException;
 import org.apache.iotdb.tsfile.file.header.PageHeader;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
@@ -54,6 +55,9 @@ public abstract class AbstractCompactionWriter implements AutoCloseable {
   // check if there is unseq error point during writing
   protected long[] lastTime = new long[subTaskNum];
 
+  // the rollup window of the last point written by each sub task
+  private final long[] lastRollupWindow = new long[subTaskNum];
+
   // Each sub task has its own chunk writer.
   // The index of the array corresponds to subTaskId.
   protected IChunkWriter[] chunkWriters = new IChunkWriter[subTaskNum];
@@ -105,6 +109,7 @@ public abstract class AbstractCompactionWriter implements AutoCloseable {
   public void startMeasurement(List<IMeasurementSchema> measurementSchemaList, int subTaskId) {
     lastCheckIndex = 0;
     lastTime[subTaskId] = Long.MIN_VALUE;
+    lastRollupWindow[subTaskId] = Long.MIN_VALUE;
     if (isAlign) {
       chunkWriters[subTaskId] = new AlignedChunkWriterImpl(measurementSchemaList);
       measurementId[subTaskId] = "";
@@ -162,6 +167,46 @@ public abstract class AbstractCompactionWriter implements AutoCloseable {
     }
   }
 
+  /**
+   * Seal the unsealed page of the sub task if the point to write is in a different rollup window,
+   * so that no page crosses the boundary of a rollup window.
+   */
+  protected void checkRollupWindowAndMaySealPage(long timestamp, int subTaskId) {
+    if (!RollupUtils.isRollupEnabled()) {
+      return;
+    }
+    long rollupWindow = RollupUtils.getRollupWindow(timestamp);
+    if (rollupWindow != lastRollupWindow[subTaskId]) {
+      chunkWriters[subTaskId].sealCurrentPage();
+      lastRollupWindow[subTaskId] = rollupWindow;
+    }
+  }
+
+  /** Write a batch of aligned data, it is split at the boundaries of rollup windows. */
+  protected void writeAlignedBatch(
+      TimeColumn timestamps, Column[] columns, int subTaskId, int batchSize) {
+    AlignedChunkWriterImpl chunkWriter = (AlignedChunkWriterImpl) chunkWriters[subTaskId];
+    if (!RollupUtils.isRollupEnabled()) {
+      chunkWriter.write(timestamps, columns, batchSize);
+      return;
+    }
+    int start = 0;
+    for (int i = 0; i < batchSize; i++) {
+      long rollupWindow = RollupUtils.getRollupWindow(timestamps.getLong(i));
+      if (rollupWindow != lastRollupWindow[subTaskId]) {
+        if (i > start) {
+          chunkWriter.write(timestamps, columns, i - start, start);
+        }
+        chunkWriter.sealCurrentPage();
+        lastRollupWindow[subTaskId] = rollupWindow;
+        start = i;
+      }
+    }
+    if (batchSize > start) {
+      chunkWriter.write(timestamps, columns, batchSize - start, start);
+    }
+  }
+
   protected void sealChunk(TsFileIOWriter targetWriter, IChunkWriter iChunkWriter, int subTaskId)
       throws IOException {
     CompactionTaskManager.mergeRateLimiterAcquire(
@@ -127,6 +127,7 @@ public abstract class AbstractCrossCompactionWriter extends AbstractCompactionWr
 
     checkTimeAndMayFlushChunkToCurrentFile(timestamp, subTaskId);
     int fileIndex = seqFileIndexArray[subTaskId];
+    checkRollupWindowAndMaySealPage(timestamp, subTaskId);
     writeDataPoint(timestamp, value, chunkWriters[subTaskId]);
     chunkPointNumArray[subTaskId]++;
     checkChunkSizeAndMayOpenANewChunk(
@@ -48,7 +48,7 @@ public class ReadPointCrossCompactionWriter extends AbstractCrossCompactionWrite
     // end time of the device in the source file, but no error will be caused
     checkTimeAndMayFlushChunkToCurrentFile(timestamps.getStartTime(), subTaskId);
     AlignedChunkWriterImpl chunkWriter = (AlignedChunkWriterImpl) this.chunkWriters[subTaskId];
-    chunkWriter.write(timestamps, columns, batchSize);
+    writeAlignedBatch(timestamps, columns, subTaskId, batchSize);
     synchronized (this) {
       // we need to synchronized here to avoid multi-thread competition in sub-task
       TsFileResource resource = targetResources.get(seqFileIndexArray[subTaskId]);
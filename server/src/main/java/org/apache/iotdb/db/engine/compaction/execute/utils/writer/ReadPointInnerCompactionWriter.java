@@ -40,7 +40,7 @@ public class ReadPointInnerCompactionWriter extends AbstractInnerCompactionWrite
   public void write(TimeColumn timestamps, Column[] columns, int subTaskId, int batchSize)
       throws IOException {
     AlignedChunkWriterImpl chunkWriter = (AlignedChunkWriterImpl) this.chunkWriters[subTaskId];
-    chunkWriter.write(timestamps, columns, batchSize);
+    writeAlignedBatch(timestamps, columns, subTaskId, batchSize);
     chunkPointNumArray[subTaskId] += timestamps.getTimes().length;
     checkChunkSizeAndMayOpenANewChunk(fileWriter, chunkWriter, subTaskId, false);
     isEmptyFile = false;
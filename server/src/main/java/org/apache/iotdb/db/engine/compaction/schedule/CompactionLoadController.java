@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction.schedule;
+
+import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.commons.concurrent.ThreadName;
+import org.apache.iotdb.commons.concurrent.threadpool.ScheduledExecutorUtil;
+import org.apache.iotdb.commons.conf.IoTDBConstant;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.flush.FlushManager;
+import org.apache.iotdb.db.mpp.plan.Coordinator;
+import org.apache.iotdb.db.mpp.plan.execution.IQueryExecution;
+
+import com.sun.management.OperatingSystemMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CompactionLoadController adjusts how much resource compaction may use according to the load of
+ * the system. It periodically samples the system cpu load, the flush backlog and the running slow
+ * queries, and maintains a load ratio in [MIN_LOAD_RATIO, 1] with additive increase and
+ * multiplicative decrease. The number of working compaction threads and the compaction write
+ * throughput are both scaled by this ratio, using the configured values as upper bounds.
+ */
+public class CompactionLoadController {
+  private static final Logger logger =
+      LoggerFactory.getLogger(IoTDBConstant.COMPACTION_LOGGER_NAME);
+
+  private static final double MIN_LOAD_RATIO = 0.1;
+  private static final double LOAD_RATIO_INCREASE_STEP = 0.1;
+
+  private final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private final OperatingSystemMXBean osMxBean =
+      (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+  private ScheduledExecutorService checkThread;
+  private volatile double loadRatio = 1.0;
+
+  public static CompactionLoadController getInstance() {
+    return CompactionLoadControllerHolder.INSTANCE;
+  }
+
+  public synchronized void start() {
+    if (!config.isEnableAdaptiveCompaction() || checkThread != null) {
+      return;
+    }
+    loadRatio = 1.0;
+    checkThread =
+        IoTDBThreadPoolFactory.newSingleThreadScheduledExecutor(
+            ThreadName.COMPACTION_LOAD_CONTROL.getName());
+    ScheduledExecutorUtil.safelyScheduleWithFixedDelay(
+        checkThread,
+        this::checkSystemLoad,
+        config.getAdaptiveCompactionCheckIntervalInMs(),
+        config.getAdaptiveCompactionCheckIntervalInMs(),
+        TimeUnit.MILLISECONDS);
+    logger.info("Compaction load controller started.");
+  }
+
+  public synchronized void stop() {
+    if (checkThread != null) {
+      checkThread.shutdownNow();
+      checkThread = null;
+    }
+    loadRatio = 1.0;
+  }
+
+  private void checkSystemLoad() {
+    double cpuLoad = osMxBean.getSystemCpuLoad();
+    int pendingFlushTaskNum = FlushManager.getInstance().getNumberOfPendingTasks();
+    int slowQueryNum = countRunningSlowQueries();
+    updateLoadRatio(isOverloaded(cpuLoad, pendingFlushTaskNum, slowQueryNum));
+    if (logger.isDebugEnabled()) {
+      logger.debug(
+          "Compaction load ratio is {}, cpu load: {}, pending flush tasks: {}, slow queries: {}",
+          loadRatio,
+          cpuLoad,
+          pendingFlushTaskNum,
+          slowQueryNum);
+    }
+  }
+
+  private int countRunningSlowQueries() {
+    long currentTime = System.currentTimeMillis();
+    int slowQueryNum = 0;
+    for (IQueryExecution queryExecution : Coordinator.getInstance().getAllQueryExecutions()) {
+      if (queryExecution.isQuery()
+          && currentTime - queryExecution.getStartExecutionTime()
+              > config.getSlowQueryThreshold()) {
+        slowQueryNum++;
+      }
+    }
+    return slowQueryNum;
+  }
+
+  /**
+   * The system is regarded as overloaded if the cpu load, the number of pending flush tasks or the
+   * number of slow queries exceeds its threshold. A few pending flush tasks are normal under steady
+   * writes, so they alone don't back compaction off.
+   */
+  public boolean isOverloaded(double cpuLoad, int pendingFlushTaskNum, int slowQueryNum) {
+    return cpuLoad > config.getAdaptiveCompactionCpuLoadThreshold()
+        || pendingFlushTaskNum > config.getAdaptiveCompactionPendingFlushTaskThreshold()
+        || slowQueryNum > config.getAdaptiveCompactionSlowQueryNumThreshold();
+  }
+
+  public void updateLoadRatio(boolean overloaded) {
+    if (overloaded) {
+      loadRatio = Math.max(MIN_LOAD_RATIO, loadRatio / 2);
+    } else {
+      loadRatio = Math.min(1.0, loadRatio + LOAD_RATIO_INCREASE_STEP);
+    }
+  }
+
+  public double getLoadRatio() {
+    return loadRatio;
+  }
+
+  /** @return how many of the compaction threads are allowed to run tasks, at least 1 */
+  public int getAllowedThreadCount() {
+    int maxThreadCount = config.getCompactionThreadCount();
+    return Math.max(1, Math.min(maxThreadCount, (int) Math.ceil(maxThreadCount * loadRatio)));
+  }
+
+  /** @return the compaction write throughput limit in MB/s, 0 means unlimited */
+  public double getWriteThroughputMbPerSec() {
+    return config.getCompactionWriteThroughputMbPerSec() * loadRatio;
+  }
+
+  private static class CompactionLoadControllerHolder {
+    private static final CompactionLoadController INSTANCE = new CompactionLoadController();
+  }
+}
@@ -98,6 +98,7 @@ public class CompactionTaskManager implements IService {
           x ->
               CompactionMetricsManager.getInstance()
                   .reportPollTaskFromWaitingQueue(x.isCrossTask(), x.isInnerSeqTask()));
+      CompactionLoadController.getInstance().start();
       init = true;
     }
     logger.info("Compaction task manager started.");
@@ -122,6 +123,7 @@ public class CompactionTaskManager implements IService {
 
   @Override
   public void stop() {
+    CompactionLoadController.getInstance().stop();
     if (taskExecutionPool != null) {
       subCompactionTaskExecutionPool.shutdownNow();
       taskExecutionPool.shutdownNow();
@@ -134,6 +136,7 @@ public class CompactionTaskManager implements IService {
 
   @Override
   public void waitAndStop(long milliseconds) {
+    CompactionLoadController.getInstance().stop();
     if (taskExecutionPool != null) {
       awaitTermination(subCompactionTaskExecutionPool, milliseconds);
       awaitTermination(taskExecutionPool, milliseconds);
@@ -241,8 +244,7 @@ public class CompactionTaskManager implements IService {
   }
 
   public RateLimiter getMergeWriteRateLimiter() {
-    setWriteMergeRate(
-        IoTDBDescriptor.getInstance().getConfig().getCompactionWriteThroughputMbPerSec());
+    setWriteMergeRate(CompactionLoadController.getInstance().getWriteThroughputMbPerSec());
     return mergeWriteRateLimiter;
   }
 
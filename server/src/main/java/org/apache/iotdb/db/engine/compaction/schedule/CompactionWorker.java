@@ -34,6 +34,7 @@ import java.util.concurrent.TimeoutException;
 
 public class CompactionWorker implements Runnable {
   private static final Logger log = LoggerFactory.getLogger("COMPACTION");
+  private static final long PAUSED_CHECK_INTERVAL_IN_MS = 1000L;
   private final int threadId;
   private final FixedPriorityBlockingQueue<AbstractCompactionTask> compactionTaskQueue;
 
@@ -49,6 +50,11 @@ public class CompactionWorker implements Runnable {
       try {
         AbstractCompactionTask task = null;
         try {
+          if (threadId >= CompactionLoadController.getInstance().getAllowedThreadCount()) {
+            // this thread is paused because the system is busy
+            TimeUnit.MILLISECONDS.sleep(PAUSED_CHECK_INTERVAL_IN_MS);
+            continue;
+          }
           task = compactionTaskQueue.take();
         } catch (InterruptedException e) {
           log.warn("CompactionThread-{} terminates because interruption", threadId);
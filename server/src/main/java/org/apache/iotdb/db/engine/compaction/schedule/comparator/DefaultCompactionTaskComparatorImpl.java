@@ -84,6 +84,13 @@ public class DefaultCompactionTaskComparatorImpl implements ICompactionTaskCompa
       return selectedFilesOfO2.size() - selectedFilesOfO1.size();
     }
 
+    // if the read count of the selected files are different
+    // we prefer to execute task with more frequently read files
+    // this reduces read amplification where queries hit most
+    if (o1.getSelectedFilesReadCount() != o2.getSelectedFilesReadCount()) {
+      return o2.getSelectedFilesReadCount() > o1.getSelectedFilesReadCount() ? 1 : -1;
+    }
+
     // if the serial id of the tasks are different
     // we prefer task with small serial id
     if (o1.getSerialId() != o2.getSerialId()) {
@@ -108,6 +115,13 @@ public class DefaultCompactionTaskComparatorImpl implements ICompactionTaskCompa
       return o1.getSelectedSequenceFiles().size() - o2.getSelectedSequenceFiles().size();
     }
 
+    // we prefer the task whose files are read more frequently
+    // the serial id below only keeps the tasks in submission order, so the read count is checked
+    // before it to take effect
+    if (o1.getSelectedFilesReadCount() != o2.getSelectedFilesReadCount()) {
+      return o2.getSelectedFilesReadCount() > o1.getSelectedFilesReadCount() ? 1 : -1;
+    }
+
     // if the serial id of the tasks are different
     // we prefer task with small serial id
     if (o1.getSerialId() != o2.getSerialId()) {
@@ -18,6 +18,7 @@
  */
 package org.apache.iotdb.db.engine.memtable;
 
+import org.apache.iotdb.db.utils.RollupUtils;
 import org.apache.iotdb.db.utils.datastructure.AlignedTVList;
 import org.apache.iotdb.db.utils.datastructure.TVList;
 import org.apache.iotdb.db.wal.buffer.IWALByteBufferView;
@@ -313,18 +314,31 @@ public class AlignedWritableMemChunk implements IWritableMemChunk {
     boolean[] timeDuplicateInfo = null;
     List<Integer> pageRange = new ArrayList<>();
     int range = 0;
+    boolean rollupEnabled = RollupUtils.isRollupEnabled();
+    long rollupWindow = Long.MIN_VALUE;
+    int lastRowIndex = -1;
     for (int sortedRowIndex = 0; sortedRowIndex < list.rowCount(); sortedRowIndex++) {
       long time = list.getTime(sortedRowIndex);
 
       if (sortedRowIndex == list.rowCount() - 1 || time != list.getTime(sortedRowIndex + 1)) {
+        // a page never crosses the boundary of a rollup window
+        if (rollupEnabled && RollupUtils.getRollupWindow(time) != rollupWindow) {
+          if (range != 0) {
+            pageRange.add(lastRowIndex);
+            range = 0;
+          }
+          rollupWindow = RollupUtils.getRollupWindow(time);
+        }
         if (range == 0) {
-          pageRange.add(sortedRowIndex);
+          // include the duplicated rows of this time, their values may fill the null ones
+          pageRange.add(lastRowIndex + 1);
         }
         range++;
         if (range == maxNumberOfPointsInPage) {
           pageRange.add(sortedRowIndex);
           range = 0;
         }
+        lastRowIndex = sortedRowIndex;
       } else {
         if (Objects.isNull(timeDuplicateInfo)) {
           timeDuplicateInfo = new boolean[list.rowCount()];
@@ -422,6 +436,9 @@ public class AlignedWritableMemChunk implements IWritableMemChunk {
       }
 
       alignedChunkWriter.write(times, pointsInPage, 0);
+      if (rollupEnabled) {
+        alignedChunkWriter.sealCurrentPage();
+      }
     }
   }
 
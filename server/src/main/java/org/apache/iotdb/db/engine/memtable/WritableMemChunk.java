@@ -18,6 +18,7 @@
  */
 package org.apache.iotdb.db.engine.memtable;
 
+import org.apache.iotdb.db.utils.RollupUtils;
 import org.apache.iotdb.db.utils.datastructure.TVList;
 import org.apache.iotdb.db.wal.buffer.IWALByteBufferView;
 import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
@@ -320,6 +321,8 @@ public class WritableMemChunk implements IWritableMemChunk {
 
     ChunkWriterImpl chunkWriterImpl = (ChunkWriterImpl) chunkWriter;
 
+    boolean rollupEnabled = RollupUtils.isRollupEnabled();
+    long rollupWindow = Long.MIN_VALUE;
     for (int sortedRowIndex = 0; sortedRowIndex < list.rowCount(); sortedRowIndex++) {
       long time = list.getTime(sortedRowIndex);
 
@@ -328,6 +331,12 @@ public class WritableMemChunk implements IWritableMemChunk {
         continue;
       }
 
+      // a page never crosses the boundary of a rollup window
+      if (rollupEnabled && RollupUtils.getRollupWindow(time) != rollupWindow) {
+        chunkWriterImpl.sealCurrentPage();
+        rollupWindow = RollupUtils.getRollupWindow(time);
+      }
+
       // store last point for SDT
       if (sortedRowIndex + 1 == list.rowCount()) {
         ((ChunkWriterImpl) chunkWriterImpl).setLastPoint(true);
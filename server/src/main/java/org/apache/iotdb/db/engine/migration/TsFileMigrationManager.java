@@ -0,0 +1,404 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.migration;
+
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.conf.directories.DirectoryManager;
+import org.apache.iotdb.db.engine.modification.ModificationFile;
+import org.apache.iotdb.db.engine.storagegroup.DataRegion;
+import org.apache.iotdb.db.engine.storagegroup.TsFileNameGenerator;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResourceStatus;
+import org.apache.iotdb.db.exception.DiskSpaceInsufficientException;
+import org.apache.iotdb.db.query.control.FileReaderManager;
+import org.apache.iotdb.tsfile.fileSystem.FSFactoryProducer;
+import org.apache.iotdb.tsfile.fileSystem.fsFactory.FSFactory;
+
+import com.google.common.util.concurrent.RateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * TsFileMigrationManager moves sealed TsFiles from the hot data dirs to the cold data dirs. New
+ * TsFiles are always written to the hot data dirs. A TsFile is migrated when it is older than
+ * tiered_storage_migrate_file_age_in_ms and is not read frequently, or when the hot data dirs use
+ * more space than tiered_storage_hot_space_usage_threshold, in which case the oldest TsFiles go
+ * first.
+ *
+ * <p>Queries are not affected, because they reach TsFiles through TsFileResource and hold its read
+ * lock while reading. The data file is copied to the cold tier without any lock, and the resource
+ * is switched to the copy under its write lock. If the TsFile is in use at that time, the finished
+ * copy is kept and only the switch is retried in the next round.
+ */
+public class TsFileMigrationManager {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TsFileMigrationManager.class);
+
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
+  /** suffix of the data file being copied to the cold tier */
+  public static final String MIGRATING_SUFFIX = ".migrating";
+
+  private static final int COPY_BUFFER_SIZE = 1024 * 1024;
+
+  private final FSFactory fsFactory = FSFactoryProducer.getFSFactory();
+
+  private final RateLimiter migrateRateLimiter = RateLimiter.create(getMigrateThroughput());
+
+  /** read count of each TsFile in the hot tier at the last check, keyed by the path of TsFile */
+  private Map<String, Long> lastReadCounts = new HashMap<>();
+
+  /**
+   * target files in the cold tier of the TsFiles which are copied but not switched because they
+   * were in use, keyed by the path of TsFile
+   */
+  private final Map<String, File> copiedTargetFiles = new HashMap<>();
+
+  private TsFileMigrationManager() {}
+
+  public static TsFileMigrationManager getInstance() {
+    return TsFileMigrationManagerHolder.INSTANCE;
+  }
+
+  private static double getMigrateThroughput() {
+    int throughput = config.getTieredStorageMigrateThroughputMbPerSec();
+    // avoid overflow of the rate limiter
+    return throughput <= 0 ? Double.MAX_VALUE : throughput * 1024.0 * 1024.0;
+  }
+
+  /** Check the TsFiles of all data regions and migrate the cold ones. */
+  public synchronized void checkAndMigrate(Collection<DataRegion> dataRegions) {
+    DirectoryManager directoryManager = DirectoryManager.getInstance();
+    if (!directoryManager.isTieredStorageEnabled()) {
+      return;
+    }
+
+    List<MigrationCandidate> candidates = new ArrayList<>();
+    Map<String, Long> currentReadCounts = new HashMap<>();
+    for (DataRegion dataRegion : dataRegions) {
+      if (dataRegion == null) {
+        continue;
+      }
+      collectCandidates(dataRegion, true, candidates, currentReadCounts);
+      collectCandidates(dataRegion, false, candidates, currentReadCounts);
+    }
+    lastReadCounts = currentReadCounts;
+    removeObsoleteCopies(currentReadCounts.keySet());
+    candidates.sort(Comparator.comparingLong(candidate -> candidate.createTime));
+
+    long ageLowerBound = System.currentTimeMillis() - config.getTieredStorageMigrateFileAgeInMs();
+    // the space to release from the hot tier to go under the usage threshold
+    long spaceToRelease =
+        (long)
+            ((directoryManager.getHotTierSpaceUsage()
+                    - config.getTieredStorageHotSpaceUsageThreshold())
+                * directoryManager.getHotTierTotalSpace());
+    int migratedFileNum = 0;
+    long migratedFileSize = 0;
+    for (MigrationCandidate candidate : candidates) {
+      boolean expired = candidate.createTime < ageLowerBound && !candidate.isHot;
+      // a TsFile already copied to the cold tier is switched anyway
+      if (!expired
+          && spaceToRelease <= 0
+          && !copiedTargetFiles.containsKey(candidate.resource.getTsFilePath())) {
+        continue;
+      }
+      long fileSize = candidate.resource.getTsFileSize();
+      if (migrate(candidate.dataRegion, candidate.resource, candidate.sequence)) {
+        spaceToRelease -= fileSize;
+        migratedFileNum++;
+        migratedFileSize += fileSize;
+      }
+    }
+
+    if (migratedFileNum > 0) {
+      LOGGER.info(
+          "Migrated {} TsFiles ({} bytes) to the cold tier, space usage of hot tier: {}, cold tier: {}",
+          migratedFileNum,
+          migratedFileSize,
+          directoryManager.getHotTierSpaceUsage(),
+          directoryManager.getColdTierSpaceUsage());
+    }
+  }
+
+  private void collectCandidates(
+      DataRegion dataRegion,
+      boolean sequence,
+      List<MigrationCandidate> candidates,
+      Map<String, Long> currentReadCounts) {
+    for (TsFileResource resource : dataRegion.getTsFileManager().getTsFileList(sequence)) {
+      if (resource.getStatus() != TsFileResourceStatus.CLOSED
+          || DirectoryManager.getInstance().isInColdFolder(resource.getTsFile())) {
+        continue;
+      }
+      long createTime;
+      try {
+        createTime = TsFileNameGenerator.getTsFileName(resource.getTsFile().getName()).getTime();
+      } catch (IOException e) {
+        LOGGER.warn("Skip migrating {} because its name is illegal", resource.getTsFilePath());
+        continue;
+      }
+      String path = resource.getTsFilePath();
+      long readCount = resource.getReadCount();
+      currentReadCounts.put(path, readCount);
+      long recentReadCount = readCount - lastReadCounts.getOrDefault(path, 0L);
+      candidates.add(
+          new MigrationCandidate(
+              dataRegion,
+              resource,
+              sequence,
+              createTime,
+              recentReadCount > config.getTieredStorageMigrateReadCountThreshold()));
+    }
+  }
+
+  /**
+   * Migrate a sealed TsFile together with its resource file and modification file to the cold
+   * tier.
+   *
+   * @return true if the TsFile is migrated
+   */
+  private boolean migrate(DataRegion dataRegion, TsFileResource resource, boolean sequence) {
+    File sourceFile = resource.getTsFile();
+    File targetFile = copiedTargetFiles.remove(sourceFile.getPath());
+    if (targetFile != null
+        && fsFactory.getFile(targetFile.getPath() + MIGRATING_SUFFIX).exists()) {
+      return switchToTarget(dataRegion, resource, sourceFile, targetFile);
+    }
+    try {
+      String coldFolder =
+          DirectoryManager.getInstance()
+              .getNextFolderForColdFile(sequence, resource.getTsFileSize());
+      File targetDir =
+          fsFactory.getFile(
+              coldFolder
+                  + File.separator
+                  + dataRegion.getDatabaseName()
+                  + File.separator
+                  + dataRegion.getDataRegionId(),
+              sourceFile.getParentFile().getName());
+      if (!targetDir.exists() && !targetDir.mkdirs()) {
+        LOGGER.warn("Cannot create directory {} to migrate TsFile", targetDir);
+        return false;
+      }
+      targetFile = fsFactory.getFile(targetDir, sourceFile.getName());
+    } catch (DiskSpaceInsufficientException e) {
+      LOGGER.warn("No space left in the cold tier to migrate {}", sourceFile);
+      return false;
+    }
+
+    // a sealed TsFile never changes, so it can be copied without lock
+    File migratingFile = fsFactory.getFile(targetFile.getPath() + MIGRATING_SUFFIX);
+    try {
+      copyFile(sourceFile, migratingFile, migrateRateLimiter);
+    } catch (IOException e) {
+      LOGGER.warn("Failed to copy {} to {}", sourceFile, migratingFile, e);
+      deleteQuietly(migratingFile);
+      return false;
+    }
+    return switchToTarget(dataRegion, resource, sourceFile, targetFile);
+  }
+
+  /**
+   * Switch the resource to the copied data file in the cold tier.
+   *
+   * @return true if the TsFile is migrated
+   */
+  private boolean switchToTarget(
+      DataRegion dataRegion, TsFileResource resource, File sourceFile, File targetFile) {
+    File migratingFile = fsFactory.getFile(targetFile.getPath() + MIGRATING_SUFFIX);
+    // modifications are written under the lock of data region
+    dataRegion.writeLock("migrateTsFile");
+    try {
+      // the TsFile is used by queries or compactions, keep the copy and try again in the next
+      // round
+      if (!resource.tryWriteLock()) {
+        copiedTargetFiles.put(sourceFile.getPath(), targetFile);
+        return false;
+      }
+      try {
+        if (resource.getStatus() != TsFileResourceStatus.CLOSED
+            || !sourceFile.equals(resource.getTsFile())) {
+          deleteQuietly(migratingFile);
+          return false;
+        }
+        switchFiles(resource, sourceFile, migratingFile, targetFile);
+      } finally {
+        resource.writeUnlock();
+      }
+    } catch (IOException e) {
+      LOGGER.error("Failed to migrate {} to {}", sourceFile, targetFile, e);
+      if (sourceFile.equals(resource.getTsFile())) {
+        deleteQuietly(migratingFile);
+        deleteQuietly(targetFile);
+        deleteQuietly(fsFactory.getFile(targetFile.getPath() + TsFileResource.RESOURCE_SUFFIX));
+        deleteQuietly(fsFactory.getFile(targetFile.getPath() + ModificationFile.FILE_SUFFIX));
+      }
+      return false;
+    } finally {
+      dataRegion.writeUnlock();
+    }
+    LOGGER.debug("Migrated {} to {}", sourceFile, targetFile);
+    return true;
+  }
+
+  /**
+   * The data file is renamed first, so a TsFile in the cold tier is either complete or has a
+   * duplicate in the hot tier, which is kept when recovering. See {@link
+   * #removeInterruptedMigrations}.
+   */
+  private void switchFiles(
+      TsFileResource resource, File sourceFile, File migratingFile, File targetFile)
+      throws IOException {
+    Files.move(migratingFile.toPath(), targetFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+    copyFile(
+        fsFactory.getFile(sourceFile.getPath() + TsFileResource.RESOURCE_SUFFIX),
+        fsFactory.getFile(targetFile.getPath() + TsFileResource.RESOURCE_SUFFIX),
+        null);
+    File sourceModFile = fsFactory.getFile(sourceFile.getPath() + ModificationFile.FILE_SUFFIX);
+    if (sourceModFile.exists()) {
+      copyFile(
+          sourceModFile,
+          fsFactory.getFile(targetFile.getPath() + ModificationFile.FILE_SUFFIX),
+          null);
+    }
+
+    FileReaderManager.getInstance().closeFileAndRemoveReader(sourceFile.getPath());
+    resource.switchFile(targetFile);
+
+    // delete the data file first, a resource file alone is ignored when recovering
+    fsFactory.deleteIfExists(sourceFile);
+    fsFactory.deleteIfExists(
+        fsFactory.getFile(sourceFile.getPath() + TsFileResource.RESOURCE_SUFFIX));
+    fsFactory.deleteIfExists(sourceModFile);
+  }
+
+  /**
+   * Delete the copies kept for the TsFiles which are no longer in the hot tier, e.g., they have
+   * been compacted or deleted.
+   */
+  private void removeObsoleteCopies(Set<String> hotTsFiles) {
+    Iterator<Map.Entry<String, File>> iterator = copiedTargetFiles.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<String, File> entry = iterator.next();
+      if (!hotTsFiles.contains(entry.getKey())) {
+        deleteQuietly(fsFactory.getFile(entry.getValue().getPath() + MIGRATING_SUFFIX));
+        iterator.remove();
+      }
+    }
+  }
+
+  private void copyFile(File source, File target, RateLimiter rateLimiter) throws IOException {
+    try (InputStream inputStream = new FileInputStream(source);
+        FileOutputStream outputStream = new FileOutputStream(target)) {
+      byte[] buffer = new byte[COPY_BUFFER_SIZE];
+      int readSize;
+      while ((readSize = inputStream.read(buffer)) > 0) {
+        if (rateLimiter != null) {
+          rateLimiter.acquire(readSize);
+        }
+        outputStream.write(buffer, 0, readSize);
+      }
+      outputStream.getFD().sync();
+    }
+  }
+
+  private void deleteQuietly(File file) {
+    try {
+      fsFactory.deleteIfExists(file);
+    } catch (IOException e) {
+      LOGGER.warn("Failed to delete {}", file, e);
+    }
+  }
+
+  /**
+   * Clean up a time partition folder of the cold tier when recovering a data region. Files being
+   * copied are removed, and so are TsFiles which still exist in the hot tier, because the
+   * migration was interrupted before the hot copies were deleted.
+   *
+   * @param hotTsFiles time partition name + separator + TsFile name of the TsFiles in the hot tier
+   * @return the remaining TsFiles in the folder
+   */
+  public File[] removeInterruptedMigrations(
+      File partitionFolder, File[] tsFiles, Set<String> hotTsFiles) {
+    File[] migratingFiles =
+        fsFactory.listFilesBySuffix(partitionFolder.getAbsolutePath(), MIGRATING_SUFFIX);
+    if (migratingFiles != null) {
+      for (File migratingFile : migratingFiles) {
+        deleteQuietly(migratingFile);
+      }
+    }
+    List<File> remainingFiles = new ArrayList<>(tsFiles.length);
+    for (File tsFile : tsFiles) {
+      if (hotTsFiles.contains(partitionFolder.getName() + File.separator + tsFile.getName())) {
+        LOGGER.info("Remove {} whose migration to the cold tier was interrupted", tsFile);
+        deleteQuietly(tsFile);
+        deleteQuietly(fsFactory.getFile(tsFile.getPath() + TsFileResource.RESOURCE_SUFFIX));
+        deleteQuietly(fsFactory.getFile(tsFile.getPath() + ModificationFile.FILE_SUFFIX));
+      } else {
+        remainingFiles.add(tsFile);
+      }
+    }
+    return remainingFiles.toArray(new File[0]);
+  }
+
+  private static class MigrationCandidate {
+
+    private final DataRegion dataRegion;
+    private final TsFileResource resource;
+    private final boolean sequence;
+    private final long createTime;
+    private final boolean isHot;
+
+    private MigrationCandidate(
+        DataRegion dataRegion,
+        TsFileResource resource,
+        boolean sequence,
+        long createTime,
+        boolean isHot) {
+      this.dataRegion = dataRegion;
+      this.resource = resource;
+      this.sequence = sequence;
+      this.createTime = createTime;
+      this.isHot = isHot;
+    }
+  }
+
+  private static class TsFileMigrationManagerHolder {
+
+    private static final TsFileMigrationManager INSTANCE = new TsFileMigrationManager();
+  }
+}
@@ -52,6 +52,11 @@ public class QueryDataSource {
   /** data older than currentTime - dataTTL should be ignored. */
   private long dataTTL = Long.MAX_VALUE;
 
+  /** the data region these resources come from and its data version when they were collected */
+  private String dataRegionId;
+
+  private long dataVersion = -1;
+
   private static final Comparator<Long> descendingComparator = (o1, o2) -> Long.compare(o2, o1);
 
   public QueryDataSource(List<TsFileResource> seqResources, List<TsFileResource> unseqResources) {
@@ -79,6 +84,19 @@ public class QueryDataSource {
     this.dataTTL = dataTTL;
   }
 
+  public String getDataRegionId() {
+    return dataRegionId;
+  }
+
+  public long getDataVersion() {
+    return dataVersion;
+  }
+
+  public void setDataVersion(String dataRegionId, long dataVersion) {
+    this.dataRegionId = dataRegionId;
+    this.dataVersion = dataVersion;
+  }
+
   /** @return an updated filter concerning TTL */
   public Filter updateFilterUsingTTL(Filter filter) {
     return updateFilterUsingTTL(filter, dataTTL);
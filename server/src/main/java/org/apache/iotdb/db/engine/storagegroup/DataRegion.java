@@ -50,6 +50,7 @@ import org.apache.iotdb.db.engine.flush.FlushListener;
 import org.apache.iotdb.db.engine.flush.FlushStatus;
 import org.apache.iotdb.db.engine.flush.TsFileFlushPolicy;
 import org.apache.iotdb.db.engine.memtable.IMemTable;
+import org.apache.iotdb.db.engine.migration.TsFileMigrationManager;
 import org.apache.iotdb.db.engine.modification.Deletion;
 import org.apache.iotdb.db.engine.modification.ModificationFile;
 import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
@@ -675,6 +676,8 @@ public class DataRegion implements IDataRegionForQuery {
       throws IOException, DataRegionException {
     List<File> tsFiles = new ArrayList<>();
     List<File> upgradeFiles = new ArrayList<>();
+    // the hot folders come before the cold folders
+    Set<String> hotTsFiles = new HashSet<>();
     for (String baseDir : folders) {
       File fileFolder = fsFactory.getFile(baseDir + File.separator + databaseName, dataRegionId);
       if (!fileFolder.exists()) {
@@ -697,9 +700,18 @@ public class DataRegion implements IDataRegionForQuery {
             // resources
             continueFailedRenames(partitionFolder, TEMP_SUFFIX);
 
-            Collections.addAll(
-                tsFiles,
-                fsFactory.listFilesBySuffix(partitionFolder.getAbsolutePath(), TSFILE_SUFFIX));
+            File[] partitionTsFiles =
+                fsFactory.listFilesBySuffix(partitionFolder.getAbsolutePath(), TSFILE_SUFFIX);
+            if (DirectoryManager.getInstance().isInColdFolder(partitionFolder)) {
+              partitionTsFiles =
+                  TsFileMigrationManager.getInstance()
+                      .removeInterruptedMigrations(partitionFolder, partitionTsFiles, hotTsFiles);
+            } else {
+              for (File tsFile : partitionTsFiles) {
+                hotTsFiles.add(partitionFolder.getName() + File.separator + tsFile.getName());
+              }
+            }
+            Collections.addAll(tsFiles, partitionTsFiles);
           } else {
             // collect old TsFiles for upgrading
             Collections.addAll(
@@ -1724,6 +1736,7 @@ public class DataRegion implements IDataRegionForQuery {
 
       QueryDataSource dataSource = new QueryDataSource(seqResources, unseqResources);
       dataSource.setDataTTL(dataTTL);
+      dataSource.setDataVersion(dataRegionId, tsFileManager.getDataVersion());
       return dataSource;
     } catch (MetadataException e) {
       throw new QueryProcessException(e);
@@ -1925,6 +1938,8 @@ public class DataRegion implements IDataRegionForQuery {
       if (!hasReleasedLock) {
         writeUnlock();
       }
+      // results cached for the old data must not be used any more
+      tsFileManager.increaseDataVersion();
     }
   }
 
@@ -2123,6 +2138,11 @@ public class DataRegion implements IDataRegionForQuery {
         }
       } else {
         tsFileResourceManager.registerSealedTsFileResource(tsFileProcessor.getTsFileResource());
+        if (tsFileProcessor.isSequence()) {
+          // the sealed file may add data to windows whose results were cached before the file was
+          // written, and the file no longer prevents them from being cached again
+          tsFileManager.increaseDataVersion();
+        }
       }
     } finally {
       closeQueryLock.writeLock().unlock();
@@ -2663,6 +2683,7 @@ public class DataRegion implements IDataRegionForQuery {
           return false;
         }
         tsFileManager.add(tsFileResource, false);
+        tsFileManager.increaseDataVersion();
         logger.info(
             "Load tsfile in unsequence list, move file from {} to {}",
             tsFileToLoad.getAbsolutePath(),
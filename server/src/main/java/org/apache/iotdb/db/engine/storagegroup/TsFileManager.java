@@ -63,6 +63,13 @@ public class TsFileManager {
   private boolean allowCompaction = true;
   private AtomicLong currentCompactionTaskSerialId = new AtomicLong(0);
 
+  /**
+   * Increased whenever data already visible to queries may change, i.e. files are replaced by
+   * compaction, loaded, removed, modified by a deletion, or a sequence file is sealed. Results
+   * computed from the file lists of one version stay valid as long as the version is unchanged.
+   */
+  private final AtomicLong dataVersion = new AtomicLong(0);
+
   public TsFileManager(String storageGroupName, String dataRegionId, String storageGroupDir) {
     this.storageGroupName = storageGroupName;
     this.storageGroupDir = storageGroupDir;
@@ -120,6 +127,7 @@ public class TsFileManager {
         if (entry.getValue().contains(tsFileResource)) {
           entry.getValue().remove(tsFileResource);
           TsFileResourceManager.getInstance().removeTsFileResource(tsFileResource);
+          dataVersion.incrementAndGet();
           break;
         }
       }
@@ -152,6 +160,7 @@ public class TsFileManager {
       TsFileResourceList tsFileResources =
           selectedMap.computeIfAbsent(timePartition, o -> new TsFileResourceList());
       tsFileResources.set(insertPos, tsFileResource);
+      dataVersion.incrementAndGet();
     } finally {
       writeUnlock();
     }
@@ -176,6 +185,7 @@ public class TsFileManager {
       selectedMap
           .computeIfAbsent(tsFileResource.getTimePartition(), o -> new TsFileResourceList())
           .keepOrderInsert(tsFileResource);
+      dataVersion.incrementAndGet();
     } finally {
       writeUnlock();
     }
@@ -195,6 +205,7 @@ public class TsFileManager {
       for (TsFileResource resource : tsFileResourceList) {
         add(resource, sequence);
       }
+      dataVersion.incrementAndGet();
     } finally {
       writeUnlock();
     }
@@ -237,7 +248,7 @@ public class TsFileManager {
           }
         }
       }
-
+      dataVersion.incrementAndGet();
     } finally {
       writeUnlock();
     }
@@ -259,6 +270,7 @@ public class TsFileManager {
     try {
       sequenceFiles.clear();
       unsequenceFiles.clear();
+      dataVersion.incrementAndGet();
     } finally {
       writeUnlock();
     }
@@ -433,6 +445,15 @@ public class TsFileManager {
     }
   }
 
+  public long getDataVersion() {
+    return dataVersion.get();
+  }
+
+  /** Called after data in the files of this manager is modified in place, e.g. by a deletion. */
+  public void increaseDataVersion() {
+    dataVersion.incrementAndGet();
+  }
+
   public long getNextCompactionTaskId() {
     return currentCompactionTaskSerialId.getAndIncrement();
   }
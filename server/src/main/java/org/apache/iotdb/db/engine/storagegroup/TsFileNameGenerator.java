@@ -199,7 +199,7 @@ public class TsFileNameGenerator {
       targetFileResources.add(
           new TsFileResource(
               new File(
-                  resource.getTsFile().getParent(),
+                  getCompactionTargetDir(resource.getTsFile(), true),
                   tsFileName.time
                       + FILE_NAME_SEPARATOR
                       + tsFileName.version
@@ -239,11 +239,12 @@ public class TsFileNameGenerator {
       maxInnerMergeCount = Math.max(tsFileName.innerCompactionCnt, maxInnerMergeCount);
       maxCrossMergeCount = Math.max(tsFileName.crossCompactionCnt, maxCrossMergeCount);
     }
+    File targetDir = getCompactionTargetDir(tsFileResources.get(0).getTsFile(), sequence);
     // set target resource to COMPACTING until the end of this task
     return sequence
         ? new TsFileResource(
             new File(
-                tsFileResources.get(0).getTsFile().getParent(),
+                targetDir,
                 minTime
                     + FILE_NAME_SEPARATOR
                     + minVersion
@@ -255,7 +256,7 @@ public class TsFileNameGenerator {
             TsFileResourceStatus.COMPACTING)
         : new TsFileResource(
             new File(
-                tsFileResources.get(0).getTsFile().getParent(),
+                targetDir,
                 maxTime
                     + FILE_NAME_SEPARATOR
                     + maxVersion
@@ -267,6 +268,44 @@ public class TsFileNameGenerator {
             TsFileResourceStatus.COMPACTING);
   }
 
+  /**
+   * Compaction target files are placed in the folder of the source file. If the source file has
+   * been migrated to the cold tier, the target file is placed in the same time partition of a hot
+   * folder instead, as all new TsFiles are written to the hot tier.
+   */
+  private static File getCompactionTargetDir(File sourceFile, boolean sequence)
+      throws IOException {
+    File partitionDir = sourceFile.getParentFile();
+    if (!DirectoryManager.getInstance().isInColdFolder(sourceFile)) {
+      return partitionDir;
+    }
+    File regionDir = partitionDir.getParentFile();
+    String databaseName = regionDir.getParentFile().getName();
+    File targetDir;
+    try {
+      DirectoryManager directoryManager = DirectoryManager.getInstance();
+      String baseDir =
+          sequence
+              ? directoryManager.getNextFolderForSequenceFile()
+              : directoryManager.getNextFolderForUnSequenceFile();
+      targetDir =
+          fsFactory.getFile(
+              baseDir
+                  + File.separator
+                  + databaseName
+                  + File.separator
+                  + regionDir.getName()
+                  + File.separator
+                  + partitionDir.getName());
+    } catch (DiskSpaceInsufficientException e) {
+      throw new IOException(e);
+    }
+    if (!targetDir.exists() && !targetDir.mkdirs()) {
+      throw new IOException("Cannot create directory " + targetDir);
+    }
+    return targetDir;
+  }
+
   public static class TsFileName {
     private static final String FILE_NAME_PATTERN = "(\\d+)-(\\d+)-(\\d+)-(\\d+).tsfile$";
     private static final Pattern FILE_NAME_MATCHER = Pattern.compile(TsFileName.FILE_NAME_PATTERN);
@@ -65,6 +65,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.apache.iotdb.commons.conf.IoTDBConstant.FILE_NAME_SEPARATOR;
 import static org.apache.iotdb.db.engine.storagegroup.TsFileNameGenerator.getTsFileName;
@@ -153,6 +154,9 @@ public class TsFileResource {
    */
   private TsFileResource originTsFileResource;
 
+  /** How many times this file has been read by queries, used to prioritize compaction. */
+  private final AtomicLong readCount = new AtomicLong(0);
+
   public TsFileResource() {}
 
   public TsFileResource(TsFileResource other) throws IOException {
@@ -367,6 +371,24 @@ public class TsFileResource {
     this.file = file;
   }
 
+  /**
+   * Point this resource to a copy of its files at another location, e.g., after being migrated to
+   * the cold tier. The caller should hold the write lock of this resource.
+   */
+  public void switchFile(File file) throws IOException {
+    synchronized (this) {
+      if (modFile != null) {
+        modFile.close();
+        modFile = null;
+      }
+      if (compactionModFile != null) {
+        compactionModFile.close();
+        compactionModFile = null;
+      }
+      this.file = file;
+    }
+  }
+
   public File getTsFile() {
     return file;
   }
@@ -1047,6 +1069,18 @@ public class TsFileResource {
     return isSeq;
   }
 
+  public void increaseReadCount() {
+    if (originTsFileResource != null) {
+      originTsFileResource.increaseReadCount();
+    } else {
+      readCount.incrementAndGet();
+    }
+  }
+
+  public long getReadCount() {
+    return readCount.get();
+  }
+
   public int compareIndexDegradePriority(TsFileResource tsFileResource) {
     int cmp = timeIndex.compareDegradePriority(tsFileResource.timeIndex);
     return cmp == 0 ? file.getAbsolutePath().compareTo(tsFileResource.file.getAbsolutePath()) : cmp;
@@ -51,6 +51,8 @@ public class MetadataConstant {
   public static final String TAG_LOG_SNAPSHOT_TMP = "tlog.txt.snapshot.tmp";
   public static final String MTREE_SNAPSHOT = "mtree.snapshot";
   public static final String MTREE_SNAPSHOT_TMP = "mtree.snapshot.tmp";
+  public static final String MTREE_SNAPSHOT_SEGMENT_PREFIX = "mtree.snapshot.segment.";
+  public static final String MTREE_SNAPSHOT_SEGMENT_CACHE_DIR = "mtree.snapshot.segments";
 
   public static final String[] ALL_RESULT_NODES = new String[] {"root", "**"};
   public static final PartialPath ALL_MATCH_PATTERN = new PartialPath(new String[] {"root", "**"});
@@ -24,10 +24,14 @@ import org.apache.iotdb.commons.path.PartialPath;
 import org.apache.iotdb.commons.service.metric.MetricService;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.metadata.template.ClusterTemplateManager;
+import org.apache.iotdb.db.metadata.template.ITemplateManager;
+import org.apache.iotdb.db.metadata.template.Template;
 import org.apache.iotdb.db.mpp.common.schematree.ClusterSchemaTree;
 import org.apache.iotdb.db.mpp.common.schematree.IMeasurementSchemaInfo;
 import org.apache.iotdb.db.mpp.plan.analyze.schema.ISchemaComputation;
 import org.apache.iotdb.tsfile.read.TimeValuePair;
+import org.apache.iotdb.tsfile.write.schema.IMeasurementSchema;
 import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 
 import com.github.benmanes.caffeine.cache.Cache;
@@ -39,6 +43,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -53,18 +58,37 @@ public class DataNodeSchemaCache {
 
   private final Cache<PartialPath, SchemaCacheEntry> cache;
 
+  // device using template -> template id, the measurements of these devices are resolved through
+  // the template rather than cached one by one
+  private final Cache<PartialPath, DeviceTemplateCacheEntry> deviceTemplateCache;
+
+  private final boolean deviceTemplateCacheEnabled;
+
+  private final ITemplateManager templateManager = ClusterTemplateManager.getInstance();
+
   // cache update or clean have higher priority than cache read
   private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock(false);
 
   private DataNodeSchemaCache() {
+    long deviceTemplateCacheMemory =
+        (long)
+            (config.getAllocateMemoryForSchemaCache() * config.getDeviceTemplateCacheProportion());
+    deviceTemplateCacheEnabled = deviceTemplateCacheMemory > 0;
     cache =
         Caffeine.newBuilder()
-            .maximumWeight(config.getAllocateMemoryForSchemaCache())
+            .maximumWeight(config.getAllocateMemoryForSchemaCache() - deviceTemplateCacheMemory)
             .weigher(
                 (PartialPath key, SchemaCacheEntry value) ->
                     PartialPath.estimateSize(key) + SchemaCacheEntry.estimateSize(value))
             .recordStats()
             .build();
+    deviceTemplateCache =
+        Caffeine.newBuilder()
+            .maximumWeight(deviceTemplateCacheMemory)
+            .weigher(
+                (PartialPath key, DeviceTemplateCacheEntry value) ->
+                    PartialPath.estimateSize(key) + DeviceTemplateCacheEntry.estimateSize(value))
+            .build();
     MetricService.getInstance().addMetricSet(new DataNodeSchemaCacheMetrics(this));
   }
 
@@ -111,6 +135,9 @@ public class DataNodeSchemaCache {
     for (String measurement : measurements) {
       PartialPath path = devicePath.concatNode(measurement);
       schemaCacheEntry = cache.getIfPresent(path);
+      if (schemaCacheEntry == null) {
+        schemaCacheEntry = getFromTemplate(devicePath, measurement);
+      }
       if (schemaCacheEntry != null) {
         schemaTree.appendSingleMeasurement(
             devicePath.concatNode(schemaCacheEntry.getSchemaEntryId()),
@@ -128,6 +155,9 @@ public class DataNodeSchemaCache {
   public ClusterSchemaTree get(PartialPath fullPath) {
     ClusterSchemaTree schemaTree = new ClusterSchemaTree();
     SchemaCacheEntry schemaCacheEntry = cache.getIfPresent(fullPath);
+    if (schemaCacheEntry == null) {
+      schemaCacheEntry = getFromTemplate(fullPath.getDevicePath(), fullPath.getMeasurement());
+    }
     if (schemaCacheEntry != null) {
       schemaTree.appendSingleMeasurement(
           fullPath,
@@ -149,7 +179,9 @@ public class DataNodeSchemaCache {
     for (int i = 0, length = measurements.length; i < length; i++) {
       String measurement = measurements[i];
       fullPath = devicePath.concatNode(measurement);
-      SchemaCacheEntry schemaCacheEntry = cache.getIfPresent(fullPath);
+      SchemaCacheEntry cachedEntry = cache.getIfPresent(fullPath);
+      SchemaCacheEntry schemaCacheEntry =
+          cachedEntry == null ? getFromTemplate(devicePath, measurement) : cachedEntry;
       if (schemaCacheEntry == null) {
         indexOfMissingMeasurements.add(i);
       } else {
@@ -180,12 +212,65 @@ public class DataNodeSchemaCache {
     return indexOfMissingMeasurements;
   }
 
+  /**
+   * Resolve a measurement of a device using template through the template.
+   *
+   * @return null if the device isn't cached as using template or its template has no such
+   *     measurement
+   */
+  private SchemaCacheEntry getFromTemplate(PartialPath devicePath, String measurement) {
+    DeviceTemplateCacheEntry deviceTemplateCacheEntry =
+        deviceTemplateCache.getIfPresent(devicePath);
+    if (deviceTemplateCacheEntry == null) {
+      return null;
+    }
+    Template template = templateManager.getTemplate(deviceTemplateCacheEntry.getTemplateId());
+    if (template == null) {
+      return null;
+    }
+    IMeasurementSchema schema = template.getSchema(measurement);
+    if (schema == null) {
+      return null;
+    }
+    return new SchemaCacheEntry(
+        deviceTemplateCacheEntry.getStorageGroup(),
+        (MeasurementSchema) schema,
+        null,
+        template.isDirectAligned());
+  }
+
   public void put(ClusterSchemaTree schemaTree) {
+    Map<PartialPath, Integer> templateDevices =
+        deviceTemplateCacheEnabled ? schemaTree.getTemplateDevices() : Collections.emptyMap();
+    for (Map.Entry<PartialPath, Integer> entry : templateDevices.entrySet()) {
+      deviceTemplateCache.put(
+          entry.getKey(),
+          new DeviceTemplateCacheEntry(
+              schemaTree.getBelongedDatabase(entry.getKey()), entry.getValue()));
+    }
     for (MeasurementPath measurementPath : schemaTree.getAllMeasurement()) {
+      if (!templateDevices.isEmpty() && isResolvedByTemplate(templateDevices, measurementPath)) {
+        continue;
+      }
       putSingleMeasurementPath(schemaTree.getBelongedDatabase(measurementPath), measurementPath);
     }
   }
 
+  private boolean isResolvedByTemplate(
+      Map<PartialPath, Integer> templateDevices, MeasurementPath measurementPath) {
+    Integer templateId = templateDevices.get(measurementPath.getDevicePath());
+    if (templateId == null) {
+      return false;
+    }
+    Template template = templateManager.getTemplate(templateId);
+    return template != null
+        && template.isDirectAligned() == measurementPath.isUnderAlignedEntity()
+        && (measurementPath.getTagMap() == null || measurementPath.getTagMap().isEmpty())
+        && measurementPath
+            .getMeasurementSchema()
+            .equals(template.getSchema(measurementPath.getMeasurement()));
+  }
+
   private void putSingleMeasurementPath(String storageGroup, MeasurementPath measurementPath) {
     SchemaCacheEntry schemaCacheEntry =
         new SchemaCacheEntry(
@@ -205,7 +290,10 @@ public class DataNodeSchemaCache {
     return DataNodeLastCacheManager.getLastCache(entry);
   }
 
-  /** get SchemaCacheEntry and update last cache */
+  /**
+   * get SchemaCacheEntry and update last cache. A series resolved through the template of its
+   * device has no entry of its own, so an entry is created for it to hold the last value.
+   */
   public void updateLastCache(
       PartialPath seriesPath,
       TimeValuePair timeValuePair,
@@ -213,13 +301,32 @@ public class DataNodeSchemaCache {
       Long latestFlushedTime) {
     SchemaCacheEntry entry = cache.getIfPresent(seriesPath);
     if (null == entry) {
-      return;
+      entry = getOrCreateFromTemplate(seriesPath);
+      if (null == entry) {
+        return;
+      }
     }
 
     DataNodeLastCacheManager.updateLastCache(
         entry, timeValuePair, highPriorityUpdate, latestFlushedTime);
   }
 
+  private SchemaCacheEntry getOrCreateFromTemplate(PartialPath seriesPath) {
+    if (deviceTemplateCache.getIfPresent(seriesPath.getDevicePath()) == null) {
+      return null;
+    }
+    synchronized (cache) {
+      SchemaCacheEntry entry = cache.getIfPresent(seriesPath);
+      if (null == entry) {
+        entry = getFromTemplate(seriesPath.getDevicePath(), seriesPath.getMeasurement());
+        if (null != entry) {
+          cache.put(seriesPath, entry);
+        }
+      }
+      return entry;
+    }
+  }
+
   /**
    * get or create SchemaCacheEntry and update last cache, only support non-aligned sensor or
    * aligned sensor without only one sub sensor
@@ -269,6 +376,7 @@ public class DataNodeSchemaCache {
   public void invalidate(PartialPath partialPath) {
     resetLastCache(partialPath);
     cache.invalidate(partialPath);
+    deviceTemplateCache.invalidate(partialPath.getDevicePath());
   }
 
   public void invalidateMatchedSchema(PartialPath pathPattern) {
@@ -280,6 +388,14 @@ public class DataNodeSchemaCache {
                 cache.invalidate(k);
               }
             });
+    deviceTemplateCache
+        .asMap()
+        .forEach(
+            (k, v) -> {
+              if (pathPattern.matchPrefixPath(k)) {
+                deviceTemplateCache.invalidate(k);
+              }
+            });
   }
 
   public long estimatedSize() {
@@ -289,5 +405,7 @@ public class DataNodeSchemaCache {
   public void cleanUp() {
     cache.invalidateAll();
     cache.cleanUp();
+    deviceTemplateCache.invalidateAll();
+    deviceTemplateCache.cleanUp();
   }
 }
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.metadata.cache;
+
+/**
+ * Cache entry of a device using schema template. The measurements of such device are resolved
+ * through the template instead of being cached one by one.
+ */
+public class DeviceTemplateCacheEntry {
+
+  private final String storageGroup;
+
+  private final int templateId;
+
+  DeviceTemplateCacheEntry(String storageGroup, int templateId) {
+    this.storageGroup = storageGroup.intern();
+    this.templateId = templateId;
+  }
+
+  public String getStorageGroup() {
+    return storageGroup;
+  }
+
+  public int getTemplateId() {
+    return templateId;
+  }
+
+  /**
+   * Total basic 20B
+   *
+   * <ul>
+   *   <li>DeviceTemplateCacheEntry Object header, 8B
+   *   <li>storageGroup reference, 8B
+   *   <li>templateId, 4B
+   * </ul>
+   */
+  public static int estimateSize(DeviceTemplateCacheEntry deviceTemplateCacheEntry) {
+    return 20;
+  }
+}
@@ -53,7 +53,8 @@ public class MeasurementMNode extends MNode implements IMeasurementMNode {
 
   /** @param alias alias of measurementName */
   public MeasurementMNode(IMNode parent, String name, IMeasurementSchema schema, String alias) {
-    super(parent, name);
+    // measurement names repeat across devices, share one instance of each
+    super(parent, name == null ? null : name.intern());
     this.schema = schema;
     this.alias = alias;
   }
@@ -0,0 +1,395 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata.mnode.container;
+
+import org.apache.iotdb.db.metadata.mnode.IMNode;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * The IMNodeContainer of memory mode. It adapts the layout to the number of children, since most
+ * MNodes have only a few children while a ConcurrentHashMap costs 80B plus 44B per child.
+ *
+ * <ol>
+ *   <li>At most {@link #MAX_INLINE_SIZE} children are kept in an unsorted array and found by
+ *       linear scan.
+ *   <li>At most {@link #MAX_ARRAY_SIZE} children are kept in an array sorted by name and found by
+ *       binary search.
+ *   <li>More children are kept in an immutable hash trie, see {@link MNodeTrie}.
+ * </ol>
+ *
+ * <p>The array is laid out as name0, child0, name1, child1, ... Neither the array nor the trie is
+ * modified once published, so reads are lock free and iterations of any layout see a consistent
+ * snapshot of the children, however the MTree is modified meanwhile. Writes are synchronized and
+ * replace the array, or the path to the changed entry of the trie, which suits the MTree, whose
+ * writes are serialized anyway. The layout only depends on the number of children, see {@link
+ * org.apache.iotdb.db.metadata.mnode.estimator.BasicMNodSizeEstimator#estimateContainerSize}.
+ */
+public class MNodeContainerAdaptiveImpl extends AbstractMap<String, IMNode>
+    implements IMNodeContainer {
+
+  public static final int MAX_INLINE_SIZE = 8;
+
+  public static final int MAX_ARRAY_SIZE = 128;
+
+  private static final Object[] EMPTY_ARRAY = new Object[0];
+
+  /** either an Object[] of names and children, or an MNodeTrie */
+  private volatile Object children = EMPTY_ARRAY;
+
+  @Override
+  public int size() {
+    Object current = children;
+    if (current instanceof Object[]) {
+      return ((Object[]) current).length >> 1;
+    }
+    return ((MNodeTrie) current).size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return get(key) != null;
+  }
+
+  @Override
+  public IMNode get(Object key) {
+    Object current = children;
+    if (current instanceof Object[]) {
+      if (!(key instanceof String)) {
+        return null;
+      }
+      Object[] array = (Object[]) current;
+      int index = search(array, (String) key);
+      return index < 0 ? null : (IMNode) array[2 * index + 1];
+    }
+    return key instanceof String ? ((MNodeTrie) current).get((String) key) : null;
+  }
+
+  @Override
+  public synchronized IMNode put(String key, IMNode value) {
+    return doPut(key, value, false);
+  }
+
+  @Override
+  public synchronized IMNode putIfAbsent(String key, IMNode value) {
+    return doPut(key, value, true);
+  }
+
+  @Override
+  public synchronized IMNode replace(String key, IMNode value) {
+    return containsKey(key) ? doPut(key, value, false) : null;
+  }
+
+  private IMNode doPut(String key, IMNode value, boolean onlyIfAbsent) {
+    Objects.requireNonNull(key);
+    Objects.requireNonNull(value);
+    // share the name instance with the child
+    if (key.equals(value.getName())) {
+      key = value.getName();
+    }
+
+    Object current = children;
+    if (!(current instanceof Object[])) {
+      MNodeTrie.Change change = new MNodeTrie.Change();
+      children = ((MNodeTrie) current).put(key, value, onlyIfAbsent, change);
+      return change.previous;
+    }
+
+    Object[] array = (Object[]) current;
+    int index = search(array, key);
+    if (index >= 0) {
+      IMNode existing = (IMNode) array[2 * index + 1];
+      if (!onlyIfAbsent) {
+        Object[] newArray = array.clone();
+        newArray[2 * index + 1] = value;
+        children = newArray;
+      }
+      return existing;
+    }
+
+    int size = array.length >> 1;
+    if (size == MAX_ARRAY_SIZE) {
+      MNodeTrie.Change change = new MNodeTrie.Change();
+      MNodeTrie trie = MNodeTrie.EMPTY;
+      for (int i = 0; i < array.length; i += 2) {
+        trie = trie.put((String) array[i], (IMNode) array[i + 1], false, change);
+      }
+      children = trie.put(key, value, false, change);
+      return null;
+    }
+
+    int insertPosition = 2 * (-index - 1);
+    Object[] newArray = new Object[array.length + 2];
+    System.arraycopy(array, 0, newArray, 0, insertPosition);
+    newArray[insertPosition] = key;
+    newArray[insertPosition + 1] = value;
+    System.arraycopy(
+        array, insertPosition, newArray, insertPosition + 2, array.length - insertPosition);
+    if (size == MAX_INLINE_SIZE) {
+      sortByName(newArray);
+    }
+    children = newArray;
+    return null;
+  }
+
+  @Override
+  public synchronized IMNode remove(Object key) {
+    if (!(key instanceof String)) {
+      return null;
+    }
+    Object current = children;
+    if (!(current instanceof Object[])) {
+      MNodeTrie.Change change = new MNodeTrie.Change();
+      MNodeTrie trie = ((MNodeTrie) current).remove((String) key, change);
+      if (trie.size() == MAX_ARRAY_SIZE) {
+        Object[] array = new Object[2 * MAX_ARRAY_SIZE];
+        MNodeTrie.Cursor cursor = trie.cursor();
+        for (int i = 0; cursor.advance(); i += 2) {
+          array[i] = cursor.name;
+          array[i + 1] = cursor.child;
+        }
+        sortByName(array);
+        children = array;
+      } else {
+        children = trie;
+      }
+      return change.previous;
+    }
+
+    Object[] array = (Object[]) current;
+    int index = search(array, (String) key);
+    if (index < 0) {
+      return null;
+    }
+    // removing keeps the order of names, which is also valid for an inline array
+    Object[] newArray = new Object[array.length - 2];
+    System.arraycopy(array, 0, newArray, 0, 2 * index);
+    System.arraycopy(array, 2 * index + 2, newArray, 2 * index, array.length - 2 * index - 2);
+    children = newArray;
+    return (IMNode) array[2 * index + 1];
+  }
+
+  @Override
+  public synchronized void clear() {
+    children = EMPTY_ARRAY;
+  }
+
+  @Override
+  public void forEach(BiConsumer<? super String, ? super IMNode> action) {
+    Object current = children;
+    if (current instanceof Object[]) {
+      Object[] array = (Object[]) current;
+      for (int i = 0; i < array.length; i += 2) {
+        action.accept((String) array[i], (IMNode) array[i + 1]);
+      }
+    } else {
+      ((MNodeTrie) current).forEach(action);
+    }
+  }
+
+  @Override
+  @NotNull
+  public Set<String> keySet() {
+    return new AbstractSet<String>() {
+      @Override
+      public Iterator<String> iterator() {
+        return new SnapshotIterator<String>() {
+          @Override
+          String convert(String name, IMNode child) {
+            return name;
+          }
+        };
+      }
+
+      @Override
+      public boolean contains(Object o) {
+        return containsKey(o);
+      }
+
+      @Override
+      public int size() {
+        return MNodeContainerAdaptiveImpl.this.size();
+      }
+    };
+  }
+
+  @Override
+  @NotNull
+  public Collection<IMNode> values() {
+    return new AbstractCollection<IMNode>() {
+      @Override
+      public Iterator<IMNode> iterator() {
+        return new SnapshotIterator<IMNode>() {
+          @Override
+          IMNode convert(String name, IMNode child) {
+            return child;
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return MNodeContainerAdaptiveImpl.this.size();
+      }
+    };
+  }
+
+  @Override
+  @NotNull
+  public Set<Map.Entry<String, IMNode>> entrySet() {
+    return new AbstractSet<Map.Entry<String, IMNode>>() {
+      @Override
+      public Iterator<Map.Entry<String, IMNode>> iterator() {
+        return new SnapshotIterator<Map.Entry<String, IMNode>>() {
+          @Override
+          Map.Entry<String, IMNode> convert(String name, IMNode child) {
+            return new SimpleImmutableEntry<>(name, child);
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return MNodeContainerAdaptiveImpl.this.size();
+      }
+    };
+  }
+
+  /**
+   * @return the index of the child with given name, or (-(insertion index) - 1) if there is no
+   *     such child
+   */
+  private static int search(Object[] array, String name) {
+    int size = array.length >> 1;
+    if (size <= MAX_INLINE_SIZE) {
+      for (int i = 0; i < size; i++) {
+        if (name.equals(array[2 * i])) {
+          return i;
+        }
+      }
+      return -size - 1;
+    }
+
+    int low = 0;
+    int high = size - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int cmp = ((String) array[2 * mid]).compareTo(name);
+      if (cmp < 0) {
+        low = mid + 1;
+      } else if (cmp > 0) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -low - 1;
+  }
+
+  /** insertion sort, only called when the array has at most {@link #MAX_ARRAY_SIZE} entries */
+  private static void sortByName(Object[] array) {
+    for (int i = 2; i < array.length; i += 2) {
+      Object name = array[i];
+      Object child = array[i + 1];
+      int j = i - 2;
+      while (j >= 0 && ((String) array[j]).compareTo((String) name) > 0) {
+        array[j + 2] = array[j];
+        array[j + 3] = array[j + 1];
+        j -= 2;
+      }
+      array[j + 2] = name;
+      array[j + 3] = child;
+    }
+  }
+
+  /** Iterate the children at the time of creation. */
+  private abstract class SnapshotIterator<T> implements Iterator<T> {
+
+    private final Object[] array;
+    private final MNodeTrie.Cursor cursor;
+    private boolean hasNextEntry;
+    private int nextIndex = 0;
+    private String lastName;
+
+    SnapshotIterator() {
+      Object current = children;
+      if (current instanceof Object[]) {
+        array = (Object[]) current;
+        cursor = null;
+      } else {
+        array = null;
+        cursor = ((MNodeTrie) current).cursor();
+        hasNextEntry = cursor.advance();
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return array != null ? nextIndex < array.length : hasNextEntry;
+    }
+
+    @Override
+    public T next() {
+      IMNode child;
+      if (array != null) {
+        if (nextIndex >= array.length) {
+          throw new NoSuchElementException();
+        }
+        lastName = (String) array[nextIndex];
+        child = (IMNode) array[nextIndex + 1];
+        nextIndex += 2;
+      } else {
+        if (!hasNextEntry) {
+          throw new NoSuchElementException();
+        }
+        lastName = cursor.name;
+        child = cursor.child;
+        hasNextEntry = cursor.advance();
+      }
+      return convert(lastName, child);
+    }
+
+    @Override
+    public void remove() {
+      if (lastName == null) {
+        throw new IllegalStateException();
+      }
+      MNodeContainerAdaptiveImpl.this.remove(lastName);
+      lastName = null;
+    }
+
+    abstract T convert(String name, IMNode child);
+  }
+}
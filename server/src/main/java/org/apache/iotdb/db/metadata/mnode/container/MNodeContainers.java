@@ -53,7 +53,7 @@ public class MNodeContainers {
         .equals(SchemaEngineMode.Schema_File.toString())) {
       return new CachedMNodeContainer();
     } else {
-      return new MNodeContainerMapImpl();
+      return new MNodeContainerAdaptiveImpl();
     }
   }
 
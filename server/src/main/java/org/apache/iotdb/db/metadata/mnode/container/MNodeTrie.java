@@ -0,0 +1,341 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata.mnode.container;
+
+import org.apache.iotdb.db.metadata.mnode.IMNode;
+
+import java.util.function.BiConsumer;
+
+/**
+ * An immutable hash array mapped trie from child names to children, used by {@link
+ * MNodeContainerAdaptiveImpl} for MNodes with many children.
+ *
+ * <p>Each trie node consumes 5 bits of the name hash and keeps its entries in an array laid out as
+ * name0, child0, name1, child1, ..., where a null name means the slot holds a sub trie node. Names
+ * with the same hash are kept in a collision node. An update copies only the nodes on the path to
+ * the changed entry and returns a new trie, thus a reader holding a trie always sees the same
+ * children without any lock, while the writer publishes the new trie.
+ */
+final class MNodeTrie {
+
+  private static final int BITS = 5;
+
+  private static final int MASK = (1 << BITS) - 1;
+
+  // 7 bitmap levels cover the 32 bits of hash, plus one collision level
+  private static final int MAX_DEPTH = 8;
+
+  static final MNodeTrie EMPTY = new MNodeTrie(BitmapNode.EMPTY, 0);
+
+  private final TrieNode root;
+
+  private final int size;
+
+  private MNodeTrie(TrieNode root, int size) {
+    this.root = root;
+    this.size = size;
+  }
+
+  int size() {
+    return size;
+  }
+
+  IMNode get(String name) {
+    return root.get(0, hash(name), name);
+  }
+
+  /**
+   * @param change receives the previous child of the given name
+   * @return the trie after put, or this trie if nothing changed
+   */
+  MNodeTrie put(String name, IMNode child, boolean onlyIfAbsent, Change change) {
+    TrieNode newRoot = root.put(0, hash(name), name, child, onlyIfAbsent, change);
+    if (newRoot == root) {
+      return this;
+    }
+    return new MNodeTrie(newRoot, change.previous == null ? size + 1 : size);
+  }
+
+  /**
+   * @param change receives the removed child
+   * @return the trie after removal, or this trie if there is no child of the given name
+   */
+  MNodeTrie remove(String name, Change change) {
+    TrieNode newRoot = root.remove(0, hash(name), name, change);
+    if (newRoot == root) {
+      return this;
+    }
+    return new MNodeTrie(newRoot == null ? BitmapNode.EMPTY : newRoot, size - 1);
+  }
+
+  void forEach(BiConsumer<? super String, ? super IMNode> action) {
+    Cursor cursor = cursor();
+    while (cursor.advance()) {
+      action.accept(cursor.name, cursor.child);
+    }
+  }
+
+  Cursor cursor() {
+    return new Cursor(root);
+  }
+
+  private static int hash(String name) {
+    int h = name.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  /** The result of an update. */
+  static final class Change {
+    IMNode previous;
+  }
+
+  /** Walk through the entries of a trie in hash order, which never changes. */
+  static final class Cursor {
+
+    private final Object[][] arrays = new Object[MAX_DEPTH][];
+    private final int[] positions = new int[MAX_DEPTH];
+    private int depth = 0;
+
+    String name;
+    IMNode child;
+
+    private Cursor(TrieNode root) {
+      arrays[0] = root.array;
+    }
+
+    /** @return true if the cursor is moved to the next entry */
+    boolean advance() {
+      while (depth >= 0) {
+        Object[] array = arrays[depth];
+        int position = positions[depth];
+        if (position >= array.length) {
+          depth--;
+          continue;
+        }
+        positions[depth] = position + 2;
+        if (array[position] == null) {
+          depth++;
+          arrays[depth] = ((TrieNode) array[position + 1]).array;
+          positions[depth] = 0;
+        } else {
+          name = (String) array[position];
+          child = (IMNode) array[position + 1];
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  private abstract static class TrieNode {
+
+    final Object[] array;
+
+    TrieNode(Object[] array) {
+      this.array = array;
+    }
+
+    abstract IMNode get(int shift, int hash, String name);
+
+    abstract TrieNode put(
+        int shift, int hash, String name, IMNode child, boolean onlyIfAbsent, Change change);
+
+    /** @return the node after removal, null if it becomes empty */
+    abstract TrieNode remove(int shift, int hash, String name, Change change);
+
+    Object[] copyAndSet(int index, Object value) {
+      Object[] newArray = array.clone();
+      newArray[index] = value;
+      return newArray;
+    }
+
+    Object[] copyAndRemovePair(int index) {
+      Object[] newArray = new Object[array.length - 2];
+      System.arraycopy(array, 0, newArray, 0, index);
+      System.arraycopy(array, index + 2, newArray, index, array.length - index - 2);
+      return newArray;
+    }
+  }
+
+  private static final class BitmapNode extends TrieNode {
+
+    static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+    private final int bitmap;
+
+    BitmapNode(int bitmap, Object[] array) {
+      super(array);
+      this.bitmap = bitmap;
+    }
+
+    @Override
+    IMNode get(int shift, int hash, String name) {
+      int bit = bit(hash, shift);
+      if ((bitmap & bit) == 0) {
+        return null;
+      }
+      int index = index(bit);
+      Object key = array[index];
+      if (key == null) {
+        return ((TrieNode) array[index + 1]).get(shift + BITS, hash, name);
+      }
+      return name.equals(key) ? (IMNode) array[index + 1] : null;
+    }
+
+    @Override
+    TrieNode put(
+        int shift, int hash, String name, IMNode child, boolean onlyIfAbsent, Change change) {
+      int bit = bit(hash, shift);
+      int index = index(bit);
+      if ((bitmap & bit) == 0) {
+        Object[] newArray = new Object[array.length + 2];
+        System.arraycopy(array, 0, newArray, 0, index);
+        newArray[index] = name;
+        newArray[index + 1] = child;
+        System.arraycopy(array, index, newArray, index + 2, array.length - index);
+        return new BitmapNode(bitmap | bit, newArray);
+      }
+
+      Object key = array[index];
+      Object value = array[index + 1];
+      if (key == null) {
+        TrieNode subNode = (TrieNode) value;
+        TrieNode newSubNode = subNode.put(shift + BITS, hash, name, child, onlyIfAbsent, change);
+        return newSubNode == subNode
+            ? this
+            : new BitmapNode(bitmap, copyAndSet(index + 1, newSubNode));
+      }
+      if (name.equals(key)) {
+        change.previous = (IMNode) value;
+        return onlyIfAbsent || value == child
+            ? this
+            : new BitmapNode(bitmap, copyAndSet(index + 1, child));
+      }
+
+      TrieNode subNode =
+          createSubNode(shift + BITS, (String) key, (IMNode) value, hash, name, child);
+      Object[] newArray = copyAndSet(index, null);
+      newArray[index + 1] = subNode;
+      return new BitmapNode(bitmap, newArray);
+    }
+
+    @Override
+    TrieNode remove(int shift, int hash, String name, Change change) {
+      int bit = bit(hash, shift);
+      if ((bitmap & bit) == 0) {
+        return this;
+      }
+      int index = index(bit);
+      Object key = array[index];
+      if (key == null) {
+        TrieNode subNode = (TrieNode) array[index + 1];
+        TrieNode newSubNode = subNode.remove(shift + BITS, hash, name, change);
+        if (newSubNode == subNode) {
+          return this;
+        }
+        if (newSubNode != null) {
+          return new BitmapNode(bitmap, copyAndSet(index + 1, newSubNode));
+        }
+      } else if (name.equals(key)) {
+        change.previous = (IMNode) array[index + 1];
+      } else {
+        return this;
+      }
+      return bitmap == bit ? null : new BitmapNode(bitmap ^ bit, copyAndRemovePair(index));
+    }
+
+    private int index(int bit) {
+      return Integer.bitCount(bitmap & (bit - 1)) << 1;
+    }
+
+    private static int bit(int hash, int shift) {
+      return 1 << ((hash >>> shift) & MASK);
+    }
+
+    private static TrieNode createSubNode(
+        int shift, String name1, IMNode child1, int hash2, String name2, IMNode child2) {
+      int hash1 = hash(name1);
+      if (hash1 == hash2) {
+        return new CollisionNode(hash1, new Object[] {name1, child1, name2, child2});
+      }
+      Change ignored = new Change();
+      return EMPTY
+          .put(shift, hash1, name1, child1, false, ignored)
+          .put(shift, hash2, name2, child2, false, ignored);
+    }
+  }
+
+  /** Entries whose names have the same hash, found by linear scan. */
+  private static final class CollisionNode extends TrieNode {
+
+    private final int hash;
+
+    CollisionNode(int hash, Object[] array) {
+      super(array);
+      this.hash = hash;
+    }
+
+    @Override
+    IMNode get(int shift, int hash, String name) {
+      int index = hash == this.hash ? indexOf(name) : -1;
+      return index < 0 ? null : (IMNode) array[index + 1];
+    }
+
+    @Override
+    TrieNode put(
+        int shift, int hash, String name, IMNode child, boolean onlyIfAbsent, Change change) {
+      if (hash != this.hash) {
+        // nest this node under a bitmap node of the current level
+        return new BitmapNode(BitmapNode.bit(this.hash, shift), new Object[] {null, this})
+            .put(shift, hash, name, child, onlyIfAbsent, change);
+      }
+      int index = indexOf(name);
+      if (index >= 0) {
+        change.previous = (IMNode) array[index + 1];
+        return onlyIfAbsent || array[index + 1] == child
+            ? this
+            : new CollisionNode(hash, copyAndSet(index + 1, child));
+      }
+      Object[] newArray = new Object[array.length + 2];
+      System.arraycopy(array, 0, newArray, 0, array.length);
+      newArray[array.length] = name;
+      newArray[array.length + 1] = child;
+      return new CollisionNode(hash, newArray);
+    }
+
+    @Override
+    TrieNode remove(int shift, int hash, String name, Change change) {
+      int index = hash == this.hash ? indexOf(name) : -1;
+      if (index < 0) {
+        return this;
+      }
+      change.previous = (IMNode) array[index + 1];
+      return array.length == 2 ? null : new CollisionNode(hash, copyAndRemovePair(index));
+    }
+
+    private int indexOf(String name) {
+      for (int i = 0; i < array.length; i += 2) {
+        if (name.equals(array[i])) {
+          return i;
+        }
+      }
+      return -1;
+    }
+  }
+}
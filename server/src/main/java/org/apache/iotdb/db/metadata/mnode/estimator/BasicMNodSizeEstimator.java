@@ -21,6 +21,7 @@ package org.apache.iotdb.db.metadata.mnode.estimator;
 
 import org.apache.iotdb.db.metadata.mnode.IMNode;
 import org.apache.iotdb.db.metadata.mnode.IMeasurementMNode;
+import org.apache.iotdb.db.metadata.mnode.container.MNodeContainerAdaptiveImpl;
 
 public class BasicMNodSizeEstimator implements IMNodeSizeEstimator {
   /**
@@ -89,8 +90,44 @@ public class BasicMNodSizeEstimator implements IMNodeSizeEstimator {
   // alias length, hashCode and occupation in aliasMap, 4 + 4 + 44 = 52B
   protected static final int ALIAS_BASE_SIZE = 52;
 
+  /** The MapEntry in parent included in NODE_BASE_SIZE, 8 + 8 + 28 = 44B */
+  protected static final int MAP_ENTRY_SIZE = 44;
+
+  /** The basic occupation of a map container included in INTERNAL_NODE_BASE_SIZE, 80B */
+  protected static final int MAP_CONTAINER_BASE_SIZE = 80;
+
+  /** The trie object of a container with many children, see MNodeTrie */
+  protected static final int TRIE_BASE_SIZE = 24;
+
+  /** The amortized occupation of each child in the trie of a container */
+  protected static final int TRIE_ENTRY_SIZE = 30;
+
+  /**
+   * The memory occupied by the children container of an MNode in memory mode, see
+   * MNodeContainerAdaptiveImpl. It is accounted on the parent as children are added or deleted,
+   * so the size of a child node excludes its MapEntry in parent, and the size of an InternalMNode
+   * excludes its container.
+   *
+   * <ol>
+   *   <li>container object, object header and children reference, 8 + 8 = 16B
+   *   <li>array layout, array header, name and child reference of each child, 16 + 16 * n B
+   *   <li>trie layout, trie object 24B, name and child reference of each child 16B, plus trie
+   *       nodes. A trie node with its array header takes 40B, and random hashes lead to about one
+   *       trie node per three children, thus 24 + 30 * n B
+   * </ol>
+   */
+  public static int estimateContainerSize(int childNum) {
+    if (childNum == 0) {
+      return 0;
+    }
+    if (childNum <= MNodeContainerAdaptiveImpl.MAX_ARRAY_SIZE) {
+      return 16 + 16 + 16 * childNum;
+    }
+    return 16 + TRIE_BASE_SIZE + TRIE_ENTRY_SIZE * childNum;
+  }
+
   public int estimateSize(IMNode node) {
-    int size = NODE_BASE_SIZE + node.getName().length();
+    int size = NODE_BASE_SIZE - MAP_ENTRY_SIZE + node.getName().length();
     if (node.isMeasurement()) {
       size += MEASUREMENT_NODE_BASE_SIZE;
       IMeasurementMNode measurementMNode = node.getAsMeasurementMNode();
@@ -98,7 +135,7 @@ public class BasicMNodSizeEstimator implements IMNodeSizeEstimator {
         size += ALIAS_BASE_SIZE + measurementMNode.getAlias().length();
       }
     } else {
-      size += INTERNAL_NODE_BASE_SIZE;
+      size += INTERNAL_NODE_BASE_SIZE - MAP_CONTAINER_BASE_SIZE;
       if (node.isStorageGroup()) {
         size += STORAGE_GROUP_NODE_BASE_SIZE;
         size += node.getAsStorageGroupMNode().getFullPath().length();
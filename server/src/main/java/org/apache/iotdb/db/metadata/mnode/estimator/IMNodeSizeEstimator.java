@@ -35,4 +35,10 @@ public interface IMNodeSizeEstimator {
   static int getAliasBaseSize() {
     return ALIAS_BASE_SIZE;
   }
+
+  /** The delta of container size of a parent when its children number changes. */
+  static int getContainerSizeDelta(int oldChildNum, int newChildNum) {
+    return BasicMNodSizeEstimator.estimateContainerSize(newChildNum)
+        - BasicMNodSizeEstimator.estimateContainerSize(oldChildNum);
+  }
 }
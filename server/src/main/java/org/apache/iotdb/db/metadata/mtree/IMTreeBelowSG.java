@@ -45,6 +45,9 @@ public interface IMTreeBelowSG {
    */
   boolean createSnapshot(File snapshotDir);
 
+  /** Get the number of children of the database node. */
+  long countDatabaseChildren() throws MetadataException;
+
   IMeasurementMNode createTimeseries(
       PartialPath path,
       TSDataType dataType,
@@ -724,6 +724,21 @@ public class MTreeBelowSGCachedImpl implements IMTreeBelowSG {
 
   // region Interfaces and Implementation for metadata info Query
 
+  @Override
+  public long countDatabaseChildren() throws MetadataException {
+    long count = 0;
+    IMNodeIterator iterator = store.getChildrenIterator(storageGroupMNode);
+    try {
+      while (iterator.hasNext()) {
+        unPinMNode(iterator.next());
+        count++;
+      }
+    } finally {
+      iterator.close();
+    }
+    return count;
+  }
+
   @Override
   public List<MeasurementPath> fetchSchema(
       PartialPath pathPattern, Map<Integer, Template> templateMap, boolean withTags)
@@ -998,6 +1013,7 @@ public class MTreeBelowSGCachedImpl implements IMTreeBelowSG {
     if (showDevicesPlan.usingSchemaTemplate()) {
       collector.setSchemaTemplateFilter(showDevicesPlan.getSchemaTemplateId());
     }
+    collector.setScanSplit(showDevicesPlan.getSplitIndex(), showDevicesPlan.getSplitNum());
     TraverserWithLimitOffsetWrapper<IDeviceSchemaInfo> traverser =
         new TraverserWithLimitOffsetWrapper<>(
             collector, showDevicesPlan.getLimit(), showDevicesPlan.getOffset());
@@ -1089,6 +1105,7 @@ public class MTreeBelowSGCachedImpl implements IMTreeBelowSG {
         };
 
     collector.setTemplateMap(showTimeSeriesPlan.getRelatedTemplate());
+    collector.setScanSplit(showTimeSeriesPlan.getSplitIndex(), showTimeSeriesPlan.getSplitNum());
     Traverser<ITimeSeriesSchemaInfo> traverser;
     if (showTimeSeriesPlan.getLimit() > 0 || showTimeSeriesPlan.getOffset() > 0) {
       traverser =
@@ -42,6 +42,7 @@ import org.apache.iotdb.db.metadata.mnode.IStorageGroupMNode;
 import org.apache.iotdb.db.metadata.mnode.InternalMNode;
 import org.apache.iotdb.db.metadata.mnode.MeasurementMNode;
 import org.apache.iotdb.db.metadata.mnode.iterator.IMNodeIterator;
+import org.apache.iotdb.db.metadata.mtree.snapshot.MemMTreeSnapshotTracker;
 import org.apache.iotdb.db.metadata.mtree.store.MemMTreeStore;
 import org.apache.iotdb.db.metadata.mtree.traverser.Traverser;
 import org.apache.iotdb.db.metadata.mtree.traverser.TraverserWithLimitOffsetWrapper;
@@ -172,6 +173,14 @@ public class MTreeBelowSGMemoryImpl implements IMTreeBelowSG {
     return store.createSnapshot(snapshotDir);
   }
 
+  /**
+   * Create the snapshot incrementally, only the segments modified since the last snapshot are
+   * serialized.
+   */
+  public synchronized boolean createSnapshot(File snapshotDir, MemMTreeSnapshotTracker tracker) {
+    return store.createSnapshot(snapshotDir, tracker);
+  }
+
   public static MTreeBelowSGMemoryImpl loadFromSnapshot(
       File snapshotDir,
       String storageGroupFullPath,
@@ -622,6 +631,11 @@ public class MTreeBelowSGMemoryImpl implements IMTreeBelowSG {
 
   // region Interfaces and Implementation for metadata info Query
 
+  @Override
+  public long countDatabaseChildren() {
+    return storageGroupMNode.getChildren().size();
+  }
+
   @Override
   public List<MeasurementPath> fetchSchema(
       PartialPath pathPattern, Map<Integer, Template> templateMap, boolean withTags)
@@ -868,6 +882,7 @@ public class MTreeBelowSGMemoryImpl implements IMTreeBelowSG {
     if (showDevicesPlan.usingSchemaTemplate()) {
       collector.setSchemaTemplateFilter(showDevicesPlan.getSchemaTemplateId());
     }
+    collector.setScanSplit(showDevicesPlan.getSplitIndex(), showDevicesPlan.getSplitNum());
     TraverserWithLimitOffsetWrapper<IDeviceSchemaInfo> traverser =
         new TraverserWithLimitOffsetWrapper<>(
             collector, showDevicesPlan.getLimit(), showDevicesPlan.getOffset());
@@ -956,6 +971,7 @@ public class MTreeBelowSGMemoryImpl implements IMTreeBelowSG {
           }
         };
     collector.setTemplateMap(showTimeSeriesPlan.getRelatedTemplate());
+    collector.setScanSplit(showTimeSeriesPlan.getSplitIndex(), showTimeSeriesPlan.getSplitNum());
     Traverser<ITimeSeriesSchemaInfo> traverser;
     if (showTimeSeriesPlan.getLimit() > 0 || showTimeSeriesPlan.getOffset() > 0) {
       traverser =
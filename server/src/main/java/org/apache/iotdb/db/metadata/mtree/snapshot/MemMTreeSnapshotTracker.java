@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata.mtree.snapshot;
+
+import org.apache.iotdb.commons.file.SystemFileFactory;
+import org.apache.iotdb.commons.path.PartialPath;
+import org.apache.iotdb.commons.utils.FileUtils;
+import org.apache.iotdb.db.metadata.MetadataConstant;
+import org.apache.iotdb.db.metadata.plan.schemaregion.ISchemaRegionPlan;
+import org.apache.iotdb.db.metadata.plan.schemaregion.SchemaRegionPlanVisitor;
+import org.apache.iotdb.db.metadata.plan.schemaregion.write.IActivateTemplateInClusterPlan;
+import org.apache.iotdb.db.metadata.plan.schemaregion.write.IAutoCreateDeviceMNodePlan;
+import org.apache.iotdb.db.metadata.plan.schemaregion.write.IChangeAliasPlan;
+import org.apache.iotdb.db.metadata.plan.schemaregion.write.IChangeTagOffsetPlan;
+import org.apache.iotdb.db.metadata.plan.schemaregion.write.ICreateAlignedTimeSeriesPlan;
+import org.apache.iotdb.db.metadata.plan.schemaregion.write.ICreateTimeSeriesPlan;
+import org.apache.iotdb.db.metadata.plan.schemaregion.write.IDeactivateTemplatePlan;
+import org.apache.iotdb.db.metadata.plan.schemaregion.write.IDeleteTimeSeriesPlan;
+import org.apache.iotdb.db.metadata.plan.schemaregion.write.IPreDeactivateTemplatePlan;
+import org.apache.iotdb.db.metadata.plan.schemaregion.write.IPreDeleteTimeSeriesPlan;
+import org.apache.iotdb.db.metadata.plan.schemaregion.write.IRollbackPreDeactivateTemplatePlan;
+import org.apache.iotdb.db.metadata.plan.schemaregion.write.IRollbackPreDeleteTimeSeriesPlan;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+
+import static org.apache.iotdb.commons.conf.IoTDBConstant.ONE_LEVEL_PATH_WILDCARD;
+import static org.apache.iotdb.db.metadata.mtree.snapshot.MemMTreeSnapshotUtil.SEGMENT_NUM;
+import static org.apache.iotdb.db.metadata.mtree.snapshot.MemMTreeSnapshotUtil.getSegmentIndex;
+
+/**
+ * This class tracks which segments of the MTree snapshot have been modified since the last
+ * snapshot was created or loaded. The segment files of the last snapshot are kept as hard links in
+ * the schema region dir, and the next snapshot reuses the files of the unmodified segments instead
+ * of serializing the corresponding subtrees again.
+ */
+public class MemMTreeSnapshotTracker {
+
+  private static final Logger logger = LoggerFactory.getLogger(MemMTreeSnapshotTracker.class);
+
+  private static final AffectedPathCollector AFFECTED_PATH_COLLECTOR = new AffectedPathCollector();
+
+  private final int levelOfDatabase;
+  private final File segmentCacheDir;
+
+  private final BitSet dirtySegments = new BitSet(SEGMENT_NUM);
+  // if true, no cached segment file is reusable and all the segments shall be serialized
+  private boolean isAllDirty = true;
+
+  public MemMTreeSnapshotTracker(PartialPath database, String schemaRegionDirPath) {
+    this.levelOfDatabase = database.getNodeLength() - 1;
+    this.segmentCacheDir =
+        SystemFileFactory.INSTANCE.getFile(
+            schemaRegionDirPath, MetadataConstant.MTREE_SNAPSHOT_SEGMENT_CACHE_DIR);
+  }
+
+  /** Mark the segments modified by the given write plan as dirty. */
+  public synchronized void markDirty(ISchemaRegionPlan plan) {
+    if (isAllDirty) {
+      return;
+    }
+    Collection<PartialPath> affectedPaths = plan.accept(AFFECTED_PATH_COLLECTOR, null);
+    if (affectedPaths == null) {
+      invalidate();
+      return;
+    }
+    for (PartialPath path : affectedPaths) {
+      markDirty(path);
+    }
+  }
+
+  private void markDirty(PartialPath path) {
+    String[] nodes = path.getNodes();
+    if (nodes.length <= levelOfDatabase + 1) {
+      // only the database node is modified, which is always serialized
+      return;
+    }
+    String childName = nodes[levelOfDatabase + 1];
+    if (childName.contains(ONE_LEVEL_PATH_WILDCARD)) {
+      invalidate();
+    } else {
+      dirtySegments.set(getSegmentIndex(childName));
+    }
+  }
+
+  /** All the segments shall be serialized by the next snapshot. */
+  public synchronized void invalidate() {
+    isAllDirty = true;
+    dirtySegments.clear();
+  }
+
+  /**
+   * Start a snapshot, the segments modified since now will be marked dirty for the next snapshot.
+   *
+   * @return the segments modified since the last snapshot, null if no segment is reusable
+   */
+  synchronized BitSet startSnapshot() {
+    BitSet result = isAllDirty ? null : (BitSet) dirtySegments.clone();
+    isAllDirty = false;
+    dirtySegments.clear();
+    return result;
+  }
+
+  /** @return the cached file of the given segment, null if the segment is not reusable */
+  File getReusableSegment(BitSet dirtySegmentsOfSnapshot, int segmentIndex) {
+    if (dirtySegmentsOfSnapshot == null || dirtySegmentsOfSnapshot.get(segmentIndex)) {
+      return null;
+    }
+    File segment = getCachedSegmentFile(segmentIndex);
+    return segment.exists() ? segment : null;
+  }
+
+  /**
+   * Cache the segment files of the created snapshot for the next snapshot.
+   *
+   * @param dirtySegmentsOfSnapshot the result of {@link #startSnapshot()}
+   * @param isSuccess whether the snapshot is successfully created
+   */
+  synchronized void finishSnapshot(
+      File snapshotDir, BitSet dirtySegmentsOfSnapshot, boolean isSuccess) {
+    if (!isSuccess) {
+      if (dirtySegmentsOfSnapshot == null) {
+        invalidate();
+      } else {
+        dirtySegments.or(dirtySegmentsOfSnapshot);
+      }
+      return;
+    }
+    try {
+      if (!segmentCacheDir.exists() && !segmentCacheDir.mkdirs()) {
+        throw new IOException("Failed to create dir " + segmentCacheDir);
+      }
+      for (int i = 0; i < SEGMENT_NUM; i++) {
+        if (dirtySegmentsOfSnapshot != null && !dirtySegmentsOfSnapshot.get(i)) {
+          continue;
+        }
+        File cachedSegment = getCachedSegmentFile(i);
+        Files.deleteIfExists(cachedSegment.toPath());
+        File segment = MemMTreeSnapshotUtil.getSegmentFile(snapshotDir, i);
+        if (segment.exists()) {
+          MemMTreeSnapshotUtil.linkOrCopy(segment, cachedSegment);
+        }
+      }
+    } catch (IOException e) {
+      logger.warn("Failed to cache mtree snapshot segments, next snapshot will be a full one.", e);
+      invalidate();
+    }
+  }
+
+  /** Cache the segment files of the loaded snapshot, since the MTree equals the snapshot. */
+  public synchronized void onSnapshotLoaded(File snapshotDir) {
+    invalidate();
+    FileUtils.deleteDirectory(segmentCacheDir);
+    finishSnapshot(snapshotDir, startSnapshot(), true);
+  }
+
+  private File getCachedSegmentFile(int segmentIndex) {
+    return MemMTreeSnapshotUtil.getSegmentFile(segmentCacheDir, segmentIndex);
+  }
+
+  private static class AffectedPathCollector
+      extends SchemaRegionPlanVisitor<Collection<PartialPath>, Void> {
+
+    @Override
+    public Collection<PartialPath> visitSchemaRegionPlan(ISchemaRegionPlan plan, Void context) {
+      // unknown plan, all the segments are regarded as modified
+      return null;
+    }
+
+    @Override
+    public Collection<PartialPath> visitActivateTemplateInCluster(
+        IActivateTemplateInClusterPlan activateTemplateInClusterPlan, Void context) {
+      return Collections.singletonList(activateTemplateInClusterPlan.getActivatePath());
+    }
+
+    @Override
+    public Collection<PartialPath> visitAutoCreateDeviceMNode(
+        IAutoCreateDeviceMNodePlan autoCreateDeviceMNodePlan, Void context) {
+      return Collections.singletonList(autoCreateDeviceMNodePlan.getPath());
+    }
+
+    @Override
+    public Collection<PartialPath> visitChangeAlias(
+        IChangeAliasPlan changeAliasPlan, Void context) {
+      return Collections.singletonList(changeAliasPlan.getPath());
+    }
+
+    @Override
+    public Collection<PartialPath> visitChangeTagOffset(
+        IChangeTagOffsetPlan changeTagOffsetPlan, Void context) {
+      return Collections.singletonList(changeTagOffsetPlan.getPath());
+    }
+
+    @Override
+    public Collection<PartialPath> visitCreateAlignedTimeSeries(
+        ICreateAlignedTimeSeriesPlan createAlignedTimeSeriesPlan, Void context) {
+      return Collections.singletonList(createAlignedTimeSeriesPlan.getDevicePath());
+    }
+
+    @Override
+    public Collection<PartialPath> visitCreateTimeSeries(
+        ICreateTimeSeriesPlan createTimeSeriesPlan, Void context) {
+      return Collections.singletonList(createTimeSeriesPlan.getPath());
+    }
+
+    @Override
+    public Collection<PartialPath> visitDeleteTimeSeries(
+        IDeleteTimeSeriesPlan deleteTimeSeriesPlan, Void context) {
+      return deleteTimeSeriesPlan.getDeletePathList();
+    }
+
+    @Override
+    public Collection<PartialPath> visitPreDeleteTimeSeries(
+        IPreDeleteTimeSeriesPlan preDeleteTimeSeriesPlan, Void context) {
+      return Collections.singletonList(preDeleteTimeSeriesPlan.getPath());
+    }
+
+    @Override
+    public Collection<PartialPath> visitRollbackPreDeleteTimeSeries(
+        IRollbackPreDeleteTimeSeriesPlan rollbackPreDeleteTimeSeriesPlan, Void context) {
+      return Collections.singletonList(rollbackPreDeleteTimeSeriesPlan.getPath());
+    }
+
+    @Override
+    public Collection<PartialPath> visitPreDeactivateTemplate(
+        IPreDeactivateTemplatePlan preDeactivateTemplatePlan, Void context) {
+      return preDeactivateTemplatePlan.getTemplateSetInfo().keySet();
+    }
+
+    @Override
+    public Collection<PartialPath> visitRollbackPreDeactivateTemplate(
+        IRollbackPreDeactivateTemplatePlan rollbackPreDeactivateTemplatePlan, Void context) {
+      return rollbackPreDeactivateTemplatePlan.getTemplateSetInfo().keySet();
+    }
+
+    @Override
+    public Collection<PartialPath> visitDeactivateTemplate(
+        IDeactivateTemplatePlan deactivateTemplatePlan, Void context) {
+      return deactivateTemplatePlan.getTemplateSetInfo().keySet();
+    }
+  }
+}
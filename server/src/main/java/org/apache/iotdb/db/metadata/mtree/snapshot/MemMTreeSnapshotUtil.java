@@ -19,6 +19,8 @@
 
 package org.apache.iotdb.db.metadata.mtree.snapshot;
 
+import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.commons.concurrent.ThreadName;
 import org.apache.iotdb.commons.file.SystemFileFactory;
 import org.apache.iotdb.db.metadata.MetadataConstant;
 import org.apache.iotdb.db.metadata.mnode.EntityMNode;
@@ -48,8 +50,16 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
 
 import static org.apache.iotdb.db.metadata.MetadataConstant.ENTITY_MNODE_TYPE;
@@ -66,20 +76,45 @@ public class MemMTreeSnapshotUtil {
   private static final String DESERIALIZE_ERROR_INFO =
       "Error occurred during deserializing MemMTree.";
 
-  private static final byte VERSION = 0;
+  // the snapshot of legacy version is a single file holding the whole MTree
+  private static final byte LEGACY_VERSION = 0;
+  private static final byte VERSION = 1;
+
+  /**
+   * The subtrees under the database node are divided into segments by the hash of their root
+   * names, and each segment is serialized to a separate file. Thus, the segments could be
+   * deserialized in parallel, and the files of the unmodified segments could be reused by the next
+   * snapshot.
+   */
+  static final int SEGMENT_NUM = 64;
+
   private static final MemoryStatistics MEMORY_STATISTICS = MemoryStatistics.getInstance();
   private static final IMNodeSizeEstimator ESTIMATOR = new BasicMNodSizeEstimator();
 
   public static boolean createSnapshot(File snapshotDir, MemMTreeStore store) {
+    return createSnapshot(snapshotDir, store, null);
+  }
+
+  /**
+   * Create the snapshot of given MTree.
+   *
+   * @param tracker the tracker of modified segments, null means all the segments are serialized
+   */
+  public static boolean createSnapshot(
+      File snapshotDir, MemMTreeStore store, MemMTreeSnapshotTracker tracker) {
     File snapshotTmp =
         SystemFileFactory.INSTANCE.getFile(snapshotDir, MetadataConstant.MTREE_SNAPSHOT_TMP);
     File snapshot =
         SystemFileFactory.INSTANCE.getFile(snapshotDir, MetadataConstant.MTREE_SNAPSHOT);
 
+    BitSet dirtySegments = tracker == null ? null : tracker.startSnapshot();
+    boolean isSuccess = false;
     try {
+      List<Integer> segmentIndexList =
+          serializeSegments(snapshotDir, store, tracker, dirtySegments);
       try (BufferedOutputStream outputStream =
           new BufferedOutputStream(new FileOutputStream(snapshotTmp))) {
-        serializeTo(store, outputStream);
+        serializeTo(store, segmentIndexList, outputStream);
       }
       if (snapshot.exists() && !snapshot.delete()) {
         logger.error(
@@ -95,6 +130,7 @@ public class MemMTreeSnapshotUtil {
         return false;
       }
 
+      isSuccess = true;
       return true;
     } catch (IOException e) {
       logger.error("Failed to create mtree snapshot due to {}", e.getMessage(), e);
@@ -102,15 +138,22 @@ public class MemMTreeSnapshotUtil {
       return false;
     } finally {
       snapshotTmp.delete();
+      if (tracker != null) {
+        tracker.finishSnapshot(snapshotDir, dirtySegments, isSuccess);
+      }
     }
   }
 
+  /**
+   * Load the MTree from snapshot. The segments of the snapshot are deserialized in parallel, thus
+   * the measurementProcess may be invoked concurrently.
+   */
   public static IMNode loadSnapshot(
       File snapshotDir, Consumer<IMeasurementMNode> measurementProcess) throws IOException {
     File snapshot =
         SystemFileFactory.INSTANCE.getFile(snapshotDir, MetadataConstant.MTREE_SNAPSHOT);
     try (BufferedInputStream inputStream = new BufferedInputStream(new FileInputStream(snapshot))) {
-      return deserializeFrom(inputStream, measurementProcess);
+      return deserializeFrom(snapshotDir, inputStream, measurementProcess);
     } catch (Throwable e) {
       // This method is only invoked during recovery. If failed, the memory usage should be cleared
       // since the loaded schema will not be used.
@@ -119,10 +162,97 @@ public class MemMTreeSnapshotUtil {
     }
   }
 
-  private static void serializeTo(MemMTreeStore store, OutputStream outputStream)
+  static int getSegmentIndex(String childName) {
+    return Math.floorMod(childName.hashCode(), SEGMENT_NUM);
+  }
+
+  static File getSegmentFile(File dir, int segmentIndex) {
+    return SystemFileFactory.INSTANCE.getFile(
+        dir, MetadataConstant.MTREE_SNAPSHOT_SEGMENT_PREFIX + segmentIndex);
+  }
+
+  /** Hard link the source file to the target, or copy it if hard link is not supported. */
+  static void linkOrCopy(File source, File target) throws IOException {
+    try {
+      Files.createLink(target.toPath(), source.toPath());
+    } catch (IOException | UnsupportedOperationException e) {
+      Files.copy(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /** @return the index list of non-empty segments */
+  private static List<Integer> serializeSegments(
+      File snapshotDir,
+      MemMTreeStore store,
+      MemMTreeSnapshotTracker tracker,
+      BitSet dirtySegments)
+      throws IOException {
+    File[] reusableSegments = new File[SEGMENT_NUM];
+    if (tracker != null) {
+      for (int i = 0; i < SEGMENT_NUM; i++) {
+        reusableSegments[i] = tracker.getReusableSegment(dirtySegments, i);
+      }
+    }
+
+    // only the subtrees of the segments to be serialized are collected
+    boolean[] isSegmentNonEmpty = new boolean[SEGMENT_NUM];
+    List<List<IMNode>> segments = new ArrayList<>(SEGMENT_NUM);
+    for (int i = 0; i < SEGMENT_NUM; i++) {
+      segments.add(reusableSegments[i] == null ? new ArrayList<>() : null);
+    }
+    IMNodeIterator iterator = store.getChildrenIterator(store.getRoot());
+    try {
+      IMNode child;
+      int segmentIndex;
+      while (iterator.hasNext()) {
+        child = iterator.next();
+        segmentIndex = getSegmentIndex(child.getName());
+        isSegmentNonEmpty[segmentIndex] = true;
+        if (segments.get(segmentIndex) != null) {
+          segments.get(segmentIndex).add(child);
+        }
+      }
+    } finally {
+      iterator.close();
+    }
+
+    List<Integer> segmentIndexList = new ArrayList<>();
+    File segmentFile;
+    for (int i = 0; i < SEGMENT_NUM; i++) {
+      segmentFile = getSegmentFile(snapshotDir, i);
+      Files.deleteIfExists(segmentFile.toPath());
+      if (!isSegmentNonEmpty[i]) {
+        continue;
+      }
+      segmentIndexList.add(i);
+      if (reusableSegments[i] != null) {
+        linkOrCopy(reusableSegments[i], segmentFile);
+      } else {
+        try (BufferedOutputStream outputStream =
+            new BufferedOutputStream(new FileOutputStream(segmentFile))) {
+          ReadWriteIOUtils.write(segments.get(i).size(), outputStream);
+          for (IMNode subtreeRoot : segments.get(i)) {
+            inorderSerialize(subtreeRoot, store, outputStream);
+          }
+        }
+      }
+      segments.set(i, null);
+    }
+    return segmentIndexList;
+  }
+
+  private static void serializeTo(
+      MemMTreeStore store, List<Integer> segmentIndexList, OutputStream outputStream)
       throws IOException {
     ReadWriteIOUtils.write(VERSION, outputStream);
-    inorderSerialize(store.getRoot(), store, outputStream);
+    // the children of database node are serialized in segments
+    if (!store.getRoot().accept(new MNodeSerializer(), outputStream)) {
+      throw new IOException(SERIALIZE_ERROR_INFO);
+    }
+    ReadWriteIOUtils.write(segmentIndexList.size(), outputStream);
+    for (int segmentIndex : segmentIndexList) {
+      ReadWriteIOUtils.write(segmentIndex, outputStream);
+    }
   }
 
   private static void inorderSerialize(IMNode root, MemMTreeStore store, OutputStream outputStream)
@@ -131,6 +261,9 @@ public class MemMTreeSnapshotUtil {
     if (!root.accept(serializer, outputStream)) {
       throw new IOException(SERIALIZE_ERROR_INFO);
     }
+    if (root.isMeasurement()) {
+      return;
+    }
 
     Deque<IMNodeIterator> stack = new ArrayDeque<>();
     stack.push(store.getChildrenIterator(root));
@@ -153,9 +286,66 @@ public class MemMTreeSnapshotUtil {
   }
 
   private static IMNode deserializeFrom(
-      InputStream inputStream, Consumer<IMeasurementMNode> measurementProcess) throws IOException {
+      File snapshotDir, InputStream inputStream, Consumer<IMeasurementMNode> measurementProcess)
+      throws IOException {
     byte version = ReadWriteIOUtils.readByte(inputStream);
-    return inorderDeserialize(inputStream, measurementProcess);
+    if (version == LEGACY_VERSION) {
+      return inorderDeserialize(inputStream, measurementProcess);
+    }
+
+    // the children num of database node is ignored since its children are stored in segments
+    IMNode root =
+        deserializeMNode(
+            new ArrayDeque<>(),
+            new ArrayDeque<>(),
+            new MNodeDeserializer(),
+            inputStream,
+            measurementProcess);
+    int segmentNum = ReadWriteIOUtils.readInt(inputStream);
+    if (segmentNum == 0) {
+      return root;
+    }
+    List<File> segmentFiles = new ArrayList<>(segmentNum);
+    for (int i = 0; i < segmentNum; i++) {
+      segmentFiles.add(getSegmentFile(snapshotDir, ReadWriteIOUtils.readInt(inputStream)));
+    }
+
+    ExecutorService loadPool =
+        IoTDBThreadPoolFactory.newFixedThreadPool(
+            Math.min(segmentNum, Runtime.getRuntime().availableProcessors()),
+            ThreadName.SCHEMA_REGION_SNAPSHOT_LOAD_POOL.getName());
+    try {
+      List<Future<List<IMNode>>> futureList = new ArrayList<>(segmentNum);
+      for (File segmentFile : segmentFiles) {
+        futureList.add(loadPool.submit(() -> deserializeSegment(segmentFile, measurementProcess)));
+      }
+      for (Future<List<IMNode>> future : futureList) {
+        for (IMNode subtreeRoot : future.get()) {
+          addChild(root, subtreeRoot);
+        }
+      }
+      return root;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(DESERIALIZE_ERROR_INFO, e);
+    } catch (ExecutionException e) {
+      throw new IOException(DESERIALIZE_ERROR_INFO, e.getCause());
+    } finally {
+      loadPool.shutdownNow();
+    }
+  }
+
+  private static List<IMNode> deserializeSegment(
+      File segmentFile, Consumer<IMeasurementMNode> measurementProcess) throws IOException {
+    try (BufferedInputStream inputStream =
+        new BufferedInputStream(new FileInputStream(segmentFile))) {
+      int subtreeNum = ReadWriteIOUtils.readInt(inputStream);
+      List<IMNode> subtreeRootList = new ArrayList<>(subtreeNum);
+      for (int i = 0; i < subtreeNum; i++) {
+        subtreeRootList.add(inorderDeserialize(inputStream, measurementProcess));
+      }
+      return subtreeRootList;
+    }
   }
 
   private static IMNode inorderDeserialize(
@@ -163,9 +353,9 @@ public class MemMTreeSnapshotUtil {
     MNodeDeserializer deserializer = new MNodeDeserializer();
     Deque<IMNode> ancestors = new ArrayDeque<>();
     Deque<Integer> restChildrenNum = new ArrayDeque<>();
-    deserializeMNode(ancestors, restChildrenNum, deserializer, inputStream, measurementProcess);
+    IMNode root =
+        deserializeMNode(ancestors, restChildrenNum, deserializer, inputStream, measurementProcess);
     int childrenNum;
-    IMNode root = ancestors.peek();
     while (!ancestors.isEmpty()) {
       childrenNum = restChildrenNum.pop();
       if (childrenNum == 0) {
@@ -178,7 +368,7 @@ public class MemMTreeSnapshotUtil {
     return root;
   }
 
-  private static void deserializeMNode(
+  private static IMNode deserializeMNode(
       Deque<IMNode> ancestors,
       Deque<Integer> restChildrenNum,
       MNodeDeserializer deserializer,
@@ -217,8 +407,7 @@ public class MemMTreeSnapshotUtil {
     MEMORY_STATISTICS.requestMemory(ESTIMATOR.estimateSize(node));
 
     if (!ancestors.isEmpty()) {
-      node.setParent(ancestors.peek());
-      ancestors.peek().addChild(node);
+      addChild(ancestors.peek(), node);
     }
 
     // Storage type means current node is root node, so it must be returned.
@@ -226,6 +415,15 @@ public class MemMTreeSnapshotUtil {
       ancestors.push(node);
       restChildrenNum.push(childrenNum);
     }
+    return node;
+  }
+
+  private static void addChild(IMNode parent, IMNode node) {
+    int childNum = parent.getChildren().size();
+    node.setParent(parent);
+    parent.addChild(node);
+    MEMORY_STATISTICS.requestMemory(
+        IMNodeSizeEstimator.getContainerSizeDelta(childNum, childNum + 1));
   }
 
   private static class MNodeSerializer extends MNodeVisitor<Boolean, OutputStream> {
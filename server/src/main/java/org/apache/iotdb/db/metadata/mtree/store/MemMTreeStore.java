@@ -34,6 +34,7 @@ import org.apache.iotdb.db.metadata.mnode.iterator.AbstractTraverserIterator;
 import org.apache.iotdb.db.metadata.mnode.iterator.IMNodeIterator;
 import org.apache.iotdb.db.metadata.mnode.iterator.MNodeIterator;
 import org.apache.iotdb.db.metadata.mnode.iterator.MemoryTraverserIterator;
+import org.apache.iotdb.db.metadata.mtree.snapshot.MemMTreeSnapshotTracker;
 import org.apache.iotdb.db.metadata.mtree.snapshot.MemMTreeSnapshotUtil;
 import org.apache.iotdb.db.metadata.rescon.MemoryStatistics;
 import org.apache.iotdb.db.metadata.template.Template;
@@ -105,16 +106,25 @@ public class MemMTreeStore implements IMTreeStore {
 
   @Override
   public IMNode addChild(IMNode parent, String childName, IMNode child) {
+    int childNum = parent.getChildren().size();
     IMNode result = parent.addChild(childName, child);
     if (result == child) {
-      requestMemory(estimator.estimateSize(child));
+      requestMemory(
+          estimator.estimateSize(child)
+              + IMNodeSizeEstimator.getContainerSizeDelta(childNum, childNum + 1));
     }
     return result;
   }
 
   @Override
   public void deleteChild(IMNode parent, String childName) {
-    releaseMemory(estimator.estimateSize(parent.deleteChild(childName)));
+    int childNum = parent.getChildren().size();
+    IMNode deletedChild = parent.deleteChild(childName);
+    if (deletedChild != null) {
+      releaseMemory(
+          estimator.estimateSize(deletedChild)
+              + IMNodeSizeEstimator.getContainerSizeDelta(childNum - 1, childNum));
+    }
   }
 
   @Override
@@ -195,6 +205,10 @@ public class MemMTreeStore implements IMTreeStore {
     return MemMTreeSnapshotUtil.createSnapshot(snapshotDir, this);
   }
 
+  public boolean createSnapshot(File snapshotDir, MemMTreeSnapshotTracker tracker) {
+    return MemMTreeSnapshotUtil.createSnapshot(snapshotDir, this, tracker);
+  }
+
   public static MemMTreeStore loadFromSnapshot(
       File snapshotDir, Consumer<IMeasurementMNode> measurementProcess) throws IOException {
     return new MemMTreeStore(MemMTreeSnapshotUtil.loadSnapshot(snapshotDir, measurementProcess));
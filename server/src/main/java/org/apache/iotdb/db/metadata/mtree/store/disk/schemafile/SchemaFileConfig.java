@@ -38,6 +38,13 @@ public class SchemaFileConfig {
           .getConfig()
           .getPageCacheSizeInSchemaFile(); // size of page cache
 
+  // whether to read pages through memory-mapped regions of the file
+  public static final boolean MMAP_ENABLED =
+      IoTDBDescriptor.getInstance().getConfig().isEnableMmapInSchemaFile();
+
+  // number of pages within one memory-mapped region, 16 MiB with default page length
+  public static final int MMAP_REGION_PAGE_NUM = 1024;
+
   // size of page within one redo log, restricting log around 1GB
   public static final int SCHEMA_FILE_LOG_SIZE =
       IoTDBDescriptor.getInstance().getConfig().getSchemaFileLogSize();
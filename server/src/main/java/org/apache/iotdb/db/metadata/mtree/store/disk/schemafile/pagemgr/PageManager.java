@@ -40,16 +40,14 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
 import java.nio.channels.FileChannel;
 import java.nio.file.StandardOpenOption;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 
@@ -58,6 +56,8 @@ import static org.apache.iotdb.db.metadata.mtree.store.disk.schemafile.SchemaFil
 import static org.apache.iotdb.db.metadata.mtree.store.disk.schemafile.SchemaFile.getSegIndex;
 import static org.apache.iotdb.db.metadata.mtree.store.disk.schemafile.SchemaFile.setNodeAddress;
 import static org.apache.iotdb.db.metadata.mtree.store.disk.schemafile.SchemaFileConfig.FILE_HEADER_SIZE;
+import static org.apache.iotdb.db.metadata.mtree.store.disk.schemafile.SchemaFileConfig.MMAP_ENABLED;
+import static org.apache.iotdb.db.metadata.mtree.store.disk.schemafile.SchemaFileConfig.MMAP_REGION_PAGE_NUM;
 import static org.apache.iotdb.db.metadata.mtree.store.disk.schemafile.SchemaFileConfig.PAGE_CACHE_SIZE;
 import static org.apache.iotdb.db.metadata.mtree.store.disk.schemafile.SchemaFileConfig.PAGE_INDEX_MASK;
 import static org.apache.iotdb.db.metadata.mtree.store.disk.schemafile.SchemaFileConfig.PAGE_LENGTH;
@@ -78,10 +78,10 @@ import static org.apache.iotdb.db.metadata.mtree.store.disk.schemafile.SchemaFil
 public abstract class PageManager implements IPageManager {
   protected static final Logger logger = LoggerFactory.getLogger(PageManager.class);
 
-  protected final Map<Integer, ISchemaPage> pageInstCache;
+  protected final SchemaPageCache pageInstCache;
   protected final Map<Integer, ISchemaPage> dirtyPages;
 
-  protected final ReentrantLock evictLock;
+  // serializes loading of the same page so that it is read from file only once
   protected final PageLocks pageLocks;
 
   protected final AtomicInteger lastPageIndex;
@@ -93,23 +93,32 @@ public abstract class PageManager implements IPageManager {
 
   // handle timeout interruption during reading
   private File pmtFile;
-  private FileChannel readChannel;
+  private volatile FileChannel readChannel;
+  private final Object readChannelLock = new Object();
+
+  // read-only mapped regions of the file, indexed by region, only for regions filled completely
+  private final Map<Integer, MappedByteBuffer> mappedRegions;
+  // readers copy pages from the mapped regions under read lock, and the regions are dropped under
+  // write lock
+  private final ReentrantReadWriteLock mappedRegionsLock = new ReentrantReadWriteLock();
+  private boolean mappedRegionsClosed = false;
+  private boolean mmapEnabled = MMAP_ENABLED;
 
   private final AtomicInteger logCounter;
   private SchemaFileLogWriter logWriter;
 
   PageManager(FileChannel channel, File pmtFile, int lastPageIndex, String logPath)
       throws IOException, MetadataException {
-    this.pageInstCache = Collections.synchronizedMap(new LinkedHashMap<>(PAGE_CACHE_SIZE, 1, true));
-    this.dirtyPages = new ConcurrentHashMap<>();
-    this.evictLock = new ReentrantLock();
     this.pageLocks = new PageLocks();
+    this.pageInstCache = new SchemaPageCache(PAGE_CACHE_SIZE, pageLocks);
+    this.dirtyPages = new ConcurrentHashMap<>();
     this.lastPageIndex =
         lastPageIndex >= 0 ? new AtomicInteger(lastPageIndex) : new AtomicInteger(0);
     this.treeTrace = new int[16];
     this.channel = channel;
     this.pmtFile = pmtFile;
     this.readChannel = FileChannel.open(pmtFile.toPath(), StandardOpenOption.READ);
+    this.mappedRegions = new ConcurrentHashMap<>();
 
     // recover if log exists
     int pageAcc = (int) recoverFromLog(logPath) / PAGE_LENGTH;
@@ -432,6 +441,12 @@ public abstract class PageManager implements IPageManager {
   public void clear() throws IOException, MetadataException {
     dirtyPages.clear();
     pageInstCache.clear();
+    mappedRegionsLock.writeLock().lock();
+    try {
+      mappedRegions.clear();
+    } finally {
+      mappedRegionsLock.writeLock().unlock();
+    }
     lastPageIndex.set(0);
     logWriter = logWriter.renew();
   }
@@ -450,6 +465,16 @@ public abstract class PageManager implements IPageManager {
   @Override
   public void close() throws IOException {
     logWriter.close();
+    mappedRegionsLock.writeLock().lock();
+    try {
+      mappedRegionsClosed = true;
+      mappedRegions.clear();
+    } finally {
+      mappedRegionsLock.writeLock().unlock();
+    }
+    synchronized (readChannelLock) {
+      readChannel.close();
+    }
   }
 
   // endregion
@@ -461,14 +486,12 @@ public abstract class PageManager implements IPageManager {
       throw new MetadataException(String.format("Page index %d out of range.", pageIdx));
     }
 
+    ISchemaPage page;
     pageLocks.readLock(pageIdx);
     try {
-      if (dirtyPages.containsKey(pageIdx)) {
-        return dirtyPages.get(pageIdx);
-      }
-
-      if (pageInstCache.containsKey(pageIdx)) {
-        return pageInstCache.get(pageIdx);
+      page = getPageInMem(pageIdx);
+      if (page != null) {
+        return page;
       }
     } finally {
       pageLocks.readUnlock(pageIdx);
@@ -477,6 +500,12 @@ public abstract class PageManager implements IPageManager {
     try {
       pageLocks.writeLock(pageIdx);
 
+      // loaded by another thread while waiting for the lock
+      page = getPageInMem(pageIdx);
+      if (page != null) {
+        return page;
+      }
+
       ByteBuffer newBuf = ByteBuffer.allocate(PAGE_LENGTH);
 
       loadFromFile(newBuf, pageIdx);
@@ -486,6 +515,11 @@ public abstract class PageManager implements IPageManager {
     }
   }
 
+  private ISchemaPage getPageInMem(int pageIdx) {
+    ISchemaPage page = dirtyPages.get(pageIdx);
+    return page != null ? page : pageInstCache.get(pageIdx);
+  }
+
   @Deprecated
   // TODO: improve to remove
   private long preAllocateSegment(short size) throws IOException, MetadataException {
@@ -506,12 +540,14 @@ public abstract class PageManager implements IPageManager {
       }
     }
 
-    for (Map.Entry<Integer, ISchemaPage> entry : pageInstCache.entrySet()) {
-      if (entry.getValue().getAsSegmentedPage() != null
-          && entry.getValue().getAsSegmentedPage().isCapableForSegSize(size)) {
-        markDirty(entry.getValue());
-        return pageInstCache.get(entry.getKey()).getAsSegmentedPage();
-      }
+    ISchemaPage cachedPage =
+        pageInstCache.findAny(
+            page ->
+                page.getAsSegmentedPage() != null
+                    && page.getAsSegmentedPage().isCapableForSegSize(size));
+    if (cachedPage != null) {
+      markDirty(cachedPage);
+      return cachedPage.getAsSegmentedPage();
     }
     return allocateNewSegmentedPage().getAsSegmentedPage();
   }
@@ -536,39 +572,79 @@ public abstract class PageManager implements IPageManager {
   }
 
   protected ISchemaPage addPageToCache(int pageIndex, ISchemaPage page) {
+    // eviction is done within the cache, dirty pages only flushed from dirtyPages
     pageInstCache.put(pageIndex, page);
-    // only one thread evicts and flushes pages
-    if (evictLock.tryLock()) {
+    return page;
+  }
+
+  private int loadFromFile(ByteBuffer dst, int pageIndex) throws IOException {
+    dst.clear();
+    if (mmapEnabled) {
+      mappedRegionsLock.readLock().lock();
       try {
-        if (pageInstCache.size() > PAGE_CACHE_SIZE) {
-          int removeCnt =
-              (int) (0.2 * pageInstCache.size()) > 0 ? (int) (0.2 * pageInstCache.size()) : 1;
-          List<Integer> rmvIds = new ArrayList<>(pageInstCache.keySet()).subList(0, removeCnt);
-
-          for (Integer id : rmvIds) {
-            // dirty pages only flushed from dirtyPages
-            if (pageLocks.findLock(id).writeLock().tryLock()) {
-              try {
-                pageInstCache.remove(id);
-              } finally {
-                pageLocks.findLock(id).writeLock().unlock();
-              }
-            }
-          }
+        if (!mappedRegionsClosed && loadFromMappedRegion(dst, pageIndex)) {
+          return PAGE_LENGTH;
         }
       } finally {
-        evictLock.unlock();
+        mappedRegionsLock.readLock().unlock();
       }
+      dst.clear();
+    }
+
+    FileChannel curChannel = readChannel;
+    try {
+      return curChannel.read(dst, getPageAddress(pageIndex));
+    } catch (ClosedChannelException e) {
+      // channel closed by interruption of another reading thread, reopen and retry once
+      if (Thread.currentThread().isInterrupted()) {
+        throw e;
+      }
+      dst.clear();
+      return reopenReadChannel(curChannel).read(dst, getPageAddress(pageIndex));
     }
-    return page;
   }
 
-  private synchronized int loadFromFile(ByteBuffer dst, int pageIndex) throws IOException {
-    dst.clear();
-    if (!readChannel.isOpen()) {
-      readChannel = FileChannel.open(pmtFile.toPath(), StandardOpenOption.READ);
+  private FileChannel reopenReadChannel(FileChannel closedChannel) throws IOException {
+    synchronized (readChannelLock) {
+      if (readChannel == closedChannel) {
+        readChannel = FileChannel.open(pmtFile.toPath(), StandardOpenOption.READ);
+      }
+      return readChannel;
+    }
+  }
+
+  /**
+   * Copy the page from a mapped region of the file. Only regions lying completely within the file
+   * are mapped, since a mapping is fixed in size while the file keeps growing.
+   *
+   * @return false if the region of the page is not mapped and shall be read through channel
+   */
+  private boolean loadFromMappedRegion(ByteBuffer dst, int pageIndex) throws IOException {
+    int regionIndex = pageIndex / MMAP_REGION_PAGE_NUM;
+    MappedByteBuffer region = mappedRegions.get(regionIndex);
+    if (region == null) {
+      long regionStart = getPageAddress(regionIndex * MMAP_REGION_PAGE_NUM);
+      long regionSize = (long) MMAP_REGION_PAGE_NUM * PAGE_LENGTH;
+      try {
+        FileChannel curChannel = readChannel;
+        if (curChannel.size() < regionStart + regionSize) {
+          return false;
+        }
+        region = curChannel.map(FileChannel.MapMode.READ_ONLY, regionStart, regionSize);
+      } catch (ClosedChannelException e) {
+        // fall back to channel reading, which reopens the channel
+        return false;
+      }
+      MappedByteBuffer existing = mappedRegions.putIfAbsent(regionIndex, region);
+      region = existing != null ? existing : region;
     }
-    return readChannel.read(dst, getPageAddress(pageIndex));
+
+    ByteBuffer src = region.duplicate();
+    int offset = (pageIndex % MMAP_REGION_PAGE_NUM) * PAGE_LENGTH;
+    src.position(offset);
+    src.limit(offset + PAGE_LENGTH);
+    dst.put(src);
+    return true;
   }
 
   private void updateParentalRecord(IMNode parent, String key, long newSegAddr)
@@ -694,9 +770,19 @@ public abstract class PageManager implements IPageManager {
     return getPageInstance(pageIdx);
   }
 
+  @TestOnly
+  void setMmapEnabled(boolean mmapEnabled) {
+    this.mmapEnabled = mmapEnabled;
+  }
+
+  @TestOnly
+  int getMappedRegionNum() {
+    return mappedRegions.size();
+  }
+
   // endregion
 
-  private static class PageLocks {
+  private static class PageLocks implements SchemaPageCache.EvictionGuard {
     /**
      * number of reentrant read write lock. Notice that this number should be a prime number for
      * uniform hash
@@ -729,6 +815,17 @@ public abstract class PageManager implements IPageManager {
       findLock(hash).writeLock().unlock();
     }
 
+    /** A page being read or loaded holds its lock, so it is not evicted. */
+    @Override
+    public boolean tryAcquire(int pageIndex) {
+      return findLock(pageIndex).writeLock().tryLock();
+    }
+
+    @Override
+    public void release(int pageIndex) {
+      findLock(pageIndex).writeLock().unlock();
+    }
+
     private ReentrantReadWriteLock findLock(int hash) {
       return locks[hash % NUM_OF_LOCKS];
     }
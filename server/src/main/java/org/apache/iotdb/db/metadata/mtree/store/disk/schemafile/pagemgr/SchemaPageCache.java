@@ -0,0 +1,263 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata.mtree.store.disk.schemafile.pagemgr;
+
+import org.apache.iotdb.db.metadata.mtree.store.disk.schemafile.ISchemaPage;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Page cache of one schema file, striped into segments by page index so that lookups on different
+ * pages do not contend on a single monitor.
+ *
+ * <p>Each segment follows a simplified 2Q policy: pages enter a FIFO probation queue and are only
+ * admitted into the LRU protected queue when they are accessed again, either while still in
+ * probation or shortly after being evicted from it, which is remembered by a bounded ghost queue of
+ * page indexes. A sequential traversal over the file thus only flushes the probation queue rather
+ * than the frequently accessed pages.
+ *
+ * <p>Eviction never flushes pages, dirty pages stay reachable through {@link
+ * PageManager#dirtyPages} until they are flushed. A page is only evicted when the {@link
+ * EvictionGuard} grants it, so pages being read or loaded are skipped and the segment may exceed
+ * its capacity temporarily if all of its pages are in use.
+ */
+class SchemaPageCache {
+
+  private static final int SEGMENT_NUM = 16;
+
+  private final Segment[] segments;
+
+  /** Decides whether a cached page is free to be evicted. It must not block. */
+  interface EvictionGuard {
+
+    /** @return false if the page is in use and shall not be evicted */
+    boolean tryAcquire(int pageIndex);
+
+    void release(int pageIndex);
+  }
+
+  SchemaPageCache(int capacity, EvictionGuard guard) {
+    int segmentCapacity = Math.max(4, (capacity + SEGMENT_NUM - 1) / SEGMENT_NUM);
+    segments = new Segment[SEGMENT_NUM];
+    for (int i = 0; i < SEGMENT_NUM; i++) {
+      segments[i] = new Segment(segmentCapacity, guard);
+    }
+  }
+
+  ISchemaPage get(int pageIndex) {
+    return segmentOf(pageIndex).get(pageIndex);
+  }
+
+  void put(int pageIndex, ISchemaPage page) {
+    segmentOf(pageIndex).put(pageIndex, page);
+  }
+
+  void remove(int pageIndex) {
+    segmentOf(pageIndex).remove(pageIndex);
+  }
+
+  /** Return any cached page satisfying the predicate, without affecting the cache order. */
+  ISchemaPage findAny(Predicate<ISchemaPage> predicate) {
+    ISchemaPage res;
+    for (Segment segment : segments) {
+      res = segment.findAny(predicate);
+      if (res != null) {
+        return res;
+      }
+    }
+    return null;
+  }
+
+  int size() {
+    int size = 0;
+    for (Segment segment : segments) {
+      size += segment.size();
+    }
+    return size;
+  }
+
+  void clear() {
+    for (Segment segment : segments) {
+      segment.clear();
+    }
+  }
+
+  private Segment segmentOf(int pageIndex) {
+    return segments[(pageIndex & Integer.MAX_VALUE) % SEGMENT_NUM];
+  }
+
+  private static class Segment {
+
+    private final int capacity;
+    private final int probationCapacity;
+    private final int protectedCapacity;
+    private final int ghostCapacity;
+    private final EvictionGuard guard;
+
+    // FIFO queue for pages accessed only once recently
+    private final LinkedHashMap<Integer, ISchemaPage> probation = new LinkedHashMap<>();
+    // LRU queue for pages accessed repeatedly
+    private final LinkedHashMap<Integer, ISchemaPage> protectedPages =
+        new LinkedHashMap<>(16, 0.75f, true);
+    // indexes of pages evicted from probation queue recently
+    private final LinkedHashSet<Integer> ghosts = new LinkedHashSet<>();
+
+    private Segment(int capacity, EvictionGuard guard) {
+      this.capacity = capacity;
+      this.guard = guard;
+      this.probationCapacity = Math.max(1, capacity / 4);
+      this.protectedCapacity = capacity - probationCapacity;
+      this.ghostCapacity = Math.max(1, capacity / 2);
+    }
+
+    private synchronized ISchemaPage get(int pageIndex) {
+      ISchemaPage page = protectedPages.get(pageIndex);
+      if (page != null) {
+        return page;
+      }
+      page = probation.remove(pageIndex);
+      if (page != null) {
+        promote(pageIndex, page);
+      }
+      return page;
+    }
+
+    private synchronized void put(int pageIndex, ISchemaPage page) {
+      if (protectedPages.containsKey(pageIndex)) {
+        protectedPages.put(pageIndex, page);
+        return;
+      }
+      if (probation.containsKey(pageIndex)) {
+        probation.put(pageIndex, page);
+        return;
+      }
+
+      if (ghosts.remove(pageIndex)) {
+        promote(pageIndex, page);
+      } else {
+        admitToProbation(pageIndex, page);
+      }
+    }
+
+    private void promote(int pageIndex, ISchemaPage page) {
+      protectedPages.put(pageIndex, page);
+      if (protectedPages.size() > protectedCapacity) {
+        // demote the least recently used page to probation queue rather than dropping it
+        Iterator<Map.Entry<Integer, ISchemaPage>> iterator = protectedPages.entrySet().iterator();
+        Map.Entry<Integer, ISchemaPage> eldest = iterator.next();
+        iterator.remove();
+        probation.put(eldest.getKey(), eldest.getValue());
+      }
+      evictIfFull();
+    }
+
+    private void admitToProbation(int pageIndex, ISchemaPage page) {
+      probation.put(pageIndex, page);
+      evictIfFull();
+    }
+
+    /**
+     * Probation queue may borrow the capacity unused by protected queue, and protected pages are
+     * only evicted when probation queue has been shrunk to its own share.
+     */
+    private void evictIfFull() {
+      while (probation.size() + protectedPages.size() > capacity) {
+        boolean evicted;
+        if (probation.size() > probationCapacity || protectedPages.isEmpty()) {
+          evicted = evictFromProbation() || evictFromProtected();
+        } else {
+          evicted = evictFromProtected() || evictFromProbation();
+        }
+        if (!evicted) {
+          // all pages are in use, evict them next time
+          return;
+        }
+      }
+    }
+
+    private boolean evictFromProbation() {
+      Integer evicted = evictFirstGranted(probation);
+      if (evicted == null) {
+        return false;
+      }
+      ghosts.add(evicted);
+      if (ghosts.size() > ghostCapacity) {
+        Iterator<Integer> ghostIterator = ghosts.iterator();
+        ghostIterator.next();
+        ghostIterator.remove();
+      }
+      return true;
+    }
+
+    private boolean evictFromProtected() {
+      return evictFirstGranted(protectedPages) != null;
+    }
+
+    /** Remove the eldest page of the queue which is granted by the guard. */
+    private Integer evictFirstGranted(LinkedHashMap<Integer, ISchemaPage> queue) {
+      Iterator<Integer> iterator = queue.keySet().iterator();
+      while (iterator.hasNext()) {
+        int pageIndex = iterator.next();
+        if (guard.tryAcquire(pageIndex)) {
+          try {
+            iterator.remove();
+          } finally {
+            guard.release(pageIndex);
+          }
+          return pageIndex;
+        }
+      }
+      return null;
+    }
+
+    private synchronized void remove(int pageIndex) {
+      if (protectedPages.remove(pageIndex) == null) {
+        probation.remove(pageIndex);
+      }
+    }
+
+    private synchronized ISchemaPage findAny(Predicate<ISchemaPage> predicate) {
+      for (ISchemaPage page : protectedPages.values()) {
+        if (predicate.test(page)) {
+          return page;
+        }
+      }
+      for (ISchemaPage page : probation.values()) {
+        if (predicate.test(page)) {
+          return page;
+        }
+      }
+      return null;
+    }
+
+    private synchronized int size() {
+      return protectedPages.size() + probation.size();
+    }
+
+    private synchronized void clear() {
+      protectedPages.clear();
+      probation.clear();
+      ghosts.clear();
+    }
+  }
+}
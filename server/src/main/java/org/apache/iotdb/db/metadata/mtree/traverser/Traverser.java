@@ -34,6 +34,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 import static org.apache.iotdb.commons.conf.IoTDBConstant.PATH_ROOT;
 import static org.apache.iotdb.db.metadata.MetadataConstant.NON_TEMPLATE;
@@ -66,6 +67,11 @@ public abstract class Traverser<R> extends AbstractTreeVisitor<IMNode, R> {
   // default false means fullPath pattern match
   protected boolean isPrefixMatch = false;
 
+  // the children of the database node are divided into splitNum disjoint splits by name hash, and
+  // only the subtrees of the children belonging to splitIndex are traversed
+  protected int splitIndex = 0;
+  protected int splitNum = 1;
+
   protected Traverser() {}
 
   /**
@@ -108,6 +114,9 @@ public abstract class Traverser<R> extends AbstractTreeVisitor<IMNode, R> {
 
   @Override
   protected IMNode getChild(IMNode parent, String childName) throws MetadataException {
+    if (parent.isStorageGroup() && !isInScanSplit(childName)) {
+      return null;
+    }
     IMNode child = null;
     if (parent.isAboveDatabase()) {
       child = parent.getChild(childName);
@@ -147,7 +156,11 @@ public abstract class Traverser<R> extends AbstractTreeVisitor<IMNode, R> {
     if (parent.isAboveDatabase()) {
       return new MNodeIterator(parent.getChildren().values().iterator());
     } else {
-      return store.getTraverserIterator(parent, templateMap, skipPreDeletedSchema);
+      IMNodeIterator iterator =
+          store.getTraverserIterator(parent, templateMap, skipPreDeletedSchema);
+      return parent.isStorageGroup() && splitNum > 1
+          ? new ScanSplitIterator(iterator)
+          : iterator;
     }
   }
 
@@ -172,4 +185,68 @@ public abstract class Traverser<R> extends AbstractTreeVisitor<IMNode, R> {
   public void setSkipPreDeletedSchema(boolean skipPreDeletedSchema) {
     this.skipPreDeletedSchema = skipPreDeletedSchema;
   }
+
+  /**
+   * Restrict this traversal to one of splitNum disjoint parts of the database subtree. The splits
+   * are divided by the children of the database node, thus the union of all splits' results equals
+   * the result of an unsplit traversal.
+   */
+  public void setScanSplit(int splitIndex, int splitNum) {
+    this.splitIndex = splitIndex;
+    this.splitNum = splitNum;
+  }
+
+  private boolean isInScanSplit(String childName) {
+    return splitNum <= 1 || Math.floorMod(childName.hashCode(), splitNum) == splitIndex;
+  }
+
+  /**
+   * The database node and nodes above it don't belong to any child subtree, and they are only
+   * accepted by the first split.
+   */
+  protected boolean isInScanSplit(IMNode node) {
+    return splitIndex == 0 || !(node.isStorageGroup() || node.isAboveDatabase());
+  }
+
+  private class ScanSplitIterator implements IMNodeIterator {
+
+    private final IMNodeIterator iterator;
+    private IMNode next;
+
+    private ScanSplitIterator(IMNodeIterator iterator) {
+      this.iterator = iterator;
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (next == null && iterator.hasNext()) {
+        IMNode child = iterator.next();
+        if (isInScanSplit(child.getName())) {
+          next = child;
+        } else {
+          releaseNode(child);
+        }
+      }
+      return next != null;
+    }
+
+    @Override
+    public IMNode next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      IMNode result = next;
+      next = null;
+      return result;
+    }
+
+    @Override
+    public void close() {
+      if (next != null) {
+        releaseNode(next);
+        next = null;
+      }
+      iterator.close();
+    }
+  }
 }
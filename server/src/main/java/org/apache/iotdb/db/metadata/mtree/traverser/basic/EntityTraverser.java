@@ -46,7 +46,7 @@ public abstract class EntityTraverser<R> extends Traverser<R> {
 
   @Override
   protected boolean acceptFullMatchedNode(IMNode node) {
-    if (node.isEntity()) {
+    if (node.isEntity() && isInScanSplit(node)) {
       return !usingTemplate || schemaTemplateId == node.getSchemaTemplateId();
     }
     return false;
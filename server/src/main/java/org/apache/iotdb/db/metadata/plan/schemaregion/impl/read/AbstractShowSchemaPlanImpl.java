@@ -30,19 +30,35 @@ public abstract class AbstractShowSchemaPlanImpl implements IShowSchemaPlan {
   protected final int limit;
   protected final int offset;
   protected final boolean isPrefixMatch;
+  protected final int splitIndex;
+  protected final int splitNum;
 
   protected AbstractShowSchemaPlanImpl(PartialPath path) {
     this.path = path;
     this.limit = 0;
     this.offset = 0;
     this.isPrefixMatch = false;
+    this.splitIndex = 0;
+    this.splitNum = 1;
   }
 
   AbstractShowSchemaPlanImpl(PartialPath path, int limit, int offset, boolean isPrefixMatch) {
+    this(path, limit, offset, isPrefixMatch, 0, 1);
+  }
+
+  AbstractShowSchemaPlanImpl(
+      PartialPath path,
+      int limit,
+      int offset,
+      boolean isPrefixMatch,
+      int splitIndex,
+      int splitNum) {
     this.path = path;
     this.limit = limit;
     this.offset = offset;
     this.isPrefixMatch = isPrefixMatch;
+    this.splitIndex = splitIndex;
+    this.splitNum = splitNum;
   }
 
   @Override
@@ -65,6 +81,16 @@ public abstract class AbstractShowSchemaPlanImpl implements IShowSchemaPlan {
     return isPrefixMatch;
   }
 
+  @Override
+  public int getSplitIndex() {
+    return splitIndex;
+  }
+
+  @Override
+  public int getSplitNum() {
+    return splitNum;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
@@ -73,11 +99,13 @@ public abstract class AbstractShowSchemaPlanImpl implements IShowSchemaPlan {
     return limit == that.limit
         && offset == that.offset
         && isPrefixMatch == that.isPrefixMatch
+        && splitIndex == that.splitIndex
+        && splitNum == that.splitNum
         && Objects.equals(path, that.path);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(path, limit, offset, isPrefixMatch);
+    return Objects.hash(path, limit, offset, isPrefixMatch, splitIndex, splitNum);
   }
 }
@@ -50,6 +50,11 @@ public class SchemaRegionReadPlanFactory {
     return new ShowDevicesPlanImpl(path, limit, offset, isPrefixMatch, templateId);
   }
 
+  public static IShowDevicesPlan getShowDevicesPlan(
+      PartialPath path, boolean isPrefixMatch, int splitIndex, int splitNum) {
+    return new ShowDevicesPlanImpl(path, 0, 0, isPrefixMatch, -1, splitIndex, splitNum);
+  }
+
   public static IShowTimeSeriesPlan getShowTimeSeriesPlan(PartialPath path) {
     return new ShowTimeSeriesPlanImpl(path, Collections.emptyMap(), false, null, null, 0, 0, false);
   }
@@ -83,6 +88,16 @@ public class SchemaRegionReadPlanFactory {
         path, relatedTemplate, isContains, key, value, limit, offset, isPrefixMatch);
   }
 
+  public static IShowTimeSeriesPlan getShowTimeSeriesPlan(
+      PartialPath path,
+      Map<Integer, Template> relatedTemplate,
+      boolean isPrefixMatch,
+      int splitIndex,
+      int splitNum) {
+    return new ShowTimeSeriesPlanImpl(
+        path, relatedTemplate, false, null, null, 0, 0, isPrefixMatch, splitIndex, splitNum);
+  }
+
   public static IShowNodesPlan getShowNodesPlan(PartialPath path) {
     return new ShowNodesPlanImpl(path, -1, false);
   }
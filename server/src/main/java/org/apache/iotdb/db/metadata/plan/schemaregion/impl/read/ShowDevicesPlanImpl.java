@@ -32,7 +32,18 @@ public class ShowDevicesPlanImpl extends AbstractShowSchemaPlanImpl implements I
 
   ShowDevicesPlanImpl(
       PartialPath path, int limit, int offset, boolean isPrefixMatch, int schemaTemplateId) {
-    super(path, limit, offset, isPrefixMatch);
+    this(path, limit, offset, isPrefixMatch, schemaTemplateId, 0, 1);
+  }
+
+  ShowDevicesPlanImpl(
+      PartialPath path,
+      int limit,
+      int offset,
+      boolean isPrefixMatch,
+      int schemaTemplateId,
+      int splitIndex,
+      int splitNum) {
+    super(path, limit, offset, isPrefixMatch, splitIndex, splitNum);
     this.schemaTemplateId = schemaTemplateId;
   }
 
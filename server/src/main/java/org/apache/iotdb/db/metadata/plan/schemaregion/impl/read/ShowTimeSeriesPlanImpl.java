@@ -45,7 +45,21 @@ public class ShowTimeSeriesPlanImpl extends AbstractShowSchemaPlanImpl
       int limit,
       int offset,
       boolean isPrefixMatch) {
-    super(path, limit, offset, isPrefixMatch);
+    this(path, relatedTemplate, isContains, key, value, limit, offset, isPrefixMatch, 0, 1);
+  }
+
+  ShowTimeSeriesPlanImpl(
+      PartialPath path,
+      Map<Integer, Template> relatedTemplate,
+      boolean isContains,
+      String key,
+      String value,
+      int limit,
+      int offset,
+      boolean isPrefixMatch,
+      int splitIndex,
+      int splitNum) {
+    super(path, limit, offset, isPrefixMatch, splitIndex, splitNum);
     this.relatedTemplate = relatedTemplate;
     this.isContains = isContains;
     this.key = key;
@@ -44,4 +44,13 @@ public interface IShowSchemaPlan extends ISchemaRegionPlan {
   int getOffset();
 
   boolean isPrefixMatch();
+
+  /** The index of the database child subtree split to scan, refer to {@link #getSplitNum()} */
+  int getSplitIndex();
+
+  /**
+   * The number of disjoint splits the children of the database node are divided into. 1 means the
+   * whole schema region is scanned.
+   */
+  int getSplitNum();
 }
@@ -80,6 +80,12 @@ public interface ISchemaRegion {
 
   String getStorageGroupFullPath();
 
+  /**
+   * Get the number of children of the database node, which is the granularity of splitting a scan
+   * over the whole schema region.
+   */
+  long countDatabaseChildren() throws MetadataException;
+
   // delete this schemaRegion and clear all resources
   void deleteSchemaRegion() throws MetadataException;
 
@@ -42,6 +42,7 @@ import org.apache.iotdb.db.metadata.logfile.SchemaLogWriter;
 import org.apache.iotdb.db.metadata.mnode.IMNode;
 import org.apache.iotdb.db.metadata.mnode.IMeasurementMNode;
 import org.apache.iotdb.db.metadata.mtree.MTreeBelowSGMemoryImpl;
+import org.apache.iotdb.db.metadata.mtree.snapshot.MemMTreeSnapshotTracker;
 import org.apache.iotdb.db.metadata.plan.schemaregion.ISchemaRegionPlan;
 import org.apache.iotdb.db.metadata.plan.schemaregion.SchemaRegionPlanVisitor;
 import org.apache.iotdb.db.metadata.plan.schemaregion.impl.SchemaRegionPlanDeserializer;
@@ -142,6 +143,9 @@ public class SchemaRegionMemoryImpl implements ISchemaRegion {
   private MTreeBelowSGMemoryImpl mtree;
   private TagManager tagManager;
 
+  // tracks the mtree snapshot segments modified since the last snapshot
+  private final MemMTreeSnapshotTracker snapshotTracker;
+
   // seriesNumberMonitor may be null
   private final ISeriesNumerMonitor seriesNumerMonitor;
 
@@ -171,6 +175,7 @@ public class SchemaRegionMemoryImpl implements ISchemaRegion {
     }
 
     this.seriesNumerMonitor = seriesNumerMonitor;
+    this.snapshotTracker = new MemMTreeSnapshotTracker(storageGroup, schemaRegionDirPath);
 
     init();
   }
@@ -251,6 +256,7 @@ public class SchemaRegionMemoryImpl implements ISchemaRegion {
   }
 
   public void writeToMLog(ISchemaRegionPlan schemaRegionPlan) throws IOException {
+    snapshotTracker.markDirty(schemaRegionPlan);
     if (usingMLog && !isRecovering) {
       logWriter.write(schemaRegionPlan);
     }
@@ -370,6 +376,11 @@ public class SchemaRegionMemoryImpl implements ISchemaRegion {
     return storageGroupFullPath;
   }
 
+  @Override
+  public long countDatabaseChildren() throws MetadataException {
+    return mtree.countDatabaseChildren();
+  }
+
   @Override
   public SchemaRegionId getSchemaRegionId() {
     return schemaRegionId;
@@ -405,7 +416,7 @@ public class SchemaRegionMemoryImpl implements ISchemaRegion {
     long startTime = System.currentTimeMillis();
 
     long mtreeSnapshotStartTime = System.currentTimeMillis();
-    isSuccess = mtree.createSnapshot(snapshotDir);
+    isSuccess = mtree.createSnapshot(snapshotDir, snapshotTracker);
     logger.info(
         "MTree snapshot creation of schemaRegion {} costs {}ms.",
         schemaRegionId,
@@ -431,6 +442,7 @@ public class SchemaRegionMemoryImpl implements ISchemaRegion {
   @Override
   public void loadSnapshot(File latestSnapshotRootDir) {
     clear();
+    snapshotTracker.invalidate();
 
     logger.info("Start loading snapshot of schemaRegion {}", schemaRegionId);
     long startTime = System.currentTimeMillis();
@@ -471,6 +483,7 @@ public class SchemaRegionMemoryImpl implements ISchemaRegion {
           "MTree snapshot loading of schemaRegion {} costs {}ms.",
           schemaRegionId,
           System.currentTimeMillis() - mtreeSnapshotStartTime);
+      snapshotTracker.onSnapshotLoaded(latestSnapshotRootDir);
 
       isRecovering = false;
       initialized = true;
@@ -405,6 +405,11 @@ public class SchemaRegionSchemaFileImpl implements ISchemaRegion {
     return storageGroupFullPath;
   }
 
+  @Override
+  public long countDatabaseChildren() throws MetadataException {
+    return mtree.countDatabaseChildren();
+  }
+
   @Override
   public SchemaRegionId getSchemaRegionId() {
     return schemaRegionId;
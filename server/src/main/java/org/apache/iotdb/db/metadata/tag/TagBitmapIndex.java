@@ -0,0 +1,217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata.tag;
+
+import org.apache.iotdb.db.metadata.mnode.IMeasurementMNode;
+
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Tag inverted index of one schema region. Each measurement node in the index is assigned a dense
+ * int id, and the posting list of every tag key-value pair is kept as a compressed bitmap of ids,
+ * so that the posting lists of the tag values matching a condition are merged by bitmap operations
+ * instead of unions of node sets. Ids are resolved into nodes under the same lock the posting lists
+ * are read with, so an id can't be recycled for another node in the meantime.
+ *
+ * <p>Ids are recycled once a node is removed from all posting lists, keeping them dense. Nodes are
+ * compared by identity, since a node recreated with the same path is a different node.
+ */
+public class TagBitmapIndex {
+
+  // tag key -> tag value -> ids of measurement nodes
+  private final Map<String, Map<String, RoaringBitmap>> index = new HashMap<>();
+
+  private final Map<IMeasurementMNode, Integer> nodeToId = new IdentityHashMap<>();
+  private final List<IMeasurementMNode> idToNode = new ArrayList<>();
+  // number of posting lists containing each id
+  private int[] refCounts = new int[16];
+  private final RoaringBitmap freeIds = new RoaringBitmap();
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  public void add(String tagKey, String tagValue, IMeasurementMNode node) {
+    lock.writeLock().lock();
+    try {
+      RoaringBitmap postings =
+          index
+              .computeIfAbsent(tagKey, k -> new HashMap<>())
+              .computeIfAbsent(tagValue, v -> new RoaringBitmap());
+      Integer id = nodeToId.get(node);
+      if (id == null) {
+        id = assignId(node);
+      }
+      if (postings.checkedAdd(id)) {
+        refCounts[id]++;
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Remove the node from the posting list of given tag, and drop the posting list if it becomes
+   * empty.
+   *
+   * @return false if the node is not indexed by the tag
+   */
+  public boolean remove(String tagKey, String tagValue, IMeasurementMNode node) {
+    lock.writeLock().lock();
+    try {
+      Integer id = nodeToId.get(node);
+      Map<String, RoaringBitmap> value2Ids = index.get(tagKey);
+      if (id == null || value2Ids == null) {
+        return false;
+      }
+      RoaringBitmap postings = value2Ids.get(tagValue);
+      if (postings == null || !postings.checkedRemove(id)) {
+        return false;
+      }
+      if (postings.isEmpty()) {
+        value2Ids.remove(tagValue);
+        if (value2Ids.isEmpty()) {
+          index.remove(tagKey);
+        }
+      }
+      if (--refCounts[id] == 0) {
+        releaseId(id);
+      }
+      return true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public boolean containsKey(String tagKey) {
+    lock.readLock().lock();
+    try {
+      return index.containsKey(tagKey);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public boolean contains(String tagKey, String tagValue) {
+    lock.readLock().lock();
+    try {
+      Map<String, RoaringBitmap> value2Ids = index.get(tagKey);
+      return value2Ids != null && value2Ids.containsKey(tagValue);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** Nodes with the given tag, in the order of their ids. */
+  public List<IMeasurementMNode> getNodes(String tagKey, String tagValue) {
+    lock.readLock().lock();
+    try {
+      Map<String, RoaringBitmap> value2Ids = index.get(tagKey);
+      RoaringBitmap postings = value2Ids == null ? null : value2Ids.get(tagValue);
+      return postings == null ? new ArrayList<>() : resolve(postings);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** Nodes with the given tag key whose value satisfies the filter, in the order of their ids. */
+  public List<IMeasurementMNode> getNodes(String tagKey, Predicate<String> valueFilter) {
+    lock.readLock().lock();
+    try {
+      Map<String, RoaringBitmap> value2Ids = index.get(tagKey);
+      if (value2Ids == null) {
+        return new ArrayList<>();
+      }
+      RoaringBitmap ids = new RoaringBitmap();
+      for (Map.Entry<String, RoaringBitmap> entry : value2Ids.entrySet()) {
+        if (valueFilter.test(entry.getKey())) {
+          ids.or(entry.getValue());
+        }
+      }
+      return resolve(ids);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** Resolve ids into nodes, it must be called under the lock the ids are collected with. */
+  private List<IMeasurementMNode> resolve(RoaringBitmap ids) {
+    List<IMeasurementMNode> nodes = new ArrayList<>(ids.getCardinality());
+    IntIterator iterator = ids.getIntIterator();
+    while (iterator.hasNext()) {
+      nodes.add(idToNode.get(iterator.next()));
+    }
+    return nodes;
+  }
+
+  /** Number of nodes having at least one tag. */
+  public int getNodeCount() {
+    lock.readLock().lock();
+    try {
+      return nodeToId.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public void clear() {
+    lock.writeLock().lock();
+    try {
+      index.clear();
+      nodeToId.clear();
+      idToNode.clear();
+      refCounts = new int[16];
+      freeIds.clear();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private int assignId(IMeasurementMNode node) {
+    int id;
+    if (freeIds.isEmpty()) {
+      id = idToNode.size();
+      idToNode.add(node);
+      if (id >= refCounts.length) {
+        refCounts = Arrays.copyOf(refCounts, refCounts.length * 2);
+      }
+    } else {
+      id = freeIds.first();
+      freeIds.remove(id);
+      idToNode.set(id, node);
+    }
+    nodeToId.put(node, id);
+    return id;
+  }
+
+  private void releaseId(int id) {
+    nodeToId.remove(idToNode.get(id));
+    idToNode.set(id, null);
+    freeIds.add(id);
+  }
+}
@@ -39,17 +39,13 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 import static java.util.stream.Collectors.toList;
 
@@ -67,8 +63,8 @@ public class TagManager {
 
   private String sgSchemaDirPath;
   private TagLogFile tagLogFile;
-  // tag key -> tag value -> LeafMNode
-  private Map<String, Map<String, Set<IMeasurementMNode>>> tagIndex = new ConcurrentHashMap<>();
+  // tag key -> tag value -> ids of LeafMNode
+  private final TagBitmapIndex tagIndex = new TagBitmapIndex();
 
   public TagManager(String sgSchemaDirPath) throws IOException {
     this.sgSchemaDirPath = sgSchemaDirPath;
@@ -139,10 +135,7 @@ public class TagManager {
     if (tagKey == null || tagValue == null || measurementMNode == null) {
       return;
     }
-    tagIndex
-        .computeIfAbsent(tagKey, k -> new ConcurrentHashMap<>())
-        .computeIfAbsent(tagValue, v -> Collections.synchronizedSet(new HashSet<>()))
-        .add(measurementMNode);
+    tagIndex.add(tagKey, tagValue, measurementMNode);
   }
 
   public void addIndex(Map<String, String> tagsMap, IMeasurementMNode measurementMNode) {
@@ -154,50 +147,24 @@ public class TagManager {
   }
 
   public void removeIndex(String tagKey, String tagValue, IMeasurementMNode measurementMNode) {
-    tagIndex.get(tagKey).get(tagValue).remove(measurementMNode);
-    if (tagIndex.get(tagKey).get(tagValue).isEmpty()) {
-      tagIndex.get(tagKey).remove(tagValue);
-    }
+    tagIndex.remove(tagKey, tagValue, measurementMNode);
   }
 
   private List<IMeasurementMNode> getMatchedTimeseriesInIndex(IShowTimeSeriesPlan plan) {
-    if (!tagIndex.containsKey(plan.getKey())) {
-      return Collections.emptyList();
-    }
-    Map<String, Set<IMeasurementMNode>> value2Node = tagIndex.get(plan.getKey());
-    if (value2Node.isEmpty()) {
-      return Collections.emptyList();
-    }
-
-    List<IMeasurementMNode> allMatchedNodes = new ArrayList<>();
+    List<IMeasurementMNode> matchedNodes;
     if (plan.isContains()) {
-      for (Map.Entry<String, Set<IMeasurementMNode>> entry : value2Node.entrySet()) {
-        if (entry.getKey() == null || entry.getValue() == null) {
-          continue;
-        }
-        String tagValue = entry.getKey();
-        if (tagValue.contains(plan.getValue())) {
-          allMatchedNodes.addAll(entry.getValue());
-        }
-      }
+      matchedNodes =
+          tagIndex.getNodes(
+              plan.getKey(), tagValue -> tagValue != null && tagValue.contains(plan.getValue()));
     } else {
-      for (Map.Entry<String, Set<IMeasurementMNode>> entry : value2Node.entrySet()) {
-        if (entry.getKey() == null || entry.getValue() == null) {
-          continue;
-        }
-        String tagValue = entry.getKey();
-        if (plan.getValue().equals(tagValue)) {
-          allMatchedNodes.addAll(entry.getValue());
-        }
-      }
+      matchedNodes = tagIndex.getNodes(plan.getKey(), plan.getValue());
     }
-    // we just sort them by the alphabetical order
-    allMatchedNodes =
-        allMatchedNodes.stream()
-            .sorted(Comparator.comparing(IMNode::getFullPath))
-            .collect(toList());
+    return sortByPath(matchedNodes);
+  }
 
-    return allMatchedNodes;
+  private List<IMeasurementMNode> sortByPath(List<IMeasurementMNode> nodes) {
+    // we just sort them by the alphabetical order
+    return nodes.stream().sorted(Comparator.comparing(IMNode::getFullPath)).collect(toList());
   }
 
   public ISchemaReader<ITimeSeriesSchemaInfo> getTimeSeriesReaderWithIndex(
@@ -293,8 +260,7 @@ public class TagManager {
         tagLogFile.readTag(config.getTagAttributeTotalSize(), node.getOffset());
     if (tagMap != null) {
       for (Map.Entry<String, String> entry : tagMap.entrySet()) {
-        if (tagIndex.containsKey(entry.getKey())
-            && tagIndex.get(entry.getKey()).containsKey(entry.getValue())) {
+        if (tagIndex.contains(entry.getKey(), entry.getValue())) {
           if (logger.isDebugEnabled()) {
             logger.debug(
                 String.format(
@@ -303,13 +269,7 @@ public class TagManager {
                     entry.getValue(),
                     node.getOffset()));
           }
-          tagIndex.get(entry.getKey()).get(entry.getValue()).remove(node);
-          if (tagIndex.get(entry.getKey()).get(entry.getValue()).isEmpty()) {
-            tagIndex.get(entry.getKey()).remove(entry.getValue());
-            if (tagIndex.get(entry.getKey()).isEmpty()) {
-              tagIndex.remove(entry.getKey());
-            }
-          }
+          tagIndex.remove(entry.getKey(), entry.getValue(), node);
         } else {
           if (logger.isDebugEnabled()) {
             logger.debug(
@@ -346,7 +306,7 @@ public class TagManager {
         // we should remove before key-value from inverted index map
         if (beforeValue != null && !beforeValue.equals(value)) {
 
-          if (tagIndex.containsKey(key) && tagIndex.get(key).containsKey(beforeValue)) {
+          if (tagIndex.contains(key, beforeValue)) {
             if (logger.isDebugEnabled()) {
               logger.debug(
                   String.format(
@@ -475,16 +435,12 @@ public class TagManager {
     // persist the change to disk
     tagLogFile.write(pair.left, pair.right, leafMNode.getOffset());
 
-    Map<String, Set<IMeasurementMNode>> tagVal2LeafMNodeSet;
-    Set<IMeasurementMNode> MMNodes;
     for (Map.Entry<String, String> entry : deleteTag.entrySet()) {
       String key = entry.getKey();
       String value = entry.getValue();
       // change the tag inverted index map
-      tagVal2LeafMNodeSet = tagIndex.get(key);
-      if (tagVal2LeafMNodeSet != null) {
-        MMNodes = tagVal2LeafMNodeSet.get(value);
-        if (MMNodes != null) {
+      if (tagIndex.containsKey(key)) {
+        if (tagIndex.contains(key, value)) {
           if (logger.isDebugEnabled()) {
             logger.debug(
                 String.format(
@@ -494,13 +450,7 @@ public class TagManager {
                     leafMNode.getOffset()));
           }
 
-          MMNodes.remove(leafMNode);
-          if (MMNodes.isEmpty()) {
-            tagVal2LeafMNodeSet.remove(value);
-            if (tagVal2LeafMNodeSet.isEmpty()) {
-              tagIndex.remove(key);
-            }
-          }
+          tagIndex.remove(key, value, leafMNode);
         }
       } else {
         if (logger.isDebugEnabled()) {
@@ -557,7 +507,7 @@ public class TagManager {
       String beforeValue = entry.getValue();
       String currentValue = newTagValue.get(key);
       // change the tag inverted index map
-      if (tagIndex.containsKey(key) && tagIndex.get(key).containsKey(beforeValue)) {
+      if (tagIndex.contains(key, beforeValue)) {
 
         if (logger.isDebugEnabled()) {
           logger.debug(
@@ -568,7 +518,7 @@ public class TagManager {
                   leafMNode.getOffset()));
         }
 
-        tagIndex.get(key).get(beforeValue).remove(leafMNode);
+        tagIndex.remove(key, beforeValue, leafMNode);
       } else {
         if (logger.isDebugEnabled()) {
           logger.debug(
@@ -614,7 +564,7 @@ public class TagManager {
       // persist the change to disk
       tagLogFile.write(pair.left, pair.right, leafMNode.getOffset());
       // change the tag inverted index map
-      if (tagIndex.containsKey(oldKey) && tagIndex.get(oldKey).containsKey(value)) {
+      if (tagIndex.contains(oldKey, value)) {
 
         if (logger.isDebugEnabled()) {
           logger.debug(
@@ -625,7 +575,7 @@ public class TagManager {
                   leafMNode.getOffset()));
         }
 
-        tagIndex.get(oldKey).get(value).remove(leafMNode);
+        tagIndex.remove(oldKey, value, leafMNode);
 
       } else {
         if (logger.isDebugEnabled()) {
@@ -51,6 +51,22 @@ public interface Accumulator {
    */
   void addStatistics(Statistics statistics);
 
+  /**
+   * Whether addStatistics() can be used. If not, seriesAggregationScanOperator reads the raw data
+   * of every page instead.
+   */
+  default boolean canUseStatistics() {
+    return true;
+  }
+
+  /**
+   * Whether addStatistics() can be used for the given statistics. If not,
+   * seriesAggregationScanOperator reads the lower level statistics or raw data instead.
+   */
+  default boolean canUseStatistics(Statistics statistics) {
+    return canUseStatistics();
+  }
+
   /**
    * Attention: setFinal should be invoked only once, and addInput() and addIntermediate() are not
    * allowed again.
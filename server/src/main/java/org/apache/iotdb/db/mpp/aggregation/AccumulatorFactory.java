@@ -20,6 +20,7 @@
 package org.apache.iotdb.db.mpp.aggregation;
 
 import org.apache.iotdb.common.rpc.thrift.TAggregationType;
+import org.apache.iotdb.db.constant.SqlConstant;
 import org.apache.iotdb.db.mpp.plan.expression.Expression;
 import org.apache.iotdb.db.mpp.plan.expression.binary.CompareBinaryExpression;
 import org.apache.iotdb.db.mpp.plan.expression.leaf.ConstantOperand;
@@ -31,6 +32,8 @@ import java.util.Map;
 
 public class AccumulatorFactory {
 
+  public static final String DEFAULT_QUANTILE = "0.5";
+
   // TODO: Are we going to create different seriesScanOperator based on order by sequence?
   public static Accumulator createAccumulator(
       TAggregationType aggregationType,
@@ -67,6 +70,10 @@ public class AccumulatorFactory {
         return new CountIfAccumulator(
             initKeepEvaluator(inputExpressions.get(1)),
             Boolean.parseBoolean(inputAttributes.getOrDefault("ignoreNull", "true")));
+      case APPROX_COUNT_DISTINCT:
+        return new ApproxCountDistinctAccumulator(tsDataType);
+      case APPROX_PERCENTILE:
+        return new ApproxPercentileAccumulator(tsDataType, getQuantile(inputAttributes));
       default:
         throw new IllegalArgumentException("Invalid Aggregation function: " + aggregationType);
     }
@@ -87,6 +94,11 @@ public class AccumulatorFactory {
     return accumulators;
   }
 
+  // We have check semantic in FE, quantile must be a number in [0, 1] here
+  public static double getQuantile(Map<String, String> inputAttributes) {
+    return Double.parseDouble(inputAttributes.getOrDefault(SqlConstant.QUANTILE, DEFAULT_QUANTILE));
+  }
+
   @FunctionalInterface
   public interface KeepEvaluator {
     boolean apply(long keep);
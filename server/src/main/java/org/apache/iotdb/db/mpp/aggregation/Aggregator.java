@@ -19,6 +19,7 @@
 
 package org.apache.iotdb.db.mpp.aggregation;
 
+import org.apache.iotdb.db.mpp.execution.operator.window.CoveredTimeWindow;
 import org.apache.iotdb.db.mpp.execution.operator.window.IWindow;
 import org.apache.iotdb.db.mpp.execution.operator.window.TimeWindow;
 import org.apache.iotdb.db.mpp.metric.QueryMetricsManager;
@@ -77,14 +78,18 @@ public class Aggregator {
         checkArgument(
             inputLocations[0].getTsBlockIndex() == 0,
             "RawDataAggregateOperator can only process one tsBlock input.");
-        Column[] controlTimeAndValueColumn = new Column[3];
-        controlTimeAndValueColumn[0] = curWindow.getControlColumn(tsBlock);
-        controlTimeAndValueColumn[1] = tsBlock.getTimeColumn();
-        controlTimeAndValueColumn[2] = tsBlock.getColumn(inputLocations[0].getValueColumnIndex());
-        lastReadReadIndex =
-            Math.max(
-                lastReadReadIndex,
-                accumulator.addInput(controlTimeAndValueColumn, curWindow, ignoringNull));
+        int valueColumnIndex = inputLocations[0].getValueColumnIndex();
+        int readIndex;
+        if (curWindow instanceof TimeWindow) {
+          readIndex = processTimeWindow(tsBlock, valueColumnIndex, ignoringNull);
+        } else {
+          Column[] controlTimeAndValueColumn = new Column[3];
+          controlTimeAndValueColumn[0] = curWindow.getControlColumn(tsBlock);
+          controlTimeAndValueColumn[1] = tsBlock.getTimeColumn();
+          controlTimeAndValueColumn[2] = tsBlock.getColumn(valueColumnIndex);
+          readIndex = accumulator.addInput(controlTimeAndValueColumn, curWindow, ignoringNull);
+        }
+        lastReadReadIndex = Math.max(lastReadReadIndex, readIndex);
       }
       return lastReadReadIndex;
     } finally {
@@ -92,6 +97,23 @@ public class Aggregator {
     }
   }
 
+  /**
+   * The points of the current time window are found by binary search on the time column, and the
+   * accumulator consumes them as one region without checking every point against the window.
+   */
+  private int processTimeWindow(TsBlock tsBlock, int valueColumnIndex, boolean ignoringNull) {
+    int count = ((TimeWindow) curWindow).getLeadingPointCount(tsBlock.getTimeColumn());
+    if (count == 0) {
+      return 0;
+    }
+    Column[] controlTimeAndValueColumn = new Column[3];
+    controlTimeAndValueColumn[0] = tsBlock.getTimeColumn().getRegion(0, count);
+    controlTimeAndValueColumn[1] = controlTimeAndValueColumn[0];
+    controlTimeAndValueColumn[2] = tsBlock.getColumn(valueColumnIndex).getRegion(0, count);
+    return accumulator.addInput(
+        controlTimeAndValueColumn, CoveredTimeWindow.INSTANCE, ignoringNull);
+  }
+
   // Used for AggregateOperator
   public void processTsBlocks(TsBlock[] tsBlock) {
     long startTime = System.nanoTime();
@@ -140,6 +162,16 @@ public class Aggregator {
     }
   }
 
+  public boolean canUseStatistics(Statistics[] statistics) {
+    for (InputLocation[] inputLocations : inputLocationList) {
+      int valueIndex = inputLocations[0].getValueColumnIndex();
+      if (!accumulator.canUseStatistics(statistics[valueIndex])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   public TSDataType[] getOutputType() {
     if (step.isOutputPartial()) {
       return accumulator.getIntermediateType();
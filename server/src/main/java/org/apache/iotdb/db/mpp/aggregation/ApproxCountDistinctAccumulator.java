@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.aggregation;
+
+import org.apache.iotdb.db.mpp.execution.operator.window.IWindow;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+import org.apache.iotdb.tsfile.read.common.block.column.ColumnBuilder;
+import org.apache.iotdb.tsfile.utils.Binary;
+import org.apache.iotdb.tsfile.utils.HyperLogLog;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Estimates the number of distinct values with a {@link HyperLogLog}. The partial result is the
+ * serialized sketch, so partial results of different regions can be merged.
+ */
+public class ApproxCountDistinctAccumulator implements Accumulator {
+
+  private final TSDataType seriesDataType;
+  private final HyperLogLog hyperLogLog = new HyperLogLog();
+
+  // set by setFinal(), as a sketch cannot be rebuilt from its estimation
+  private long finalResult;
+  private boolean isFinal = false;
+
+  public ApproxCountDistinctAccumulator(TSDataType seriesDataType) {
+    this.seriesDataType = seriesDataType;
+  }
+
+  // Column should be like: | ControlColumn | Time | Value |
+  @Override
+  public int addInput(Column[] column, IWindow curWindow, boolean ignoringNull) {
+    int curPositionCount = column[0].getPositionCount();
+    for (int i = 0; i < curPositionCount; i++) {
+      // skip null value in control column
+      if (ignoringNull && column[0].isNull(i)) {
+        continue;
+      }
+      if (!curWindow.satisfy(column[0], i)) {
+        return i;
+      }
+      curWindow.mergeOnePoint(column, i);
+      if (!column[2].isNull(i)) {
+        offer(column[2], i);
+      }
+    }
+    return curPositionCount;
+  }
+
+  private void offer(Column valueColumn, int position) {
+    switch (seriesDataType) {
+      case INT32:
+        hyperLogLog.offer(valueColumn.getInt(position));
+        break;
+      case INT64:
+        hyperLogLog.offer(valueColumn.getLong(position));
+        break;
+      case FLOAT:
+        hyperLogLog.offer(valueColumn.getFloat(position));
+        break;
+      case DOUBLE:
+        hyperLogLog.offer(valueColumn.getDouble(position));
+        break;
+      case BOOLEAN:
+        hyperLogLog.offer(valueColumn.getBoolean(position));
+        break;
+      case TEXT:
+        hyperLogLog.offer(valueColumn.getBinary(position));
+        break;
+      default:
+        throw new UnSupportedDataTypeException(
+            String.format(
+                "Unsupported data type in aggregation APPROX_COUNT_DISTINCT : %s",
+                seriesDataType));
+    }
+  }
+
+  // partialResult should be like: | serialized HyperLogLog |
+  @Override
+  public void addIntermediate(Column[] partialResult) {
+    checkArgument(partialResult.length == 1, "partialResult of approx_count_distinct should be 1");
+    if (partialResult[0].isNull(0)) {
+      return;
+    }
+    hyperLogLog.merge(HyperLogLog.deserialize(partialResult[0].getBinary(0).getValues()));
+  }
+
+  @Override
+  public void addStatistics(Statistics statistics) {
+    throw new UnsupportedOperationException(getClass().getName());
+  }
+
+  @Override
+  public boolean canUseStatistics() {
+    return false;
+  }
+
+  // finalResult should be single column, like: | finalCountValue |
+  @Override
+  public void setFinal(Column finalResult) {
+    reset();
+    if (finalResult.isNull(0)) {
+      return;
+    }
+    isFinal = true;
+    this.finalResult = finalResult.getLong(0);
+  }
+
+  @Override
+  public void outputIntermediate(ColumnBuilder[] columnBuilders) {
+    checkArgument(columnBuilders.length == 1, "partialResult of approx_count_distinct should be 1");
+    if (hyperLogLog.isEmpty()) {
+      columnBuilders[0].appendNull();
+    } else {
+      columnBuilders[0].writeBinary(new Binary(hyperLogLog.serialize()));
+    }
+  }
+
+  @Override
+  public void outputFinal(ColumnBuilder columnBuilder) {
+    columnBuilder.writeLong(isFinal ? finalResult : hyperLogLog.cardinality());
+  }
+
+  @Override
+  public void reset() {
+    hyperLogLog.reset();
+    isFinal = false;
+    finalResult = 0;
+  }
+
+  @Override
+  public boolean hasFinalResult() {
+    return false;
+  }
+
+  @Override
+  public TSDataType[] getIntermediateType() {
+    return new TSDataType[] {TSDataType.TEXT};
+  }
+
+  @Override
+  public TSDataType getFinalType() {
+    return TSDataType.INT64;
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.aggregation;
+
+import org.apache.iotdb.db.mpp.execution.operator.window.IWindow;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+import org.apache.iotdb.tsfile.read.common.block.column.ColumnBuilder;
+import org.apache.iotdb.tsfile.utils.Binary;
+import org.apache.iotdb.tsfile.utils.KLLSketch;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Estimates a quantile of numeric values with a {@link KLLSketch}. The partial result is the
+ * serialized sketch, so partial results of different regions can be merged.
+ */
+public class ApproxPercentileAccumulator implements Accumulator {
+
+  private final TSDataType seriesDataType;
+  private final double quantile;
+  private final KLLSketch sketch = new KLLSketch();
+
+  // set by setFinal(), as a sketch cannot be rebuilt from its estimation
+  private double finalResult;
+  private boolean isFinal = false;
+
+  public ApproxPercentileAccumulator(TSDataType seriesDataType, double quantile) {
+    this.seriesDataType = seriesDataType;
+    this.quantile = quantile;
+  }
+
+  // Column should be like: | ControlColumn | Time | Value |
+  @Override
+  public int addInput(Column[] column, IWindow curWindow, boolean ignoringNull) {
+    int curPositionCount = column[0].getPositionCount();
+    for (int i = 0; i < curPositionCount; i++) {
+      // skip null value in control column
+      if (ignoringNull && column[0].isNull(i)) {
+        continue;
+      }
+      if (!curWindow.satisfy(column[0], i)) {
+        return i;
+      }
+      curWindow.mergeOnePoint(column, i);
+      if (!column[2].isNull(i)) {
+        sketch.update(getDoubleValue(column[2], i));
+      }
+    }
+    return curPositionCount;
+  }
+
+  private double getDoubleValue(Column valueColumn, int position) {
+    switch (seriesDataType) {
+      case INT32:
+        return valueColumn.getInt(position);
+      case INT64:
+        return valueColumn.getLong(position);
+      case FLOAT:
+        return valueColumn.getFloat(position);
+      case DOUBLE:
+        return valueColumn.getDouble(position);
+      case TEXT:
+      case BOOLEAN:
+      default:
+        throw new UnSupportedDataTypeException(
+            String.format(
+                "Unsupported data type in aggregation APPROX_PERCENTILE : %s", seriesDataType));
+    }
+  }
+
+  // partialResult should be like: | serialized KLLSketch |
+  @Override
+  public void addIntermediate(Column[] partialResult) {
+    checkArgument(partialResult.length == 1, "partialResult of approx_percentile should be 1");
+    if (partialResult[0].isNull(0)) {
+      return;
+    }
+    sketch.merge(KLLSketch.deserialize(partialResult[0].getBinary(0).getValues()));
+  }
+
+  @Override
+  public void addStatistics(Statistics statistics) {
+    if (statistics == null) {
+      return;
+    }
+    sketch.merge(statistics.getQuantileSketch());
+  }
+
+  @Override
+  public boolean canUseStatistics() {
+    return false;
+  }
+
+  /** Statistics can be used only if they carry a quantile sketch of all their points. */
+  @Override
+  public boolean canUseStatistics(Statistics statistics) {
+    return statistics == null || statistics.getQuantileSketch() != null;
+  }
+
+  // finalResult should be single column, like: | finalPercentileValue |
+  @Override
+  public void setFinal(Column finalResult) {
+    reset();
+    if (finalResult.isNull(0)) {
+      return;
+    }
+    isFinal = true;
+    this.finalResult = finalResult.getDouble(0);
+  }
+
+  @Override
+  public void outputIntermediate(ColumnBuilder[] columnBuilders) {
+    checkArgument(columnBuilders.length == 1, "partialResult of approx_percentile should be 1");
+    if (sketch.isEmpty()) {
+      columnBuilders[0].appendNull();
+    } else {
+      columnBuilders[0].writeBinary(new Binary(sketch.serialize()));
+    }
+  }
+
+  @Override
+  public void outputFinal(ColumnBuilder columnBuilder) {
+    if (isFinal) {
+      columnBuilder.writeDouble(finalResult);
+    } else if (sketch.isEmpty()) {
+      columnBuilder.appendNull();
+    } else {
+      columnBuilder.writeDouble(sketch.getQuantile(quantile));
+    }
+  }
+
+  @Override
+  public void reset() {
+    sketch.reset();
+    isFinal = false;
+    finalResult = 0;
+  }
+
+  @Override
+  public boolean hasFinalResult() {
+    return false;
+  }
+
+  @Override
+  public TSDataType[] getIntermediateType() {
+    return new TSDataType[] {TSDataType.TEXT};
+  }
+
+  @Override
+  public TSDataType getFinalType() {
+    return TSDataType.DOUBLE;
+  }
+}
@@ -152,6 +152,10 @@ public class SlidingWindowAggregatorFactory {
             : new EmptyQueueSlidingWindowAggregator(accumulator, inputLocationList, step);
       case COUNT_IF:
         throw new SemanticException("COUNT_IF with slidingWindow is not supported now");
+      case APPROX_COUNT_DISTINCT:
+      case APPROX_PERCENTILE:
+        throw new SemanticException(
+            String.format("%s with slidingWindow is not supported now", aggregationType));
       default:
         throw new IllegalArgumentException("Invalid Aggregation Type: " + aggregationType);
     }
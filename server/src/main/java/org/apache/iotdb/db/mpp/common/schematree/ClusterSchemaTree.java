@@ -24,32 +24,45 @@ import org.apache.iotdb.commons.path.PartialPath;
 import org.apache.iotdb.commons.utils.PathUtils;
 import org.apache.iotdb.commons.utils.TestOnly;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.metadata.template.Template;
 import org.apache.iotdb.db.mpp.common.schematree.node.SchemaEntityNode;
 import org.apache.iotdb.db.mpp.common.schematree.node.SchemaInternalNode;
 import org.apache.iotdb.db.mpp.common.schematree.node.SchemaMeasurementNode;
 import org.apache.iotdb.db.mpp.common.schematree.node.SchemaNode;
+import org.apache.iotdb.db.mpp.common.schematree.node.SchemaTreeStringDictionary;
 import org.apache.iotdb.db.mpp.common.schematree.visitor.SchemaTreeDeviceVisitor;
 import org.apache.iotdb.db.mpp.common.schematree.visitor.SchemaTreeVisitorFactory;
 import org.apache.iotdb.db.mpp.common.schematree.visitor.SchemaTreeVisitorWithLimitOffsetWrapper;
 import org.apache.iotdb.db.mpp.plan.analyze.schema.ISchemaComputation;
+import org.apache.iotdb.tsfile.compress.ICompressor;
+import org.apache.iotdb.tsfile.compress.IUnCompressor;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.utils.Pair;
+import org.apache.iotdb.tsfile.utils.ReadWriteForEncodingUtils;
 import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
 import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import static org.apache.iotdb.commons.conf.IoTDBConstant.PATH_ROOT;
 import static org.apache.iotdb.db.metadata.MetadataConstant.ALL_MATCH_PATTERN;
+import static org.apache.iotdb.db.metadata.MetadataConstant.NON_TEMPLATE;
 import static org.apache.iotdb.db.mpp.common.schematree.node.SchemaNode.SCHEMA_ENTITY_NODE;
 import static org.apache.iotdb.db.mpp.common.schematree.node.SchemaNode.SCHEMA_MEASUREMENT_NODE;
+import static org.apache.iotdb.db.mpp.common.schematree.node.SchemaNode.SCHEMA_TEMPLATE_ENTITY_NODE;
 
 public class ClusterSchemaTree implements ISchemaTree {
 
@@ -265,27 +278,136 @@ public class ClusterSchemaTree implements ISchemaTree {
           if (!entityNode.isAligned()) {
             entityNode.setAligned(thatNode.getAsEntityNode().isAligned());
           }
+          if (entityNode.getTemplateId() == NON_TEMPLATE) {
+            entityNode.setTemplateId(thatNode.getAsEntityNode().getTemplateId());
+          }
           SchemaMeasurementNode measurementNode = thatChild.getAsMeasurementNode();
           if (measurementNode.getAlias() != null) {
             entityNode.addAliasChild(measurementNode.getAlias(), measurementNode);
           }
         }
       } else {
+        if (thisChild.isEntity()
+            && thatChild.isEntity()
+            && thisChild.getAsEntityNode().getTemplateId() == NON_TEMPLATE) {
+          thisChild.getAsEntityNode().setTemplateId(thatChild.getAsEntityNode().getTemplateId());
+        }
         traverseAndMerge(thisChild, thisNode, thatChild);
       }
     }
   }
 
+  /**
+   * Mark the entities using the given templates. An entity is considered as using a template if
+   * any of its measurements shares the schema instance of the template, which only happens when the
+   * measurement is fetched through the template activated on the device. If an entity holds all
+   * measurements of its template, they are left out in serialization.
+   */
+  public void markTemplateEntities(Map<Integer, Template> templateMap) {
+    if (templateMap.isEmpty()) {
+      return;
+    }
+    Deque<SchemaNode> stack = new ArrayDeque<>();
+    stack.push(root);
+    SchemaNode node;
+    while (!stack.isEmpty()) {
+      node = stack.pop();
+      if (node.isEntity()) {
+        markTemplateEntity(node.getAsEntityNode(), templateMap);
+      }
+      for (SchemaNode child : node.getChildren().values()) {
+        if (!child.isMeasurement()) {
+          stack.push(child);
+        }
+      }
+    }
+  }
+
+  private void markTemplateEntity(SchemaEntityNode entityNode, Map<Integer, Template> templateMap) {
+    Template template = null;
+    for (SchemaNode child : entityNode.getChildren().values()) {
+      if (child.isMeasurement()) {
+        template = getSourceTemplate(child.getAsMeasurementNode(), templateMap);
+        if (template != null) {
+          break;
+        }
+      }
+    }
+    if (template == null) {
+      return;
+    }
+    entityNode.setTemplateId(template.getId());
+
+    if (entityNode.isAligned() != template.isDirectAligned()) {
+      return;
+    }
+    SchemaNode child;
+    SchemaMeasurementNode measurementNode;
+    for (String measurement : template.getSchemaMap().keySet()) {
+      child = entityNode.getChildren().get(measurement);
+      if (child == null || !child.isMeasurement()) {
+        return;
+      }
+      measurementNode = child.getAsMeasurementNode();
+      if (measurementNode.getSchema() != template.getSchema(measurement)
+          || measurementNode.getAlias() != null
+          || (measurementNode.getTagMap() != null && !measurementNode.getTagMap().isEmpty())) {
+        return;
+      }
+    }
+    entityNode.omitTemplateMeasurements(template);
+  }
+
+  private Template getSourceTemplate(
+      SchemaMeasurementNode measurementNode, Map<Integer, Template> templateMap) {
+    for (Template template : templateMap.values()) {
+      if (template.getSchema(measurementNode.getName()) == measurementNode.getSchema()) {
+        return template;
+      }
+    }
+    return null;
+  }
+
+  /** @return the devices using template in this tree and their template ids */
+  public Map<PartialPath, Integer> getTemplateDevices() {
+    Map<PartialPath, Integer> templateDevices = new HashMap<>();
+    List<String> nodes = new ArrayList<>();
+    collectTemplateDevices(root, nodes, templateDevices);
+    return templateDevices;
+  }
+
+  private void collectTemplateDevices(
+      SchemaNode node, List<String> nodes, Map<PartialPath, Integer> templateDevices) {
+    nodes.add(node.getName());
+    if (node.isEntity() && node.getAsEntityNode().getTemplateId() != NON_TEMPLATE) {
+      templateDevices.put(
+          new PartialPath(nodes.toArray(new String[0])), node.getAsEntityNode().getTemplateId());
+    }
+    for (SchemaNode child : node.getChildren().values()) {
+      if (!child.isMeasurement()) {
+        collectTemplateDevices(child, nodes, templateDevices);
+      }
+    }
+    nodes.remove(nodes.size() - 1);
+  }
+
   public void serialize(OutputStream outputStream) throws IOException {
     root.serialize(outputStream);
   }
 
   public static ClusterSchemaTree deserialize(InputStream inputStream) throws IOException {
+    return deserialize(inputStream, Collections.emptyMap());
+  }
+
+  /**
+   * @param templateMap templates used to restore the template measurements left out by the sender
+   */
+  public static ClusterSchemaTree deserialize(
+      InputStream inputStream, Map<Integer, Template> templateMap) throws IOException {
 
     byte nodeType;
     int childNum;
     Deque<SchemaNode> stack = new ArrayDeque<>();
-    SchemaNode child;
 
     while (inputStream.available() > 0) {
       nodeType = ReadWriteIOUtils.readByte(inputStream);
@@ -296,30 +418,98 @@ public class ClusterSchemaTree implements ISchemaTree {
         SchemaInternalNode internalNode;
         if (nodeType == SCHEMA_ENTITY_NODE) {
           internalNode = SchemaEntityNode.deserialize(inputStream);
+        } else if (nodeType == SCHEMA_TEMPLATE_ENTITY_NODE) {
+          internalNode = SchemaEntityNode.deserializeWithTemplate(inputStream, templateMap);
         } else {
           internalNode = SchemaInternalNode.deserialize(inputStream);
         }
 
         childNum = ReadWriteIOUtils.readInt(inputStream);
-        while (childNum > 0) {
-          child = stack.pop();
-          internalNode.addChild(child.getName(), child);
-          if (child.isMeasurement()) {
-            SchemaMeasurementNode measurementNode = child.getAsMeasurementNode();
-            if (measurementNode.getAlias() != null) {
-              internalNode
-                  .getAsEntityNode()
-                  .addAliasChild(measurementNode.getAlias(), measurementNode);
-            }
-          }
-          childNum--;
+        addChildren(internalNode, childNum, stack);
+        stack.push(internalNode);
+      }
+    }
+    return new ClusterSchemaTree(stack.poll());
+  }
+
+  /**
+   * Serialize this tree with a string dictionary of node names, varint numbers and the given
+   * compression. Node names shared by many devices, e.g. measurement names, are written only once.
+   */
+  public void serializeCompactly(OutputStream outputStream, CompressionType compressionType)
+      throws IOException {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    root.serializeCompactly(buffer, new SchemaTreeStringDictionary());
+    byte[] uncompressed = buffer.toByteArray();
+
+    byte[] compressed = ICompressor.getCompressor(compressionType).compress(uncompressed);
+    ReadWriteIOUtils.write(compressionType.serialize(), outputStream);
+    ReadWriteForEncodingUtils.writeUnsignedVarInt(uncompressed.length, outputStream);
+    ReadWriteForEncodingUtils.writeUnsignedVarInt(compressed.length, outputStream);
+    outputStream.write(compressed);
+  }
+
+  /**
+   * Deserialize the tree written by {@link #serializeCompactly(OutputStream, CompressionType)}.
+   * Nodes are built directly from the dictionary strings, which are shared by all nodes of the same
+   * name.
+   */
+  public static ClusterSchemaTree deserializeCompactly(
+      InputStream inputStream, Map<Integer, Template> templateMap) throws IOException {
+    CompressionType compressionType =
+        CompressionType.deserialize(ReadWriteIOUtils.readByte(inputStream));
+    int uncompressedSize = ReadWriteForEncodingUtils.readUnsignedVarInt(inputStream);
+    int compressedSize = ReadWriteForEncodingUtils.readUnsignedVarInt(inputStream);
+    byte[] compressed = new byte[compressedSize];
+    // a single read may return fewer bytes than available for streams other than byte arrays
+    new DataInputStream(inputStream).readFully(compressed);
+    byte[] uncompressed = new byte[uncompressedSize];
+    IUnCompressor.getUnCompressor(compressionType)
+        .uncompress(compressed, 0, compressedSize, uncompressed, 0);
+    InputStream treeStream = new ByteArrayInputStream(uncompressed);
+
+    SchemaTreeStringDictionary dictionary = new SchemaTreeStringDictionary();
+    byte nodeType;
+    Deque<SchemaNode> stack = new ArrayDeque<>();
+
+    while (treeStream.available() > 0) {
+      nodeType = ReadWriteIOUtils.readByte(treeStream);
+      if (nodeType == SCHEMA_MEASUREMENT_NODE) {
+        stack.push(SchemaMeasurementNode.deserializeCompactly(treeStream, dictionary));
+      } else {
+        SchemaInternalNode internalNode;
+        if (nodeType == SCHEMA_ENTITY_NODE) {
+          internalNode = SchemaEntityNode.deserializeCompactly(treeStream, dictionary);
+        } else if (nodeType == SCHEMA_TEMPLATE_ENTITY_NODE) {
+          internalNode =
+              SchemaEntityNode.deserializeCompactlyWithTemplate(
+                  treeStream, dictionary, templateMap);
+        } else {
+          internalNode = SchemaInternalNode.deserializeCompactly(treeStream, dictionary);
         }
+        addChildren(internalNode, ReadWriteForEncodingUtils.readUnsignedVarInt(treeStream), stack);
         stack.push(internalNode);
       }
     }
     return new ClusterSchemaTree(stack.poll());
   }
 
+  private static void addChildren(
+      SchemaInternalNode internalNode, int childNum, Deque<SchemaNode> stack) {
+    SchemaNode child;
+    while (childNum > 0) {
+      child = stack.pop();
+      internalNode.addChild(child.getName(), child);
+      if (child.isMeasurement()) {
+        SchemaMeasurementNode measurementNode = child.getAsMeasurementNode();
+        if (measurementNode.getAlias() != null) {
+          internalNode.getAsEntityNode().addAliasChild(measurementNode.getAlias(), measurementNode);
+        }
+      }
+      childNum--;
+    }
+  }
+
   /**
    * Get database name by path
    *
@@ -19,7 +19,11 @@
 
 package org.apache.iotdb.db.mpp.common.schematree.node;
 
+import org.apache.iotdb.db.metadata.template.Template;
+import org.apache.iotdb.tsfile.utils.ReadWriteForEncodingUtils;
 import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+import org.apache.iotdb.tsfile.write.schema.IMeasurementSchema;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -27,12 +31,20 @@ import java.io.OutputStream;
 import java.util.HashMap;
 import java.util.Map;
 
+import static org.apache.iotdb.db.metadata.MetadataConstant.NON_TEMPLATE;
+
 public class SchemaEntityNode extends SchemaInternalNode {
 
   private boolean isAligned;
 
   private Map<String, SchemaMeasurementNode> aliasChildren;
 
+  private int templateId = NON_TEMPLATE;
+
+  // only set before serialization, the measurements of this template are left out and restored
+  // from the template on deserialization
+  private Template omittedTemplate;
+
   public SchemaEntityNode(String name) {
     super(name);
   }
@@ -61,6 +73,18 @@ public class SchemaEntityNode extends SchemaInternalNode {
     isAligned = aligned;
   }
 
+  public int getTemplateId() {
+    return templateId;
+  }
+
+  public void setTemplateId(int templateId) {
+    this.templateId = templateId;
+  }
+
+  public void omitTemplateMeasurements(Template template) {
+    this.omittedTemplate = template;
+  }
+
   @Override
   public void replaceChild(String name, SchemaNode newChild) {
     super.replaceChild(name, newChild);
@@ -79,6 +103,7 @@ public class SchemaEntityNode extends SchemaInternalNode {
     }
     SchemaEntityNode entityNode = schemaNode.getAsEntityNode();
     entityNode.setAligned(isAligned);
+    entityNode.setTemplateId(templateId);
     if (aliasChildren != null) {
       for (SchemaMeasurementNode child : aliasChildren.values()) {
         entityNode.addAliasChild(child.getAlias(), child);
@@ -98,17 +123,60 @@ public class SchemaEntityNode extends SchemaInternalNode {
 
   @Override
   public byte getType() {
-    return SCHEMA_ENTITY_NODE;
+    return templateId == NON_TEMPLATE ? SCHEMA_ENTITY_NODE : SCHEMA_TEMPLATE_ENTITY_NODE;
   }
 
   @Override
   public void serialize(OutputStream outputStream) throws IOException {
-    serializeChildren(outputStream);
+    if (templateId == NON_TEMPLATE) {
+      serializeChildren(outputStream);
+
+      ReadWriteIOUtils.write(getType(), outputStream);
+      ReadWriteIOUtils.write(name, outputStream);
+      ReadWriteIOUtils.write(isAligned, outputStream);
+      ReadWriteIOUtils.write(children.size(), outputStream);
+      return;
+    }
+
+    int childNum = 0;
+    for (SchemaNode child : children.values()) {
+      if (!isOmitted(child)) {
+        child.serialize(outputStream);
+        childNum++;
+      }
+    }
 
     ReadWriteIOUtils.write(getType(), outputStream);
     ReadWriteIOUtils.write(name, outputStream);
     ReadWriteIOUtils.write(isAligned, outputStream);
-    ReadWriteIOUtils.write(children.size(), outputStream);
+    ReadWriteIOUtils.write(templateId, outputStream);
+    ReadWriteIOUtils.write(omittedTemplate != null, outputStream);
+    ReadWriteIOUtils.write(childNum, outputStream);
+  }
+
+  @Override
+  public void serializeCompactly(OutputStream outputStream, SchemaTreeStringDictionary dictionary)
+      throws IOException {
+    int childNum = 0;
+    for (SchemaNode child : children.values()) {
+      if (!isOmitted(child)) {
+        child.serializeCompactly(outputStream, dictionary);
+        childNum++;
+      }
+    }
+
+    ReadWriteIOUtils.write(getType(), outputStream);
+    dictionary.write(name, outputStream);
+    ReadWriteIOUtils.write(isAligned, outputStream);
+    if (templateId != NON_TEMPLATE) {
+      ReadWriteForEncodingUtils.writeUnsignedVarInt(templateId, outputStream);
+      ReadWriteIOUtils.write(omittedTemplate != null, outputStream);
+    }
+    ReadWriteForEncodingUtils.writeUnsignedVarInt(childNum, outputStream);
+  }
+
+  private boolean isOmitted(SchemaNode child) {
+    return omittedTemplate != null && omittedTemplate.hasSchema(child.getName());
   }
 
   public static SchemaEntityNode deserialize(InputStream inputStream) throws IOException {
@@ -119,4 +187,67 @@ public class SchemaEntityNode extends SchemaInternalNode {
     entityNode.setAligned(isAligned);
     return entityNode;
   }
+
+  /**
+   * Deserialize an entity using template. The template measurements left out by the sender are
+   * restored from the given templates, sharing the schema instances of the template.
+   */
+  public static SchemaEntityNode deserializeWithTemplate(
+      InputStream inputStream, Map<Integer, Template> templateMap) throws IOException {
+    String name = ReadWriteIOUtils.readString(inputStream);
+    boolean isAligned = ReadWriteIOUtils.readBool(inputStream);
+    int templateId = ReadWriteIOUtils.readInt(inputStream);
+    boolean isTemplateMeasurementOmitted = ReadWriteIOUtils.readBool(inputStream);
+
+    return restoreTemplateMeasurements(
+        name, isAligned, templateId, isTemplateMeasurementOmitted, templateMap);
+  }
+
+  public static SchemaEntityNode deserializeCompactly(
+      InputStream inputStream, SchemaTreeStringDictionary dictionary) throws IOException {
+    String name = dictionary.read(inputStream);
+    boolean isAligned = ReadWriteIOUtils.readBool(inputStream);
+
+    SchemaEntityNode entityNode = new SchemaEntityNode(name);
+    entityNode.setAligned(isAligned);
+    return entityNode;
+  }
+
+  public static SchemaEntityNode deserializeCompactlyWithTemplate(
+      InputStream inputStream,
+      SchemaTreeStringDictionary dictionary,
+      Map<Integer, Template> templateMap)
+      throws IOException {
+    String name = dictionary.read(inputStream);
+    boolean isAligned = ReadWriteIOUtils.readBool(inputStream);
+    int templateId = ReadWriteForEncodingUtils.readUnsignedVarInt(inputStream);
+    boolean isTemplateMeasurementOmitted = ReadWriteIOUtils.readBool(inputStream);
+    return restoreTemplateMeasurements(
+        name, isAligned, templateId, isTemplateMeasurementOmitted, templateMap);
+  }
+
+  private static SchemaEntityNode restoreTemplateMeasurements(
+      String name,
+      boolean isAligned,
+      int templateId,
+      boolean isTemplateMeasurementOmitted,
+      Map<Integer, Template> templateMap)
+      throws IOException {
+    SchemaEntityNode entityNode = new SchemaEntityNode(name);
+    entityNode.setAligned(isAligned);
+    entityNode.setTemplateId(templateId);
+    if (isTemplateMeasurementOmitted) {
+      Template template = templateMap.get(templateId);
+      if (template == null) {
+        throw new IOException(
+            String.format("Template %s of device %s is unknown to the receiver", templateId, name));
+      }
+      for (Map.Entry<String, IMeasurementSchema> entry : template.getSchemaMap().entrySet()) {
+        entityNode.addChild(
+            entry.getKey(),
+            new SchemaMeasurementNode(entry.getKey(), (MeasurementSchema) entry.getValue()));
+      }
+    }
+    return entityNode;
+  }
 }
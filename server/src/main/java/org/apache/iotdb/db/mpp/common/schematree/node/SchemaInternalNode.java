@@ -19,6 +19,7 @@
 
 package org.apache.iotdb.db.mpp.common.schematree.node;
 
+import org.apache.iotdb.tsfile.utils.ReadWriteForEncodingUtils;
 import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
 
 import java.io.IOException;
@@ -92,9 +93,26 @@ public class SchemaInternalNode extends SchemaNode {
     }
   }
 
+  @Override
+  public void serializeCompactly(OutputStream outputStream, SchemaTreeStringDictionary dictionary)
+      throws IOException {
+    for (SchemaNode child : children.values()) {
+      child.serializeCompactly(outputStream, dictionary);
+    }
+
+    ReadWriteIOUtils.write(getType(), outputStream);
+    dictionary.write(name, outputStream);
+    ReadWriteForEncodingUtils.writeUnsignedVarInt(children.size(), outputStream);
+  }
+
   public static SchemaInternalNode deserialize(InputStream inputStream) throws IOException {
     String name = ReadWriteIOUtils.readString(inputStream);
 
     return new SchemaInternalNode(name);
   }
+
+  public static SchemaInternalNode deserializeCompactly(
+      InputStream inputStream, SchemaTreeStringDictionary dictionary) throws IOException {
+    return new SchemaInternalNode(dictionary.read(inputStream));
+  }
 }
@@ -105,6 +105,21 @@ public class SchemaMeasurementNode extends SchemaNode implements IMeasurementSch
     ReadWriteIOUtils.write(tagMap, outputStream);
   }
 
+  @Override
+  public void serializeCompactly(OutputStream outputStream, SchemaTreeStringDictionary dictionary)
+      throws IOException {
+    ReadWriteIOUtils.write(getType(), outputStream);
+    dictionary.write(name, outputStream);
+
+    dictionary.write(alias, outputStream);
+    // the measurement id of schema is always the node name, thus not written again
+    ReadWriteIOUtils.write(schema.getType().serialize(), outputStream);
+    ReadWriteIOUtils.write(schema.getEncodingType().serialize(), outputStream);
+    ReadWriteIOUtils.write(schema.getCompressor().serialize(), outputStream);
+    dictionary.writeMap(schema.getProps(), outputStream);
+    dictionary.writeMap(tagMap, outputStream);
+  }
+
   public static SchemaMeasurementNode deserialize(InputStream inputStream) throws IOException {
     String name = ReadWriteIOUtils.readString(inputStream);
     String alias = ReadWriteIOUtils.readString(inputStream);
@@ -116,4 +131,22 @@ public class SchemaMeasurementNode extends SchemaNode implements IMeasurementSch
     measurementNode.setTagMap(tagMap);
     return measurementNode;
   }
+
+  public static SchemaMeasurementNode deserializeCompactly(
+      InputStream inputStream, SchemaTreeStringDictionary dictionary) throws IOException {
+    String name = dictionary.read(inputStream);
+    String alias = dictionary.read(inputStream);
+    byte type = ReadWriteIOUtils.readByte(inputStream);
+    byte encoding = ReadWriteIOUtils.readByte(inputStream);
+    byte compressor = ReadWriteIOUtils.readByte(inputStream);
+    Map<String, String> props = dictionary.readMap(inputStream);
+    Map<String, String> tagMap = dictionary.readMap(inputStream);
+
+    SchemaMeasurementNode measurementNode =
+        new SchemaMeasurementNode(
+            name, new MeasurementSchema(name, type, encoding, compressor, props));
+    measurementNode.setAlias(alias);
+    measurementNode.setTagMap(tagMap);
+    return measurementNode;
+  }
 }
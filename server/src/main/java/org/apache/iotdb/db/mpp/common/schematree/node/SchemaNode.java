@@ -32,6 +32,7 @@ public abstract class SchemaNode implements ITreeNode {
   public static final byte SCHEMA_INTERNAL_NODE = 0;
   public static final byte SCHEMA_ENTITY_NODE = 1;
   public static final byte SCHEMA_MEASUREMENT_NODE = 2;
+  public static final byte SCHEMA_TEMPLATE_ENTITY_NODE = 3;
 
   protected final String name;
 
@@ -80,4 +81,11 @@ public abstract class SchemaNode implements ITreeNode {
   public abstract byte getType();
 
   public abstract void serialize(OutputStream outputStream) throws IOException;
+
+  /**
+   * Serialize in the same post order as {@link #serialize(OutputStream)}, with names and other
+   * strings written through the given dictionary and numbers written as varint.
+   */
+  public abstract void serializeCompactly(
+      OutputStream outputStream, SchemaTreeStringDictionary dictionary) throws IOException;
 }
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.mpp.common.schematree.node;
+
+import org.apache.iotdb.tsfile.utils.ReadWriteForEncodingUtils;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * String dictionary used by the compact serialization of schema tree. Each distinct string is
+ * written once, at its first occurrence, and referred to by a varint id afterwards.
+ *
+ * <p>A reference is encoded as 0 for null, 1 followed by the string for a new entry, or id + 2 for
+ * an entry already written. Both sides assign ids in the order of first occurrence, so the
+ * dictionary never needs to be written separately. Strings read from the same dictionary are
+ * shared by all the nodes referring to them.
+ */
+public class SchemaTreeStringDictionary {
+
+  private static final int NULL_REF = 0;
+  private static final int NEW_REF = 1;
+  private static final int ID_OFFSET = 2;
+
+  // used by writer
+  private Map<String, Integer> idMap;
+
+  // used by reader
+  private List<String> strings;
+
+  public void write(String value, OutputStream outputStream) throws IOException {
+    if (value == null) {
+      ReadWriteForEncodingUtils.writeUnsignedVarInt(NULL_REF, outputStream);
+      return;
+    }
+    if (idMap == null) {
+      idMap = new HashMap<>();
+    }
+    Integer id = idMap.get(value);
+    if (id == null) {
+      idMap.put(value, idMap.size());
+      ReadWriteForEncodingUtils.writeUnsignedVarInt(NEW_REF, outputStream);
+      ReadWriteIOUtils.write(value, outputStream);
+    } else {
+      ReadWriteForEncodingUtils.writeUnsignedVarInt(id + ID_OFFSET, outputStream);
+    }
+  }
+
+  public String read(InputStream inputStream) throws IOException {
+    int ref = ReadWriteForEncodingUtils.readUnsignedVarInt(inputStream);
+    if (ref == NULL_REF) {
+      return null;
+    }
+    if (strings == null) {
+      strings = new ArrayList<>();
+    }
+    if (ref == NEW_REF) {
+      String value = ReadWriteIOUtils.readString(inputStream);
+      strings.add(value);
+      return value;
+    }
+    int id = ref - ID_OFFSET;
+    if (id >= strings.size()) {
+      throw new IOException(
+          String.format("Unknown string id %s, dictionary size is %s", id, strings.size()));
+    }
+    return strings.get(id);
+  }
+
+  /** Map is encoded as varint size + 1, 0 for null, followed by the referred keys and values. */
+  public void writeMap(Map<String, String> map, OutputStream outputStream) throws IOException {
+    if (map == null) {
+      ReadWriteForEncodingUtils.writeUnsignedVarInt(0, outputStream);
+      return;
+    }
+    ReadWriteForEncodingUtils.writeUnsignedVarInt(map.size() + 1, outputStream);
+    for (Map.Entry<String, String> entry : map.entrySet()) {
+      write(entry.getKey(), outputStream);
+      write(entry.getValue(), outputStream);
+    }
+  }
+
+  public Map<String, String> readMap(InputStream inputStream) throws IOException {
+    int size = ReadWriteForEncodingUtils.readUnsignedVarInt(inputStream) - 1;
+    if (size < 0) {
+      return null;
+    }
+    Map<String, String> map = new HashMap<>(size);
+    for (int i = 0; i < size; i++) {
+      map.put(read(inputStream), read(inputStream));
+    }
+    return map;
+  }
+}
@@ -32,15 +32,22 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.Nullable;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
-/** A thread-safe memory pool. */
+/**
+ * A thread-safe memory pool.
+ *
+ * <p>Reservations are kept in a hierarchy of query, fragment instance and plan node, each with an
+ * atomic counter, so reserving and freeing memory does not take any lock unless the memory is
+ * exhausted and the reservation has to wait.
+ */
 public class MemoryPool {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(MemoryPool.class);
@@ -109,17 +116,43 @@ public class MemoryPool {
     }
   }
 
+  /** Memory reserved by a query, a fragment instance or a plan node. */
+  private static class MemoryReservation {
+
+    private final MemoryReservation parent;
+    private final AtomicLong reservedBytes = new AtomicLong(0L);
+    private final Map<String, MemoryReservation> children = new ConcurrentHashMap<>();
+
+    private MemoryReservation(MemoryReservation parent) {
+      this.parent = parent;
+    }
+
+    private void addToAncestors(long bytes) {
+      for (MemoryReservation ancestor = parent; ancestor != null; ancestor = ancestor.parent) {
+        ancestor.reservedBytes.addAndGet(bytes);
+      }
+    }
+  }
+
+  /** Reserved bytes of a plan node which has been removed from the reservation hierarchy. */
+  private static final long RELEASED = Long.MIN_VALUE;
+
   private final String id;
   private final long maxBytes;
   private final long maxBytesPerFragmentInstance;
 
-  private long reservedBytes = 0L;
+  private final AtomicLong reservedBytes = new AtomicLong(0L);
   /** queryId -> fragmentInstanceId -> planNodeId -> bytesReserved */
-  private final Map<String, Map<String, Map<String, Long>>> queryMemoryReservations =
-      new HashMap<>();
+  private final Map<String, MemoryReservation> queryMemoryReservations = new ConcurrentHashMap<>();
 
   private final Queue<MemoryReservationFuture<Void>> memoryReservationFutures = new LinkedList<>();
 
+  /**
+   * Number of blocked reservations, including the ones being checked before added to
+   * memoryReservationFutures. free() takes the lock to complete them only when it is not zero.
+   */
+  private final AtomicInteger blockedReservationNum = new AtomicInteger(0);
+
   public MemoryPool(String id, long maxBytes, long maxBytesPerFragmentInstance) {
     this.id = Validate.notNull(id);
     Validate.isTrue(maxBytes > 0L, "max bytes should be greater than zero: %d", maxBytes);
@@ -168,33 +201,27 @@ public class MemoryPool {
           "Query is aborted since it requests more memory than can be allocated.");
     }
 
-    ListenableFuture<Void> result;
+    if (tryReserveBytes(
+        queryId, fragmentInstanceId, planNodeId, bytesToReserve, maxBytesCanReserve)) {
+      return new Pair<>(Futures.immediateFuture(null), Boolean.TRUE);
+    }
+
     synchronized (this) {
-      if (maxBytes - reservedBytes < bytesToReserve
-          || maxBytesCanReserve
-                  - queryMemoryReservations
-                      .getOrDefault(queryId, Collections.emptyMap())
-                      .getOrDefault(fragmentInstanceId, Collections.emptyMap())
-                      .getOrDefault(planNodeId, 0L)
-              < bytesToReserve) {
-        LOGGER.debug(
-            "Blocked reserve request: {} bytes memory for planNodeId{}",
-            bytesToReserve,
-            planNodeId);
-        result =
-            MemoryReservationFuture.create(
-                queryId, fragmentInstanceId, planNodeId, bytesToReserve, maxBytesCanReserve);
-        memoryReservationFutures.add((MemoryReservationFuture<Void>) result);
-        return new Pair<>(result, Boolean.FALSE);
-      } else {
-        reservedBytes += bytesToReserve;
-        queryMemoryReservations
-            .computeIfAbsent(queryId, x -> new HashMap<>())
-            .computeIfAbsent(fragmentInstanceId, x -> new HashMap<>())
-            .merge(planNodeId, bytesToReserve, Long::sum);
-        result = Futures.immediateFuture(null);
-        return new Pair<>(result, Boolean.TRUE);
+      // count the reservation as blocked before checking again, so that any memory freed after
+      // the check will complete it
+      blockedReservationNum.incrementAndGet();
+      if (tryReserveBytes(
+          queryId, fragmentInstanceId, planNodeId, bytesToReserve, maxBytesCanReserve)) {
+        blockedReservationNum.decrementAndGet();
+        return new Pair<>(Futures.immediateFuture(null), Boolean.TRUE);
       }
+      LOGGER.debug(
+          "Blocked reserve request: {} bytes memory for planNodeId{}", bytesToReserve, planNodeId);
+      MemoryReservationFuture<Void> result =
+          MemoryReservationFuture.create(
+              queryId, fragmentInstanceId, planNodeId, bytesToReserve, maxBytesCanReserve);
+      memoryReservationFutures.add(result);
+      return new Pair<>(result, Boolean.FALSE);
     }
   }
 
@@ -212,35 +239,90 @@ public class MemoryPool {
         bytesToReserve > 0L && bytesToReserve <= maxBytesPerFragmentInstance,
         "bytes should be greater than zero while less than or equal to max bytes per fragment instance: %d",
         bytesToReserve);
+    return tryReserveBytes(
+        queryId, fragmentInstanceId, planNodeId, bytesToReserve, maxBytesCanReserve);
+  }
 
-    if (maxBytes - reservedBytes < bytesToReserve
-        || maxBytesCanReserve
-                - queryMemoryReservations
-                    .getOrDefault(queryId, Collections.emptyMap())
-                    .getOrDefault(fragmentInstanceId, Collections.emptyMap())
-                    .getOrDefault(planNodeId, 0L)
-            < bytesToReserve) {
-      return false;
+  /**
+   * Reserve the bytes for the plan node if both the plan node and the pool have enough memory.
+   *
+   * @return true if the bytes are reserved
+   */
+  private boolean tryReserveBytes(
+      String queryId,
+      String fragmentInstanceId,
+      String planNodeId,
+      long bytesToReserve,
+      long maxBytesCanReserve) {
+    MemoryReservation planNodeReservation;
+    while (true) {
+      planNodeReservation =
+          getOrCreatePlanNodeReservation(queryId, fragmentInstanceId, planNodeId);
+      long planNodeReservedBytes = planNodeReservation.reservedBytes.get();
+      if (planNodeReservedBytes == RELEASED) {
+        // removed by clearMemoryReservationMap() concurrently, try again with a new one
+        continue;
+      }
+      if (maxBytesCanReserve - planNodeReservedBytes < bytesToReserve) {
+        return false;
+      }
+      if (planNodeReservation.reservedBytes.compareAndSet(
+          planNodeReservedBytes, planNodeReservedBytes + bytesToReserve)) {
+        break;
+      }
     }
-    synchronized (this) {
-      if (maxBytes - reservedBytes < bytesToReserve
-          || maxBytesCanReserve
-                  - queryMemoryReservations
-                      .getOrDefault(queryId, Collections.emptyMap())
-                      .getOrDefault(fragmentInstanceId, Collections.emptyMap())
-                      .getOrDefault(planNodeId, 0L)
-              < bytesToReserve) {
+    while (true) {
+      long poolReservedBytes = reservedBytes.get();
+      if (maxBytes - poolReservedBytes < bytesToReserve) {
+        planNodeReservation.reservedBytes.addAndGet(-bytesToReserve);
         return false;
       }
-      reservedBytes += bytesToReserve;
-      queryMemoryReservations
-          .computeIfAbsent(queryId, x -> new HashMap<>())
-          .computeIfAbsent(fragmentInstanceId, x -> new HashMap<>())
-          .merge(planNodeId, bytesToReserve, Long::sum);
+      if (reservedBytes.compareAndSet(poolReservedBytes, poolReservedBytes + bytesToReserve)) {
+        break;
+      }
     }
+    planNodeReservation.addToAncestors(bytesToReserve);
     return true;
   }
 
+  private MemoryReservation getPlanNodeReservation(
+      String queryId, String fragmentInstanceId, String planNodeId) {
+    MemoryReservation queryReservation = queryMemoryReservations.get(queryId);
+    if (queryReservation == null) {
+      return null;
+    }
+    MemoryReservation fragmentInstanceReservation =
+        queryReservation.children.get(fragmentInstanceId);
+    return fragmentInstanceReservation == null
+        ? null
+        : fragmentInstanceReservation.children.get(planNodeId);
+  }
+
+  private MemoryReservation getOrCreatePlanNodeReservation(
+      String queryId, String fragmentInstanceId, String planNodeId) {
+    MemoryReservation planNodeReservation =
+        getPlanNodeReservation(queryId, fragmentInstanceId, planNodeId);
+    if (planNodeReservation != null && planNodeReservation.reservedBytes.get() != RELEASED) {
+      return planNodeReservation;
+    }
+    // created within the lock of queryId, so that clearMemoryReservationMap() won't remove the
+    // query or fragment instance before the plan node is added
+    MemoryReservation[] result = new MemoryReservation[1];
+    queryMemoryReservations.compute(
+        queryId,
+        (k, queryReservation) -> {
+          MemoryReservation query =
+              queryReservation == null ? new MemoryReservation(null) : queryReservation;
+          MemoryReservation fragmentInstance =
+              query.children.computeIfAbsent(fragmentInstanceId, x -> new MemoryReservation(query));
+          result[0] =
+              fragmentInstance.children.computeIfAbsent(
+                  planNodeId, x -> new MemoryReservation(fragmentInstance));
+          return query;
+        });
+    return result[0];
+  }
+
   /**
    * Cancel the specified memory reservation. If the reservation has finished, do nothing.
    *
@@ -282,58 +364,49 @@ public class MemoryPool {
   }
 
   public void free(String queryId, String fragmentInstanceId, String planNodeId, long bytes) {
+    Validate.notNull(queryId);
+    Validate.isTrue(bytes > 0L);
+
+    MemoryReservation planNodeReservation =
+        getPlanNodeReservation(queryId, fragmentInstanceId, planNodeId);
+    Validate.notNull(planNodeReservation);
+    while (true) {
+      long planNodeReservedBytes = planNodeReservation.reservedBytes.get();
+      Validate.isTrue(bytes <= planNodeReservedBytes);
+      if (planNodeReservation.reservedBytes.compareAndSet(
+          planNodeReservedBytes, planNodeReservedBytes - bytes)) {
+        break;
+      }
+    }
+    planNodeReservation.addToAncestors(-bytes);
+    reservedBytes.addAndGet(-bytes);
+
+    if (blockedReservationNum.get() > 0) {
+      completeBlockedReservations();
+    }
+  }
+
+  private void completeBlockedReservations() {
     List<MemoryReservationFuture<Void>> futureList = new ArrayList<>();
     synchronized (this) {
-      Validate.notNull(queryId);
-      Validate.isTrue(bytes > 0L);
-
-      Long queryReservedBytes =
-          queryMemoryReservations
-              .getOrDefault(queryId, Collections.emptyMap())
-              .getOrDefault(fragmentInstanceId, Collections.emptyMap())
-              .get(planNodeId);
-      Validate.notNull(queryReservedBytes);
-      Validate.isTrue(bytes <= queryReservedBytes);
-
-      queryReservedBytes -= bytes;
-      queryMemoryReservations
-          .get(queryId)
-          .get(fragmentInstanceId)
-          .put(planNodeId, queryReservedBytes);
-
-      reservedBytes -= bytes;
-
-      if (memoryReservationFutures.isEmpty()) {
-        return;
-      }
       Iterator<MemoryReservationFuture<Void>> iterator = memoryReservationFutures.iterator();
       while (iterator.hasNext()) {
         MemoryReservationFuture<Void> future = iterator.next();
         if (future.isCancelled() || future.isDone()) {
+          iterator.remove();
+          blockedReservationNum.decrementAndGet();
           continue;
         }
-        long bytesToReserve = future.getBytesToReserve();
-        String curQueryId = future.getQueryId();
-        String curFragmentInstanceId = future.getFragmentInstanceId();
-        String curPlanNodeId = future.getPlanNodeId();
-        // check total reserved bytes in memory pool
-        if (maxBytes - reservedBytes < bytesToReserve) {
-          continue;
-        }
-        // check total reserved bytes of one Sink/Source handle
-        if (future.getMaxBytesCanReserve()
-                - queryMemoryReservations
-                    .getOrDefault(curQueryId, Collections.emptyMap())
-                    .getOrDefault(curFragmentInstanceId, Collections.emptyMap())
-                    .getOrDefault(curPlanNodeId, 0L)
-            >= bytesToReserve) {
-          reservedBytes += bytesToReserve;
-          queryMemoryReservations
-              .computeIfAbsent(curQueryId, x -> new HashMap<>())
-              .computeIfAbsent(curFragmentInstanceId, x -> new HashMap<>())
-              .merge(curPlanNodeId, bytesToReserve, Long::sum);
+        // check total reserved bytes in memory pool and of one Sink/Source handle
+        if (tryReserveBytes(
+            future.getQueryId(),
+            future.getFragmentInstanceId(),
+            future.getPlanNodeId(),
+            future.getBytesToReserve(),
+            future.getMaxBytesCanReserve())) {
           futureList.add(future);
           iterator.remove();
+          blockedReservationNum.decrementAndGet();
         }
       }
     }
@@ -357,37 +430,34 @@ public class MemoryPool {
   }
 
   public long getQueryMemoryReservedBytes(String queryId) {
-    if (!queryMemoryReservations.containsKey(queryId)) {
-      return 0L;
-    }
-    long sum = 0;
-    for (Map<String, Long> map : queryMemoryReservations.get(queryId).values()) {
-      sum = sum + map.values().stream().reduce(0L, Long::sum);
-    }
-    return sum;
+    MemoryReservation queryReservation = queryMemoryReservations.get(queryId);
+    return queryReservation == null ? 0L : queryReservation.reservedBytes.get();
   }
 
   public long getReservedBytes() {
-    return reservedBytes;
+    return reservedBytes.get();
   }
 
-  public synchronized void clearMemoryReservationMap(
+  public void clearMemoryReservationMap(
       String queryId, String fragmentInstanceId, String planNodeId) {
-    if (queryMemoryReservations.get(queryId) == null
-        || queryMemoryReservations.get(queryId).get(fragmentInstanceId) == null) {
-      return;
-    }
-    Map<String, Long> planNodeIdToBytesReserved =
-        queryMemoryReservations.get(queryId).get(fragmentInstanceId);
-    if (planNodeIdToBytesReserved.get(planNodeId) == null
-        || planNodeIdToBytesReserved.get(planNodeId) <= 0) {
-      planNodeIdToBytesReserved.remove(planNodeId);
-      if (planNodeIdToBytesReserved.isEmpty()) {
-        queryMemoryReservations.get(queryId).remove(fragmentInstanceId);
-      }
-      if (queryMemoryReservations.get(queryId).isEmpty()) {
-        queryMemoryReservations.remove(queryId);
-      }
-    }
+    queryMemoryReservations.computeIfPresent(
+        queryId,
+        (k, queryReservation) -> {
+          queryReservation.children.computeIfPresent(
+              fragmentInstanceId,
+              (k1, fragmentInstanceReservation) -> {
+                // a plan node which still holds memory can't be removed
+                fragmentInstanceReservation.children.computeIfPresent(
+                    planNodeId,
+                    (k2, planNodeReservation) ->
+                        planNodeReservation.reservedBytes.compareAndSet(0L, RELEASED)
+                            ? null
+                            : planNodeReservation);
+                return fragmentInstanceReservation.children.isEmpty()
+                    ? null
+                    : fragmentInstanceReservation;
+              });
+          return queryReservation.children.isEmpty() ? null : queryReservation;
+        });
   }
 }
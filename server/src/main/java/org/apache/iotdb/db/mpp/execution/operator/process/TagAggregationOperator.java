@@ -43,6 +43,8 @@ public class TagAggregationOperator implements ProcessOperator {
 
   private final OperatorContext operatorContext;
   private final List<List<String>> groups;
+  // tag values of each group, converted once instead of for every output row
+  private final Binary[][] groupValues;
   private final List<List<Aggregator>> groupedAggregators;
   private final List<Operator> children;
   private final TsBlock[] inputTsBlocks;
@@ -52,6 +54,12 @@ public class TagAggregationOperator implements ProcessOperator {
 
   // These fields record the to be consumed index of each tsBlock.
   private final int[] consumedIndices;
+
+  // The row being aggregated and the next group to output for it. With many groups the output of
+  // one row may not fit in one TsBlock, so it is continued in the following next() calls.
+  private TsBlock[] rowBlocks;
+  private int nextGroupIndex;
+
   private final TsBlockBuilder tsBlockBuilder;
   private final long maxRetainedSize;
   private final long childrenRetainedSize;
@@ -65,6 +73,14 @@ public class TagAggregationOperator implements ProcessOperator {
       long maxReturnSize) {
     this.operatorContext = Validate.notNull(operatorContext);
     this.groups = Validate.notNull(groups);
+    this.groupValues = new Binary[groups.size()][];
+    for (int groupIdx = 0; groupIdx < groups.size(); groupIdx++) {
+      List<String> group = groups.get(groupIdx);
+      groupValues[groupIdx] = new Binary[group.size()];
+      for (int i = 0; i < group.size(); i++) {
+        groupValues[groupIdx][i] = new Binary(group.get(i) == null ? "NULL" : group.get(i));
+      }
+    }
     this.groupedAggregators = Validate.notNull(groupedAggregators);
     this.children = Validate.notNull(children);
     List<TSDataType> actualOutputColumnTypes = new ArrayList<>();
@@ -117,6 +133,27 @@ public class TagAggregationOperator implements ProcessOperator {
   }
 
   private boolean processOneRow() {
+    if (rowBlocks == null && !prepareNextRow()) {
+      return false;
+    }
+
+    while (nextGroupIndex < groups.size()) {
+      if (tsBlockBuilder.isFull()) {
+        return false;
+      }
+      outputGroup(nextGroupIndex++);
+    }
+
+    // Reset dataReady for next iteration
+    for (int i = 0; i < children.size(); i++) {
+      consumedIndices[i]++;
+    }
+    rowBlocks = null;
+    nextGroupIndex = 0;
+    return true;
+  }
+
+  private boolean prepareNextRow() {
     for (int i = 0; i < children.size(); i++) {
       if (!dataUnavailable(i)) {
         continue;
@@ -137,54 +174,50 @@ public class TagAggregationOperator implements ProcessOperator {
       }
     }
 
-    TsBlock[] rowBlocks = new TsBlock[children.size()];
+    rowBlocks = new TsBlock[children.size()];
     for (int i = 0; i < children.size(); i++) {
       rowBlocks[i] = inputTsBlocks[i].getRegion(consumedIndices[i], 1);
     }
-    for (int groupIdx = 0; groupIdx < groups.size(); groupIdx++) {
-      List<String> group = groups.get(groupIdx);
-      List<Aggregator> aggregators = groupedAggregators.get(groupIdx);
-
-      for (Aggregator aggregator : aggregators) {
-        if (aggregator == null) {
-          continue;
-        }
-        aggregator.reset();
-        aggregator.processTsBlocks(rowBlocks);
-      }
+    nextGroupIndex = 0;
+    return true;
+  }
 
-      TimeColumnBuilder timeColumnBuilder = tsBlockBuilder.getTimeColumnBuilder();
-      timeColumnBuilder.writeLong(rowBlocks[0].getStartTime());
-      ColumnBuilder[] columnBuilders = tsBlockBuilder.getValueColumnBuilders();
+  private void outputGroup(int groupIdx) {
+    Binary[] group = groupValues[groupIdx];
+    List<Aggregator> aggregators = groupedAggregators.get(groupIdx);
 
-      for (int i = 0; i < group.size(); i++) {
-        if (group.get(i) == null) {
-          columnBuilders[i].writeBinary(new Binary("NULL"));
-        } else {
-          columnBuilders[i].writeBinary(new Binary(group.get(i)));
-        }
-      }
-      for (int i = 0; i < aggregators.size(); i++) {
-        Aggregator aggregator = aggregators.get(i);
-        ColumnBuilder columnBuilder = columnBuilders[i + group.size()];
-        if (aggregator == null) {
-          columnBuilder.appendNull();
-        } else {
-          aggregator.outputResult(new ColumnBuilder[] {columnBuilder});
-        }
+    for (Aggregator aggregator : aggregators) {
+      if (aggregator == null) {
+        continue;
       }
-      tsBlockBuilder.declarePosition();
+      aggregator.reset();
+      aggregator.processTsBlocks(rowBlocks);
     }
 
-    // Reset dataReady for next iteration
-    for (int i = 0; i < children.size(); i++) {
-      consumedIndices[i]++;
+    TimeColumnBuilder timeColumnBuilder = tsBlockBuilder.getTimeColumnBuilder();
+    timeColumnBuilder.writeLong(rowBlocks[0].getStartTime());
+    ColumnBuilder[] columnBuilders = tsBlockBuilder.getValueColumnBuilders();
+
+    for (int i = 0; i < group.length; i++) {
+      columnBuilders[i].writeBinary(group[i]);
     }
-    return true;
+    for (int i = 0; i < aggregators.size(); i++) {
+      Aggregator aggregator = aggregators.get(i);
+      ColumnBuilder columnBuilder = columnBuilders[i + group.length];
+      if (aggregator == null) {
+        columnBuilder.appendNull();
+      } else {
+        aggregator.outputResult(new ColumnBuilder[] {columnBuilder});
+      }
+    }
+    tsBlockBuilder.declarePosition();
   }
 
   @Override
   public boolean hasNext() {
+    if (rowBlocks != null) {
+      return true;
+    }
     for (int i = 0; i < children.size(); i++) {
       if (dataUnavailable(i) && !children.get(i).hasNextWithTimer()) {
         return false;
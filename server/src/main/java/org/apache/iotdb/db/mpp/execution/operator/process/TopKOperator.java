@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.execution.operator.process;
+
+import org.apache.iotdb.db.mpp.execution.operator.Operator;
+import org.apache.iotdb.db.mpp.execution.operator.OperatorContext;
+import org.apache.iotdb.db.utils.datastructure.MergeSortKey;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
+import org.apache.iotdb.tsfile.read.common.block.column.ColumnBuilder;
+import org.apache.iotdb.tsfile.read.common.block.column.TimeColumnBuilder;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * TopKOperator outputs the first topValue rows of its child in the order of comparator. Different
+ * from SortOperator, it only keeps the current top rows in a bounded heap whose head is the worst
+ * of them, so its memory does not grow with the size of the input.
+ */
+public class TopKOperator implements ProcessOperator {
+  private final OperatorContext operatorContext;
+  private final Operator inputOperator;
+  private final TsBlockBuilder tsBlockBuilder;
+
+  private final int topValue;
+  private final Comparator<MergeSortKey> comparator;
+  private PriorityQueue<MergeSortKey> topKHeap;
+
+  public TopKOperator(
+      OperatorContext operatorContext,
+      Operator inputOperator,
+      List<TSDataType> dataTypes,
+      Comparator<MergeSortKey> comparator,
+      int topValue) {
+    this.operatorContext = operatorContext;
+    this.inputOperator = inputOperator;
+    this.tsBlockBuilder = new TsBlockBuilder(dataTypes);
+    this.topValue = topValue;
+    this.comparator = comparator;
+    this.topKHeap = new PriorityQueue<>(topValue, comparator.reversed());
+  }
+
+  @Override
+  public OperatorContext getOperatorContext() {
+    return operatorContext;
+  }
+
+  @Override
+  public ListenableFuture<?> isBlocked() {
+    return inputOperator.isBlocked();
+  }
+
+  @Override
+  public TsBlock next() {
+    TsBlock tsBlock = inputOperator.nextWithTimer();
+    if (tsBlock != null) {
+      boolean updated = false;
+      for (int i = 0; i < tsBlock.getPositionCount(); i++) {
+        MergeSortKey mergeSortKey = new MergeSortKey(tsBlock, i);
+        if (topKHeap.size() < topValue) {
+          topKHeap.add(mergeSortKey);
+          updated = true;
+        } else if (comparator.compare(mergeSortKey, topKHeap.peek()) < 0) {
+          topKHeap.poll();
+          topKHeap.add(mergeSortKey);
+          updated = true;
+        }
+      }
+      // copy the kept rows out so that the heap doesn't hold every TsBlock it has ever seen
+      if (updated) {
+        compactTopKHeap();
+      }
+    }
+    // child has more data, can't calculate
+    if (inputOperator.hasNextWithTimer()) {
+      return null;
+    }
+
+    List<MergeSortKey> sortedData = new ArrayList<>(topKHeap);
+    sortedData.sort(comparator);
+    TsBlock result = buildTsBlock(sortedData);
+    topKHeap = null;
+    return result;
+  }
+
+  private void compactTopKHeap() {
+    TsBlock tsBlock = buildTsBlock(topKHeap);
+    topKHeap.clear();
+    for (int i = 0; i < tsBlock.getPositionCount(); i++) {
+      topKHeap.add(new MergeSortKey(tsBlock, i));
+    }
+  }
+
+  private TsBlock buildTsBlock(Iterable<MergeSortKey> data) {
+    tsBlockBuilder.reset();
+    TimeColumnBuilder timeColumnBuilder = tsBlockBuilder.getTimeColumnBuilder();
+    ColumnBuilder[] valueColumnBuilders = tsBlockBuilder.getValueColumnBuilders();
+    for (MergeSortKey mergeSortKey : data) {
+      TsBlock tsBlock = mergeSortKey.tsBlock;
+      int row = mergeSortKey.rowIndex;
+      timeColumnBuilder.writeLong(tsBlock.getTimeByIndex(row));
+      for (int i = 0; i < valueColumnBuilders.length; i++) {
+        valueColumnBuilders[i].write(tsBlock.getColumn(i), row);
+      }
+      tsBlockBuilder.declarePosition();
+    }
+    return tsBlockBuilder.build();
+  }
+
+  @Override
+  public boolean hasNext() {
+    return inputOperator.hasNextWithTimer();
+  }
+
+  @Override
+  public void close() throws Exception {
+    inputOperator.close();
+  }
+
+  @Override
+  public boolean isFinished() {
+    return topKHeap == null;
+  }
+
+  @Override
+  public long calculateMaxPeekMemory() {
+    // the kept rows are at most as large as one TsBlock of input, and they are copied once more
+    // while compacting
+    return inputOperator.calculateMaxPeekMemory()
+        + inputOperator.calculateRetainedSizeAfterCallingNext()
+        + 2 * inputOperator.calculateMaxReturnSize();
+  }
+
+  @Override
+  public long calculateMaxReturnSize() {
+    return inputOperator.calculateMaxReturnSize();
+  }
+
+  @Override
+  public long calculateRetainedSizeAfterCallingNext() {
+    return inputOperator.calculateRetainedSizeAfterCallingNext()
+        + inputOperator.calculateMaxReturnSize();
+  }
+}
@@ -22,6 +22,7 @@ package org.apache.iotdb.db.mpp.execution.operator.schema;
 import org.apache.iotdb.commons.exception.MetadataException;
 import org.apache.iotdb.commons.path.PartialPath;
 import org.apache.iotdb.commons.path.PathPatternTree;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.metadata.schemaregion.ISchemaRegion;
 import org.apache.iotdb.db.metadata.template.Template;
 import org.apache.iotdb.db.mpp.common.schematree.ClusterSchemaTree;
@@ -115,13 +116,18 @@ public class SchemaFetchScanOperator implements SourceOperator {
     for (PartialPath path : partialPathList) {
       schemaTree.appendMeasurementPaths(schemaRegion.fetchSchema(path, templateMap, withTags));
     }
+    if (templateMap != null) {
+      // devices using template are shipped as template ids rather than full measurement lists
+      schemaTree.markTemplateEntities(templateMap);
+    }
 
     ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
     try {
-      // to indicate this binary data is database info
-      ReadWriteIOUtils.write((byte) 1, outputStream);
+      // to indicate this binary data is a compactly serialized schema tree
+      ReadWriteIOUtils.write((byte) 2, outputStream);
 
-      schemaTree.serialize(outputStream);
+      schemaTree.serializeCompactly(
+          outputStream, IoTDBDescriptor.getInstance().getConfig().getSchemaFetchCompressor());
     } catch (IOException e) {
       // Totally memory operation. This case won't happen.
     }
@@ -42,8 +42,22 @@ public class DeviceSchemaSource implements ISchemaSource<IDeviceSchemaInfo> {
 
   private final boolean hasSgCol;
 
+  private final int splitIndex;
+  private final int splitNum;
+
   DeviceSchemaSource(
       PartialPath pathPattern, boolean isPrefixPath, int limit, int offset, boolean hasSgCol) {
+    this(pathPattern, isPrefixPath, limit, offset, hasSgCol, 0, 1);
+  }
+
+  DeviceSchemaSource(
+      PartialPath pathPattern,
+      boolean isPrefixPath,
+      int limit,
+      int offset,
+      boolean hasSgCol,
+      int splitIndex,
+      int splitNum) {
     this.pathPattern = pathPattern;
     this.isPrefixMatch = isPrefixPath;
 
@@ -51,11 +65,19 @@ public class DeviceSchemaSource implements ISchemaSource<IDeviceSchemaInfo> {
     this.offset = offset;
 
     this.hasSgCol = hasSgCol;
+
+    this.splitIndex = splitIndex;
+    this.splitNum = splitNum;
   }
 
   @Override
   public ISchemaReader<IDeviceSchemaInfo> getSchemaReader(ISchemaRegion schemaRegion) {
     try {
+      if (splitNum > 1) {
+        return schemaRegion.getDeviceReader(
+            SchemaRegionReadPlanFactory.getShowDevicesPlan(
+                pathPattern, isPrefixMatch, splitIndex, splitNum));
+      }
       return schemaRegion.getDeviceReader(
           SchemaRegionReadPlanFactory.getShowDevicesPlan(
               pathPattern, limit, offset, isPrefixMatch));
@@ -56,6 +56,20 @@ public class SchemaSourceFactory {
         pathPattern, isPrefixMatch, limit, offset, key, value, isContains, templateMap);
   }
 
+  /**
+   * Get the source of one split of a whole region timeseries scan, refer to {@link
+   * org.apache.iotdb.db.metadata.plan.schemaregion.read.IShowSchemaPlan#getSplitNum()}
+   */
+  public static ISchemaSource<ITimeSeriesSchemaInfo> getTimeSeriesSchemaSource(
+      PartialPath pathPattern,
+      boolean isPrefixMatch,
+      Map<Integer, Template> templateMap,
+      int splitIndex,
+      int splitNum) {
+    return new TimeSeriesSchemaSource(
+        pathPattern, isPrefixMatch, 0, 0, null, null, false, templateMap, splitIndex, splitNum);
+  }
+
   public static ISchemaSource<IDeviceSchemaInfo> getDeviceSchemaSource(
       PartialPath pathPattern, boolean isPrefixPath) {
     return new DeviceSchemaSource(pathPattern, isPrefixPath, 0, 0, false);
@@ -66,6 +80,19 @@ public class SchemaSourceFactory {
     return new DeviceSchemaSource(pathPattern, isPrefixPath, limit, offset, hasSgCol);
   }
 
+  /**
+   * Get the source of one split of a whole region device scan, refer to {@link
+   * org.apache.iotdb.db.metadata.plan.schemaregion.read.IShowSchemaPlan#getSplitNum()}
+   */
+  public static ISchemaSource<IDeviceSchemaInfo> getDeviceSchemaSource(
+      PartialPath pathPattern,
+      boolean isPrefixPath,
+      boolean hasSgCol,
+      int splitIndex,
+      int splitNum) {
+    return new DeviceSchemaSource(pathPattern, isPrefixPath, 0, 0, hasSgCol, splitIndex, splitNum);
+  }
+
   public static ISchemaSource<INodeSchemaInfo> getNodeSchemaSource(
       PartialPath pathPattern, int level) {
     return new NodeSchemaSource(pathPattern, level);
@@ -50,6 +50,9 @@ public class TimeSeriesSchemaSource implements ISchemaSource<ITimeSeriesSchemaIn
 
   private final Map<Integer, Template> templateMap;
 
+  private final int splitIndex;
+  private final int splitNum;
+
   TimeSeriesSchemaSource(
       PartialPath pathPattern,
       boolean isPrefixMatch,
@@ -59,6 +62,20 @@ public class TimeSeriesSchemaSource implements ISchemaSource<ITimeSeriesSchemaIn
       String value,
       boolean isContains,
       Map<Integer, Template> templateMap) {
+    this(pathPattern, isPrefixMatch, limit, offset, key, value, isContains, templateMap, 0, 1);
+  }
+
+  TimeSeriesSchemaSource(
+      PartialPath pathPattern,
+      boolean isPrefixMatch,
+      int limit,
+      int offset,
+      String key,
+      String value,
+      boolean isContains,
+      Map<Integer, Template> templateMap,
+      int splitIndex,
+      int splitNum) {
     this.pathPattern = pathPattern;
     this.isPrefixMatch = isPrefixMatch;
 
@@ -70,11 +87,19 @@ public class TimeSeriesSchemaSource implements ISchemaSource<ITimeSeriesSchemaIn
     this.isContains = isContains;
 
     this.templateMap = templateMap;
+
+    this.splitIndex = splitIndex;
+    this.splitNum = splitNum;
   }
 
   @Override
   public ISchemaReader<ITimeSeriesSchemaInfo> getSchemaReader(ISchemaRegion schemaRegion) {
     try {
+      if (splitNum > 1) {
+        return schemaRegion.getTimeSeriesReader(
+            SchemaRegionReadPlanFactory.getShowTimeSeriesPlan(
+                pathPattern, templateMap, isPrefixMatch, splitIndex, splitNum));
+      }
       return schemaRegion.getTimeSeriesReader(
           SchemaRegionReadPlanFactory.getShowTimeSeriesPlan(
               pathPattern, templateMap, isContains, key, value, limit, offset, isPrefixMatch));
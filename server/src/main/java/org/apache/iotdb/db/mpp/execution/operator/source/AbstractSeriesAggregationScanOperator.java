@@ -19,6 +19,9 @@
 
 package org.apache.iotdb.db.mpp.execution.operator.source;
 
+import org.apache.iotdb.db.engine.cache.AggregationResultCache;
+import org.apache.iotdb.db.engine.cache.AggregationResultCache.WindowKey;
+import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
 import org.apache.iotdb.db.mpp.aggregation.Aggregator;
 import org.apache.iotdb.db.mpp.aggregation.timerangeiterator.ITimeRangeIterator;
 import org.apache.iotdb.db.mpp.execution.operator.OperatorContext;
@@ -30,6 +33,8 @@ import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.read.common.TimeRange;
 import org.apache.iotdb.tsfile.read.common.block.TsBlock;
 import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+import org.apache.iotdb.tsfile.read.common.block.column.ColumnBuilder;
 import org.apache.iotdb.tsfile.utils.Pair;
 
 import java.io.IOException;
@@ -60,6 +65,7 @@ public abstract class AbstractSeriesAggregationScanOperator extends AbstractData
   protected final List<Aggregator> aggregators;
 
   // using for building result tsBlock
+  private final List<TSDataType> resultDataTypes;
   protected final TsBlockBuilder resultTsBlockBuilder;
 
   protected boolean finished = false;
@@ -67,6 +73,13 @@ public abstract class AbstractSeriesAggregationScanOperator extends AbstractData
   private final long cachedRawDataSize;
   private final long maxReturnSize;
 
+  // used for caching the results of windows whose data is immutable, null if not cached
+  private String resultCacheSignature;
+  private String deviceId;
+  private QueryDataSource queryDataSource;
+  private WindowKey curWindowKey;
+  private TsBlockBuilder windowResultBuilder;
+
   protected AbstractSeriesAggregationScanOperator(
       PlanNodeId sourceId,
       OperatorContext context,
@@ -90,6 +103,7 @@ public abstract class AbstractSeriesAggregationScanOperator extends AbstractData
     for (Aggregator aggregator : aggregators) {
       dataTypes.addAll(Arrays.asList(aggregator.getOutputType()));
     }
+    this.resultDataTypes = dataTypes;
     this.resultTsBlockBuilder = new TsBlockBuilder(dataTypes);
 
     this.cachedRawDataSize =
@@ -97,6 +111,24 @@ public abstract class AbstractSeriesAggregationScanOperator extends AbstractData
     this.maxReturnSize = maxReturnSize;
   }
 
+  /**
+   * Enables caching the results of windows which only cover sealed sequence files.
+   *
+   * @param deviceId device of the scanned series
+   * @param signature see {@link AggregationResultCache#getSignature}
+   */
+  public void enableResultCache(String deviceId, String signature) {
+    this.deviceId = deviceId;
+    this.resultCacheSignature = signature;
+    this.windowResultBuilder = new TsBlockBuilder(1, resultDataTypes);
+  }
+
+  @Override
+  public void initQueryDataSource(QueryDataSource dataSource) {
+    super.initQueryDataSource(dataSource);
+    this.queryDataSource = dataSource;
+  }
+
   @Override
   public long calculateMaxPeekMemory() {
     return cachedRawDataSize + maxReturnSize;
@@ -153,6 +185,15 @@ public abstract class AbstractSeriesAggregationScanOperator extends AbstractData
   }
 
   protected void calculateNextAggregationResult() {
+    curWindowKey = getWindowKey();
+    if (curWindowKey != null) {
+      TsBlock cachedResult = AggregationResultCache.getInstance().get(curWindowKey);
+      if (cachedResult != null) {
+        appendCachedResult(cachedResult);
+        return;
+      }
+    }
+
     try {
       if (calcFromCachedData()) {
         updateResultTsBlock();
@@ -184,8 +225,44 @@ public abstract class AbstractSeriesAggregationScanOperator extends AbstractData
   }
 
   protected void updateResultTsBlock() {
-    appendAggregationResult(
-        resultTsBlockBuilder, aggregators, timeRangeIterator.currentOutputTime());
+    if (curWindowKey == null) {
+      appendAggregationResult(
+          resultTsBlockBuilder, aggregators, timeRangeIterator.currentOutputTime());
+      return;
+    }
+    // build the result of the window separately, so that it can be cached
+    appendAggregationResult(windowResultBuilder, aggregators, curTimeRange.getMin());
+    TsBlock windowResult = windowResultBuilder.build();
+    windowResultBuilder.reset();
+    AggregationResultCache.getInstance().put(curWindowKey, windowResult);
+    appendCachedResult(windowResult);
+  }
+
+  private WindowKey getWindowKey() {
+    if (resultCacheSignature == null || queryDataSource == null || !isGroupByQuery) {
+      return null;
+    }
+    return AggregationResultCache.getInstance()
+        .getKey(
+            resultCacheSignature,
+            deviceId,
+            queryDataSource,
+            seriesScanUtil.getTimeFilter(),
+            curTimeRange);
+  }
+
+  private void appendCachedResult(TsBlock windowResult) {
+    resultTsBlockBuilder.getTimeColumnBuilder().writeLong(timeRangeIterator.currentOutputTime());
+    ColumnBuilder[] columnBuilders = resultTsBlockBuilder.getValueColumnBuilders();
+    for (int i = 0; i < columnBuilders.length; i++) {
+      Column column = windowResult.getColumn(i);
+      if (column.isNull(0)) {
+        columnBuilders[i].appendNull();
+      } else {
+        columnBuilders[i].write(column, 0);
+      }
+    }
+    resultTsBlockBuilder.declarePosition();
   }
 
   protected boolean calcFromCachedData() {
@@ -199,6 +276,16 @@ public abstract class AbstractSeriesAggregationScanOperator extends AbstractData
     return calcResult.getLeft();
   }
 
+  // false if any aggregator cannot be calculated from the statistics, e.g. approx_percentile
+  protected boolean canUseStatistics(Statistics[] statistics) {
+    for (Aggregator aggregator : aggregators) {
+      if (!aggregator.hasFinalResult() && !aggregator.canUseStatistics(statistics)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   protected void calcFromStatistics(Statistics[] statistics) {
     for (Aggregator aggregator : aggregators) {
       if (aggregator.hasFinalResult()) {
@@ -220,6 +307,11 @@ public abstract class AbstractSeriesAggregationScanOperator extends AbstractData
             continue;
           }
         }
+        // data of earlier windows, which are skipped or answered by the result cache
+        if (ascending && fileTimeStatistics.getEndTime() < curTimeRange.getMin()) {
+          seriesScanUtil.skipCurrentFile();
+          continue;
+        }
         // calc from fileMetaData
         if (curTimeRange.contains(
             fileTimeStatistics.getStartTime(), fileTimeStatistics.getEndTime())) {
@@ -227,12 +319,14 @@ public abstract class AbstractSeriesAggregationScanOperator extends AbstractData
           for (int i = 0; i < subSensorSize; i++) {
             statisticsList[i] = seriesScanUtil.currentFileStatistics(i);
           }
-          calcFromStatistics(statisticsList);
-          seriesScanUtil.skipCurrentFile();
-          if (isAllAggregatorsHasFinalResult(aggregators) && !isGroupByQuery) {
-            return true;
-          } else {
-            continue;
+          if (canUseStatistics(statisticsList)) {
+            calcFromStatistics(statisticsList);
+            seriesScanUtil.skipCurrentFile();
+            if (isAllAggregatorsHasFinalResult(aggregators) && !isGroupByQuery) {
+              return true;
+            } else {
+              continue;
+            }
           }
         }
       }
@@ -258,6 +352,11 @@ public abstract class AbstractSeriesAggregationScanOperator extends AbstractData
             continue;
           }
         }
+        // data of earlier windows, which are skipped or answered by the result cache
+        if (ascending && chunkTimeStatistics.getEndTime() < curTimeRange.getMin()) {
+          seriesScanUtil.skipCurrentChunk();
+          continue;
+        }
         // calc from chunkMetaData
         if (curTimeRange.contains(
             chunkTimeStatistics.getStartTime(), chunkTimeStatistics.getEndTime())) {
@@ -266,12 +365,14 @@ public abstract class AbstractSeriesAggregationScanOperator extends AbstractData
           for (int i = 0; i < subSensorSize; i++) {
             statisticsList[i] = seriesScanUtil.currentChunkStatistics(i);
           }
-          calcFromStatistics(statisticsList);
-          seriesScanUtil.skipCurrentChunk();
-          if (isAllAggregatorsHasFinalResult(aggregators) && !isGroupByQuery) {
-            return true;
-          } else {
-            continue;
+          if (canUseStatistics(statisticsList)) {
+            calcFromStatistics(statisticsList);
+            seriesScanUtil.skipCurrentChunk();
+            if (isAllAggregatorsHasFinalResult(aggregators) && !isGroupByQuery) {
+              return true;
+            } else {
+              continue;
+            }
           }
         }
       }
@@ -297,6 +398,11 @@ public abstract class AbstractSeriesAggregationScanOperator extends AbstractData
             continue;
           }
         }
+        // data of earlier windows, which are skipped or answered by the result cache
+        if (ascending && pageTimeStatistics.getEndTime() < curTimeRange.getMin()) {
+          seriesScanUtil.skipCurrentPage();
+          continue;
+        }
         // can use pageHeader
         if (curTimeRange.contains(
             pageTimeStatistics.getStartTime(), pageTimeStatistics.getEndTime())) {
@@ -304,12 +410,14 @@ public abstract class AbstractSeriesAggregationScanOperator extends AbstractData
           for (int i = 0; i < subSensorSize; i++) {
             statisticsList[i] = seriesScanUtil.currentPageStatistics(i);
           }
-          calcFromStatistics(statisticsList);
-          seriesScanUtil.skipCurrentPage();
-          if (isAllAggregatorsHasFinalResult(aggregators) && !isGroupByQuery) {
-            return true;
-          } else {
-            continue;
+          if (canUseStatistics(statisticsList)) {
+            calcFromStatistics(statisticsList);
+            seriesScanUtil.skipCurrentPage();
+            if (isAllAggregatorsHasFinalResult(aggregators) && !isGroupByQuery) {
+              return true;
+            } else {
+              continue;
+            }
           }
         }
       }
@@ -1039,13 +1039,10 @@ public class SeriesScanUtil {
   }
 
   private void unpackSeqTsFileResource() throws IOException {
+    TsFileResource resource = orderUtils.getNextSeqFileResource(true);
+    resource.increaseReadCount();
     ITimeSeriesMetadata timeseriesMetadata =
-        loadTimeSeriesMetadata(
-            orderUtils.getNextSeqFileResource(true),
-            seriesPath,
-            context,
-            getAnyFilter(),
-            allSensors);
+        loadTimeSeriesMetadata(resource, seriesPath, context, getAnyFilter(), allSensors);
     if (timeseriesMetadata != null) {
       timeseriesMetadata.setSeq(true);
       seqTimeSeriesMetadata.add(timeseriesMetadata);
@@ -1053,13 +1050,10 @@ public class SeriesScanUtil {
   }
 
   private void unpackUnseqTsFileResource() throws IOException {
+    TsFileResource resource = orderUtils.getNextUnseqFileResource(true);
+    resource.increaseReadCount();
     ITimeSeriesMetadata timeseriesMetadata =
-        loadTimeSeriesMetadata(
-            orderUtils.getNextUnseqFileResource(true),
-            seriesPath,
-            context,
-            getAnyFilter(),
-            allSensors);
+        loadTimeSeriesMetadata(resource, seriesPath, context, getAnyFilter(), allSensors);
     if (timeseriesMetadata != null) {
       timeseriesMetadata.setModified(true);
       timeseriesMetadata.setSeq(false);
@@ -78,6 +78,31 @@ public class TimeWindow implements IWindow {
     return curTimeRange.contains(minTime, maxTime);
   }
 
+  /**
+   * Returns how many leading points of the time column belong to this window. The time column is
+   * sorted, so the boundary is found by binary search instead of checking every point.
+   */
+  public int getLeadingPointCount(TimeColumn timeColumn) {
+    int positionCount = timeColumn.getPositionCount();
+    if (positionCount == 0 || !satisfy(timeColumn, 0)) {
+      return 0;
+    }
+    boolean ascending = timeColumn.getStartTime() <= timeColumn.getEndTime();
+    // the first point out of this window is in [low, high]
+    int low = 1;
+    int high = positionCount;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      long time = timeColumn.getLongWithoutCheck(mid);
+      if (ascending ? time <= getCurMaxTime() : time >= getCurMinTime()) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
   public void update(TimeRange curTimeRange) {
     this.curTimeRange = curTimeRange;
   }
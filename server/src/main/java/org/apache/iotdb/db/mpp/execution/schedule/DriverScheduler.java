@@ -90,7 +90,8 @@ public class DriverScheduler implements IDriverScheduler, IService {
 
   private DriverScheduler() {
     this.readyQueue =
-        new MultilevelPriorityQueue(LEVEL_TIME_MULTIPLIER, TASK_MAX_CAPACITY, new DriverTask());
+        new MultilevelPriorityQueue(
+            LEVEL_TIME_MULTIPLIER, TASK_MAX_CAPACITY, new DriverTask(), WORKER_THREAD_NUM);
     this.timeoutQueue =
         new L1PriorityQueue<>(
             QUERY_MAX_CAPACITY, new DriverTask.TimeoutComparator(), new DriverTask());
@@ -19,20 +19,32 @@
 
 package org.apache.iotdb.db.mpp.execution.schedule.queue.multilevelqueue;
 
+import org.apache.iotdb.db.mpp.execution.schedule.queue.ID;
 import org.apache.iotdb.db.mpp.execution.schedule.queue.IndexedBlockingReserveQueue;
 import org.apache.iotdb.db.mpp.execution.schedule.task.DriverTask;
 
-import java.util.PriorityQueue;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static com.google.common.base.Preconditions.checkArgument;
-import static com.google.common.base.Preconditions.checkState;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
  * This class is inspired by Trino <a
  * href="https://github.com/trinodb/trino/blob/master/core/trino-main/src/main/java/io/trino/execution/executor/MultilevelSplitQueue.java">...</a>
+ *
+ * <p>The waiting tasks of each level are split into one shard per worker thread, and all of them
+ * are lock-free. A worker pushes the tasks it yields to its own shard and polls its own shard
+ * first, it steals from the shards of other workers only when its own shard of the chosen level is
+ * empty. The level is still chosen globally, so the fairness between levels is kept, while the
+ * order in one level is kept per shard. Only idle workers take a lock to wait for new tasks.
  */
 public class MultilevelPriorityQueue extends IndexedBlockingReserveQueue<DriverTask> {
   /** Scheduled time threshold of TASK in each level */
@@ -41,7 +53,34 @@ public class MultilevelPriorityQueue extends IndexedBlockingReserveQueue<DriverT
   /** the upper limit one Task can contribute to its level in one scheduled time */
   static final long LEVEL_CONTRIBUTION_CAP = SECONDS.toNanos(30);
 
-  private final PriorityQueue<DriverTask>[] levelWaitingSplits;
+  /** Waiting tasks of each level and each shard, indexed by [level][shard]. */
+  private final ConcurrentSkipListSet<DriverTask>[][] levelWaitingSplits;
+
+  /** Number of waiting tasks in each level. */
+  private final AtomicInteger[] levelWaitingSplitNum;
+
+  /** All the waiting tasks, used to access a task by its id. */
+  private final Map<ID, DriverTask> waitingTasks = new ConcurrentHashMap<>();
+
+  private final AtomicInteger waitingTaskNum = new AtomicInteger(0);
+
+  /**
+   * Number of waiting tasks plus the tasks which are polled out for running or blocked and will be
+   * pushed again. A push reserves its slot here before inserting, so MAX_CAPACITY is never exceeded
+   * by concurrent pushes.
+   */
+  private final AtomicInteger occupiedTaskNum = new AtomicInteger(0);
+
+  private final int shardNum;
+
+  private final AtomicInteger nextWorkerShard = new AtomicInteger(0);
+
+  /** The shard of each worker thread, it is assigned when the thread polls for the first time. */
+  private final ThreadLocal<Integer> workerShard = new ThreadLocal<>();
+
+  private final ReentrantLock idleLock = new ReentrantLock();
+  private final Condition notEmpty = idleLock.newCondition();
+  private final AtomicInteger idleWorkerNum = new AtomicInteger(0);
 
   /**
    * Total amount of time each LEVEL has occupied, which decides which level we will take task from.
@@ -61,18 +100,139 @@ public class MultilevelPriorityQueue extends IndexedBlockingReserveQueue<DriverT
 
   public MultilevelPriorityQueue(
       double levelTimeMultiplier, int maxCapacity, DriverTask queryHolder) {
+    this(levelTimeMultiplier, maxCapacity, queryHolder, 1);
+  }
+
+  public MultilevelPriorityQueue(
+      double levelTimeMultiplier, int maxCapacity, DriverTask queryHolder, int workerNum) {
     super(maxCapacity, queryHolder);
+    checkArgument(workerNum > 0, "workerNum should be positive");
+    this.shardNum = workerNum;
     this.levelScheduledTime = new AtomicLong[LEVEL_THRESHOLD_SECONDS.length];
     this.levelMinScheduledTime = new AtomicLong[LEVEL_THRESHOLD_SECONDS.length];
-    this.levelWaitingSplits = new PriorityQueue[LEVEL_THRESHOLD_SECONDS.length];
+    this.levelWaitingSplits = new ConcurrentSkipListSet[LEVEL_THRESHOLD_SECONDS.length][shardNum];
+    this.levelWaitingSplitNum = new AtomicInteger[LEVEL_THRESHOLD_SECONDS.length];
     for (int level = 0; level < LEVEL_THRESHOLD_SECONDS.length; level++) {
       levelScheduledTime[level] = new AtomicLong();
       levelMinScheduledTime[level] = new AtomicLong(-1);
-      levelWaitingSplits[level] = new PriorityQueue<>(new DriverTask.SchedulePriorityComparator());
+      levelWaitingSplitNum[level] = new AtomicInteger(0);
+      for (int shard = 0; shard < shardNum; shard++) {
+        levelWaitingSplits[level][shard] =
+            new ConcurrentSkipListSet<>(new DriverTask.SchedulePriorityComparator());
+      }
     }
     this.levelTimeMultiplier = levelTimeMultiplier;
   }
 
+  /**
+   * Get and remove a task. If the queue is empty, this call will be blocked until a task has been
+   * pushed. Reserve space for this polled task.
+   *
+   * @return the polled task.
+   */
+  @Override
+  public DriverTask poll() throws InterruptedException {
+    while (true) {
+      DriverTask task = pollFirst();
+      if (task != null) {
+        // the slot of the task is kept until it is repushed or its reserved size is decreased
+        return task;
+      }
+      idleLock.lockInterruptibly();
+      try {
+        idleWorkerNum.incrementAndGet();
+        try {
+          while (waitingTaskNum.get() == 0) {
+            notEmpty.await();
+          }
+        } finally {
+          idleWorkerNum.decrementAndGet();
+        }
+      } finally {
+        idleLock.unlock();
+      }
+    }
+  }
+
+  @Override
+  public void push(DriverTask task) {
+    if (task == null) {
+      throw new NullPointerException("pushed element is null");
+    }
+    if (occupiedTaskNum.incrementAndGet() > MAX_CAPACITY) {
+      occupiedTaskNum.decrementAndGet();
+      throw new IllegalStateException("The system can't allow more query tasks.");
+    }
+    try {
+      pushToQueue(task);
+    } catch (RuntimeException e) {
+      occupiedTaskNum.decrementAndGet();
+      throw e;
+    }
+    signalIdleWorker();
+  }
+
+  @Override
+  public void repush(DriverTask task) {
+    if (task == null) {
+      throw new NullPointerException("pushed element is null");
+    }
+    pushToQueue(task);
+    signalIdleWorker();
+  }
+
+  @Override
+  public void decreaseReservedSize() {
+    occupiedTaskNum.decrementAndGet();
+  }
+
+  @Override
+  public DriverTask remove(ID id) {
+    DriverTask task = waitingTasks.get(id);
+    return task == null ? null : remove(task);
+  }
+
+  @Override
+  public DriverTask get(ID id) {
+    return waitingTasks.get(id);
+  }
+
+  @Override
+  public void clear() {
+    clearAllElements();
+  }
+
+  @Override
+  public int size() {
+    return waitingTaskNum.get();
+  }
+
+  private void signalIdleWorker() {
+    if (idleWorkerNum.get() > 0) {
+      idleLock.lock();
+      try {
+        notEmpty.signal();
+      } finally {
+        idleLock.unlock();
+      }
+    }
+  }
+
+  /** Tasks pushed by worker threads go to their own shards, others go to a random shard. */
+  private int getPushShard() {
+    Integer shard = workerShard.get();
+    return shard != null ? shard : ThreadLocalRandom.current().nextInt(shardNum);
+  }
+
+  private int getPollShard() {
+    Integer shard = workerShard.get();
+    if (shard == null) {
+      shard = Math.floorMod(nextWorkerShard.getAndIncrement(), shardNum);
+      workerShard.set(shard);
+    }
+    return shard;
+  }
+
   /**
    * During periods of time when a level has no waiting splits, it will not accumulate scheduled
    * time and will fall behind relative to other levels.
@@ -88,7 +248,7 @@ public class MultilevelPriorityQueue extends IndexedBlockingReserveQueue<DriverT
     checkArgument(task != null, "DriverTask to be pushed is null");
 
     int level = task.getPriority().getLevel();
-    if (levelWaitingSplits[level].isEmpty()) {
+    if (levelWaitingSplitNum[level].get() == 0) {
       // Accesses to levelScheduledTime are not synchronized, so we have a data race
       // here - our level time math will be off. However, the staleness is bounded by
       // the fact that only running splits that complete during this computation
@@ -98,13 +258,29 @@ public class MultilevelPriorityQueue extends IndexedBlockingReserveQueue<DriverT
       long delta = levelExpectedTime - levelScheduledTime[level].get();
       levelScheduledTime[level].addAndGet(delta);
     }
-    levelWaitingSplits[level].offer(task);
+    waitingTasks.put(task.getDriverTaskId(), task);
+    levelWaitingSplits[level][getPushShard()].add(task);
+    levelWaitingSplitNum[level].incrementAndGet();
+    waitingTaskNum.incrementAndGet();
   }
 
+  /** @return the polled task, or null if there is no waiting task. */
+  @Override
   protected DriverTask pollFirst() {
-    DriverTask result;
-    while (true) {
-      result = chooseLevelAndTask();
+    int shard = getPollShard();
+    while (waitingTaskNum.get() > 0) {
+      int selectedLevel = chooseLevel();
+      if (selectedLevel == -1) {
+        return null;
+      }
+      DriverTask result = pollFromLevel(selectedLevel, shard);
+      if (result == null) {
+        // the tasks of selected level have been taken by other workers
+        continue;
+      }
+      waitingTasks.remove(result.getDriverTaskId(), result);
+      levelWaitingSplitNum[selectedLevel].decrementAndGet();
+      waitingTaskNum.decrementAndGet();
       if (result.updatePriority()) {
         // result.updatePriority() returns true means that the Priority of DriverTaskHandle the
         // result belongs to has changed.
@@ -113,10 +289,10 @@ public class MultilevelPriorityQueue extends IndexedBlockingReserveQueue<DriverT
         pushToQueue(result);
         continue;
       }
-      int selectedLevel = result.getPriority().getLevel();
       levelMinScheduledTime[selectedLevel].set(result.getPriority().getLevelScheduledTime());
       return result;
     }
+    return null;
   }
 
   /**
@@ -124,15 +300,16 @@ public class MultilevelPriorityQueue extends IndexedBlockingReserveQueue<DriverT
    * levelTimeMultiplier.
    *
    * <p>This function selects the level that has the lowest ratio of actual to the target time with
-   * the objective of minimizing deviation from the target scheduled time. From this level, we pick
-   * the DriverTask with the lowest scheduled time.
+   * the objective of minimizing deviation from the target scheduled time.
+   *
+   * @return the selected level, -1 if all levels are empty.
    */
-  private DriverTask chooseLevelAndTask() {
+  private int chooseLevel() {
     long targetScheduledTime = getLevel0TargetTime();
     double worstRatio = 1;
     int selectedLevel = -1;
     for (int level = 0; level < LEVEL_THRESHOLD_SECONDS.length; level++) {
-      if (!levelWaitingSplits[level].isEmpty()) {
+      if (levelWaitingSplitNum[level].get() > 0) {
         long levelTime = levelScheduledTime[level].get();
         double ratio = levelTime == 0 ? 0 : targetScheduledTime / (1.0 * levelTime);
         if (selectedLevel == -1 || ratio > worstRatio) {
@@ -143,59 +320,63 @@ public class MultilevelPriorityQueue extends IndexedBlockingReserveQueue<DriverT
 
       targetScheduledTime /= levelTimeMultiplier;
     }
+    return selectedLevel;
+  }
 
-    // selected level == -1 means that the queue is empty and this method is only called when the
-    // queue is not empty.
-    checkState(selectedLevel != -1, "selected level can not equal to -1");
-    DriverTask result = levelWaitingSplits[selectedLevel].poll();
-    checkState(result != null, "result driverTask cannot be null");
+  /**
+   * Poll the DriverTask with the lowest scheduled time from the given shard of the level, or steal
+   * one from other shards of the level if the given shard is empty.
+   */
+  private DriverTask pollFromLevel(int level, int shard) {
+    DriverTask result = levelWaitingSplits[level][shard].pollFirst();
+    for (int i = 1; result == null && i < shardNum; i++) {
+      result = levelWaitingSplits[level][(shard + i) % shardNum].pollFirst();
+    }
     return result;
   }
 
   @Override
   protected DriverTask remove(DriverTask driverTask) {
     checkArgument(driverTask != null, "driverTask is null");
-    for (PriorityQueue<DriverTask> level : levelWaitingSplits) {
-      if (level.remove(driverTask)) {
-        break;
+    // the priority of a task is not changed while it is in the queue
+    int level = driverTask.getPriority().getLevel();
+    for (ConcurrentSkipListSet<DriverTask> shard : levelWaitingSplits[level]) {
+      if (shard.remove(driverTask)) {
+        waitingTasks.remove(driverTask.getDriverTaskId(), driverTask);
+        levelWaitingSplitNum[level].decrementAndGet();
+        waitingTaskNum.decrementAndGet();
+        occupiedTaskNum.decrementAndGet();
+        return driverTask;
       }
     }
-    return driverTask;
+    return null;
   }
 
   @Override
   protected boolean isEmpty() {
-    for (PriorityQueue<DriverTask> level : levelWaitingSplits) {
-      if (!level.isEmpty()) {
-        return false;
-      }
-    }
-    return true;
+    return waitingTaskNum.get() == 0;
   }
 
   @Override
   protected boolean contains(DriverTask driverTask) {
-    for (PriorityQueue<DriverTask> level : levelWaitingSplits) {
-      if (level.contains(driverTask)) {
-        return true;
-      }
-    }
-    return false;
+    return waitingTasks.containsKey(driverTask.getDriverTaskId());
   }
 
   @Override
   protected DriverTask get(DriverTask driverTask) {
-    // We do not support get() for MultilevelPriorityQueue since it is inefficient and not
-    // necessary.
-    throw new UnsupportedOperationException(
-        "MultilevelPriorityQueue does not support access element by get.");
+    return waitingTasks.get(driverTask.getDriverTaskId());
   }
 
   @Override
   protected void clearAllElements() {
-    for (PriorityQueue<DriverTask> level : levelWaitingSplits) {
-      level.clear();
+    for (int level = 0; level < LEVEL_THRESHOLD_SECONDS.length; level++) {
+      for (ConcurrentSkipListSet<DriverTask> shard : levelWaitingSplits[level]) {
+        shard.clear();
+      }
+      levelWaitingSplitNum[level].set(0);
     }
+    waitingTasks.clear();
+    occupiedTaskNum.addAndGet(-waitingTaskNum.getAndSet(0));
   }
 
   /**
@@ -208,7 +389,7 @@ public class MultilevelPriorityQueue extends IndexedBlockingReserveQueue<DriverT
    *
    * @return the expected scheduled time of LEVEL0
    */
-  private synchronized long getLevel0TargetTime() {
+  private long getLevel0TargetTime() {
     long level0TargetTime = levelScheduledTime[0].get();
     double currentMultiplier = levelTimeMultiplier;
 
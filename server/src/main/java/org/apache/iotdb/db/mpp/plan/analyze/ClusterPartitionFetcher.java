@@ -288,6 +288,15 @@ public class ClusterPartitionFetcher implements IPartitionFetcher {
     return partitionCache.updateGroupIdToReplicaSetMap(req.getTimestamp(), req.getRegionRouteMap());
   }
 
+  /**
+   * get the databases of given devices from database cache only
+   *
+   * @return device to database, devices missing in cache may be absent
+   */
+  public Map<String, String> getCachedDeviceToDatabase(List<String> devicePaths) {
+    return partitionCache.getDeviceToStorageGroup(devicePaths, false, false);
+  }
+
   @Override
   public void invalidAllCache() {
     partitionCache.invalidAllCache();
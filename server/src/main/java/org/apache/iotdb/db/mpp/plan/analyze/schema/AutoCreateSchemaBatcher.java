@@ -0,0 +1,370 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.mpp.plan.analyze.schema;
+
+import org.apache.iotdb.common.rpc.thrift.TSStatus;
+import org.apache.iotdb.commons.exception.IoTDBException;
+import org.apache.iotdb.commons.exception.MetadataException;
+import org.apache.iotdb.commons.path.MeasurementPath;
+import org.apache.iotdb.commons.path.PartialPath;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.exception.sql.SemanticException;
+import org.apache.iotdb.db.mpp.plan.execution.ExecutionResult;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.metedata.write.MeasurementGroup;
+import org.apache.iotdb.db.mpp.plan.statement.Statement;
+import org.apache.iotdb.db.mpp.plan.statement.internal.InternalCreateMultiTimeSeriesStatement;
+import org.apache.iotdb.rpc.TSStatusCode;
+import org.apache.iotdb.tsfile.utils.Pair;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Merges the timeseries auto-creation requests of concurrent insertions into one {@link
+ * InternalCreateMultiTimeSeriesStatement}, so that a burst of writes to new devices costs one
+ * schema region write per batch instead of one per insertion.
+ *
+ * <p>The first request arriving when no batch is in flight becomes the leader. It waits for the
+ * batch window, takes the queued requests, executes them as one statement and hands the results
+ * back to their owners. When its own request is done, the leadership passes to the oldest queued
+ * request, if any.
+ */
+class AutoCreateSchemaBatcher {
+
+  private static final Logger logger = LoggerFactory.getLogger(AutoCreateSchemaBatcher.class);
+
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
+  private final Function<Statement, ExecutionResult> statementExecutor;
+
+  private final ArrayDeque<Request> pendingRequests = new ArrayDeque<>();
+
+  private boolean hasLeader = false;
+
+  AutoCreateSchemaBatcher(Function<Statement, ExecutionResult> statementExecutor) {
+    this.statementExecutor = statementExecutor;
+  }
+
+  /**
+   * Create the given timeseries, possibly together with the ones requested by other threads.
+   *
+   * @return the timeseries that already existed, with their existing schema
+   * @throws SemanticException if some of the given timeseries failed to be created
+   */
+  List<MeasurementPath> createTimeSeries(
+      Map<PartialPath, Pair<Boolean, MeasurementGroup>> devicesNeedAutoCreateTimeSeries) {
+    Request request = new Request(devicesNeedAutoCreateTimeSeries);
+    boolean interrupted = false;
+    synchronized (this) {
+      pendingRequests.add(request);
+      if (hasLeader) {
+        while (!request.isDone && !request.isLeader) {
+          try {
+            wait();
+          } catch (InterruptedException e) {
+            // the request may already be in flight, so it has to be waited for anyway
+            interrupted = true;
+          }
+        }
+      } else {
+        hasLeader = true;
+        request.isLeader = true;
+      }
+    }
+    if (!request.isDone) {
+      lead(request);
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    return request.getResult();
+  }
+
+  private void lead(Request request) {
+    try {
+      while (!request.isDone) {
+        waitForBatchWindow();
+        Map<PartialPath, Pair<Boolean, MeasurementGroup>> mergedDevices = new HashMap<>();
+        List<Request> batch = pollBatch(mergedDevices);
+        try {
+          executeBatch(batch, mergedDevices);
+        } finally {
+          synchronized (this) {
+            for (Request finishedRequest : batch) {
+              if (!finishedRequest.isDone) {
+                finishedRequest.fail(
+                    new RuntimeException("Batch of timeseries auto-creation aborted"));
+              }
+            }
+            notifyAll();
+          }
+        }
+      }
+    } finally {
+      synchronized (this) {
+        Request next = pendingRequests.peek();
+        if (next == null) {
+          hasLeader = false;
+        } else {
+          next.isLeader = true;
+          notifyAll();
+        }
+      }
+    }
+  }
+
+  private void waitForBatchWindow() {
+    long batchWindowInMs = config.getAutoCreateSchemaBatchWindowInMs();
+    if (batchWindowInMs <= 0) {
+      return;
+    }
+    try {
+      TimeUnit.MILLISECONDS.sleep(batchWindowInMs);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Take queued requests in arrival order until the batch is full. Requests conflicting with the
+   * batch, i.e. asking for a different alignment or a different schema of the same timeseries, are
+   * left for a later batch so that each of them still sees the schema that is actually created.
+   */
+  private synchronized List<Request> pollBatch(
+      Map<PartialPath, Pair<Boolean, MeasurementGroup>> mergedDevices) {
+    int maxBatchSize = config.getAutoCreateSchemaMaxBatchSize();
+    Map<PartialPath, Map<String, Integer>> measurementIndexMap = new HashMap<>();
+    List<Request> batch = new ArrayList<>();
+    int batchSize = 0;
+    Iterator<Request> iterator = pendingRequests.iterator();
+    while (iterator.hasNext()) {
+      Request request = iterator.next();
+      if (!batch.isEmpty() && batchSize + request.size > maxBatchSize) {
+        break;
+      }
+      if (isConflicting(request, mergedDevices, measurementIndexMap)) {
+        continue;
+      }
+      iterator.remove();
+      batch.add(request);
+      batchSize += request.size;
+      merge(request, mergedDevices, measurementIndexMap);
+    }
+    return batch;
+  }
+
+  private boolean isConflicting(
+      Request request,
+      Map<PartialPath, Pair<Boolean, MeasurementGroup>> mergedDevices,
+      Map<PartialPath, Map<String, Integer>> measurementIndexMap) {
+    for (Map.Entry<PartialPath, Pair<Boolean, MeasurementGroup>> entry :
+        request.devices.entrySet()) {
+      Pair<Boolean, MeasurementGroup> merged = mergedDevices.get(entry.getKey());
+      if (merged == null) {
+        continue;
+      }
+      if (!merged.left.equals(entry.getValue().left)) {
+        return true;
+      }
+      Map<String, Integer> measurementIndex = measurementIndexMap.get(entry.getKey());
+      MeasurementGroup measurementGroup = entry.getValue().right;
+      for (int i = 0, size = measurementGroup.size(); i < size; i++) {
+        Integer index = measurementIndex.get(measurementGroup.getMeasurements().get(i));
+        if (index != null && !isSameSchema(merged.right, index, measurementGroup, i)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private boolean isSameSchema(
+      MeasurementGroup group, int index, MeasurementGroup otherGroup, int otherIndex) {
+    return group.getDataTypes().get(index) == otherGroup.getDataTypes().get(otherIndex)
+        && group.getEncodings().get(index) == otherGroup.getEncodings().get(otherIndex)
+        && group.getCompressors().get(index) == otherGroup.getCompressors().get(otherIndex);
+  }
+
+  private void merge(
+      Request request,
+      Map<PartialPath, Pair<Boolean, MeasurementGroup>> mergedDevices,
+      Map<PartialPath, Map<String, Integer>> measurementIndexMap) {
+    for (Map.Entry<PartialPath, Pair<Boolean, MeasurementGroup>> entry :
+        request.devices.entrySet()) {
+      MeasurementGroup merged =
+          mergedDevices
+              .computeIfAbsent(
+                  entry.getKey(), k -> new Pair<>(entry.getValue().left, new MeasurementGroup()))
+              .right;
+      Map<String, Integer> measurementIndex =
+          measurementIndexMap.computeIfAbsent(entry.getKey(), k -> new HashMap<>());
+      MeasurementGroup measurementGroup = entry.getValue().right;
+      for (int i = 0, size = measurementGroup.size(); i < size; i++) {
+        String measurement = measurementGroup.getMeasurements().get(i);
+        if (measurementIndex.containsKey(measurement)) {
+          continue;
+        }
+        measurementIndex.put(measurement, merged.size());
+        merged.addMeasurement(
+            measurement,
+            measurementGroup.getDataTypes().get(i),
+            measurementGroup.getEncodings().get(i),
+            measurementGroup.getCompressors().get(i));
+      }
+    }
+  }
+
+  private void executeBatch(
+      List<Request> batch, Map<PartialPath, Pair<Boolean, MeasurementGroup>> mergedDevices) {
+    if (batch.size() == 1) {
+      executeSingleRequest(batch.get(0));
+      return;
+    }
+
+    List<MeasurementPath> alreadyExistingMeasurements;
+    try {
+      alreadyExistingMeasurements = executeInternalCreateTimeSeriesStatement(mergedDevices);
+    } catch (RuntimeException e) {
+      // failures can't be attributed to the requests of the batch, retry them one by one and let
+      // each request see its own failure
+      logger.info(
+          "Failed to auto create timeseries of {} requests in one batch, retry them one by one",
+          batch.size(),
+          e);
+      for (Request request : batch) {
+        executeSingleRequest(request);
+      }
+      return;
+    }
+
+    for (Request request : batch) {
+      request.complete(request.filter(alreadyExistingMeasurements));
+    }
+  }
+
+  private void executeSingleRequest(Request request) {
+    try {
+      request.complete(executeInternalCreateTimeSeriesStatement(request.devices));
+    } catch (RuntimeException e) {
+      request.fail(e);
+    }
+  }
+
+  // auto create timeseries and return the existing timeseries info
+  private List<MeasurementPath> executeInternalCreateTimeSeriesStatement(
+      Map<PartialPath, Pair<Boolean, MeasurementGroup>> devicesNeedAutoCreateTimeSeries) {
+    ExecutionResult executionResult =
+        statementExecutor.apply(
+            new InternalCreateMultiTimeSeriesStatement(devicesNeedAutoCreateTimeSeries));
+
+    int statusCode = executionResult.status.getCode();
+    if (statusCode == TSStatusCode.SUCCESS_STATUS.getStatusCode()) {
+      return Collections.emptyList();
+    }
+
+    if (statusCode != TSStatusCode.MULTIPLE_ERROR.getStatusCode()) {
+      throw new RuntimeException(
+          new IoTDBException(executionResult.status.getMessage(), statusCode));
+    }
+
+    Set<String> failedCreationSet = new HashSet<>();
+    List<MeasurementPath> alreadyExistingMeasurements = new ArrayList<>();
+    for (TSStatus subStatus : executionResult.status.subStatus) {
+      if (subStatus.code == TSStatusCode.TIMESERIES_ALREADY_EXIST.getStatusCode()) {
+        alreadyExistingMeasurements.add(
+            MeasurementPath.parseDataFromString(subStatus.getMessage()));
+      } else {
+        failedCreationSet.add(subStatus.message);
+      }
+    }
+
+    if (!failedCreationSet.isEmpty()) {
+      throw new SemanticException(new MetadataException(String.join("; ", failedCreationSet)));
+    }
+
+    return alreadyExistingMeasurements;
+  }
+
+  private static class Request {
+
+    private final Map<PartialPath, Pair<Boolean, MeasurementGroup>> devices;
+
+    private final int size;
+
+    private boolean isLeader = false;
+
+    private volatile boolean isDone = false;
+
+    private List<MeasurementPath> alreadyExistingMeasurements;
+
+    private RuntimeException failure;
+
+    private Request(Map<PartialPath, Pair<Boolean, MeasurementGroup>> devices) {
+      this.devices = devices;
+      int size = 0;
+      for (Pair<Boolean, MeasurementGroup> value : devices.values()) {
+        size += value.right.size();
+      }
+      this.size = size;
+    }
+
+    private List<MeasurementPath> filter(List<MeasurementPath> measurementPaths) {
+      List<MeasurementPath> result = new ArrayList<>();
+      for (MeasurementPath measurementPath : measurementPaths) {
+        Pair<Boolean, MeasurementGroup> device = devices.get(measurementPath.getDevicePath());
+        if (device != null
+            && device.right.getMeasurements().contains(measurementPath.getMeasurement())) {
+          result.add(measurementPath);
+        }
+      }
+      return result;
+    }
+
+    private void complete(List<MeasurementPath> alreadyExistingMeasurements) {
+      this.alreadyExistingMeasurements = alreadyExistingMeasurements;
+      isDone = true;
+    }
+
+    private void fail(RuntimeException failure) {
+      this.failure = failure;
+      isDone = true;
+    }
+
+    private List<MeasurementPath> getResult() {
+      if (failure != null) {
+        throw failure;
+      }
+      return alreadyExistingMeasurements;
+    }
+  }
+}
@@ -32,8 +32,6 @@ import org.apache.iotdb.db.mpp.plan.execution.ExecutionResult;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.metedata.write.MeasurementGroup;
 import org.apache.iotdb.db.mpp.plan.statement.Statement;
 import org.apache.iotdb.db.mpp.plan.statement.internal.InternalBatchActivateTemplateStatement;
-import org.apache.iotdb.db.mpp.plan.statement.internal.InternalCreateMultiTimeSeriesStatement;
-import org.apache.iotdb.db.mpp.plan.statement.internal.InternalCreateTimeSeriesStatement;
 import org.apache.iotdb.db.mpp.plan.statement.metadata.template.ActivateTemplateStatement;
 import org.apache.iotdb.rpc.TSStatusCode;
 import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
@@ -52,7 +50,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
 import static org.apache.iotdb.db.utils.EncodingInferenceUtils.getDefaultEncoding;
 
@@ -60,11 +57,13 @@ class AutoCreateSchemaExecutor {
 
   private final ITemplateManager templateManager;
   private final Function<Statement, ExecutionResult> statementExecutor;
+  private final AutoCreateSchemaBatcher autoCreateSchemaBatcher;
 
   AutoCreateSchemaExecutor(
       ITemplateManager templateManager, Function<Statement, ExecutionResult> statementExecutor) {
     this.templateManager = templateManager;
     this.statementExecutor = statementExecutor;
+    this.autoCreateSchemaBatcher = new AutoCreateSchemaBatcher(statementExecutor);
   }
 
   // auto create the missing measurements and merge them into given schemaTree
@@ -102,36 +101,24 @@ class AutoCreateSchemaExecutor {
     }
 
     // auto create the rest missing timeseries
-    List<String> missingMeasurements = new ArrayList<>(indexOfTargetMeasurements.size());
-    List<TSDataType> dataTypesOfMissingMeasurement =
-        new ArrayList<>(indexOfTargetMeasurements.size());
-    List<TSEncoding> encodingsOfMissingMeasurement =
-        new ArrayList<>(indexOfTargetMeasurements.size());
-    List<CompressionType> compressionTypesOfMissingMeasurement =
-        new ArrayList<>(indexOfTargetMeasurements.size());
-    indexOfTargetMeasurements.forEach(
-        index -> {
-          TSDataType tsDataType = getDataType.apply(index);
-          // tsDataType == null means insert null value to a non-exist series
-          // should skip creating them
-          if (tsDataType != null) {
-            missingMeasurements.add(measurements[index]);
-            dataTypesOfMissingMeasurement.add(tsDataType);
-            encodingsOfMissingMeasurement.add(getDefaultEncoding(tsDataType));
-            compressionTypesOfMissingMeasurement.add(
-                TSFileDescriptor.getInstance().getConfig().getCompressor());
-          }
-        });
+    MeasurementGroup measurementGroup = new MeasurementGroup();
+    for (int index : indexOfTargetMeasurements) {
+      TSDataType tsDataType = getDataType.apply(index);
+      // tsDataType == null means insert null value to a non-exist series
+      // should skip creating them
+      if (tsDataType != null) {
+        measurementGroup.addMeasurement(
+            measurements[index],
+            tsDataType,
+            getDefaultEncoding(tsDataType),
+            TSFileDescriptor.getInstance().getConfig().getCompressor());
+      }
+    }
 
-    if (!missingMeasurements.isEmpty()) {
+    if (!measurementGroup.isEmpty()) {
       internalCreateTimeSeries(
           schemaTree,
-          devicePath,
-          missingMeasurements,
-          dataTypesOfMissingMeasurement,
-          encodingsOfMissingMeasurement,
-          compressionTypesOfMissingMeasurement,
-          isAligned);
+          Collections.singletonMap(devicePath, new Pair<>(isAligned, measurementGroup)));
     }
   }
 
@@ -269,76 +256,6 @@ class AutoCreateSchemaExecutor {
     }
   }
 
-  // try to create the target timeseries and merge schema of successfully created
-  // timeseries and existing timeseries into given schemaTree
-  private void internalCreateTimeSeries(
-      ClusterSchemaTree schemaTree,
-      PartialPath devicePath,
-      List<String> measurements,
-      List<TSDataType> tsDataTypes,
-      List<TSEncoding> encodings,
-      List<CompressionType> compressors,
-      boolean isAligned) {
-    List<MeasurementPath> measurementPathList =
-        executeInternalCreateTimeseriesStatement(
-            new InternalCreateTimeSeriesStatement(
-                devicePath, measurements, tsDataTypes, encodings, compressors, isAligned));
-
-    Set<Integer> alreadyExistingMeasurementIndexSet =
-        measurementPathList.stream()
-            .map(o -> measurements.indexOf(o.getMeasurement()))
-            .collect(Collectors.toSet());
-
-    schemaTree.appendMeasurementPaths(measurementPathList);
-
-    for (int i = 0, size = measurements.size(); i < size; i++) {
-      if (alreadyExistingMeasurementIndexSet.contains(i)) {
-        continue;
-      }
-
-      schemaTree.appendSingleMeasurement(
-          devicePath.concatNode(measurements.get(i)),
-          new MeasurementSchema(
-              measurements.get(i), tsDataTypes.get(i), encodings.get(i), compressors.get(i)),
-          null,
-          null,
-          isAligned);
-    }
-  }
-
-  // auto create timeseries and return the existing timeseries info
-  private List<MeasurementPath> executeInternalCreateTimeseriesStatement(Statement statement) {
-
-    ExecutionResult executionResult = statementExecutor.apply(statement);
-
-    int statusCode = executionResult.status.getCode();
-    if (statusCode == TSStatusCode.SUCCESS_STATUS.getStatusCode()) {
-      return Collections.emptyList();
-    }
-
-    if (statusCode != TSStatusCode.MULTIPLE_ERROR.getStatusCode()) {
-      throw new RuntimeException(
-          new IoTDBException(executionResult.status.getMessage(), statusCode));
-    }
-
-    Set<String> failedCreationSet = new HashSet<>();
-    List<MeasurementPath> alreadyExistingMeasurements = new ArrayList<>();
-    for (TSStatus subStatus : executionResult.status.subStatus) {
-      if (subStatus.code == TSStatusCode.TIMESERIES_ALREADY_EXIST.getStatusCode()) {
-        alreadyExistingMeasurements.add(
-            MeasurementPath.parseDataFromString(subStatus.getMessage()));
-      } else {
-        failedCreationSet.add(subStatus.message);
-      }
-    }
-
-    if (!failedCreationSet.isEmpty()) {
-      throw new SemanticException(new MetadataException(String.join("; ", failedCreationSet)));
-    }
-
-    return alreadyExistingMeasurements;
-  }
-
   private void internalActivateTemplate(PartialPath devicePath) {
     ExecutionResult executionResult =
         statementExecutor.apply(new ActivateTemplateStatement(devicePath));
@@ -380,8 +297,7 @@ class AutoCreateSchemaExecutor {
       Map<PartialPath, Pair<Boolean, MeasurementGroup>> devicesNeedAutoCreateTimeSeries) {
 
     List<MeasurementPath> measurementPathList =
-        executeInternalCreateTimeseriesStatement(
-            new InternalCreateMultiTimeSeriesStatement(devicesNeedAutoCreateTimeSeries));
+        autoCreateSchemaBatcher.createTimeSeries(devicesNeedAutoCreateTimeSeries);
 
     schemaTree.appendMeasurementPaths(measurementPathList);
 
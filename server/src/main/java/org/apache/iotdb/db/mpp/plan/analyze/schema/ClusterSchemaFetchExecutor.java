@@ -177,7 +177,11 @@ class ClusterSchemaFetchExecutor {
           }
           Column column = tsBlock.get().getColumn(0);
           for (int i = 0; i < column.getPositionCount(); i++) {
-            parseFetchedData(column.getBinary(i), result, databaseSet);
+            parseFetchedData(
+                column.getBinary(i),
+                result,
+                databaseSet,
+                schemaFetchStatement.getTemplateMap());
           }
         }
         result.setDatabases(databaseSet);
@@ -189,7 +193,10 @@ class ClusterSchemaFetchExecutor {
   }
 
   private void parseFetchedData(
-      Binary data, ClusterSchemaTree resultSchemaTree, Set<String> databaseSet) {
+      Binary data,
+      ClusterSchemaTree resultSchemaTree,
+      Set<String> databaseSet,
+      Map<Integer, Template> templateMap) {
     InputStream inputStream = new ByteArrayInputStream(data.getValues());
     try {
       byte type = ReadWriteIOUtils.readByte(inputStream);
@@ -199,7 +206,10 @@ class ClusterSchemaFetchExecutor {
           databaseSet.add(ReadWriteIOUtils.readString(inputStream));
         }
       } else if (type == 1) {
-        resultSchemaTree.mergeSchemaTree(ClusterSchemaTree.deserialize(inputStream));
+        resultSchemaTree.mergeSchemaTree(ClusterSchemaTree.deserialize(inputStream, templateMap));
+      } else if (type == 2) {
+        resultSchemaTree.mergeSchemaTree(
+            ClusterSchemaTree.deserializeCompactly(inputStream, templateMap));
       } else {
         throw new RuntimeException(
             new MetadataException("Failed to fetch schema because of unrecognized data"));
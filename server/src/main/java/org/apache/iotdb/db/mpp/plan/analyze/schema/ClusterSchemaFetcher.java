@@ -18,6 +18,7 @@
  */
 package org.apache.iotdb.db.mpp.plan.analyze.schema;
 
+import org.apache.iotdb.commons.path.MeasurementPath;
 import org.apache.iotdb.commons.path.PartialPath;
 import org.apache.iotdb.commons.path.PathPatternTree;
 import org.apache.iotdb.db.conf.IoTDBConfig;
@@ -190,6 +191,7 @@ public class ClusterSchemaFetcher implements ISchemaFetcher {
             measurements,
             schemaComputationWithAutoCreation::getDataType,
             schemaComputationWithAutoCreation.isAligned());
+        cacheAutoCreatedSchema(schemaTree);
         indexOfMissingMeasurements =
             schemaTree.compute(schemaComputationWithAutoCreation, indexOfMissingMeasurements);
 
@@ -294,6 +296,7 @@ public class ClusterSchemaFetcher implements ISchemaFetcher {
             schemaComputationWithAutoCreationList.stream()
                 .map(ISchemaComputationWithAutoCreation::isAligned)
                 .collect(Collectors.toList()));
+        cacheAutoCreatedSchema(schemaTree);
         indexOfDevicesWithMissingMeasurements = new ArrayList<>();
         indexOfMissingMeasurementsList = new ArrayList<>();
         for (int i = 0; i < indexOfDevicesNeedAutoCreateSchema.size(); i++) {
@@ -396,8 +399,9 @@ public class ClusterSchemaFetcher implements ISchemaFetcher {
       }
 
       if (!indexOfDevicesNeedAutoCreateSchema.isEmpty()) {
+        ClusterSchemaTree autoCreatedSchemaTree = new ClusterSchemaTree();
         autoCreateSchemaExecutor.autoCreateMissingMeasurements(
-            schemaTree,
+            autoCreatedSchemaTree,
             devicePathList,
             indexOfDevicesNeedAutoCreateSchema,
             indexOfMeasurementsNeedAutoCreate,
@@ -406,6 +410,8 @@ public class ClusterSchemaFetcher implements ISchemaFetcher {
             encodingsList,
             compressionTypesList,
             isAlignedList);
+        cacheAutoCreatedSchema(autoCreatedSchemaTree);
+        schemaTree.mergeSchemaTree(autoCreatedSchemaTree);
       }
 
       return schemaTree;
@@ -414,6 +420,26 @@ public class ClusterSchemaFetcher implements ISchemaFetcher {
     }
   }
 
+  // cache the auto created schema in bulk, thus the following insertions into these devices won't
+  // fetch them from schema regions again
+  private void cacheAutoCreatedSchema(ClusterSchemaTree schemaTree) {
+    Set<String> devicePaths = new HashSet<>();
+    for (MeasurementPath measurementPath : schemaTree.getAllMeasurement()) {
+      devicePaths.add(measurementPath.getDevicePath().getFullPath());
+    }
+    if (devicePaths.isEmpty()) {
+      return;
+    }
+    Map<String, String> deviceToDatabase =
+        ClusterPartitionFetcher.getInstance()
+            .getCachedDeviceToDatabase(new ArrayList<>(devicePaths));
+    if (deviceToDatabase.size() < devicePaths.size()) {
+      return;
+    }
+    schemaTree.setDatabases(new HashSet<>(deviceToDatabase.values()));
+    schemaCache.put(schemaTree);
+  }
+
   @Override
   public Pair<Template, PartialPath> checkTemplateSetInfo(PartialPath path) {
     return templateManager.checkTemplateSetInfo(path);
@@ -2366,11 +2366,19 @@ public class ASTVisitor extends IoTDBSqlParserBaseVisitor<Statement> {
       case SqlConstant.EXTREME:
       case SqlConstant.AVG:
       case SqlConstant.SUM:
+      case SqlConstant.APPROX_COUNT_DISTINCT:
         checkFunctionExpressionInputSize(
             functionExpression.getExpressionString(),
             functionExpression.getExpressions().size(),
             1);
         return;
+      case SqlConstant.APPROX_PERCENTILE:
+        checkFunctionExpressionInputSize(
+            functionExpression.getExpressionString(),
+            functionExpression.getExpressions().size(),
+            1);
+        checkQuantileAttribute(functionExpression);
+        return;
       case SqlConstant.COUNT_IF:
         checkFunctionExpressionInputSize(
             functionExpression.getExpressionString(),
@@ -2383,6 +2391,25 @@ public class ASTVisitor extends IoTDBSqlParserBaseVisitor<Statement> {
     }
   }
 
+  private void checkQuantileAttribute(FunctionExpression functionExpression) {
+    String quantile = functionExpression.getFunctionAttributes().get(SqlConstant.QUANTILE);
+    if (quantile == null) {
+      return;
+    }
+    double value;
+    try {
+      value = Double.parseDouble(quantile);
+    } catch (NumberFormatException e) {
+      value = Double.NaN;
+    }
+    if (!(value >= 0 && value <= 1)) {
+      throw new SemanticException(
+          String.format(
+              "Attribute 'quantile' of Aggregation function [%s] should be a number in [0, 1], but is %s",
+              functionExpression.getFunctionName(), quantile));
+    }
+  }
+
   private void checkBuiltInFunctionInput(FunctionExpression functionExpression) {
     final String functionName = functionExpression.getFunctionName().toLowerCase();
     switch (functionName) {
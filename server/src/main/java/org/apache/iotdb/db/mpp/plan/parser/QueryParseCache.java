@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.mpp.plan.parser;
+
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.mpp.plan.statement.Statement;
+import org.apache.iotdb.db.qp.sql.SqlLexer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CommonToken;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenFactory;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.misc.Pair;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import java.util.List;
+
+/**
+ * Caches the parse trees of queries by their shape, i.e. the token sequence with the text of
+ * literals left out. Dashboards issue the same query over and over with only the time range
+ * changed; such a query is lexed, looked up here, and the cached tree is visited again with the new
+ * literal texts bound to its tokens, which skips the ANTLR parse entirely.
+ *
+ * <p>The grammar has no semantic predicates, so the tree of a statement depends only on its token
+ * types and reusing it for another statement of the same shape is exact. Only the parse tree is
+ * reused: {@link ASTVisitor} runs again for each statement, so {@code now()} and the zone id are
+ * evaluated per execution, and analysis and planning are unaffected.
+ */
+public class QueryParseCache {
+
+  /** Token texts of the statement currently visiting a cached tree, indexed by token slot. */
+  private static final ThreadLocal<String[]> BOUND_TEXTS = new ThreadLocal<>();
+
+  private final Cache<String, ParseTree> cache;
+
+  private QueryParseCache() {
+    int cacheSize = IoTDBDescriptor.getInstance().getConfig().getQueryParseCacheSize();
+    this.cache = cacheSize > 0 ? Caffeine.newBuilder().maximumSize(cacheSize).build() : null;
+  }
+
+  public static QueryParseCache getInstance() {
+    return QueryParseCacheHolder.INSTANCE;
+  }
+
+  /**
+   * Prepares a lexer so that the tree parsed from it can be cached. Must be called before any token
+   * is produced.
+   */
+  public void prepare(SqlLexer lexer) {
+    lexer.setTokenFactory(new RebindableTokenFactory());
+  }
+
+  /**
+   * Fills the token stream and returns the shape of the statement, or null if it should not be
+   * cached.
+   */
+  public String getShape(CommonTokenStream tokenStream) {
+    if (cache == null) {
+      return null;
+    }
+    tokenStream.fill();
+    List<Token> tokens = tokenStream.getTokens();
+    StringBuilder shape = new StringBuilder();
+    boolean first = true;
+    for (Token token : tokens) {
+      if (token.getChannel() != Token.DEFAULT_CHANNEL) {
+        continue;
+      }
+      if (first) {
+        // only queries are repeated often enough to be worth it
+        if (token.getType() != SqlLexer.SELECT) {
+          return null;
+        }
+        first = false;
+      }
+      shape.append(token.getType()).append(',');
+      if (!isLiteral(token.getType())) {
+        String text = token.getText();
+        shape.append(text.length()).append(',').append(text);
+      }
+      shape.append(';');
+    }
+    return shape.toString();
+  }
+
+  public ParseTree get(String shape) {
+    return shape == null ? null : cache.getIfPresent(shape);
+  }
+
+  public void put(String shape, ParseTree tree) {
+    if (shape != null) {
+      cache.put(shape, tree);
+    }
+  }
+
+  /** Visits a cached tree with the literal texts of the statement lexed into the token stream. */
+  public Statement visit(ParseTree cachedTree, CommonTokenStream tokenStream, ASTVisitor visitor) {
+    List<Token> tokens = tokenStream.getTokens();
+    String[] texts = new String[tokens.size()];
+    int slot = 0;
+    for (Token token : tokens) {
+      if (token.getChannel() == Token.DEFAULT_CHANNEL) {
+        texts[slot++] = token.getText();
+      }
+    }
+    String[] previous = BOUND_TEXTS.get();
+    BOUND_TEXTS.set(texts);
+    try {
+      return visitor.visit(cachedTree);
+    } finally {
+      if (previous == null) {
+        BOUND_TEXTS.remove();
+      } else {
+        BOUND_TEXTS.set(previous);
+      }
+    }
+  }
+
+  public void clear() {
+    if (cache != null) {
+      cache.invalidateAll();
+    }
+  }
+
+  private static boolean isLiteral(int tokenType) {
+    switch (tokenType) {
+      case SqlLexer.STRING_LITERAL:
+      case SqlLexer.DURATION_LITERAL:
+      case SqlLexer.DATETIME_LITERAL:
+      case SqlLexer.INTEGER_LITERAL:
+      case SqlLexer.EXPONENT_NUM_PART:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * A token whose text is taken from the statement currently visiting the tree it belongs to, so
+   * that one cached tree can serve all statements of the same shape.
+   */
+  private static class RebindableToken extends CommonToken {
+
+    private final int slot;
+
+    private RebindableToken(
+        Pair<TokenSource, CharStream> source,
+        int type,
+        int channel,
+        int start,
+        int stop,
+        int slot) {
+      super(source, type, channel, start, stop);
+      this.slot = slot;
+    }
+
+    @Override
+    public String getText() {
+      String[] boundTexts = BOUND_TEXTS.get();
+      if (boundTexts != null && slot >= 0) {
+        return boundTexts[slot];
+      }
+      return super.getText();
+    }
+  }
+
+  /** Numbers the tokens on the default channel in the order the lexer produces them. */
+  private static class RebindableTokenFactory implements TokenFactory<CommonToken> {
+
+    private int nextSlot = 0;
+
+    @Override
+    public CommonToken create(
+        Pair<TokenSource, CharStream> source,
+        int type,
+        String text,
+        int channel,
+        int start,
+        int stop,
+        int line,
+        int charPositionInLine) {
+      int slot = channel == Token.DEFAULT_CHANNEL ? nextSlot++ : -1;
+      RebindableToken token = new RebindableToken(source, type, channel, start, stop, slot);
+      token.setLine(line);
+      token.setCharPositionInLine(charPositionInLine);
+      if (text != null) {
+        token.setText(text);
+      }
+      return token;
+    }
+
+    @Override
+    public CommonToken create(int type, String text) {
+      return new CommonToken(type, text);
+    }
+  }
+
+  private static class QueryParseCacheHolder {
+
+    private static final QueryParseCache INSTANCE = new QueryParseCache();
+
+    private QueryParseCacheHolder() {}
+  }
+}
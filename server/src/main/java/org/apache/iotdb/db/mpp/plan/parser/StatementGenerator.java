@@ -108,6 +108,9 @@ import java.util.Map;
 
 /** Convert SQL and RPC requests to {@link Statement}. */
 public class StatementGenerator {
+
+  private static final QueryParseCache QUERY_PARSE_CACHE = QueryParseCache.getInstance();
+
   // TODO @spricoder optimize the method adding metrics
   public static Statement createStatement(String sql, ZoneId zoneId) {
     return invokeParser(sql, zoneId);
@@ -722,9 +725,17 @@ public class StatementGenerator {
       SqlLexer lexer1 = new SqlLexer(charStream1);
       lexer1.removeErrorListeners();
       lexer1.addErrorListener(SqlParseError.INSTANCE);
+      QUERY_PARSE_CACHE.prepare(lexer1);
 
       CommonTokenStream tokens1 = new CommonTokenStream(lexer1);
 
+      // queries that only differ in literals from a cached one can skip parsing
+      String shape = QUERY_PARSE_CACHE.getShape(tokens1);
+      ParseTree cachedTree = QUERY_PARSE_CACHE.get(shape);
+      if (cachedTree != null) {
+        return QUERY_PARSE_CACHE.visit(cachedTree, tokens1, astVisitor);
+      }
+
       IoTDBSqlParser parser1 = new IoTDBSqlParser(tokens1);
       parser1.getInterpreter().setPredictionMode(PredictionMode.SLL);
       parser1.removeErrorListeners();
@@ -742,6 +753,7 @@ public class StatementGenerator {
         SqlLexer lexer2 = new SqlLexer(charStream2);
         lexer2.removeErrorListeners();
         lexer2.addErrorListener(SqlParseError.INSTANCE);
+        QUERY_PARSE_CACHE.prepare(lexer2);
 
         CommonTokenStream tokens2 = new CommonTokenStream(lexer2);
 
@@ -755,6 +767,7 @@ public class StatementGenerator {
         tree = parser2.singleStatement();
         // if we get here, it's LL not SLL
       }
+      QUERY_PARSE_CACHE.put(shape, tree);
       return astVisitor.visit(tree);
     } finally {
       PerformanceOverviewMetricsManager.getInstance()
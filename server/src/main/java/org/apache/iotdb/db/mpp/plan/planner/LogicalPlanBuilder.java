@@ -68,6 +68,7 @@ import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.SingleDeviceViewNo
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.SlidingWindowAggregationNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.SortNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.TimeJoinNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.TopKNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.TransformNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.last.LastQueryNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.source.AlignedLastQueryScanNode;
@@ -92,6 +93,7 @@ import org.apache.iotdb.db.mpp.plan.statement.component.SortItem;
 import org.apache.iotdb.db.mpp.plan.statement.component.SortKey;
 import org.apache.iotdb.db.mpp.plan.statement.sys.ShowQueriesStatement;
 import org.apache.iotdb.db.utils.SchemaUtils;
+import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 
@@ -503,6 +505,7 @@ public class LogicalPlanBuilder {
           String.format("%s(%s)", functionName, inputExpressionStr),
           aggregationType == null ? typeProvider.getType(inputExpressionStr) : aggregationType);
     }
+    updateTypeProviderBySketchAggregation(aggregationDescriptor, typeProvider);
   }
 
   public static void updateTypeProviderByPartialAggregation(
@@ -516,6 +519,15 @@ public class LogicalPlanBuilder {
           String.format("%s(%s)", functionName, path.getFullPath()),
           SchemaUtils.getSeriesTypeByPath(path, functionName));
     }
+    updateTypeProviderBySketchAggregation(aggregationDescriptor, typeProvider);
+  }
+
+  private static void updateTypeProviderBySketchAggregation(
+      AggregationDescriptor aggregationDescriptor, TypeProvider typeProvider) {
+    String sketchColumnName = aggregationDescriptor.getSketchColumnName();
+    if (sketchColumnName != null) {
+      typeProvider.setType(sketchColumnName, TSDataType.TEXT);
+    }
   }
 
   private PlanNode convergeWithTimeJoin(List<PlanNode> sourceNodes, Ordering mergeOrder) {
@@ -1143,8 +1155,28 @@ public class LogicalPlanBuilder {
     return this;
   }
 
+  /**
+   * Plan a TopKNode instead of a SortNode if only the first topValue rows of the sorted result are
+   * needed and they fit in one TsBlock.
+   */
+  private LogicalPlanBuilder planSort(OrderByParameter orderByParameter, int topValue) {
+    if (orderByParameter.isEmpty()) {
+      return this;
+    }
+    if (topValue <= 0
+        || topValue > TSFileDescriptor.getInstance().getConfig().getMaxTsBlockLineNumber()) {
+      return planSort(orderByParameter);
+    }
+    this.root =
+        new TopKNode(context.getQueryId().genPlanNodeId(), root, orderByParameter, topValue);
+    return this;
+  }
+
   public LogicalPlanBuilder planShowQueries(Analysis analysis, ShowQueriesStatement statement) {
     List<TDataNodeLocation> dataNodeLocations = analysis.getRunningDataNodeLocations();
+    // offset and limit are applied above, so each DataNode only needs its first offset + limit rows
+    int topValue =
+        statement.getRowLimit() == 0 ? 0 : statement.getRowOffset() + statement.getRowLimit();
     if (dataNodeLocations.size() == 1) {
       this.root =
           planSingleShowQueries(dataNodeLocations.get(0))
@@ -1154,7 +1186,7 @@ public class LogicalPlanBuilder {
                   false,
                   statement.getZoneId(),
                   Ordering.ASC)
-              .planSort(analysis.getMergeOrderParameter())
+              .planSort(analysis.getMergeOrderParameter(), topValue)
               .getRoot();
     } else {
       List<String> outputColumns = new ArrayList<>();
@@ -1174,7 +1206,7 @@ public class LogicalPlanBuilder {
                           false,
                           statement.getZoneId(),
                           Ordering.ASC)
-                      .planSort(analysis.getMergeOrderParameter())
+                      .planSort(analysis.getMergeOrderParameter(), topValue)
                       .getRoot()));
       outputColumns.addAll(mergeSortNode.getChildren().get(0).getOutputColumnNames());
       this.root = mergeSortNode;
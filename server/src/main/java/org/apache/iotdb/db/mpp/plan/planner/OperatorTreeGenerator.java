@@ -19,12 +19,18 @@
 package org.apache.iotdb.db.mpp.plan.planner;
 
 import org.apache.iotdb.common.rpc.thrift.TEndPoint;
+import org.apache.iotdb.commons.exception.MetadataException;
 import org.apache.iotdb.commons.path.AlignedPath;
 import org.apache.iotdb.commons.path.MeasurementPath;
 import org.apache.iotdb.commons.path.PartialPath;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.cache.AggregationResultCache;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.metadata.cache.DataNodeSchemaCache;
+import org.apache.iotdb.db.metadata.query.info.ISchemaInfo;
+import org.apache.iotdb.db.metadata.query.info.ITimeSeriesSchemaInfo;
+import org.apache.iotdb.db.metadata.schemaregion.ISchemaRegion;
+import org.apache.iotdb.db.metadata.schemaregion.SchemaEngineMode;
 import org.apache.iotdb.db.mpp.aggregation.AccumulatorFactory;
 import org.apache.iotdb.db.mpp.aggregation.Aggregator;
 import org.apache.iotdb.db.mpp.aggregation.slidingwindow.SlidingWindowAggregatorFactory;
@@ -59,6 +65,7 @@ import org.apache.iotdb.db.mpp.execution.operator.process.SingleDeviceViewOperat
 import org.apache.iotdb.db.mpp.execution.operator.process.SlidingWindowAggregationOperator;
 import org.apache.iotdb.db.mpp.execution.operator.process.SortOperator;
 import org.apache.iotdb.db.mpp.execution.operator.process.TagAggregationOperator;
+import org.apache.iotdb.db.mpp.execution.operator.process.TopKOperator;
 import org.apache.iotdb.db.mpp.execution.operator.process.TransformOperator;
 import org.apache.iotdb.db.mpp.execution.operator.process.fill.IFill;
 import org.apache.iotdb.db.mpp.execution.operator.process.fill.ILinearFill;
@@ -111,6 +118,7 @@ import org.apache.iotdb.db.mpp.execution.operator.schema.SchemaFetchScanOperator
 import org.apache.iotdb.db.mpp.execution.operator.schema.SchemaQueryMergeOperator;
 import org.apache.iotdb.db.mpp.execution.operator.schema.SchemaQueryOrderByHeatOperator;
 import org.apache.iotdb.db.mpp.execution.operator.schema.SchemaQueryScanOperator;
+import org.apache.iotdb.db.mpp.execution.operator.schema.source.ISchemaSource;
 import org.apache.iotdb.db.mpp.execution.operator.schema.source.SchemaSourceFactory;
 import org.apache.iotdb.db.mpp.execution.operator.source.AlignedSeriesAggregationScanOperator;
 import org.apache.iotdb.db.mpp.execution.operator.source.AlignedSeriesScanOperator;
@@ -166,6 +174,7 @@ import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.SingleDeviceViewNo
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.SlidingWindowAggregationNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.SortNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.TimeJoinNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.TopKNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.TransformNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.last.LastQueryCollectNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.last.LastQueryMergeNode;
@@ -222,9 +231,12 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static org.apache.iotdb.commons.conf.IoTDBConstant.MULTI_LEVEL_PATH_WILDCARD;
+import static org.apache.iotdb.commons.conf.IoTDBConstant.ONE_LEVEL_PATH_WILDCARD;
 import static org.apache.iotdb.db.engine.querycontext.QueryDataSource.updateFilterUsingTTL;
 import static org.apache.iotdb.db.mpp.common.DataNodeEndPoints.isSameNode;
 import static org.apache.iotdb.db.mpp.execution.operator.AggregationUtil.calculateMaxAggregationResultSize;
@@ -248,6 +260,9 @@ public class OperatorTreeGenerator extends PlanVisitor<Operator, LocalExecutionP
 
   private static final IdentityLinearFill IDENTITY_LINEAR_FILL = new IdentityLinearFill();
 
+  // a split of schema scan should cover at least so many children of the database node
+  private static final int MIN_DATABASE_CHILDREN_PER_SCHEMA_SCAN_SPLIT = 1000;
+
   private static final Comparator<Binary> ASC_BINARY_COMPARATOR = Comparator.naturalOrder();
 
   private static final Comparator<Binary> DESC_BINARY_COMPARATOR = Comparator.reverseOrder();
@@ -369,6 +384,11 @@ public class OperatorTreeGenerator extends PlanVisitor<Operator, LocalExecutionP
             ascending,
             node.getGroupByTimeParameter(),
             maxReturnSize);
+    if (AggregationResultCache.isCacheEnable() && groupByTimeParameter != null) {
+      aggregateScanOperator.enableResultCache(
+          seriesPath.getDevice(),
+          AggregationResultCache.getSignature(seriesPath, aggregationDescriptors, ascending));
+    }
 
     ((DataDriverContext) context.getDriverContext()).addSourceOperator(aggregateScanOperator);
     ((DataDriverContext) context.getDriverContext()).addPath(seriesPath);
@@ -435,6 +455,12 @@ public class OperatorTreeGenerator extends PlanVisitor<Operator, LocalExecutionP
             ascending,
             groupByTimeParameter,
             maxReturnSize);
+    if (AggregationResultCache.isCacheEnable() && groupByTimeParameter != null) {
+      seriesAggregationScanOperator.enableResultCache(
+          seriesPath.getDevice(),
+          AggregationResultCache.getSignature(
+              seriesPath, node.getAggregationDescriptorList(), ascending));
+    }
 
     ((DataDriverContext) context.getDriverContext())
         .addSourceOperator(seriesAggregationScanOperator);
@@ -486,17 +512,39 @@ public class OperatorTreeGenerator extends PlanVisitor<Operator, LocalExecutionP
   @Override
   public Operator visitTimeSeriesSchemaScan(
       TimeSeriesSchemaScanNode node, LocalExecutionPlanContext context) {
-    OperatorContext operatorContext =
-        context
-            .getDriverContext()
-            .addOperatorContext(
-                context.getNextOperatorId(),
-                node.getPlanNodeId(),
-                SchemaQueryScanOperator.class.getSimpleName());
-    context.getTimeSliceAllocator().recordExecutionWeight(operatorContext, 1);
-    return new SchemaQueryScanOperator<>(
-        node.getPlanNodeId(),
-        operatorContext,
+    int splitNum =
+        getSchemaScanSplitNum(
+            node.getLimit(),
+            node.getOffset(),
+            node.getKey(),
+            node.getPath(),
+            node.isPrefixPath(),
+            context);
+    if (splitNum > 1) {
+      List<Operator> children =
+          dealWithSchemaScanSplits(
+              node,
+              splitNum,
+              context,
+              (splitContext, splitIndex) ->
+                  createSchemaQueryScanOperator(
+                      node,
+                      splitContext,
+                      SchemaSourceFactory.getTimeSeriesSchemaSource(
+                          node.getPath(),
+                          node.isPrefixPath(),
+                          node.getTemplateMap(),
+                          splitIndex,
+                          splitNum)));
+      return new SchemaQueryMergeOperator(
+          node.getPlanNodeId(),
+          addSchemaScanSplitsMergeOperatorContext(
+              node, context, SchemaQueryMergeOperator.class.getSimpleName()),
+          children);
+    }
+    return createSchemaQueryScanOperator(
+        node,
+        context,
         SchemaSourceFactory.getTimeSeriesSchemaSource(
             node.getPath(),
             node.isPrefixPath(),
@@ -511,6 +559,44 @@ public class OperatorTreeGenerator extends PlanVisitor<Operator, LocalExecutionP
   @Override
   public Operator visitDevicesSchemaScan(
       DevicesSchemaScanNode node, LocalExecutionPlanContext context) {
+    int splitNum =
+        getSchemaScanSplitNum(
+            node.getLimit(), node.getOffset(), null, node.getPath(), node.isPrefixPath(), context);
+    if (splitNum > 1) {
+      List<Operator> children =
+          dealWithSchemaScanSplits(
+              node,
+              splitNum,
+              context,
+              (splitContext, splitIndex) ->
+                  createSchemaQueryScanOperator(
+                      node,
+                      splitContext,
+                      SchemaSourceFactory.getDeviceSchemaSource(
+                          node.getPath(),
+                          node.isPrefixPath(),
+                          node.isHasSgCol(),
+                          splitIndex,
+                          splitNum)));
+      return new SchemaQueryMergeOperator(
+          node.getPlanNodeId(),
+          addSchemaScanSplitsMergeOperatorContext(
+              node, context, SchemaQueryMergeOperator.class.getSimpleName()),
+          children);
+    }
+    return createSchemaQueryScanOperator(
+        node,
+        context,
+        SchemaSourceFactory.getDeviceSchemaSource(
+            node.getPath(),
+            node.isPrefixPath(),
+            node.getLimit(),
+            node.getOffset(),
+            node.isHasSgCol()));
+  }
+
+  private <T extends ISchemaInfo> Operator createSchemaQueryScanOperator(
+      PlanNode node, LocalExecutionPlanContext context, ISchemaSource<T> schemaSource) {
     OperatorContext operatorContext =
         context
             .getDriverContext()
@@ -519,15 +605,7 @@ public class OperatorTreeGenerator extends PlanVisitor<Operator, LocalExecutionP
                 node.getPlanNodeId(),
                 SchemaQueryScanOperator.class.getSimpleName());
     context.getTimeSliceAllocator().recordExecutionWeight(operatorContext, 1);
-    return new SchemaQueryScanOperator<>(
-        node.getPlanNodeId(),
-        operatorContext,
-        SchemaSourceFactory.getDeviceSchemaSource(
-            node.getPath(),
-            node.isPrefixPath(),
-            node.getLimit(),
-            node.getOffset(),
-            node.isHasSgCol()));
+    return new SchemaQueryScanOperator<>(node.getPlanNodeId(), operatorContext, schemaSource);
   }
 
   @Override
@@ -565,23 +643,73 @@ public class OperatorTreeGenerator extends PlanVisitor<Operator, LocalExecutionP
 
   @Override
   public Operator visitDevicesCount(DevicesCountNode node, LocalExecutionPlanContext context) {
-    OperatorContext operatorContext =
-        context
-            .getDriverContext()
-            .addOperatorContext(
-                context.getNextOperatorId(),
-                node.getPlanNodeId(),
-                SchemaCountOperator.class.getSimpleName());
-    context.getTimeSliceAllocator().recordExecutionWeight(operatorContext, 1);
-    return new SchemaCountOperator<>(
-        node.getPlanNodeId(),
-        operatorContext,
+    int splitNum =
+        getSchemaScanSplitNum(0, 0, null, node.getPath(), node.isPrefixPath(), context);
+    if (splitNum > 1) {
+      List<Operator> children =
+          dealWithSchemaScanSplits(
+              node,
+              splitNum,
+              context,
+              (splitContext, splitIndex) ->
+                  createSchemaCountOperator(
+                      node,
+                      splitContext,
+                      SchemaSourceFactory.getDeviceSchemaSource(
+                          node.getPath(), node.isPrefixPath(), false, splitIndex, splitNum)));
+      return new CountMergeOperator(
+          node.getPlanNodeId(),
+          addSchemaScanSplitsMergeOperatorContext(
+              node, context, CountMergeOperator.class.getSimpleName()),
+          children);
+    }
+    return createSchemaCountOperator(
+        node,
+        context,
         SchemaSourceFactory.getDeviceSchemaSource(node.getPath(), node.isPrefixPath()));
   }
 
   @Override
   public Operator visitTimeSeriesCount(
       TimeSeriesCountNode node, LocalExecutionPlanContext context) {
+    int splitNum =
+        getSchemaScanSplitNum(0, 0, node.getKey(), node.getPath(), node.isPrefixPath(), context);
+    if (splitNum > 1) {
+      List<Operator> children =
+          dealWithSchemaScanSplits(
+              node,
+              splitNum,
+              context,
+              (splitContext, splitIndex) ->
+                  createSchemaCountOperator(
+                      node,
+                      splitContext,
+                      SchemaSourceFactory.getTimeSeriesSchemaSource(
+                          node.getPath(),
+                          node.isPrefixPath(),
+                          node.getTemplateMap(),
+                          splitIndex,
+                          splitNum)));
+      return new CountMergeOperator(
+          node.getPlanNodeId(),
+          addSchemaScanSplitsMergeOperatorContext(
+              node, context, CountMergeOperator.class.getSimpleName()),
+          children);
+    }
+    return createSchemaCountOperator(
+        node,
+        context,
+        SchemaSourceFactory.getTimeSeriesSchemaSource(
+            node.getPath(),
+            node.isPrefixPath(),
+            node.getKey(),
+            node.getValue(),
+            node.isContains(),
+            node.getTemplateMap()));
+  }
+
+  private <T extends ISchemaInfo> Operator createSchemaCountOperator(
+      PlanNode node, LocalExecutionPlanContext context, ISchemaSource<T> schemaSource) {
     OperatorContext operatorContext =
         context
             .getDriverContext()
@@ -590,21 +718,48 @@ public class OperatorTreeGenerator extends PlanVisitor<Operator, LocalExecutionP
                 node.getPlanNodeId(),
                 SchemaCountOperator.class.getSimpleName());
     context.getTimeSliceAllocator().recordExecutionWeight(operatorContext, 1);
-    return new SchemaCountOperator<>(
-        node.getPlanNodeId(),
-        operatorContext,
+    return new SchemaCountOperator<>(node.getPlanNodeId(), operatorContext, schemaSource);
+  }
+
+  @Override
+  public Operator visitLevelTimeSeriesCount(
+      LevelTimeSeriesCountNode node, LocalExecutionPlanContext context) {
+    int splitNum =
+        getSchemaScanSplitNum(0, 0, node.getKey(), node.getPath(), node.isPrefixPath(), context);
+    if (splitNum > 1) {
+      List<Operator> children =
+          dealWithSchemaScanSplits(
+              node,
+              splitNum,
+              context,
+              (splitContext, splitIndex) ->
+                  createCountGroupByLevelScanOperator(
+                      node,
+                      splitContext,
+                      SchemaSourceFactory.getTimeSeriesSchemaSource(
+                          node.getPath(), node.isPrefixPath(), null, splitIndex, splitNum)));
+      return new CountGroupByLevelMergeOperator(
+          node.getPlanNodeId(),
+          addSchemaScanSplitsMergeOperatorContext(
+              node, context, CountGroupByLevelMergeOperator.class.getSimpleName()),
+          children);
+    }
+    return createCountGroupByLevelScanOperator(
+        node,
+        context,
         SchemaSourceFactory.getTimeSeriesSchemaSource(
             node.getPath(),
             node.isPrefixPath(),
             node.getKey(),
             node.getValue(),
             node.isContains(),
-            node.getTemplateMap()));
+            null));
   }
 
-  @Override
-  public Operator visitLevelTimeSeriesCount(
-      LevelTimeSeriesCountNode node, LocalExecutionPlanContext context) {
+  private Operator createCountGroupByLevelScanOperator(
+      LevelTimeSeriesCountNode node,
+      LocalExecutionPlanContext context,
+      ISchemaSource<ITimeSeriesSchemaInfo> schemaSource) {
     OperatorContext operatorContext =
         context
             .getDriverContext()
@@ -614,16 +769,130 @@ public class OperatorTreeGenerator extends PlanVisitor<Operator, LocalExecutionP
                 CountGroupByLevelScanOperator.class.getSimpleName());
     context.getTimeSliceAllocator().recordExecutionWeight(operatorContext, 1);
     return new CountGroupByLevelScanOperator<>(
-        node.getPlanNodeId(),
-        operatorContext,
-        node.getLevel(),
-        SchemaSourceFactory.getTimeSeriesSchemaSource(
-            node.getPath(),
-            node.isPrefixPath(),
-            node.getKey(),
-            node.getValue(),
-            node.isContains(),
-            null));
+        node.getPlanNodeId(), operatorContext, node.getLevel(), schemaSource);
+  }
+
+  /**
+   * A schema scan over the whole schema region could be divided into splits by the children of the
+   * database node. The scan is split only if
+   *
+   * <ul>
+   *   <li>there's no limit, offset or tag filter, which can't be applied to each split
+   *       independently;
+   *   <li>the schema region is based on MTree;
+   *   <li>the pattern matches multiple children of the database node, otherwise all matched schema
+   *       falls into one split;
+   *   <li>the database node has enough children, so that each split is worth a pipeline.
+   * </ul>
+   *
+   * <p>The results of the splits are concatenated one split after another, so the output order of a
+   * split scan differs from the traversal order of a single scan.
+   *
+   * @return the number of splits, 1 means the scan shouldn't be split
+   */
+  private int getSchemaScanSplitNum(
+      int limit,
+      int offset,
+      String tagKey,
+      PartialPath pathPattern,
+      boolean isPrefixPath,
+      LocalExecutionPlanContext context) {
+    if (limit > 0 || offset > 0 || tagKey != null || context.getDegreeOfParallelism() <= 1) {
+      return 1;
+    }
+    String schemaEngineMode = IoTDBDescriptor.getInstance().getConfig().getSchemaEngineMode();
+    if (!SchemaEngineMode.Memory.toString().equals(schemaEngineMode)
+        && !SchemaEngineMode.Schema_File.toString().equals(schemaEngineMode)) {
+      return 1;
+    }
+    ISchemaRegion schemaRegion =
+        ((SchemaDriverContext) context.getDriverContext()).getSchemaRegion();
+    long childNum;
+    try {
+      if (!matchMultipleDatabaseChildren(
+          pathPattern, isPrefixPath, new PartialPath(schemaRegion.getStorageGroupFullPath()))) {
+        return 1;
+      }
+      childNum = schemaRegion.countDatabaseChildren();
+    } catch (MetadataException e) {
+      // fall back to a single scan, which reports the failure by itself
+      return 1;
+    }
+    return (int)
+        Math.max(
+            1,
+            Math.min(
+                context.getDegreeOfParallelism(),
+                childNum / MIN_DATABASE_CHILDREN_PER_SCHEMA_SCAN_SPLIT));
+  }
+
+  private boolean matchMultipleDatabaseChildren(
+      PartialPath pathPattern, boolean isPrefixPath, PartialPath database) {
+    String[] nodes = pathPattern.getNodes();
+    int childLevel = database.getNodeLength();
+    for (int i = 0; i < nodes.length && i <= childLevel; i++) {
+      if (MULTI_LEVEL_PATH_WILDCARD.equals(nodes[i])) {
+        return true;
+      }
+      if (i == childLevel) {
+        return nodes[i].contains(ONE_LEVEL_PATH_WILDCARD);
+      }
+    }
+    // the pattern ends above the children of the database node
+    return isPrefixPath;
+  }
+
+  /**
+   * The scan operator of the first split belongs to current pipeline, and the scan operators of the
+   * other splits are run as separate pipelines, whose results are fetched by ExchangeOperator.
+   *
+   * @return the operators providing the results of all splits
+   */
+  private List<Operator> dealWithSchemaScanSplits(
+      PlanNode node,
+      int splitNum,
+      LocalExecutionPlanContext context,
+      BiFunction<LocalExecutionPlanContext, Integer, Operator> splitOperatorGenerator) {
+    List<Operator> splitOperators = new ArrayList<>(splitNum);
+    int finalExchangeNum = context.getExchangeSumNum();
+    splitOperators.add(splitOperatorGenerator.apply(context, 0));
+    for (int i = 1; i < splitNum; i++) {
+      LocalExecutionPlanContext subContext = context.createSubContext();
+      subContext.setDegreeOfParallelism(1);
+      Operator splitOperator = splitOperatorGenerator.apply(subContext, i);
+      ISinkHandle localSinkHandle =
+          MPP_DATA_EXCHANGE_MANAGER.createLocalSinkHandleForPipeline(
+              subContext.getDriverContext(), node.getPlanNodeId().getId());
+      subContext.setSinkHandle(localSinkHandle);
+      subContext.addPipelineDriverFactory(splitOperator, subContext.getDriverContext());
+
+      ExchangeOperator sourceOperator =
+          new ExchangeOperator(
+              context
+                  .getDriverContext()
+                  .addOperatorContext(
+                      context.getNextOperatorId(), null, ExchangeOperator.class.getSimpleName()),
+              MPP_DATA_EXCHANGE_MANAGER.createLocalSourceHandleForPipeline(
+                  ((LocalSinkHandle) localSinkHandle).getSharedTsBlockQueue(),
+                  context.getDriverContext()),
+              node.getPlanNodeId());
+      context.getTimeSliceAllocator().recordExecutionWeight(sourceOperator.getOperatorContext(), 1);
+      splitOperators.add(sourceOperator);
+      context.addExchangeOperator(sourceOperator);
+      finalExchangeNum += subContext.getExchangeSumNum() - context.getExchangeSumNum() + 1;
+    }
+    context.setExchangeSumNum(finalExchangeNum);
+    return splitOperators;
+  }
+
+  private OperatorContext addSchemaScanSplitsMergeOperatorContext(
+      PlanNode node, LocalExecutionPlanContext context, String operatorType) {
+    OperatorContext operatorContext =
+        context
+            .getDriverContext()
+            .addOperatorContext(context.getNextOperatorId(), node.getPlanNodeId(), operatorType);
+    context.getTimeSliceAllocator().recordExecutionWeight(operatorContext, 1);
+    return operatorContext;
   }
 
   @Override
@@ -1540,6 +1809,37 @@ public class OperatorTreeGenerator extends PlanVisitor<Operator, LocalExecutionP
         MergeSortComparator.getComparator(sortItemList, sortItemIndexList, sortItemDataTypeList));
   }
 
+  @Override
+  public Operator visitTopK(TopKNode node, LocalExecutionPlanContext context) {
+    Operator child = node.getChild().accept(this, context);
+    OperatorContext operatorContext =
+        context
+            .getDriverContext()
+            .addOperatorContext(
+                context.getNextOperatorId(),
+                node.getPlanNodeId(),
+                TopKOperator.class.getSimpleName());
+    List<TSDataType> dataTypes = getOutputColumnTypes(node, context.getTypeProvider());
+
+    List<SortItem> sortItemList = node.getOrderByParameter().getSortItemList();
+    context.getTimeSliceAllocator().recordExecutionWeight(operatorContext, 1);
+
+    List<Integer> sortItemIndexList = new ArrayList<>(sortItemList.size());
+    List<TSDataType> sortItemDataTypeList = new ArrayList<>(sortItemList.size());
+    genSortInformation(
+        node.getOutputColumnNames(),
+        dataTypes,
+        sortItemList,
+        sortItemIndexList,
+        sortItemDataTypeList);
+    return new TopKOperator(
+        operatorContext,
+        child,
+        dataTypes,
+        MergeSortComparator.getComparator(sortItemList, sortItemIndexList, sortItemDataTypeList),
+        node.getTopValue());
+  }
+
   @Override
   public Operator visitInto(IntoNode node, LocalExecutionPlanContext context) {
     Operator child = node.getChild().accept(this, context);
@@ -68,6 +68,7 @@ import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.SingleDeviceViewNo
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.SlidingWindowAggregationNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.SortNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.TimeJoinNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.TopKNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.TransformNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.last.LastQueryCollectNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.last.LastQueryMergeNode;
@@ -162,7 +163,8 @@ public enum PlanNodeType {
   MERGE_SORT((short) 66),
   SHOW_QUERIES((short) 67),
   INTERNAL_BATCH_ACTIVATE_TEMPLATE((short) 68),
-  INTERNAL_CREATE_MULTI_TIMESERIES((short) 69);
+  INTERNAL_CREATE_MULTI_TIMESERIES((short) 69),
+  TOP_K((short) 70);
 
   public static final int BYTES = Short.BYTES;
 
@@ -351,6 +353,8 @@ public enum PlanNodeType {
         return InternalBatchActivateTemplateNode.deserialize(buffer);
       case 69:
         return InternalCreateMultiTimeSeriesNode.deserialize(buffer);
+      case 70:
+        return TopKNode.deserialize(buffer);
       default:
         throw new IllegalArgumentException("Invalid node type: " + nodeType);
     }
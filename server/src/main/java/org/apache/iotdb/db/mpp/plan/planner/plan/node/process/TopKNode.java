@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.plan.planner.plan.node.process;
+
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNodeId;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNodeType;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanVisitor;
+import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.OrderByParameter;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+
+import com.google.common.base.Objects;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * TopKNode is a SortNode followed by a LimitNode: it only outputs the first topValue rows of its
+ * child in the order of orderByParameter.
+ */
+public class TopKNode extends SingleChildProcessNode {
+
+  private final OrderByParameter orderByParameter;
+
+  private final int topValue;
+
+  public TopKNode(PlanNodeId id, PlanNode child, OrderByParameter orderByParameter, int topValue) {
+    super(id, child);
+    this.orderByParameter = orderByParameter;
+    this.topValue = topValue;
+  }
+
+  public TopKNode(PlanNodeId id, OrderByParameter orderByParameter, int topValue) {
+    super(id);
+    this.orderByParameter = orderByParameter;
+    this.topValue = topValue;
+  }
+
+  public OrderByParameter getOrderByParameter() {
+    return orderByParameter;
+  }
+
+  public int getTopValue() {
+    return topValue;
+  }
+
+  @Override
+  public PlanNode clone() {
+    return new TopKNode(getPlanNodeId(), child, orderByParameter, topValue);
+  }
+
+  @Override
+  public List<String> getOutputColumnNames() {
+    return child.getOutputColumnNames();
+  }
+
+  @Override
+  public <R, C> R accept(PlanVisitor<R, C> visitor, C context) {
+    return visitor.visitTopK(this, context);
+  }
+
+  @Override
+  protected void serializeAttributes(ByteBuffer byteBuffer) {
+    PlanNodeType.TOP_K.serialize(byteBuffer);
+    orderByParameter.serializeAttributes(byteBuffer);
+    ReadWriteIOUtils.write(topValue, byteBuffer);
+  }
+
+  @Override
+  protected void serializeAttributes(DataOutputStream stream) throws IOException {
+    PlanNodeType.TOP_K.serialize(stream);
+    orderByParameter.serializeAttributes(stream);
+    ReadWriteIOUtils.write(topValue, stream);
+  }
+
+  public static TopKNode deserialize(ByteBuffer byteBuffer) {
+    OrderByParameter orderByParameter = OrderByParameter.deserialize(byteBuffer);
+    int topValue = ReadWriteIOUtils.readInt(byteBuffer);
+    PlanNodeId planNodeId = PlanNodeId.deserialize(byteBuffer);
+    return new TopKNode(planNodeId, orderByParameter, topValue);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    if (!super.equals(o)) return false;
+    TopKNode topKNode = (TopKNode) o;
+    return topValue == topKNode.topValue
+        && Objects.equal(orderByParameter, topKNode.orderByParameter);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(super.hashCode(), orderByParameter, topValue);
+  }
+}
@@ -23,6 +23,7 @@ import org.apache.iotdb.common.rpc.thrift.TAggregationType;
 import org.apache.iotdb.commons.utils.TestOnly;
 import org.apache.iotdb.db.constant.SqlConstant;
 import org.apache.iotdb.db.mpp.plan.expression.Expression;
+import org.apache.iotdb.db.utils.SchemaUtils;
 import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
 
 import java.io.DataOutputStream;
@@ -141,6 +142,10 @@ public class AggregationDescriptor {
           outputAggregationNames.add(SqlConstant.LAST_VALUE);
           outputAggregationNames.add(SqlConstant.MAX_TIME);
           break;
+        case APPROX_COUNT_DISTINCT:
+        case APPROX_PERCENTILE:
+          outputAggregationNames.add(SchemaUtils.getSketchPartialAggregationName(aggregationType));
+          break;
         default:
           outputAggregationNames.add(aggregationFuncName);
       }
@@ -150,6 +155,17 @@ public class AggregationDescriptor {
     return outputAggregationNames;
   }
 
+  /**
+   * Name of the TEXT column carrying the serialized sketch in partial results of sketch based
+   * aggregations.
+   *
+   * @return column name, or null if the aggregation is not sketch based
+   */
+  public String getSketchColumnName() {
+    String sketchName = SchemaUtils.getSketchPartialAggregationName(aggregationType);
+    return sketchName == null ? null : sketchName + "(" + getParametersString() + ")";
+  }
+
   /**
    * Generates the parameter part of the function column name.
    *
@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.utils;
+
+import org.apache.iotdb.commons.utils.TestOnly;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+
+/**
+ * Pages written by flush and compaction never cross a multiple of the rollup interval, so the
+ * statistics of each page are a pre-aggregated rollup of one rollup window, and aggregations whose
+ * time windows are aligned to the rollup interval can use them without decoding the page.
+ */
+public class RollupUtils {
+
+  private static long rollupInterval =
+      IoTDBDescriptor.getInstance().getConfig().getRollupInterval();
+
+  private RollupUtils() {}
+
+  public static boolean isRollupEnabled() {
+    return rollupInterval > 0;
+  }
+
+  /** Returns the index of the rollup window that time belongs to. */
+  public static long getRollupWindow(long time) {
+    return Math.floorDiv(time, rollupInterval);
+  }
+
+  @TestOnly
+  public static void setRollupInterval(long rollupInterval) {
+    RollupUtils.rollupInterval = rollupInterval;
+  }
+}
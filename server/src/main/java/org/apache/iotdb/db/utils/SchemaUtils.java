@@ -124,9 +124,11 @@ public class SchemaUtils {
       case SqlConstant.MIN_TIME:
       case SqlConstant.MAX_TIME:
       case SqlConstant.COUNT:
+      case SqlConstant.APPROX_COUNT_DISTINCT:
         return TSDataType.INT64;
       case SqlConstant.AVG:
       case SqlConstant.SUM:
+      case SqlConstant.APPROX_PERCENTILE:
         return TSDataType.DOUBLE;
       case SqlConstant.LAST_VALUE:
       case SqlConstant.FIRST_VALUE:
@@ -157,6 +159,8 @@ public class SchemaUtils {
       case EXTREME:
       case COUNT:
       case AVG:
+      case APPROX_COUNT_DISTINCT:
+      case APPROX_PERCENTILE:
         return true;
       default:
         throw new IllegalArgumentException(
@@ -188,10 +192,29 @@ public class SchemaUtils {
       case MIN_TIME:
       case MAX_TIME:
       case COUNT_IF:
+      case APPROX_COUNT_DISTINCT:
+      case APPROX_PERCENTILE:
         return Collections.emptyList();
       default:
         throw new IllegalArgumentException(
             String.format("Invalid Aggregation function: %s", aggregationType));
     }
   }
+
+  /**
+   * Sketch based aggregations exchange serialized sketches as their partial results, which are put
+   * in a TEXT column named after the sketch instead of the aggregation.
+   *
+   * @return name of the partial result, or null if the aggregation is not sketch based
+   */
+  public static String getSketchPartialAggregationName(TAggregationType aggregationType) {
+    switch (aggregationType) {
+      case APPROX_COUNT_DISTINCT:
+        return SqlConstant.HLL_SKETCH;
+      case APPROX_PERCENTILE:
+        return SqlConstant.KLL_SKETCH;
+      default:
+        return null;
+    }
+  }
 }
@@ -130,6 +130,7 @@ public class TypeInferenceUtils {
       case SqlConstant.MAX_TIME:
       case SqlConstant.COUNT:
       case SqlConstant.COUNT_IF:
+      case SqlConstant.APPROX_COUNT_DISTINCT:
         return TSDataType.INT64;
       case SqlConstant.MIN_VALUE:
       case SqlConstant.LAST_VALUE:
@@ -139,6 +140,7 @@ public class TypeInferenceUtils {
         return dataType;
       case SqlConstant.AVG:
       case SqlConstant.SUM:
+      case SqlConstant.APPROX_PERCENTILE:
         return TSDataType.DOUBLE;
       default:
         throw new IllegalArgumentException("Invalid Aggregation function: " + aggrFuncName);
@@ -161,11 +163,20 @@ public class TypeInferenceUtils {
         }
         throw new SemanticException(
             "Aggregate functions [AVG, SUM, EXTREME, MIN_VALUE, MAX_VALUE] only support numeric data types [INT32, INT64, FLOAT, DOUBLE]");
+      case SqlConstant.APPROX_PERCENTILE:
+        if (dataType.isNumeric()) {
+          return;
+        }
+        throw new SemanticException(
+            String.format(
+                "Input series of Aggregation function [%s] only supports numeric data types [INT32, INT64, FLOAT, DOUBLE]",
+                aggrFuncName));
       case SqlConstant.COUNT:
       case SqlConstant.MIN_TIME:
       case SqlConstant.MAX_TIME:
       case SqlConstant.FIRST_VALUE:
       case SqlConstant.LAST_VALUE:
+      case SqlConstant.APPROX_COUNT_DISTINCT:
         return;
       case SqlConstant.COUNT_IF:
         if (dataType != TSDataType.BOOLEAN) {
@@ -201,6 +212,8 @@ public class TypeInferenceUtils {
       case SqlConstant.MAX_TIME:
       case SqlConstant.FIRST_VALUE:
       case SqlConstant.LAST_VALUE:
+      case SqlConstant.APPROX_COUNT_DISTINCT:
+      case SqlConstant.APPROX_PERCENTILE:
         return;
       case SqlConstant.COUNT_IF:
         Expression keepExpression = inputExpressions.get(1);
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction;
+
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.compaction.schedule.CompactionLoadController;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CompactionLoadControllerTest {
+  private final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private final CompactionLoadController controller = CompactionLoadController.getInstance();
+
+  private double oldCpuLoadThreshold;
+  private int oldPendingFlushTaskThreshold;
+  private int oldSlowQueryNumThreshold;
+  private int oldThreadCount;
+  private int oldWriteThroughput;
+
+  @Before
+  public void setUp() {
+    oldCpuLoadThreshold = config.getAdaptiveCompactionCpuLoadThreshold();
+    oldPendingFlushTaskThreshold = config.getAdaptiveCompactionPendingFlushTaskThreshold();
+    oldSlowQueryNumThreshold = config.getAdaptiveCompactionSlowQueryNumThreshold();
+    oldThreadCount = config.getCompactionThreadCount();
+    oldWriteThroughput = config.getCompactionWriteThroughputMbPerSec();
+    config.setAdaptiveCompactionCpuLoadThreshold(0.8);
+    config.setAdaptiveCompactionPendingFlushTaskThreshold(4);
+    config.setAdaptiveCompactionSlowQueryNumThreshold(2);
+    config.setCompactionThreadCount(10);
+    config.setCompactionWriteThroughputMbPerSec(16);
+    // stop() resets the load ratio to 1
+    controller.stop();
+  }
+
+  @After
+  public void tearDown() {
+    controller.stop();
+    config.setAdaptiveCompactionCpuLoadThreshold(oldCpuLoadThreshold);
+    config.setAdaptiveCompactionPendingFlushTaskThreshold(oldPendingFlushTaskThreshold);
+    config.setAdaptiveCompactionSlowQueryNumThreshold(oldSlowQueryNumThreshold);
+    config.setCompactionThreadCount(oldThreadCount);
+    config.setCompactionWriteThroughputMbPerSec(oldWriteThroughput);
+  }
+
+  @Test
+  public void testOverloadDecision() {
+    assertFalse(controller.isOverloaded(0.5, 0, 0));
+    assertFalse(controller.isOverloaded(0.8, 0, 0));
+    assertTrue(controller.isOverloaded(0.81, 0, 0));
+    // a few pending flush tasks or slow queries are tolerated
+    assertFalse(controller.isOverloaded(0.1, 4, 0));
+    assertFalse(controller.isOverloaded(0.1, 0, 2));
+    assertFalse(controller.isOverloaded(0.1, 4, 2));
+    // more than the thresholds back compaction off, whatever the cpu load is
+    assertTrue(controller.isOverloaded(0.1, 5, 0));
+    assertTrue(controller.isOverloaded(0.1, 0, 3));
+  }
+
+  @Test
+  public void testSteadyFlush() {
+    // under steady writes there is almost always a flush task pending
+    for (int i = 0; i < 20; i++) {
+      controller.updateLoadRatio(controller.isOverloaded(0.5, 1, 0));
+    }
+    assertEquals(1.0, controller.getLoadRatio(), 1e-9);
+    assertEquals(10, controller.getAllowedThreadCount());
+
+    // a growing flush backlog backs compaction off, and it recovers once flush catches up
+    controller.updateLoadRatio(controller.isOverloaded(0.5, 8, 0));
+    assertEquals(0.5, controller.getLoadRatio(), 1e-9);
+    for (int i = 0; i < 5; i++) {
+      controller.updateLoadRatio(controller.isOverloaded(0.5, 1, 0));
+    }
+    assertEquals(1.0, controller.getLoadRatio(), 1e-9);
+  }
+
+  @Test
+  public void testBackOffAndRecover() {
+    assertEquals(1.0, controller.getLoadRatio(), 1e-9);
+
+    controller.updateLoadRatio(true);
+    assertEquals(0.5, controller.getLoadRatio(), 1e-9);
+    controller.updateLoadRatio(true);
+    assertEquals(0.25, controller.getLoadRatio(), 1e-9);
+    // the ratio never drops below the lower bound
+    for (int i = 0; i < 10; i++) {
+      controller.updateLoadRatio(true);
+    }
+    assertEquals(0.1, controller.getLoadRatio(), 1e-9);
+
+    // additive increase, capped at 1
+    controller.updateLoadRatio(false);
+    assertEquals(0.2, controller.getLoadRatio(), 1e-9);
+    for (int i = 0; i < 20; i++) {
+      controller.updateLoadRatio(false);
+    }
+    assertEquals(1.0, controller.getLoadRatio(), 1e-9);
+  }
+
+  @Test
+  public void testThrottle() {
+    assertEquals(10, controller.getAllowedThreadCount());
+    assertEquals(16, controller.getWriteThroughputMbPerSec(), 1e-9);
+
+    controller.updateLoadRatio(true);
+    assertEquals(5, controller.getAllowedThreadCount());
+    assertEquals(8, controller.getWriteThroughputMbPerSec(), 1e-9);
+
+    controller.updateLoadRatio(true);
+    // 10 * 0.25 is rounded up
+    assertEquals(3, controller.getAllowedThreadCount());
+    assertEquals(4, controller.getWriteThroughputMbPerSec(), 1e-9);
+
+    // at least one thread keeps working even with a single configured thread
+    config.setCompactionThreadCount(1);
+    for (int i = 0; i < 10; i++) {
+      controller.updateLoadRatio(true);
+    }
+    assertEquals(1, controller.getAllowedThreadCount());
+    assertEquals(1.6, controller.getWriteThroughputMbPerSec(), 1e-9);
+  }
+}
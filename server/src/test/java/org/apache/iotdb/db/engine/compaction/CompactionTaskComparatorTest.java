@@ -41,6 +41,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -183,6 +184,62 @@ public class CompactionTaskComparatorTest {
     }
   }
 
+  /**
+   * Test comparation with same file num, compaction count, file version and different read count
+   */
+  @Test
+  public void testFileReadCountCompare() throws InterruptedException {
+    AbstractCompactionTask[] compactionTasks = new AbstractCompactionTask[100];
+    for (int i = 0; i < 100; ++i) {
+      List<TsFileResource> resources = new ArrayList<>();
+      for (int j = 0; j < 10; ++j) {
+        TsFileResource resource =
+            new FakedTsFileResource(new File(String.format("%d-%d-0-0.tsfile", j, j)), 1);
+        // files of the tasks created earlier are read more frequently
+        for (int k = 0; k < 100 - i; ++k) {
+          resource.increaseReadCount();
+        }
+        resources.add(resource);
+      }
+      compactionTasks[i] =
+          new FakedInnerSpaceCompactionTask(
+              "fakeSg", 0, tsFileManager, taskNum, true, resources, 0);
+      compactionTaskQueue.put(compactionTasks[i]);
+    }
+
+    for (int i = 0; i < 100; ++i) {
+      AbstractCompactionTask currentTask = compactionTaskQueue.take();
+      assertTrue(currentTask == compactionTasks[i]);
+    }
+  }
+
+  /** Test that the read count only breaks the tie of the file version */
+  @Test
+  public void testFileVersionBeforeReadCount() throws InterruptedException {
+    AbstractCompactionTask[] compactionTasks = new AbstractCompactionTask[100];
+    for (int i = 0; i < 100; ++i) {
+      List<TsFileResource> resources = new ArrayList<>();
+      for (int j = 0; j < 10; ++j) {
+        TsFileResource resource =
+            new FakedTsFileResource(new File(String.format("%d-%d-0-0.tsfile", i + j, i + j)), 1);
+        // files with smaller version are read more frequently
+        for (int k = 0; k < 100 - i; ++k) {
+          resource.increaseReadCount();
+        }
+        resources.add(resource);
+      }
+      compactionTasks[i] =
+          new FakedInnerSpaceCompactionTask(
+              "fakeSg", 0, tsFileManager, taskNum, true, resources, 0);
+      compactionTaskQueue.put(compactionTasks[i]);
+    }
+
+    for (int i = 0; i < 100; ++i) {
+      AbstractCompactionTask currentTask = compactionTaskQueue.take();
+      assertTrue(currentTask == compactionTasks[99 - i]);
+    }
+  }
+
   /** Test the comparation of different type of compaction task */
   @Test
   public void testComparationOfDifferentTaskType() throws InterruptedException {
@@ -276,6 +333,37 @@ public class CompactionTaskComparatorTest {
     }
   }
 
+  /** Test the comparation of cross space compaction task with different read count */
+  @Test
+  public void testCrossSpaceTaskReadCountCompare() throws InterruptedException {
+    AbstractCompactionTask[] crossCompactionTasks = new AbstractCompactionTask[100];
+    for (int i = 0; i < 100; ++i) {
+      TsFileResource sequenceResource =
+          new FakedTsFileResource(new File(String.format("%d-%d-0-0.tsfile", i, i)), 1);
+      // files of the tasks with greater serial id are read more frequently
+      for (int k = 0; k < i; ++k) {
+        sequenceResource.increaseReadCount();
+      }
+      TsFileResource unsequenceResource =
+          new FakedTsFileResource(new File(String.format("%d-%d-0-0.tsfile", i + 100, i + 100)), 1);
+      crossCompactionTasks[i] =
+          new FakeCrossSpaceCompactionTask(
+              "fakeSg",
+              0,
+              tsFileManager,
+              taskNum,
+              Collections.singletonList(sequenceResource),
+              Collections.singletonList(unsequenceResource),
+              i);
+      compactionTaskQueue.put(crossCompactionTasks[i]);
+    }
+
+    for (int i = 0; i < 100; ++i) {
+      AbstractCompactionTask currentTask = compactionTaskQueue.take();
+      assertTrue(currentTask == crossCompactionTasks[99 - i]);
+    }
+  }
+
   @Test
   public void testSerialId() throws InterruptedException {
     AbstractCompactionTask[] compactionTasks = new AbstractCompactionTask[100];
@@ -21,6 +21,7 @@ package org.apache.iotdb.db.engine.compaction.inner;
 
 import org.apache.iotdb.commons.path.AlignedPath;
 import org.apache.iotdb.commons.path.PartialPath;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.constant.TestConstant;
 import org.apache.iotdb.db.engine.cache.ChunkCache;
 import org.apache.iotdb.db.engine.cache.TimeSeriesMetadataCache;
@@ -35,8 +36,18 @@ import org.apache.iotdb.db.engine.compaction.utils.CompactionFileGeneratorUtils;
 import org.apache.iotdb.db.engine.storagegroup.TsFileNameGenerator;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.db.utils.RollupUtils;
+import org.apache.iotdb.tsfile.file.metadata.AlignedChunkMetadata;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.file.metadata.IChunkMetadata;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.read.TimeValuePair;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.apache.iotdb.tsfile.read.reader.IPageReader;
+import org.apache.iotdb.tsfile.read.reader.chunk.AlignedChunkReader;
+import org.apache.iotdb.tsfile.read.reader.page.AlignedPageReader;
 import org.apache.iotdb.tsfile.utils.Pair;
 import org.apache.iotdb.tsfile.write.schema.IMeasurementSchema;
 import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
@@ -152,6 +163,100 @@ public class ReadChunkCompactionPerformerAlignedTest {
     CompactionCheckerUtils.validDataByValueList(originData, compactedData);
   }
 
+  @Test
+  public void testAlignedTsFileCompactionWithRollup() throws Exception {
+    List<String> devices = new ArrayList<>();
+    for (int i = 0; i < 2; ++i) {
+      devices.add(storageGroup + ".d" + i);
+    }
+    boolean[] aligned = new boolean[] {true, true};
+    List<IMeasurementSchema> schemas = new ArrayList<>();
+    schemas.add(new MeasurementSchema("s0", TSDataType.DOUBLE));
+    schemas.add(new MeasurementSchema("s1", TSDataType.INT64));
+
+    TestUtilsForAlignedSeries.registerTimeSeries(
+        storageGroup,
+        devices.toArray(new String[] {}),
+        schemas.toArray(new IMeasurementSchema[] {}),
+        aligned);
+
+    RollupUtils.setRollupInterval(100);
+    try {
+      boolean[] randomNull = new boolean[] {false, true};
+      int timeInterval = 150;
+      List<TsFileResource> resources = new ArrayList<>();
+      for (int i = 1; i < 4; i++) {
+        TsFileResource resource =
+            new TsFileResource(new File(dataDirectory, String.format("%d-%d-0-0.tsfile", i, i)));
+        TestUtilsForAlignedSeries.writeTsFile(
+            devices.toArray(new String[] {}),
+            schemas.toArray(new IMeasurementSchema[0]),
+            resource,
+            aligned,
+            timeInterval * i,
+            timeInterval * (i + 1),
+            randomNull);
+        resources.add(resource);
+      }
+      TsFileResource targetResource =
+          TsFileNameGenerator.getInnerCompactionTargetFileResource(resources, true);
+      List<PartialPath> fullPaths = new ArrayList<>();
+      List<IMeasurementSchema> iMeasurementSchemas = new ArrayList<>();
+      List<String> measurementIds = new ArrayList<>();
+      schemas.forEach(
+          (e) -> {
+            measurementIds.add(e.getMeasurementId());
+          });
+      for (String device : devices) {
+        iMeasurementSchemas.addAll(schemas);
+        fullPaths.add(new AlignedPath(device, measurementIds, schemas));
+      }
+      Map<PartialPath, List<TimeValuePair>> originData =
+          CompactionCheckerUtils.getDataByQuery(
+              fullPaths, iMeasurementSchemas, resources, new ArrayList<>());
+      performer.setSourceFiles(resources);
+      performer.setTargetFiles(Collections.singletonList(targetResource));
+      performer.setSummary(new CompactionTaskSummary());
+      performer.perform();
+      CompactionUtils.moveTargetFile(Collections.singletonList(targetResource), true, storageGroup);
+      Map<PartialPath, List<TimeValuePair>> compactedData =
+          CompactionCheckerUtils.getDataByQuery(
+              fullPaths,
+              iMeasurementSchemas,
+              Collections.singletonList(targetResource),
+              new ArrayList<>());
+      CompactionCheckerUtils.validDataByValueList(originData, compactedData);
+
+      try (TsFileSequenceReader reader =
+          new TsFileSequenceReader(targetResource.getTsFilePath())) {
+        for (String device : devices) {
+          List<IPageReader> pageReaders = new ArrayList<>();
+          for (AlignedChunkMetadata chunkMetadata : reader.getAlignedChunkMetadata(device)) {
+            Chunk timeChunk =
+                reader.readMemChunk((ChunkMetadata) chunkMetadata.getTimeChunkMetadata());
+            List<Chunk> valueChunks = new ArrayList<>();
+            for (IChunkMetadata valueChunkMetadata : chunkMetadata.getValueChunkMetadataList()) {
+              valueChunks.add(
+                  valueChunkMetadata == null
+                      ? null
+                      : reader.readMemChunk((ChunkMetadata) valueChunkMetadata));
+            }
+            pageReaders.addAll(
+                new AlignedChunkReader(timeChunk, valueChunks, null).loadPageReaderList());
+          }
+          // [150, 199], [200, 299], [300, 399], [400, 499], [500, 599]
+          Assert.assertEquals(5, pageReaders.size());
+          for (IPageReader pageReader : pageReaders) {
+            Statistics statistics = ((AlignedPageReader) pageReader).getTimeStatistics();
+            Assert.assertEquals(statistics.getStartTime() / 100, statistics.getEndTime() / 100);
+          }
+        }
+      }
+    } finally {
+      RollupUtils.setRollupInterval(IoTDBDescriptor.getInstance().getConfig().getRollupInterval());
+    }
+  }
+
   @Test
   public void testAlignedTsFileWithModificationCompaction() throws Exception {
     List<String> devices = new ArrayList<>();
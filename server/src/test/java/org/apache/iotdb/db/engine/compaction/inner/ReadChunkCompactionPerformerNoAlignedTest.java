@@ -37,6 +37,8 @@ import org.apache.iotdb.db.engine.compaction.utils.CompactionFileGeneratorUtils;
 import org.apache.iotdb.db.engine.storagegroup.TsFileNameGenerator;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.db.utils.RollupUtils;
+import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
 import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
@@ -217,6 +219,50 @@ public class ReadChunkCompactionPerformerNoAlignedTest {
     }
   }
 
+  /**
+   * Compact with more than one sub task while the sub task pool is not started, the devices should
+   * be compacted in the performer thread.
+   */
+  @Test
+  public void testCompactWithoutSubTaskPool() throws Exception {
+    int originSubTaskNum = IoTDBDescriptor.getInstance().getConfig().getSubCompactionTaskNum();
+    IoTDBDescriptor.getInstance().getConfig().setSubCompactionTaskNum(4);
+    try {
+      List<TsFileResource> sourceFiles = new ArrayList<>();
+      int fileNum = 3;
+      for (int i = 0; i < fileNum; ++i) {
+        List<List<Long>> chunkPagePointsNum = new ArrayList<>();
+        List<Long> pagePointsNum = new ArrayList<>();
+        pagePointsNum.add(100L);
+        chunkPagePointsNum.add(pagePointsNum);
+        TsFileResource resource =
+            new TsFileResource(new File(SEQ_DIRS, String.format("%d-%d-0-0.tsfile", i + 1, i + 1)));
+        sourceFiles.add(resource);
+        CompactionFileGeneratorUtils.writeTsFile(
+            fullPathSet, chunkPagePointsNum, i * 100L, resource);
+      }
+      Map<PartialPath, List<TimeValuePair>> originData =
+          CompactionCheckerUtils.getDataByQuery(paths, schemaList, sourceFiles, new ArrayList<>());
+      TsFileResource targetResource =
+          TsFileNameGenerator.getInnerCompactionTargetFileResource(sourceFiles, true);
+      performer.setSourceFiles(sourceFiles);
+      performer.setTargetFiles(Collections.singletonList(targetResource));
+      performer.setSummary(new CompactionTaskSummary());
+      performer.perform();
+      CompactionUtils.moveTargetFile(Collections.singletonList(targetResource), true, storageGroup);
+      for (String device : devices) {
+        Assert.assertEquals(0, targetResource.getStartTime(storageGroup + "." + device));
+        Assert.assertEquals(299, targetResource.getEndTime(storageGroup + "." + device));
+      }
+      Map<PartialPath, List<TimeValuePair>> compactedData =
+          CompactionCheckerUtils.getDataByQuery(
+              paths, schemaList, Collections.singletonList(targetResource), new ArrayList<>());
+      CompactionCheckerUtils.validDataByValueList(originData, compactedData);
+    } finally {
+      IoTDBDescriptor.getInstance().getConfig().setSubCompactionTaskNum(originSubTaskNum);
+    }
+  }
+
   /**
    * Generate some middle chunk that should be merged and cached in memory, and a large chunk that
    * is larger than target size. The latter should be merged with previously cached chunk and
@@ -728,6 +774,158 @@ public class ReadChunkCompactionPerformerNoAlignedTest {
     }
   }
 
+  /**
+   * Generate files whose chunks are less than the lower bound and contain full pages. The chunks
+   * will be written into ChunkWriter. The full pages are appended to it without being deserialized
+   * until a small page is written, after which the full pages are deserialized and merged with the
+   * unsealed points, so no small page is left in the middle of the target chunk.
+   */
+  @Test
+  public void testDirectlyFlushPage() throws Exception {
+    long originTargetChunkSize = IoTDBDescriptor.getInstance().getConfig().getTargetChunkSize();
+    long originTargetChunkPointNum =
+        IoTDBDescriptor.getInstance().getConfig().getTargetChunkPointNum();
+    IoTDBDescriptor.getInstance().getConfig().setTargetChunkSize(1024 * 1024);
+    IoTDBDescriptor.getInstance().getConfig().setTargetChunkPointNum(100000);
+    long originChunkSizeLowerBound =
+        IoTDBDescriptor.getInstance().getConfig().getChunkSizeLowerBoundInCompaction();
+    IoTDBDescriptor.getInstance().getConfig().setChunkSizeLowerBoundInCompaction(1024 * 1024);
+    long originChunkPointNumLowerBound =
+        IoTDBDescriptor.getInstance().getConfig().getChunkPointNumLowerBoundInCompaction();
+    IoTDBDescriptor.getInstance().getConfig().setChunkPointNumLowerBoundInCompaction(100000);
+    int originMaxNumberOfPointsInPage =
+        TSFileDescriptor.getInstance().getConfig().getMaxNumberOfPointsInPage();
+    try {
+      List<TsFileResource> sourceFiles = new ArrayList();
+      int fileNum = 3;
+      for (int i = 0; i < fileNum; ++i) {
+        List<List<Long>> chunkPagePointsNum = new ArrayList<>();
+        List<Long> pagePointsNum = new ArrayList<>();
+        pagePointsNum.add(100L);
+        pagePointsNum.add(100L);
+        pagePointsNum.add(30L);
+        chunkPagePointsNum.add(pagePointsNum);
+        TsFileResource resource =
+            new TsFileResource(new File(SEQ_DIRS, String.format("%d-%d-0-0.tsfile", i + 1, i + 1)));
+        sourceFiles.add(resource);
+        CompactionFileGeneratorUtils.writeTsFile(
+            fullPathSet, chunkPagePointsNum, i * 1500L, resource);
+      }
+      Map<PartialPath, List<TimeValuePair>> originData =
+          CompactionCheckerUtils.getDataByQuery(paths, schemaList, sourceFiles, new ArrayList<>());
+      TsFileResource targetResource =
+          TsFileNameGenerator.getInnerCompactionTargetFileResource(sourceFiles, true);
+      TSFileDescriptor.getInstance().getConfig().setMaxNumberOfPointsInPage(100);
+      CompactionTaskSummary summary = new CompactionTaskSummary();
+      performer.setSourceFiles(sourceFiles);
+      performer.setTargetFiles(Collections.singletonList(targetResource));
+      performer.setSummary(summary);
+      performer.perform();
+      TSFileDescriptor.getInstance()
+          .getConfig()
+          .setMaxNumberOfPointsInPage(originMaxNumberOfPointsInPage);
+      CompactionUtils.moveTargetFile(Collections.singletonList(targetResource), true, storageGroup);
+      // only the full pages of the first file are appended directly
+      Assert.assertEquals(2 * fullPathSet.size(), summary.getDirectlyFlushPageNum());
+      Map<String, List<List<Long>>> chunkPagePointsNumMerged = new HashMap<>();
+      // outer list is a chunk, inner list is point num in each page
+      for (String path : fullPathSet) {
+        CompactionCheckerUtils.putChunk(
+            chunkPagePointsNumMerged, path, new long[] {100, 100, 100, 100, 100, 100, 90});
+      }
+      CompactionCheckerUtils.checkChunkAndPage(chunkPagePointsNumMerged, targetResource);
+      Map<PartialPath, List<TimeValuePair>> compactedData =
+          CompactionCheckerUtils.getDataByQuery(
+              paths, schemaList, Collections.singletonList(targetResource), new ArrayList<>());
+      CompactionCheckerUtils.validDataByValueList(originData, compactedData);
+    } finally {
+      TSFileDescriptor.getInstance()
+          .getConfig()
+          .setMaxNumberOfPointsInPage(originMaxNumberOfPointsInPage);
+      IoTDBDescriptor.getInstance().getConfig().setTargetChunkSize(originTargetChunkSize);
+      IoTDBDescriptor.getInstance().getConfig().setTargetChunkPointNum(originTargetChunkPointNum);
+      IoTDBDescriptor.getInstance()
+          .getConfig()
+          .setChunkSizeLowerBoundInCompaction(originChunkSizeLowerBound);
+      IoTDBDescriptor.getInstance()
+          .getConfig()
+          .setChunkPointNumLowerBoundInCompaction(originChunkPointNumLowerBound);
+    }
+  }
+
+  /**
+   * Generate files whose pages are not sealed at the boundaries of rollup windows, the pages of the
+   * target file are split at the boundaries, and a small page which ends its rollup window is
+   * appended directly.
+   */
+  @Test
+  public void testCompactWithRollup() throws Exception {
+    long originTargetChunkSize = IoTDBDescriptor.getInstance().getConfig().getTargetChunkSize();
+    long originTargetChunkPointNum =
+        IoTDBDescriptor.getInstance().getConfig().getTargetChunkPointNum();
+    IoTDBDescriptor.getInstance().getConfig().setTargetChunkSize(1024 * 1024);
+    IoTDBDescriptor.getInstance().getConfig().setTargetChunkPointNum(100000);
+    long originChunkSizeLowerBound =
+        IoTDBDescriptor.getInstance().getConfig().getChunkSizeLowerBoundInCompaction();
+    IoTDBDescriptor.getInstance().getConfig().setChunkSizeLowerBoundInCompaction(1024 * 1024);
+    long originChunkPointNumLowerBound =
+        IoTDBDescriptor.getInstance().getConfig().getChunkPointNumLowerBoundInCompaction();
+    IoTDBDescriptor.getInstance().getConfig().setChunkPointNumLowerBoundInCompaction(100000);
+    RollupUtils.setRollupInterval(100);
+    try {
+      // [0, 49], [50, 99], [100, 129], [130, 149]
+      // [150, 199], [200, 299], [300, 399]
+      // [400, 459], [460, 489], [490, 589]
+      long[][] filePagePointsNum = new long[][] {{50, 50, 30, 20}, {50, 100, 100}, {60, 30, 100}};
+      long[] fileStartTimes = new long[] {0, 150, 400};
+      List<TsFileResource> sourceFiles = new ArrayList();
+      for (int i = 0; i < filePagePointsNum.length; ++i) {
+        List<Long> pagePointsNum = new ArrayList<>();
+        for (long pagePointNum : filePagePointsNum[i]) {
+          pagePointsNum.add(pagePointNum);
+        }
+        TsFileResource resource =
+            new TsFileResource(new File(SEQ_DIRS, String.format("%d-%d-0-0.tsfile", i + 1, i + 1)));
+        sourceFiles.add(resource);
+        CompactionFileGeneratorUtils.writeTsFile(
+            fullPathSet, Collections.singletonList(pagePointsNum), fileStartTimes[i], resource);
+      }
+      Map<PartialPath, List<TimeValuePair>> originData =
+          CompactionCheckerUtils.getDataByQuery(paths, schemaList, sourceFiles, new ArrayList<>());
+      TsFileResource targetResource =
+          TsFileNameGenerator.getInnerCompactionTargetFileResource(sourceFiles, true);
+      CompactionTaskSummary summary = new CompactionTaskSummary();
+      performer.setSourceFiles(sourceFiles);
+      performer.setTargetFiles(Collections.singletonList(targetResource));
+      performer.setSummary(summary);
+      performer.perform();
+      CompactionUtils.moveTargetFile(Collections.singletonList(targetResource), true, storageGroup);
+      // only [200, 299] is appended directly, because the next page is in a later rollup window
+      Assert.assertEquals(fullPathSet.size(), summary.getDirectlyFlushPageNum());
+      Map<String, List<List<Long>>> chunkPagePointsNumMerged = new HashMap<>();
+      // [0, 99], [100, 199], [200, 299], [300, 399], [400, 499], [500, 589]
+      for (String path : fullPathSet) {
+        CompactionCheckerUtils.putChunk(
+            chunkPagePointsNumMerged, path, new long[] {100, 100, 100, 100, 100, 90});
+      }
+      CompactionCheckerUtils.checkChunkAndPage(chunkPagePointsNumMerged, targetResource);
+      Map<PartialPath, List<TimeValuePair>> compactedData =
+          CompactionCheckerUtils.getDataByQuery(
+              paths, schemaList, Collections.singletonList(targetResource), new ArrayList<>());
+      CompactionCheckerUtils.validDataByValueList(originData, compactedData);
+    } finally {
+      RollupUtils.setRollupInterval(IoTDBDescriptor.getInstance().getConfig().getRollupInterval());
+      IoTDBDescriptor.getInstance().getConfig().setTargetChunkSize(originTargetChunkSize);
+      IoTDBDescriptor.getInstance().getConfig().setTargetChunkPointNum(originTargetChunkPointNum);
+      IoTDBDescriptor.getInstance()
+          .getConfig()
+          .setChunkSizeLowerBoundInCompaction(originChunkSizeLowerBound);
+      IoTDBDescriptor.getInstance()
+          .getConfig()
+          .setChunkPointNumLowerBoundInCompaction(originChunkPointNumLowerBound);
+    }
+  }
+
   @Test
   public void testMixCompact1() throws Exception {
     long testTargetChunkPointNum = 2000L;
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.memtable;
+
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
+import org.apache.iotdb.tsfile.write.chunk.AlignedChunkWriterImpl;
+import org.apache.iotdb.tsfile.write.schema.IMeasurementSchema;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class AlignedWritableMemChunkTest {
+
+  @Test
+  public void testEncodeDuplicatedTimeAtPageStart() {
+    List<IMeasurementSchema> schemaList =
+        Arrays.asList(
+            new MeasurementSchema("s1", TSDataType.INT64, TSEncoding.PLAIN, CompressionType.SNAPPY),
+            new MeasurementSchema(
+                "s2", TSDataType.INT64, TSEncoding.PLAIN, CompressionType.SNAPPY));
+    AlignedWritableMemChunk memChunk = new AlignedWritableMemChunk(schemaList);
+    int[] columnIndexArray = new int[] {0, 1};
+    // s1 of the second row at time 1 is null, it should be filled by the first row
+    memChunk.putAlignedValueWithFlushCheck(1, new Object[] {5L, 1L}, columnIndexArray);
+    memChunk.putAlignedValueWithFlushCheck(1, new Object[] {null, 2L}, columnIndexArray);
+    memChunk.putAlignedValueWithFlushCheck(2, new Object[] {7L, 3L}, columnIndexArray);
+    memChunk.sortTvListForFlush();
+
+    AlignedChunkWriterImpl chunkWriter = (AlignedChunkWriterImpl) memChunk.createIChunkWriter();
+    memChunk.encode(chunkWriter);
+    chunkWriter.sealCurrentPage();
+
+    Statistics<?> s1Statistics = chunkWriter.getValueChunkWriterByIndex(0).getStatistics();
+    assertEquals(2, s1Statistics.getCount());
+    assertEquals(5L, s1Statistics.getFirstValue());
+    assertEquals(12.0, s1Statistics.getSumDoubleValue(), 0);
+
+    // the later row wins if both are not null
+    Statistics<?> s2Statistics = chunkWriter.getValueChunkWriterByIndex(1).getStatistics();
+    assertEquals(2, s2Statistics.getCount());
+    assertEquals(2L, s2Statistics.getFirstValue());
+    assertEquals(5.0, s2Statistics.getSumDoubleValue(), 0);
+  }
+}
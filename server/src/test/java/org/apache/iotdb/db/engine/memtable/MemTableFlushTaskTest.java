@@ -19,19 +19,26 @@
 package org.apache.iotdb.db.engine.memtable;
 
 import org.apache.iotdb.commons.exception.IllegalPathException;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.constant.TestConstant;
 import org.apache.iotdb.db.engine.flush.MemTableFlushTask;
 import org.apache.iotdb.db.exception.WriteProcessException;
 import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.db.utils.RollupUtils;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.fileSystem.FSFactoryProducer;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.reader.IPageReader;
+import org.apache.iotdb.tsfile.read.reader.chunk.ChunkReader;
 import org.apache.iotdb.tsfile.write.writer.RestorableTsFileIOWriter;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 
 import static org.junit.Assert.assertEquals;
@@ -103,6 +110,44 @@ public class MemTableFlushTaskTest {
     assertEquals(endTime - startTime + 1, chunkMetaData.getNumOfPoints());
   }
 
+  @Test
+  public void testFlushMemTableWithRollup() throws Exception {
+    RollupUtils.setRollupInterval(10);
+    try {
+      MemTableTestUtils.produceData(
+          memTable,
+          startTime,
+          endTime,
+          MemTableTestUtils.deviceId0,
+          MemTableTestUtils.measurementId0,
+          MemTableTestUtils.dataType0);
+      MemTableFlushTask memTableFlushTask = new MemTableFlushTask(memTable, writer, storageGroup);
+      memTableFlushTask.syncFlushMemTable();
+      writer.makeMetadataVisible();
+      ChunkMetadata chunkMetaData =
+          writer
+              .getVisibleMetadataList(
+                  MemTableTestUtils.deviceId0,
+                  MemTableTestUtils.measurementId0,
+                  MemTableTestUtils.dataType0)
+              .get(0);
+      writer.endFile();
+
+      try (TsFileSequenceReader reader = new TsFileSequenceReader(filePath)) {
+        List<IPageReader> pageReaders =
+            new ChunkReader(reader.readMemChunk(chunkMetaData), null).loadPageReaderList();
+        // [1, 9], [10, 19], ..., [90, 99], [100, 100]
+        assertEquals(11, pageReaders.size());
+        for (IPageReader pageReader : pageReaders) {
+          Statistics statistics = pageReader.getStatistics();
+          assertEquals(statistics.getStartTime() / 10, statistics.getEndTime() / 10);
+        }
+      }
+    } finally {
+      RollupUtils.setRollupInterval(IoTDBDescriptor.getInstance().getConfig().getRollupInterval());
+    }
+  }
+
   @Test
   public void testFlushVectorMemTable()
       throws ExecutionException, InterruptedException, IllegalPathException, WriteProcessException {
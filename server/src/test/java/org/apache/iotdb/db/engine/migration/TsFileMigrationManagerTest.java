@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.migration;
+
+import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.db.engine.modification.ModificationFile;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TsFileMigrationManagerTest {
+
+  private final File partitionFolder =
+      new File(TestConstant.OUTPUT_DATA_DIR + "cold" + File.separator + "0");
+
+  @Before
+  public void setUp() throws IOException {
+    FileUtils.forceMkdir(partitionFolder);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(new File(TestConstant.OUTPUT_DATA_DIR + "cold"));
+  }
+
+  @Test
+  public void testRemoveInterruptedMigrations() throws IOException {
+    File migratedFile = createFile("1-1-0-0.tsfile");
+    createFile("1-1-0-0.tsfile" + TsFileResource.RESOURCE_SUFFIX);
+    File duplicatedFile = createFile("2-2-0-0.tsfile");
+    File duplicatedResource = createFile("2-2-0-0.tsfile" + TsFileResource.RESOURCE_SUFFIX);
+    File duplicatedMods = createFile("2-2-0-0.tsfile" + ModificationFile.FILE_SUFFIX);
+    File migratingFile = createFile("3-3-0-0.tsfile" + TsFileMigrationManager.MIGRATING_SUFFIX);
+
+    // 2-2-0-0.tsfile still exists in the hot tier
+    Set<String> hotTsFiles = Collections.singleton("0" + File.separator + "2-2-0-0.tsfile");
+    File[] remainingFiles =
+        TsFileMigrationManager.getInstance()
+            .removeInterruptedMigrations(
+                partitionFolder, new File[] {migratedFile, duplicatedFile}, hotTsFiles);
+
+    assertArrayEquals(new File[] {migratedFile}, remainingFiles);
+    assertTrue(migratedFile.exists());
+    assertFalse(duplicatedFile.exists());
+    assertFalse(duplicatedResource.exists());
+    assertFalse(duplicatedMods.exists());
+    assertFalse(migratingFile.exists());
+  }
+
+  private File createFile(String name) throws IOException {
+    File file = new File(partitionFolder, name);
+    assertTrue(file.createNewFile());
+    return file;
+  }
+}
@@ -30,6 +30,7 @@ import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.constant.TestConstant;
 import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.engine.cache.AggregationResultCache;
 import org.apache.iotdb.db.engine.compaction.execute.performer.ICompactionPerformer;
 import org.apache.iotdb.db.engine.compaction.execute.performer.impl.FastCompactionPerformer;
 import org.apache.iotdb.db.engine.compaction.execute.task.InnerSpaceCompactionTask;
@@ -53,6 +54,8 @@ import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.read.TimeValuePair;
+import org.apache.iotdb.tsfile.read.common.TimeRange;
+import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
 import org.apache.iotdb.tsfile.read.reader.IPointReader;
 import org.apache.iotdb.tsfile.write.record.TSRecord;
 import org.apache.iotdb.tsfile.write.record.datapoint.DataPoint;
@@ -220,6 +223,51 @@ public class DataRegionTest {
     }
   }
 
+  @Test
+  public void testAggregationResultCacheAfterSequenceFileSealed()
+      throws WriteProcessException, QueryProcessException, IllegalPathException {
+    AggregationResultCache resultCache = AggregationResultCache.getInstance();
+    resultCache.setMaximumSize(100);
+    try {
+      List<PartialPath> paths = Collections.singletonList(new PartialPath(deviceId, measurementId));
+      String signature = "signature";
+      TimeRange window = new TimeRange(0, 99);
+      for (int j = 1; j <= 10; j++) {
+        TSRecord record = new TSRecord(j, deviceId);
+        record.addTuple(DataPoint.getDataPoint(TSDataType.INT32, measurementId, String.valueOf(j)));
+        dataRegion.insert(buildInsertRowNodeByTSRecord(record));
+      }
+      dataRegion.syncCloseAllWorkingTsFileProcessors();
+      AggregationResultCache.WindowKey key =
+          resultCache.getKey(
+              signature, deviceId, dataRegion.query(paths, deviceId, context, null), null, window);
+      Assert.assertNotNull(key);
+      resultCache.put(key, new TsBlockBuilder(Collections.singletonList(TSDataType.INT64)).build());
+
+      // more sequence data of the cached window is written into a new working file
+      for (int j = 11; j <= 20; j++) {
+        TSRecord record = new TSRecord(j, deviceId);
+        record.addTuple(DataPoint.getDataPoint(TSDataType.INT32, measurementId, String.valueOf(j)));
+        dataRegion.insert(buildInsertRowNodeByTSRecord(record));
+      }
+      Assert.assertNull(
+          resultCache.getKey(
+              signature, deviceId, dataRegion.query(paths, deviceId, context, null), null, window));
+
+      // after the file is sealed, the window can be cached again but the old result is not used
+      dataRegion.syncCloseAllWorkingTsFileProcessors();
+      AggregationResultCache.WindowKey newKey =
+          resultCache.getKey(
+              signature, deviceId, dataRegion.query(paths, deviceId, context, null), null, window);
+      Assert.assertNotNull(newKey);
+      Assert.assertNotEquals(key, newKey);
+      Assert.assertNull(resultCache.get(newKey));
+    } finally {
+      resultCache.clear();
+      resultCache.setMaximumSize(Math.max(config.getAggregationResultCacheSize(), 0));
+    }
+  }
+
   @Test
   public void testInsertDataAndRemovePartitionAndInsert()
       throws WriteProcessException, QueryProcessException, IllegalPathException {
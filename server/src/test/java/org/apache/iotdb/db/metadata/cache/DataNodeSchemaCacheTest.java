@@ -20,12 +20,19 @@
 package org.apache.iotdb.db.metadata.cache;
 
 import org.apache.iotdb.commons.exception.IllegalPathException;
+import org.apache.iotdb.commons.path.MeasurementPath;
 import org.apache.iotdb.commons.path.PartialPath;
+import org.apache.iotdb.db.metadata.template.ClusterTemplateManager;
+import org.apache.iotdb.db.metadata.template.Template;
+import org.apache.iotdb.db.metadata.template.TemplateInternalRPCUtil;
 import org.apache.iotdb.db.mpp.common.schematree.ClusterSchemaTree;
 import org.apache.iotdb.db.mpp.common.schematree.ISchemaTree;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.read.TimeValuePair;
 import org.apache.iotdb.tsfile.utils.TsPrimitiveType;
+import org.apache.iotdb.tsfile.write.schema.IMeasurementSchema;
 import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 
 import org.junit.After;
@@ -33,6 +40,7 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -190,6 +198,90 @@ public class DataNodeSchemaCacheTest {
     Assert.assertNull(dataNodeSchemaCache.getLastCache(seriesPath3));
   }
 
+  @Test
+  public void testTemplateEntity() throws Exception {
+    Template template =
+        new Template(
+            "t1",
+            Arrays.asList(Collections.singletonList("s1"), Collections.singletonList("s2")),
+            Arrays.asList(
+                Collections.singletonList(TSDataType.INT64),
+                Collections.singletonList(TSDataType.DOUBLE)),
+            Arrays.asList(
+                Collections.singletonList(TSEncoding.RLE),
+                Collections.singletonList(TSEncoding.GORILLA)),
+            Arrays.asList(
+                Collections.singletonList(CompressionType.SNAPPY),
+                Collections.singletonList(CompressionType.SNAPPY)));
+    template.setId(1);
+    ClusterTemplateManager.getInstance()
+        .updateTemplateSetInfo(
+            TemplateInternalRPCUtil.generateAddTemplateSetInfoBytes(template, "root.sg1"));
+    MeasurementSchema s1 = (MeasurementSchema) template.getSchema("s1");
+    MeasurementSchema s2 = (MeasurementSchema) template.getSchema("s2");
+    try {
+      ClusterSchemaTree schemaTree = new ClusterSchemaTree();
+      schemaTree.appendSingleMeasurement(new PartialPath("root.sg1.d1.s1"), s1, null, null, false);
+      schemaTree.appendSingleMeasurement(new PartialPath("root.sg1.d1.s2"), s2, null, null, false);
+      schemaTree.appendSingleMeasurement(
+          new PartialPath("root.sg1.d2.s1"),
+          new MeasurementSchema("s1", TSDataType.INT32),
+          null,
+          null,
+          false);
+      schemaTree.setDatabases(Collections.singleton("root.sg1"));
+      schemaTree.markTemplateEntities(Collections.singletonMap(1, template));
+      dataNodeSchemaCache.put(schemaTree);
+
+      // only the series of the device not using template is cached one by one
+      Assert.assertEquals(1, dataNodeSchemaCache.estimatedSize());
+
+      PartialPath device1 = new PartialPath("root.sg1.d1");
+      ClusterSchemaTree cachedTree = dataNodeSchemaCache.get(device1, new String[] {"s1", "s2"});
+      Map<String, IMeasurementSchema> schemaMap =
+          cachedTree.getAllMeasurement().stream()
+              .collect(
+                  Collectors.toMap(MeasurementPath::getMeasurement, o -> o.getMeasurementSchema()));
+      Assert.assertEquals(2, schemaMap.size());
+      Assert.assertEquals(s1, schemaMap.get("s1"));
+      Assert.assertEquals(s2, schemaMap.get("s2"));
+      Assert.assertEquals("root.sg1", cachedTree.getBelongedDatabase(device1));
+
+      // measurements out of the template are missing
+      Assert.assertTrue(
+          dataNodeSchemaCache.get(new PartialPath("root.sg1.d1.s3")).getAllMeasurement().isEmpty());
+      Assert.assertEquals(
+          TSDataType.INT32,
+          dataNodeSchemaCache
+              .get(new PartialPath("root.sg1.d2.s1"))
+              .getAllMeasurement()
+              .get(0)
+              .getSeriesType());
+
+      // writes create the last cache of the series resolved through the template
+      PartialPath seriesPath = new PartialPath("root.sg1.d1.s1");
+      Assert.assertNull(dataNodeSchemaCache.getLastCache(seriesPath));
+      TimeValuePair timeValuePair =
+          new TimeValuePair(100, TsPrimitiveType.getByType(TSDataType.INT64, 1L));
+      dataNodeSchemaCache.updateLastCache(seriesPath, timeValuePair, true, Long.MIN_VALUE);
+      Assert.assertEquals(timeValuePair, dataNodeSchemaCache.getLastCache(seriesPath));
+      Assert.assertEquals(2, dataNodeSchemaCache.estimatedSize());
+      // series out of the template still have no last cache
+      dataNodeSchemaCache.updateLastCache(
+          new PartialPath("root.sg1.d1.s3"), timeValuePair, true, Long.MIN_VALUE);
+      Assert.assertNull(dataNodeSchemaCache.getLastCache(new PartialPath("root.sg1.d1.s3")));
+
+      dataNodeSchemaCache.invalidate(new PartialPath("root.sg1.d1.s1"));
+      Assert.assertNull(dataNodeSchemaCache.getLastCache(seriesPath));
+      Assert.assertTrue(
+          dataNodeSchemaCache.get(new PartialPath("root.sg1.d1.s2")).getAllMeasurement().isEmpty());
+    } finally {
+      ClusterTemplateManager.getInstance()
+          .invalidateTemplateSetInfo(
+              TemplateInternalRPCUtil.generateInvalidateTemplateSetInfoBytes(1, "root.sg1"));
+    }
+  }
+
   private ISchemaTree generateSchemaTree1() throws IllegalPathException {
     ClusterSchemaTree schemaTree = new ClusterSchemaTree();
     Map<String, String> s1TagMap = new HashMap<>();
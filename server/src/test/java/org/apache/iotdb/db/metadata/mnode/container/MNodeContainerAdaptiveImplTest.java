@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata.mnode.container;
+
+import org.apache.iotdb.db.metadata.mnode.IMNode;
+import org.apache.iotdb.db.metadata.mnode.InternalMNode;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MNodeContainerAdaptiveImplTest {
+
+  @Test
+  public void testPutAndGetAcrossLayouts() {
+    MNodeContainerAdaptiveImpl container = new MNodeContainerAdaptiveImpl();
+    IMNode parent = new InternalMNode(null, "root");
+    List<IMNode> children = new ArrayList<>();
+    int childNum = MNodeContainerAdaptiveImpl.MAX_ARRAY_SIZE + 10;
+    // insert in descending order to make sure the array is kept sorted
+    for (int i = childNum - 1; i >= 0; i--) {
+      IMNode child = new InternalMNode(parent, "s" + i);
+      children.add(child);
+      assertNull(container.putIfAbsent(child.getName(), child));
+      assertEquals(childNum - i, container.size());
+      for (IMNode added : children) {
+        assertSame(added, container.get(added.getName()));
+      }
+      assertNull(container.get("s" + childNum));
+    }
+
+    IMNode duplicate = new InternalMNode(parent, "s0");
+    assertSame(container.get("s0"), container.putIfAbsent("s0", duplicate));
+    assertEquals(childNum, container.size());
+
+    Set<String> names = new HashSet<>(container.keySet());
+    assertEquals(childNum, names.size());
+    assertEquals(childNum, container.values().size());
+  }
+
+  @Test
+  public void testRemoveAcrossLayouts() {
+    MNodeContainerAdaptiveImpl container = new MNodeContainerAdaptiveImpl();
+    IMNode parent = new InternalMNode(null, "root");
+    int childNum = MNodeContainerAdaptiveImpl.MAX_ARRAY_SIZE + 10;
+    for (int i = 0; i < childNum; i++) {
+      IMNode child = new InternalMNode(parent, "s" + i);
+      container.put(child.getName(), child);
+    }
+
+    for (int i = 0; i < childNum; i++) {
+      IMNode removed = container.remove("s" + i);
+      assertEquals("s" + i, removed.getName());
+      assertNull(container.remove("s" + i));
+      assertEquals(childNum - i - 1, container.size());
+      for (int j = i + 1; j < childNum; j++) {
+        assertTrue(container.containsKey("s" + j));
+      }
+    }
+    assertTrue(container.isEmpty());
+  }
+
+  @Test
+  public void testIterateSnapshot() {
+    MNodeContainerAdaptiveImpl container = new MNodeContainerAdaptiveImpl();
+    IMNode parent = new InternalMNode(null, "root");
+    for (int i = 0; i < MNodeContainerAdaptiveImpl.MAX_INLINE_SIZE * 2; i++) {
+      IMNode child = new InternalMNode(parent, "s" + i);
+      container.put(child.getName(), child);
+    }
+
+    List<String> names = new ArrayList<>();
+    Iterator<IMNode> iterator = container.values().iterator();
+    while (iterator.hasNext()) {
+      IMNode child = iterator.next();
+      names.add(child.getName());
+      // modifications are not visible to the running iteration
+      container.put("t" + child.getName(), new InternalMNode(parent, "t" + child.getName()));
+      iterator.remove();
+    }
+    assertEquals(MNodeContainerAdaptiveImpl.MAX_INLINE_SIZE * 2, names.size());
+    List<String> sortedNames = new ArrayList<>(names);
+    Collections.sort(sortedNames);
+    assertEquals(sortedNames, names);
+    assertFalse(container.containsKey("s0"));
+    assertEquals(MNodeContainerAdaptiveImpl.MAX_INLINE_SIZE * 2, container.size());
+  }
+
+  @Test
+  public void testIterateSnapshotOfManyChildren() throws Exception {
+    MNodeContainerAdaptiveImpl container = new MNodeContainerAdaptiveImpl();
+    IMNode parent = new InternalMNode(null, "root");
+    int childNum = MNodeContainerAdaptiveImpl.MAX_ARRAY_SIZE * 8;
+    for (int i = 0; i < childNum; i++) {
+      IMNode child = new InternalMNode(parent, "s" + i);
+      container.put(child.getName(), child);
+    }
+
+    // readers always see the children of some moment while a writer keeps modifying
+    Thread writer =
+        new Thread(
+            () -> {
+              for (int i = 0; i < childNum; i++) {
+                container.put("t" + i, new InternalMNode(parent, "t" + i));
+                container.remove("s" + i);
+                container.put("s" + i, new InternalMNode(parent, "s" + i));
+              }
+            });
+    writer.start();
+    while (writer.isAlive()) {
+      Iterator<IMNode> iterator = container.values().iterator();
+      Set<String> names = new HashSet<>();
+      int tNum = 0;
+      while (iterator.hasNext()) {
+        String name = iterator.next().getName();
+        assertTrue(names.add(name));
+        if (name.startsWith("t")) {
+          tNum++;
+        }
+      }
+      // at most one s child is missing, which is being replaced
+      assertTrue(names.size() - tNum >= childNum - 1);
+    }
+    writer.join();
+    assertEquals(childNum * 2, container.size());
+  }
+
+  @Test
+  public void testCollidingNames() {
+    MNodeContainerAdaptiveImpl container = new MNodeContainerAdaptiveImpl();
+    IMNode parent = new InternalMNode(null, "root");
+    // "Aa" and "BB" have the same hash code, so do all their concatenations
+    List<String> collidingNames = new ArrayList<>();
+    for (String first : new String[] {"Aa", "BB"}) {
+      for (String second : new String[] {"Aa", "BB"}) {
+        for (String third : new String[] {"Aa", "BB"}) {
+          collidingNames.add(first + second + third);
+        }
+      }
+    }
+    for (int i = 0; i < MNodeContainerAdaptiveImpl.MAX_ARRAY_SIZE; i++) {
+      container.put("s" + i, new InternalMNode(parent, "s" + i));
+    }
+    for (String name : collidingNames) {
+      container.put(name, new InternalMNode(parent, name));
+    }
+    assertEquals(MNodeContainerAdaptiveImpl.MAX_ARRAY_SIZE + 8, container.size());
+    for (String name : collidingNames) {
+      assertEquals(name, container.get(name).getName());
+    }
+    assertEquals(
+        new HashSet<>(collidingNames),
+        container.keySet().stream()
+            .filter(name -> !name.startsWith("s"))
+            .collect(Collectors.toSet()));
+
+    for (int i = 0; i < collidingNames.size(); i++) {
+      assertEquals(collidingNames.get(i), container.remove(collidingNames.get(i)).getName());
+      assertNull(container.get(collidingNames.get(i)));
+      for (int j = i + 1; j < collidingNames.size(); j++) {
+        assertTrue(container.containsKey(collidingNames.get(j)));
+      }
+    }
+    assertEquals(MNodeContainerAdaptiveImpl.MAX_ARRAY_SIZE, container.size());
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata.mtree.store.disk.schemafile.pagemgr;
+
+import org.apache.iotdb.commons.exception.MetadataException;
+import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.db.metadata.MetadataConstant;
+import org.apache.iotdb.db.metadata.mtree.store.disk.schemafile.ISchemaPage;
+import org.apache.iotdb.db.metadata.mtree.store.disk.schemafile.SchemaFileConfig;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+public class PageManagerTest {
+
+  private final File testDir = new File(TestConstant.BASE_OUTPUT_PATH + "pageManagerTest");
+  private FileChannel channel;
+  private PageManager pageManager;
+
+  @Before
+  public void setUp() throws IOException, MetadataException {
+    FileUtils.forceMkdir(testDir);
+    File pmtFile = new File(testDir, MetadataConstant.SCHEMA_FILE_NAME);
+    channel =
+        FileChannel.open(
+            pmtFile.toPath(),
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.CREATE);
+    pageManager =
+        new BTreePageManager(
+            channel,
+            pmtFile,
+            -1,
+            new File(testDir, MetadataConstant.SCHEMA_LOG_FILE_NAME).getPath());
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    pageManager.close();
+    channel.close();
+    FileUtils.deleteDirectory(testDir);
+  }
+
+  @Test
+  public void testEvictedDirtyPagesAreReachable() throws IOException, MetadataException {
+    List<ISchemaPage> pages = allocatePagesMoreThanCache();
+    Assert.assertTrue(pageManager.pageInstCache.size() < pages.size());
+
+    // dirty pages evicted from the cache are still accessed through dirtyPages
+    for (ISchemaPage page : pages) {
+      Assert.assertSame(page, pageManager.getPageInstance(page.getPageIndex()));
+    }
+
+    // flushed pages evicted from the cache are loaded from file again
+    pageManager.flushDirtyPages();
+    for (ISchemaPage page : pages) {
+      ISchemaPage loadedPage = pageManager.getPageInstance(page.getPageIndex());
+      Assert.assertEquals(page.getPageIndex(), loadedPage.getPageIndex());
+    }
+  }
+
+  @Test
+  public void testLoadFromMappedRegion() throws IOException, MetadataException {
+    pageManager.setMmapEnabled(true);
+    List<ISchemaPage> pages = allocatePagesMoreThanCache();
+    pageManager.flushDirtyPages();
+
+    // the first region lies completely within the file, so it is mapped to read the page
+    int pageIndex = SchemaFileConfig.MMAP_REGION_PAGE_NUM - 1;
+    pageManager.pageInstCache.remove(pageIndex);
+    Assert.assertEquals(0, pageManager.getMappedRegionNum());
+    ISchemaPage loadedPage = pageManager.getPageInstance(pageIndex);
+    Assert.assertEquals(1, pageManager.getMappedRegionNum());
+    Assert.assertEquals(pages.get(pageIndex - 1).inspect(), loadedPage.inspect());
+
+    // the last region is not filled yet, so the page is read through channel
+    pageIndex = pages.size();
+    pageManager.pageInstCache.remove(pageIndex);
+    loadedPage = pageManager.getPageInstance(pageIndex);
+    Assert.assertEquals(1, pageManager.getMappedRegionNum());
+    Assert.assertEquals(pages.get(pageIndex - 1).inspect(), loadedPage.inspect());
+
+    pageManager.clear();
+    Assert.assertEquals(0, pageManager.getMappedRegionNum());
+  }
+
+  /** Allocate more pages than both the page cache and a mapped region can hold. */
+  private List<ISchemaPage> allocatePagesMoreThanCache() throws IOException, MetadataException {
+    int pageNum =
+        Math.max(SchemaFileConfig.PAGE_CACHE_SIZE, SchemaFileConfig.MMAP_REGION_PAGE_NUM) * 2;
+    List<ISchemaPage> pages = new ArrayList<>(pageNum);
+    for (int i = 0; i < pageNum; i++) {
+      ISchemaPage page = pageManager.allocateNewSegmentedPage();
+      page.getAsSegmentedPage().allocNewSegment(SchemaFileConfig.SEG_SIZE_LST[i % 3]);
+      pages.add(page);
+    }
+    return pages;
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata.mtree.store.disk.schemafile.pagemgr;
+
+import org.apache.iotdb.db.metadata.mtree.store.disk.schemafile.ISchemaPage;
+import org.apache.iotdb.db.metadata.mtree.store.disk.schemafile.SchemaFileConfig;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Set;
+
+public class SchemaPageCacheTest {
+
+  // every segment holds 4 pages, 1 for probation and 3 for protected, and remembers 2 ghosts
+  private static final int CAPACITY = 64;
+  // pages whose indexes differ by this fall into the same segment
+  private static final int STRIDE = 16;
+
+  private final Set<Integer> pinnedPages = new HashSet<>();
+  private final SchemaPageCache cache =
+      new SchemaPageCache(
+          CAPACITY,
+          new SchemaPageCache.EvictionGuard() {
+            @Override
+            public boolean tryAcquire(int pageIndex) {
+              return !pinnedPages.contains(pageIndex);
+            }
+
+            @Override
+            public void release(int pageIndex) {}
+          });
+
+  @Test
+  public void testScanDoesNotEvictProtectedPages() {
+    // pages accessed twice are promoted into protected queue
+    for (int i = 0; i < 3; i++) {
+      cache.put(i * STRIDE, newPage(i * STRIDE));
+      Assert.assertNotNull(cache.get(i * STRIDE));
+    }
+    // a scan over pages accessed only once passes through probation queue
+    for (int i = 3; i < 8; i++) {
+      cache.put(i * STRIDE, newPage(i * STRIDE));
+    }
+    Assert.assertEquals(4, cache.size());
+    for (int i = 0; i < 3; i++) {
+      Assert.assertNotNull(cache.get(i * STRIDE));
+    }
+    for (int i = 3; i < 7; i++) {
+      Assert.assertNull(cache.get(i * STRIDE));
+    }
+    Assert.assertNotNull(cache.get(7 * STRIDE));
+  }
+
+  @Test
+  public void testGhostPageIsPromoted() {
+    for (int i = 0; i < 3; i++) {
+      cache.put(i * STRIDE, newPage(i * STRIDE));
+      Assert.assertNotNull(cache.get(i * STRIDE));
+    }
+    for (int i = 3; i < 8; i++) {
+      cache.put(i * STRIDE, newPage(i * STRIDE));
+    }
+
+    // page 6 * STRIDE was evicted from probation recently, loading it again admits it into
+    // protected queue directly, which demotes the least recently used page 0
+    cache.put(6 * STRIDE, newPage(6 * STRIDE));
+    cache.put(8 * STRIDE, newPage(8 * STRIDE));
+    Assert.assertEquals(4, cache.size());
+    Assert.assertNotNull(cache.get(6 * STRIDE));
+    Assert.assertNotNull(cache.get(STRIDE));
+    Assert.assertNotNull(cache.get(2 * STRIDE));
+    Assert.assertNull(cache.get(0));
+    Assert.assertNotNull(cache.get(8 * STRIDE));
+  }
+
+  @Test
+  public void testPinnedPageIsNotEvicted() {
+    pinnedPages.add(0);
+    for (int i = 0; i < 5; i++) {
+      cache.put(i * STRIDE, newPage(i * STRIDE));
+    }
+    Assert.assertEquals(4, cache.size());
+    Assert.assertNull(cache.get(STRIDE));
+    Assert.assertNotNull(cache.get(0));
+  }
+
+  @Test
+  public void testAllPagesPinned() {
+    for (int i = 0; i < 6; i++) {
+      pinnedPages.add(i * STRIDE);
+      cache.put(i * STRIDE, newPage(i * STRIDE));
+    }
+    // the segment exceeds its capacity rather than evicting pages in use
+    Assert.assertEquals(6, cache.size());
+
+    pinnedPages.clear();
+    cache.put(6 * STRIDE, newPage(6 * STRIDE));
+    Assert.assertEquals(4, cache.size());
+  }
+
+  private static ISchemaPage newPage(int pageIndex) {
+    return ISchemaPage.initSegmentedPage(
+        ByteBuffer.allocate(SchemaFileConfig.PAGE_LENGTH), pageIndex);
+  }
+}
@@ -48,6 +48,7 @@ import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -766,4 +767,66 @@ public class SchemaRegionBasicTest extends AbstractSchemaRegionTest {
     }
     Assert.assertEquals(expectedPathList, actualPathList);
   }
+
+  @Test
+  public void testScanSplits() throws Exception {
+    ISchemaRegion schemaRegion = getSchemaRegion("root.laptop", 0);
+
+    SchemaRegionTestUtil.createSimpleTimeseriesByList(
+        schemaRegion,
+        Arrays.asList(
+            "root.laptop.s0",
+            "root.laptop.d0.s1",
+            "root.laptop.d1.s1",
+            "root.laptop.d1.s2.t1",
+            "root.laptop.d2.s1",
+            "root.laptop.d2.s2",
+            "root.laptop.d3.s1",
+            "root.laptop.d4.d5.s1"));
+    Assert.assertEquals(6, schemaRegion.countDatabaseChildren());
+
+    PartialPath pattern = new PartialPath("root.**");
+    Set<String> expectedTimeseries =
+        SchemaRegionTestUtil.showTimeseries(
+                schemaRegion, SchemaRegionReadPlanFactory.getShowTimeSeriesPlan(pattern))
+            .stream()
+            .map(ITimeSeriesSchemaInfo::getFullPath)
+            .collect(Collectors.toSet());
+    Set<String> expectedDevices =
+        SchemaRegionTestUtil.getMatchedDevices(
+                schemaRegion, SchemaRegionReadPlanFactory.getShowDevicesPlan(pattern))
+            .stream()
+            .map(IDeviceSchemaInfo::getFullPath)
+            .collect(Collectors.toSet());
+    Assert.assertEquals(8, expectedTimeseries.size());
+    Assert.assertEquals(7, expectedDevices.size());
+
+    for (int splitNum = 2; splitNum <= 4; splitNum++) {
+      Set<String> actualTimeseries = new HashSet<>();
+      Set<String> actualDevices = new HashSet<>();
+      int timeseriesNum = 0;
+      int devicesNum = 0;
+      for (int splitIndex = 0; splitIndex < splitNum; splitIndex++) {
+        List<ITimeSeriesSchemaInfo> timeseries =
+            SchemaRegionTestUtil.showTimeseries(
+                schemaRegion,
+                SchemaRegionReadPlanFactory.getShowTimeSeriesPlan(
+                    pattern, Collections.emptyMap(), false, splitIndex, splitNum));
+        List<IDeviceSchemaInfo> devices =
+            SchemaRegionTestUtil.getMatchedDevices(
+                schemaRegion,
+                SchemaRegionReadPlanFactory.getShowDevicesPlan(
+                    pattern, false, splitIndex, splitNum));
+        timeseriesNum += timeseries.size();
+        devicesNum += devices.size();
+        timeseries.forEach(info -> actualTimeseries.add(info.getFullPath()));
+        devices.forEach(info -> actualDevices.add(info.getFullPath()));
+      }
+      // the splits are disjoint and their union covers the whole schema region
+      Assert.assertEquals(expectedTimeseries.size(), timeseriesNum);
+      Assert.assertEquals(expectedDevices.size(), devicesNum);
+      Assert.assertEquals(expectedTimeseries, actualTimeseries);
+      Assert.assertEquals(expectedDevices, actualDevices);
+    }
+  }
 }
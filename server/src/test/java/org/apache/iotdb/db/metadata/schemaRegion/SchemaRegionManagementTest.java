@@ -41,6 +41,7 @@ import org.junit.Ignore;
 import org.junit.Test;
 
 import java.io.File;
+import java.nio.file.Files;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -200,6 +201,61 @@ public class SchemaRegionManagementTest extends AbstractSchemaRegionTest {
     }
   }
 
+  @Test
+  public void testIncrementalSnapshot() throws Exception {
+    if (!testParams.getSchemaEngineMode().equals("Memory")) {
+      return;
+    }
+    String schemaRegionConsensusProtocolClass = config.getSchemaRegionConsensusProtocolClass();
+    config.setSchemaRegionConsensusProtocolClass(ConsensusFactory.RATIS_CONSENSUS);
+    try {
+      ISchemaRegion schemaRegion = getSchemaRegion("root.sg", 0);
+      for (int i = 0; i < 100; i++) {
+        SchemaRegionTestUtil.createSimpleTimeSeriesInt64(schemaRegion, "root.sg.d" + i + ".s1");
+      }
+
+      File snapshotDir1 = new File(config.getSchemaDir() + File.separator + "snapshot1");
+      snapshotDir1.mkdir();
+      Assert.assertTrue(schemaRegion.createSnapshot(snapshotDir1));
+
+      SchemaRegionTestUtil.createSimpleTimeSeriesInt64(schemaRegion, "root.sg.d0.s2");
+      File snapshotDir2 = new File(config.getSchemaDir() + File.separator + "snapshot2");
+      snapshotDir2.mkdir();
+      Assert.assertTrue(schemaRegion.createSnapshot(snapshotDir2));
+
+      // only the segment containing root.sg.d0 is serialized again, the others are reused
+      File[] segments =
+          snapshotDir1.listFiles(
+              (dir, name) -> name.startsWith(MetadataConstant.MTREE_SNAPSHOT_SEGMENT_PREFIX));
+      Assert.assertNotNull(segments);
+      Assert.assertTrue(segments.length > 1);
+      int rewrittenSegmentNum = 0;
+      for (File segment : segments) {
+        File newSegment = new File(snapshotDir2, segment.getName());
+        Assert.assertTrue(newSegment.exists());
+        if (!Files.isSameFile(segment.toPath(), newSegment.toPath())) {
+          rewrittenSegmentNum++;
+        }
+      }
+      Assert.assertEquals(1, rewrittenSegmentNum);
+
+      simulateRestart();
+
+      ISchemaRegion newSchemaRegion = getSchemaRegion("root.sg", 0);
+      newSchemaRegion.loadSnapshot(snapshotDir2);
+      Assert.assertEquals(
+          101,
+          SchemaRegionTestUtil.getAllTimeseriesCount(
+              newSchemaRegion, new PartialPath("root.sg.**"), null, false));
+      Assert.assertEquals(
+          2,
+          SchemaRegionTestUtil.getAllTimeseriesCount(
+              newSchemaRegion, new PartialPath("root.sg.d0.*"), null, false));
+    } finally {
+      config.setSchemaRegionConsensusProtocolClass(schemaRegionConsensusProtocolClass);
+    }
+  }
+
   @Test
   @Ignore
   public void testSnapshotPerformance() throws Exception {
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata.tag;
+
+import org.apache.iotdb.db.metadata.mnode.EntityMNode;
+import org.apache.iotdb.db.metadata.mnode.IEntityMNode;
+import org.apache.iotdb.db.metadata.mnode.IMeasurementMNode;
+import org.apache.iotdb.db.metadata.mnode.MeasurementMNode;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TagBitmapIndexTest {
+
+  private final IEntityMNode device = new EntityMNode(null, "d");
+
+  private List<IMeasurementMNode> createNodes(int num) {
+    List<IMeasurementMNode> nodes = new ArrayList<>();
+    for (int i = 0; i < num; i++) {
+      nodes.add(MeasurementMNode.getMeasurementMNode(device, "s" + i, null, null));
+    }
+    return nodes;
+  }
+
+  @Test
+  public void testQueries() {
+    TagBitmapIndex index = new TagBitmapIndex();
+    List<IMeasurementMNode> nodes = createNodes(10);
+    for (int i = 0; i < nodes.size(); i++) {
+      index.add("parity", i % 2 == 0 ? "even" : "odd", nodes.get(i));
+      index.add("mod3", String.valueOf(i % 3), nodes.get(i));
+    }
+
+    assertEquals(nodesOf(nodes, 0, 2, 4, 6, 8), index.getNodes("parity", "even"));
+    assertEquals(
+        nodesOf(nodes, 1, 3, 5, 7, 9), index.getNodes("parity", value -> value.startsWith("o")));
+    assertEquals(
+        nodesOf(nodes, 0, 1, 3, 4, 6, 7, 9), index.getNodes("mod3", value -> !value.equals("2")));
+    assertTrue(index.getNodes("parity", "none").isEmpty());
+    assertTrue(index.getNodes("unknown", "value").isEmpty());
+    assertTrue(index.getNodes("unknown", value -> true).isEmpty());
+  }
+
+  @Test
+  public void testRemoveAndRecycleIds() {
+    TagBitmapIndex index = new TagBitmapIndex();
+    List<IMeasurementMNode> nodes = createNodes(3);
+    for (IMeasurementMNode node : nodes) {
+      index.add("k1", "v", node);
+      index.add("k2", "v", node);
+    }
+    assertEquals(3, index.getNodeCount());
+
+    assertTrue(index.remove("k1", "v", nodes.get(1)));
+    assertFalse(index.remove("k1", "v", nodes.get(1)));
+    // still referenced by k2
+    assertEquals(3, index.getNodeCount());
+    assertTrue(index.remove("k2", "v", nodes.get(1)));
+    assertEquals(2, index.getNodeCount());
+
+    // the released id is reused by a new node, which is ordered by its id
+    IMeasurementMNode newNode = MeasurementMNode.getMeasurementMNode(device, "s3", null, null);
+    index.add("k1", "v", newNode);
+    assertEquals(Arrays.asList(nodes.get(0), newNode, nodes.get(2)), index.getNodes("k1", "v"));
+
+    for (IMeasurementMNode node : new IMeasurementMNode[] {nodes.get(0), nodes.get(2), newNode}) {
+      index.remove("k1", "v", node);
+    }
+    assertFalse(index.containsKey("k1"));
+    assertTrue(index.contains("k2", "v"));
+    index.clear();
+    assertFalse(index.containsKey("k2"));
+    assertEquals(0, index.getNodeCount());
+  }
+
+  @Test
+  public void testNodesWithSamePath() {
+    TagBitmapIndex index = new TagBitmapIndex();
+    // a timeseries deleted and created again has a new node with the same path
+    IMeasurementMNode oldNode = MeasurementMNode.getMeasurementMNode(device, "s", null, null);
+    IMeasurementMNode newNode = MeasurementMNode.getMeasurementMNode(device, "s", null, null);
+    index.add("k", "v", oldNode);
+    index.add("k", "v", newNode);
+    assertEquals(2, index.getNodeCount());
+
+    assertTrue(index.remove("k", "v", oldNode));
+    List<IMeasurementMNode> matchedNodes = index.getNodes("k", "v");
+    assertEquals(1, matchedNodes.size());
+    assertSame(newNode, matchedNodes.get(0));
+  }
+
+  private List<IMeasurementMNode> nodesOf(List<IMeasurementMNode> nodes, int... indexes) {
+    List<IMeasurementMNode> res = new ArrayList<>();
+    for (int i : indexes) {
+      res.add(nodes.get(i));
+    }
+    return res;
+  }
+}
@@ -22,11 +22,14 @@ package org.apache.iotdb.db.mpp.aggregation;
 import org.apache.iotdb.common.rpc.thrift.TAggregationType;
 import org.apache.iotdb.db.mpp.execution.operator.window.IWindow;
 import org.apache.iotdb.db.mpp.execution.operator.window.TimeWindow;
+import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
+import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.read.common.TimeRange;
 import org.apache.iotdb.tsfile.read.common.block.TsBlock;
 import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
+import org.apache.iotdb.tsfile.read.common.block.column.BinaryColumnBuilder;
 import org.apache.iotdb.tsfile.read.common.block.column.Column;
 import org.apache.iotdb.tsfile.read.common.block.column.ColumnBuilder;
 import org.apache.iotdb.tsfile.read.common.block.column.DoubleColumnBuilder;
@@ -495,4 +498,97 @@ public class AccumulatorTest {
     sumAccumulator.outputFinal(finalResult);
     Assert.assertEquals(100d, finalResult.build().getDouble(0), 0.001);
   }
+
+  @Test
+  public void approxCountDistinctAccumulatorTest() {
+    Accumulator approxCountDistinctAccumulator =
+        AccumulatorFactory.createAccumulator(
+            TAggregationType.APPROX_COUNT_DISTINCT,
+            TSDataType.DOUBLE,
+            Collections.emptyList(),
+            Collections.emptyMap(),
+            true);
+    Assert.assertEquals(TSDataType.TEXT, approxCountDistinctAccumulator.getIntermediateType()[0]);
+    Assert.assertEquals(TSDataType.INT64, approxCountDistinctAccumulator.getFinalType());
+    Assert.assertFalse(approxCountDistinctAccumulator.canUseStatistics());
+    // check returning null while no data
+    ColumnBuilder[] intermediateResult = new ColumnBuilder[1];
+    intermediateResult[0] = new BinaryColumnBuilder(null, 1);
+    approxCountDistinctAccumulator.outputIntermediate(intermediateResult);
+    Assert.assertTrue(intermediateResult[0].build().isNull(0));
+    ColumnBuilder finalResult = new LongColumnBuilder(null, 1);
+    approxCountDistinctAccumulator.outputFinal(finalResult);
+    Assert.assertEquals(0, finalResult.build().getLong(0));
+
+    Column[] controlTimeAndValueColumn = getControlTimeAndValueColumn(timeWindow, 0);
+    approxCountDistinctAccumulator.addInput(controlTimeAndValueColumn, timeWindow);
+    Assert.assertFalse(approxCountDistinctAccumulator.hasFinalResult());
+    intermediateResult[0] = new BinaryColumnBuilder(null, 1);
+    approxCountDistinctAccumulator.outputIntermediate(intermediateResult);
+    Assert.assertFalse(intermediateResult[0].build().isNull(0));
+
+    // add intermediate result of the same values as input, the distinct count is kept
+    approxCountDistinctAccumulator.addIntermediate(new Column[] {intermediateResult[0].build()});
+    finalResult = new LongColumnBuilder(null, 1);
+    approxCountDistinctAccumulator.outputFinal(finalResult);
+    Assert.assertEquals(100, finalResult.build().getLong(0), 3);
+  }
+
+  @Test
+  public void approxPercentileAccumulatorTest() {
+    Accumulator approxPercentileAccumulator =
+        AccumulatorFactory.createAccumulator(
+            TAggregationType.APPROX_PERCENTILE,
+            TSDataType.DOUBLE,
+            Collections.emptyList(),
+            Collections.singletonMap("quantile", "0.5"),
+            true);
+    Assert.assertEquals(TSDataType.TEXT, approxPercentileAccumulator.getIntermediateType()[0]);
+    Assert.assertEquals(TSDataType.DOUBLE, approxPercentileAccumulator.getFinalType());
+    Assert.assertFalse(approxPercentileAccumulator.canUseStatistics());
+    // statistics without quantile sketch cannot be used
+    Assert.assertFalse(approxPercentileAccumulator.canUseStatistics(statistics));
+    // check returning null while no data
+    ColumnBuilder[] intermediateResult = new ColumnBuilder[1];
+    intermediateResult[0] = new BinaryColumnBuilder(null, 1);
+    approxPercentileAccumulator.outputIntermediate(intermediateResult);
+    Assert.assertTrue(intermediateResult[0].build().isNull(0));
+    ColumnBuilder finalResult = new DoubleColumnBuilder(null, 1);
+    approxPercentileAccumulator.outputFinal(finalResult);
+    Assert.assertTrue(finalResult.build().isNull(0));
+
+    Column[] controlTimeAndValueColumn = getControlTimeAndValueColumn(timeWindow, 0);
+    approxPercentileAccumulator.addInput(controlTimeAndValueColumn, timeWindow);
+    Assert.assertFalse(approxPercentileAccumulator.hasFinalResult());
+    intermediateResult[0] = new BinaryColumnBuilder(null, 1);
+    approxPercentileAccumulator.outputIntermediate(intermediateResult);
+    finalResult = new DoubleColumnBuilder(null, 1);
+    approxPercentileAccumulator.outputFinal(finalResult);
+    Assert.assertEquals(49d, finalResult.build().getDouble(0), 0.001);
+
+    // add intermediate result as input
+    approxPercentileAccumulator.addIntermediate(new Column[] {intermediateResult[0].build()});
+    finalResult = new DoubleColumnBuilder(null, 1);
+    approxPercentileAccumulator.outputFinal(finalResult);
+    Assert.assertEquals(49.5d, finalResult.build().getDouble(0), 2);
+
+    // add statistics with quantile sketch
+    TSFileConfig config = TSFileDescriptor.getInstance().getConfig();
+    boolean enableQuantileSketchStatistics = config.isEnableQuantileSketchStatistics();
+    config.setEnableQuantileSketchStatistics(true);
+    try {
+      Statistics sketchStatistics = Statistics.getStatsByType(TSDataType.DOUBLE);
+      for (int i = 100; i < 200; i++) {
+        sketchStatistics.update(i, (double) i);
+      }
+      Assert.assertTrue(approxPercentileAccumulator.canUseStatistics(sketchStatistics));
+      approxPercentileAccumulator.reset();
+      approxPercentileAccumulator.addStatistics(sketchStatistics);
+      finalResult = new DoubleColumnBuilder(null, 1);
+      approxPercentileAccumulator.outputFinal(finalResult);
+      Assert.assertEquals(149.5d, finalResult.build().getDouble(0), 1);
+    } finally {
+      config.setEnableQuantileSketchStatistics(enableQuantileSketchStatistics);
+    }
+  }
 }
@@ -21,13 +21,17 @@ package org.apache.iotdb.db.mpp.common.schematree;
 import org.apache.iotdb.commons.exception.IllegalPathException;
 import org.apache.iotdb.commons.path.MeasurementPath;
 import org.apache.iotdb.commons.path.PartialPath;
+import org.apache.iotdb.db.metadata.MetadataConstant;
+import org.apache.iotdb.db.metadata.template.Template;
 import org.apache.iotdb.db.mpp.common.schematree.node.SchemaEntityNode;
 import org.apache.iotdb.db.mpp.common.schematree.node.SchemaInternalNode;
 import org.apache.iotdb.db.mpp.common.schematree.node.SchemaMeasurementNode;
 import org.apache.iotdb.db.mpp.common.schematree.node.SchemaNode;
 import org.apache.iotdb.db.mpp.common.schematree.visitor.SchemaTreeVisitorFactory;
 import org.apache.iotdb.db.mpp.common.schematree.visitor.SchemaTreeVisitorWithLimitOffsetWrapper;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.utils.Pair;
 import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 
@@ -40,10 +44,15 @@ import org.slf4j.LoggerFactory;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 public class ClusterSchemaTreeTest {
@@ -602,6 +611,110 @@ public class ClusterSchemaTreeTest {
     testSearchDeviceInfo(schemaTree);
   }
 
+  @Test
+  public void testCompactSerialization() throws Exception {
+    ClusterSchemaTree clusterSchemaTree = new ClusterSchemaTree(generateSchemaTree());
+    ByteArrayOutputStream plainStream = new ByteArrayOutputStream();
+    clusterSchemaTree.serialize(plainStream);
+
+    for (CompressionType compressionType :
+        Arrays.asList(CompressionType.UNCOMPRESSED, CompressionType.LZ4)) {
+      ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+      clusterSchemaTree.serializeCompactly(outputStream, compressionType);
+      Assert.assertTrue(outputStream.size() < plainStream.size());
+
+      ISchemaTree schemaTree =
+          ClusterSchemaTree.deserializeCompactly(
+              new ByteArrayInputStream(outputStream.toByteArray()), Collections.emptyMap());
+
+      Pair<List<MeasurementPath>, Integer> visitResult =
+          schemaTree.searchMeasurementPaths(new PartialPath("root.sg.**.status"), 2, 1, true);
+      Assert.assertEquals(2, visitResult.left.size());
+      Assert.assertEquals(3, (int) visitResult.right);
+
+      testSearchDeviceInfo(schemaTree);
+
+      // streams such as the ones of sockets may return fewer bytes than requested in one read
+      InputStream trickleStream =
+          new FilterInputStream(new ByteArrayInputStream(outputStream.toByteArray())) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+              return super.read(b, off, Math.min(len, 1));
+            }
+          };
+      schemaTree = ClusterSchemaTree.deserializeCompactly(trickleStream, Collections.emptyMap());
+      testSearchDeviceInfo(schemaTree);
+    }
+  }
+
+  @Test
+  public void testTemplateEntitySerialization() throws Exception {
+    Template template =
+        new Template(
+            "t1",
+            Arrays.asList(Collections.singletonList("s1"), Collections.singletonList("s2")),
+            Arrays.asList(
+                Collections.singletonList(TSDataType.INT64),
+                Collections.singletonList(TSDataType.DOUBLE)),
+            Arrays.asList(
+                Collections.singletonList(TSEncoding.RLE),
+                Collections.singletonList(TSEncoding.GORILLA)),
+            Arrays.asList(
+                Collections.singletonList(CompressionType.SNAPPY),
+                Collections.singletonList(CompressionType.SNAPPY)));
+    template.setId(1);
+    Map<Integer, Template> templateMap = Collections.singletonMap(1, template);
+    MeasurementSchema s1 = (MeasurementSchema) template.getSchema("s1");
+    MeasurementSchema s2 = (MeasurementSchema) template.getSchema("s2");
+
+    ClusterSchemaTree schemaTree = new ClusterSchemaTree();
+    // all template measurements fetched
+    schemaTree.appendSingleMeasurement(new PartialPath("root.sg.d1.s1"), s1, null, null, false);
+    schemaTree.appendSingleMeasurement(new PartialPath("root.sg.d1.s2"), s2, null, null, false);
+    // part of template measurements fetched
+    schemaTree.appendSingleMeasurement(new PartialPath("root.sg.d2.s1"), s1, null, null, false);
+    // normal timeseries with the same schema as template
+    schemaTree.appendSingleMeasurement(
+        new PartialPath("root.sg.d3.s1"),
+        new MeasurementSchema("s1", TSDataType.INT64, TSEncoding.RLE, CompressionType.SNAPPY),
+        null,
+        null,
+        false);
+    schemaTree.markTemplateEntities(templateMap);
+
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    schemaTree.serialize(outputStream);
+    ClusterSchemaTree deserializedTree =
+        ClusterSchemaTree.deserialize(
+            new ByteArrayInputStream(outputStream.toByteArray()), templateMap);
+
+    Map<PartialPath, Integer> templateDevices = deserializedTree.getTemplateDevices();
+    Assert.assertEquals(2, templateDevices.size());
+    Assert.assertEquals(1, (int) templateDevices.get(new PartialPath("root.sg.d1")));
+    Assert.assertEquals(1, (int) templateDevices.get(new PartialPath("root.sg.d2")));
+
+    SchemaEntityNode d1 =
+        deserializedTree.getRoot().getChild("sg").getChild("d1").getAsEntityNode();
+    Assert.assertSame(s1, d1.getChild("s1").getAsMeasurementNode().getSchema());
+    Assert.assertSame(s2, d1.getChild("s2").getAsMeasurementNode().getSchema());
+    SchemaEntityNode d2 =
+        deserializedTree.getRoot().getChild("sg").getChild("d2").getAsEntityNode();
+    Assert.assertEquals(1, d2.getChildren().size());
+    SchemaEntityNode d3 =
+        deserializedTree.getRoot().getChild("sg").getChild("d3").getAsEntityNode();
+    Assert.assertEquals(MetadataConstant.NON_TEMPLATE, d3.getTemplateId());
+    Assert.assertEquals(s1, d3.getChild("s1").getAsMeasurementNode().getSchema());
+
+    outputStream = new ByteArrayOutputStream();
+    schemaTree.serializeCompactly(outputStream, CompressionType.UNCOMPRESSED);
+    deserializedTree =
+        ClusterSchemaTree.deserializeCompactly(
+            new ByteArrayInputStream(outputStream.toByteArray()), templateMap);
+    Assert.assertEquals(templateDevices, deserializedTree.getTemplateDevices());
+    d1 = deserializedTree.getRoot().getChild("sg").getChild("d1").getAsEntityNode();
+    Assert.assertSame(s1, d1.getChild("s1").getAsMeasurementNode().getSchema());
+  }
+
   @Test
   public void testAppendMeasurementPath() throws Exception {
     ClusterSchemaTree schemaTree = new ClusterSchemaTree();
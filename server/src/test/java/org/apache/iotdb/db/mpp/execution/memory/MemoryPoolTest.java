@@ -24,6 +24,9 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class MemoryPoolTest {
 
   MemoryPool pool;
@@ -300,4 +303,64 @@ public class MemoryPoolTest {
     Assert.assertTrue(f.isDone());
     Assert.assertFalse(f.isCancelled());
   }
+
+  @Test
+  public void testClearMemoryReservationMap() {
+    Assert.assertTrue(
+        pool.tryReserve(QUERY_ID, FRAGMENT_INSTANCE_ID, PLAN_NODE_ID, 256L, Long.MAX_VALUE));
+    // plan node holding memory is kept
+    pool.clearMemoryReservationMap(QUERY_ID, FRAGMENT_INSTANCE_ID, PLAN_NODE_ID);
+    Assert.assertEquals(256L, pool.getQueryMemoryReservedBytes(QUERY_ID));
+
+    pool.free(QUERY_ID, FRAGMENT_INSTANCE_ID, PLAN_NODE_ID, 256L);
+    pool.clearMemoryReservationMap(QUERY_ID, FRAGMENT_INSTANCE_ID, PLAN_NODE_ID);
+    Assert.assertEquals(0L, pool.getQueryMemoryReservedBytes(QUERY_ID));
+    try {
+      pool.free(QUERY_ID, FRAGMENT_INSTANCE_ID, PLAN_NODE_ID, 256L);
+      Assert.fail("Expect NullPointerException");
+    } catch (NullPointerException ignore) {
+    }
+
+    // reserve again after the plan node is cleared
+    Assert.assertTrue(
+        pool.tryReserve(QUERY_ID, FRAGMENT_INSTANCE_ID, PLAN_NODE_ID, 256L, Long.MAX_VALUE));
+    Assert.assertEquals(256L, pool.getQueryMemoryReservedBytes(QUERY_ID));
+    Assert.assertEquals(256L, pool.getReservedBytes());
+  }
+
+  @Test
+  public void testConcurrentReserveAndFree() throws InterruptedException {
+    int threadNum = 8;
+    int loop = 10000;
+    List<Thread> threads = new ArrayList<>();
+    List<Throwable> errors = new ArrayList<>();
+    for (int i = 0; i < threadNum; i++) {
+      String planNodeId = "p" + i;
+      Thread thread =
+          new Thread(
+              () -> {
+                try {
+                  for (int j = 0; j < loop; j++) {
+                    ListenableFuture<Void> future =
+                        pool.reserve(QUERY_ID, FRAGMENT_INSTANCE_ID, planNodeId, 256L, 512L).left;
+                    // blocked reservations are completed by frees of other threads
+                    future.get();
+                    pool.free(QUERY_ID, FRAGMENT_INSTANCE_ID, planNodeId, 256L);
+                  }
+                } catch (Throwable t) {
+                  synchronized (errors) {
+                    errors.add(t);
+                  }
+                }
+              });
+      thread.start();
+      threads.add(thread);
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    Assert.assertTrue(errors.isEmpty());
+    Assert.assertEquals(0L, pool.getQueryMemoryReservedBytes(QUERY_ID));
+    Assert.assertEquals(0L, pool.getReservedBytes());
+  }
 }
@@ -43,6 +43,7 @@ import org.apache.iotdb.db.mpp.execution.operator.process.OffsetOperator;
 import org.apache.iotdb.db.mpp.execution.operator.process.RawDataAggregationOperator;
 import org.apache.iotdb.db.mpp.execution.operator.process.SlidingWindowAggregationOperator;
 import org.apache.iotdb.db.mpp.execution.operator.process.SortOperator;
+import org.apache.iotdb.db.mpp.execution.operator.process.TopKOperator;
 import org.apache.iotdb.db.mpp.execution.operator.process.fill.IFill;
 import org.apache.iotdb.db.mpp.execution.operator.process.fill.linear.LinearFill;
 import org.apache.iotdb.db.mpp.execution.operator.process.join.RowBasedTimeJoinOperator;
@@ -85,6 +86,7 @@ import org.apache.iotdb.db.mpp.transformation.dag.column.binary.ArithmeticAdditi
 import org.apache.iotdb.db.mpp.transformation.dag.column.binary.CompareLessEqualColumnTransformer;
 import org.apache.iotdb.db.mpp.transformation.dag.column.leaf.ConstantColumnTransformer;
 import org.apache.iotdb.db.mpp.transformation.dag.column.leaf.TimeColumnTransformer;
+import org.apache.iotdb.db.utils.datastructure.MergeSortKey;
 import org.apache.iotdb.db.utils.datastructure.TimeSelector;
 import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
@@ -470,6 +472,26 @@ public class OperatorMemoryTest {
     assertEquals(512, sortOperator.calculateRetainedSizeAfterCallingNext());
   }
 
+  @Test
+  public void topKOperatorTest() {
+    Operator child = Mockito.mock(Operator.class);
+    Mockito.when(child.calculateMaxPeekMemory()).thenReturn(2048L);
+    Mockito.when(child.calculateMaxReturnSize()).thenReturn(1024L);
+    Mockito.when(child.calculateRetainedSizeAfterCallingNext()).thenReturn(512L);
+
+    TopKOperator topKOperator =
+        new TopKOperator(
+            Mockito.mock(OperatorContext.class),
+            child,
+            Collections.singletonList(TSDataType.INT32),
+            Comparator.comparingInt((MergeSortKey sortKey) -> sortKey.rowIndex),
+            10);
+
+    assertEquals(2048 + 512 + 2 * 1024, topKOperator.calculateMaxPeekMemory());
+    assertEquals(1024, topKOperator.calculateMaxReturnSize());
+    assertEquals(512 + 1024, topKOperator.calculateRetainedSizeAfterCallingNext());
+  }
+
   @Test
   public void timeJoinOperatorTest() {
     List<Operator> children = new ArrayList<>(4);
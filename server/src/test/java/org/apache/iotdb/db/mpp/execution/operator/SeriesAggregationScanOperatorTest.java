@@ -23,6 +23,8 @@ import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
 import org.apache.iotdb.commons.exception.IllegalPathException;
 import org.apache.iotdb.commons.exception.MetadataException;
 import org.apache.iotdb.commons.path.MeasurementPath;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.cache.AggregationResultCache;
 import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.mpp.aggregation.AccumulatorFactory;
@@ -53,6 +55,7 @@ import org.junit.Test;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
@@ -63,6 +66,8 @@ import static org.apache.iotdb.db.mpp.execution.operator.AggregationOperatorTest
 import static org.apache.iotdb.db.mpp.execution.operator.AggregationUtil.initTimeRangeIterator;
 import static org.apache.iotdb.tsfile.read.common.block.TsBlockBuilderStatus.DEFAULT_MAX_TSBLOCK_SIZE_IN_BYTES;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class SeriesAggregationScanOperatorTest {
 
@@ -565,12 +570,90 @@ public class SeriesAggregationScanOperatorTest {
     assertEquals(timeColumn.length, count);
   }
 
+  @Test
+  public void testGroupByWithResultCache() throws IllegalPathException {
+    AggregationResultCache resultCache = AggregationResultCache.getInstance();
+    resultCache.setMaximumSize(100);
+    try {
+      // only sealed sequence files, all windows can be cached
+      QueryDataSource dataSource = new QueryDataSource(seqResources, Collections.emptyList());
+      dataSource.setDataVersion("1", 0);
+      assertEquals(Arrays.asList(100L, 100L, 100L, 100L), countWithResultCache(dataSource));
+      assertFalse(resultCache.isEmpty());
+
+      // the windows of the dropped files are answered by the cache of the same data version
+      dataSource = new QueryDataSource(seqResources.subList(0, 2), Collections.emptyList());
+      dataSource.setDataVersion("1", 0);
+      assertEquals(Arrays.asList(100L, 100L, 100L, 100L), countWithResultCache(dataSource));
+
+      // a new data version makes the old results unreachable
+      dataSource = new QueryDataSource(seqResources.subList(0, 2), Collections.emptyList());
+      dataSource.setDataVersion("1", 1);
+      assertEquals(Arrays.asList(100L, 100L, 0L, 0L), countWithResultCache(dataSource));
+
+      // windows overlapped by unsequence files are not cached
+      resultCache.clear();
+      dataSource = new QueryDataSource(seqResources, unSeqResources);
+      dataSource.setDataVersion("1", 2);
+      assertEquals(Arrays.asList(100L, 100L, 100L, 100L), countWithResultCache(dataSource));
+      assertTrue(resultCache.isEmpty());
+    } finally {
+      resultCache.clear();
+      resultCache.setMaximumSize(
+          Math.max(IoTDBDescriptor.getInstance().getConfig().getAggregationResultCacheSize(), 0));
+    }
+  }
+
+  private List<Long> countWithResultCache(QueryDataSource dataSource)
+      throws IllegalPathException {
+    GroupByTimeParameter groupByTimeParameter = new GroupByTimeParameter(0, 400, 100, 100, true);
+    List<Aggregator> aggregators = new ArrayList<>();
+    AccumulatorFactory.createAccumulators(
+            Collections.singletonList(TAggregationType.COUNT),
+            TSDataType.INT32,
+            Collections.emptyList(),
+            Collections.emptyMap(),
+            true)
+        .forEach(o -> aggregators.add(new Aggregator(o, AggregationStep.SINGLE)));
+    SeriesAggregationScanOperator seriesAggregationScanOperator =
+        initSeriesAggregationScanOperator(
+            aggregators, null, true, groupByTimeParameter, dataSource, true);
+    List<Long> result = new ArrayList<>();
+    while (seriesAggregationScanOperator.hasNext()) {
+      TsBlock resultTsBlock = seriesAggregationScanOperator.next();
+      if (resultTsBlock == null) {
+        continue;
+      }
+      for (int pos = 0; pos < resultTsBlock.getPositionCount(); pos++) {
+        result.add(resultTsBlock.getColumn(0).getLong(pos));
+      }
+    }
+    return result;
+  }
+
   public SeriesAggregationScanOperator initSeriesAggregationScanOperator(
       List<Aggregator> aggregators,
       Filter timeFilter,
       boolean ascending,
       GroupByTimeParameter groupByTimeParameter)
       throws IllegalPathException {
+    return initSeriesAggregationScanOperator(
+        aggregators,
+        timeFilter,
+        ascending,
+        groupByTimeParameter,
+        new QueryDataSource(seqResources, unSeqResources),
+        false);
+  }
+
+  public SeriesAggregationScanOperator initSeriesAggregationScanOperator(
+      List<Aggregator> aggregators,
+      Filter timeFilter,
+      boolean ascending,
+      GroupByTimeParameter groupByTimeParameter,
+      QueryDataSource dataSource,
+      boolean enableResultCache)
+      throws IllegalPathException {
     MeasurementPath measurementPath =
         new MeasurementPath(SERIES_SCAN_OPERATOR_TEST_SG + ".device0.sensor0", TSDataType.INT32);
     Set<String> allSensors = Sets.newHashSet("sensor0");
@@ -604,8 +687,11 @@ public class SeriesAggregationScanOperatorTest {
             ascending,
             groupByTimeParameter,
             DEFAULT_MAX_TSBLOCK_SIZE_IN_BYTES);
-    seriesAggregationScanOperator.initQueryDataSource(
-        new QueryDataSource(seqResources, unSeqResources));
+    if (enableResultCache) {
+      seriesAggregationScanOperator.enableResultCache(
+          measurementPath.getDevice(), measurementPath.getFullPath());
+    }
+    seriesAggregationScanOperator.initQueryDataSource(dataSource);
     return seriesAggregationScanOperator;
   }
 }
@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.mpp.execution.operator;
+
+import org.apache.iotdb.common.rpc.thrift.TAggregationType;
+import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.db.mpp.aggregation.AccumulatorFactory;
+import org.apache.iotdb.db.mpp.aggregation.Aggregator;
+import org.apache.iotdb.db.mpp.common.FragmentInstanceId;
+import org.apache.iotdb.db.mpp.common.PlanFragmentId;
+import org.apache.iotdb.db.mpp.common.QueryId;
+import org.apache.iotdb.db.mpp.execution.driver.DriverContext;
+import org.apache.iotdb.db.mpp.execution.fragment.FragmentInstanceContext;
+import org.apache.iotdb.db.mpp.execution.fragment.FragmentInstanceStateMachine;
+import org.apache.iotdb.db.mpp.execution.operator.process.TagAggregationOperator;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNodeId;
+import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.AggregationStep;
+import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.InputLocation;
+import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import static org.apache.iotdb.db.mpp.execution.fragment.FragmentInstanceContext.createFragmentInstanceContext;
+import static org.apache.iotdb.tsfile.read.common.block.TsBlockBuilderStatus.DEFAULT_MAX_TSBLOCK_SIZE_IN_BYTES;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TagAggregationOperatorTest {
+
+  @Test
+  public void testOutputOfManyGroupsIsSplit() throws Exception {
+    ExecutorService instanceNotificationExecutor =
+        IoTDBThreadPoolFactory.newFixedThreadPool(1, "test-instance-notification");
+    try {
+      QueryId queryId = new QueryId("stub_query");
+      FragmentInstanceId instanceId =
+          new FragmentInstanceId(new PlanFragmentId(queryId, 0), "stub-instance");
+      FragmentInstanceStateMachine stateMachine =
+          new FragmentInstanceStateMachine(instanceId, instanceNotificationExecutor);
+      FragmentInstanceContext fragmentInstanceContext =
+          createFragmentInstanceContext(instanceId, stateMachine);
+      DriverContext driverContext = new DriverContext(fragmentInstanceContext, 0);
+      driverContext.addOperatorContext(
+          1, new PlanNodeId("1"), TagAggregationOperator.class.getSimpleName());
+      OperatorContext operatorContext = driverContext.getOperatorContexts().get(0);
+      operatorContext.setMaxRunTime(AggregationOperatorTest.TEST_TIME_SLICE);
+
+      // every group sums up the partial counts of both columns of the child
+      int groupNum = 2500;
+      List<List<String>> groups = new ArrayList<>();
+      List<List<Aggregator>> groupedAggregators = new ArrayList<>();
+      for (int i = 0; i < groupNum; i++) {
+        groups.add(Collections.singletonList(i == 0 ? null : "v" + i));
+        groupedAggregators.add(
+            Collections.singletonList(
+                new Aggregator(
+                    AccumulatorFactory.createAccumulator(
+                        TAggregationType.COUNT,
+                        TSDataType.INT64,
+                        Collections.emptyList(),
+                        Collections.emptyMap(),
+                        true),
+                    AggregationStep.FINAL,
+                    Arrays.asList(
+                        new InputLocation[] {new InputLocation(0, 0)},
+                        new InputLocation[] {new InputLocation(0, 1)}))));
+      }
+
+      TagAggregationOperator tagAggregationOperator =
+          new TagAggregationOperator(
+              operatorContext,
+              groups,
+              groupedAggregators,
+              Collections.singletonList(new TwoRowsOperator(operatorContext)),
+              DEFAULT_MAX_TSBLOCK_SIZE_IN_BYTES);
+
+      int maxLineNumber = TSFileDescriptor.getInstance().getConfig().getMaxTsBlockLineNumber();
+      int count = 0;
+      int blockNum = 0;
+      while (!tagAggregationOperator.isFinished()) {
+        tagAggregationOperator.isBlocked().get();
+        TsBlock tsBlock = tagAggregationOperator.next();
+        if (tsBlock == null) {
+          continue;
+        }
+        blockNum++;
+        assertTrue(tsBlock.getPositionCount() <= maxLineNumber);
+        for (int pos = 0; pos < tsBlock.getPositionCount(); pos++, count++) {
+          int row = count / groupNum;
+          int groupIdx = count % groupNum;
+          assertEquals(row, tsBlock.getTimeByIndex(pos));
+          assertEquals(
+              groupIdx == 0 ? "NULL" : "v" + groupIdx,
+              tsBlock.getColumn(0).getBinary(pos).toString());
+          assertEquals(row == 0 ? 3 : 7, tsBlock.getColumn(1).getLong(pos));
+        }
+      }
+      assertEquals(2 * groupNum, count);
+      assertTrue(blockNum > 1);
+    } finally {
+      instanceNotificationExecutor.shutdown();
+    }
+  }
+
+  /** Returns one TsBlock with two rows of partial counts. */
+  private static class TwoRowsOperator implements Operator {
+
+    private final OperatorContext operatorContext;
+    private boolean consumed = false;
+
+    private TwoRowsOperator(OperatorContext operatorContext) {
+      this.operatorContext = operatorContext;
+    }
+
+    @Override
+    public OperatorContext getOperatorContext() {
+      return operatorContext;
+    }
+
+    @Override
+    public TsBlock next() {
+      consumed = true;
+      TsBlockBuilder builder =
+          new TsBlockBuilder(Arrays.asList(TSDataType.INT64, TSDataType.INT64));
+      for (int row = 0; row < 2; row++) {
+        builder.getTimeColumnBuilder().writeLong(row);
+        builder.getColumnBuilder(0).writeLong(row * 2 + 1);
+        builder.getColumnBuilder(1).writeLong(row * 2 + 2);
+        builder.declarePosition();
+      }
+      return builder.build();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return !consumed;
+    }
+
+    @Override
+    public boolean isFinished() {
+      return consumed;
+    }
+
+    @Override
+    public long calculateMaxPeekMemory() {
+      return 0;
+    }
+
+    @Override
+    public long calculateMaxReturnSize() {
+      return 0;
+    }
+
+    @Override
+    public long calculateRetainedSizeAfterCallingNext() {
+      return 0;
+    }
+  }
+}
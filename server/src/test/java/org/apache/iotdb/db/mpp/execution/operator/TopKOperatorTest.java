@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.execution.operator;
+
+import org.apache.iotdb.db.mpp.execution.operator.process.TopKOperator;
+import org.apache.iotdb.db.utils.datastructure.MergeSortKey;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Collections;
+import java.util.Comparator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TopKOperatorTest {
+
+  @Test
+  public void testTopKOfSeveralBlocks() throws Exception {
+    OperatorContext operatorContext = Mockito.mock(OperatorContext.class);
+    // order by value desc
+    Comparator<MergeSortKey> comparator =
+        Comparator.comparingLong(
+                (MergeSortKey sortKey) -> sortKey.tsBlock.getColumn(0).getLong(sortKey.rowIndex))
+            .reversed();
+    TopKOperator topKOperator =
+        new TopKOperator(
+            operatorContext,
+            new BlocksOperator(operatorContext, 5, 100),
+            Collections.singletonList(TSDataType.INT64),
+            comparator,
+            10);
+
+    TsBlock result = null;
+    while (!topKOperator.isFinished()) {
+      topKOperator.isBlocked().get();
+      TsBlock tsBlock = topKOperator.next();
+      if (tsBlock != null) {
+        assertTrue(result == null);
+        result = tsBlock;
+      }
+    }
+    assertTrue(result != null);
+    assertEquals(10, result.getPositionCount());
+    for (int i = 0; i < 10; i++) {
+      long value = 499 - i;
+      assertEquals(value, result.getColumn(0).getLong(i));
+      assertEquals(value * 7 % 500, result.getTimeByIndex(i));
+    }
+  }
+
+  /**
+   * Returns blockNum TsBlocks of rowsPerBlock rows. The value of the row at time t is (t * 143) %
+   * total, which is a permutation of [0, total) when total is 500, so value v is at (v * 7) % total.
+   */
+  private static class BlocksOperator implements Operator {
+
+    private final OperatorContext operatorContext;
+    private final int blockNum;
+    private final int rowsPerBlock;
+    private int blockIndex = 0;
+
+    private BlocksOperator(OperatorContext operatorContext, int blockNum, int rowsPerBlock) {
+      this.operatorContext = operatorContext;
+      this.blockNum = blockNum;
+      this.rowsPerBlock = rowsPerBlock;
+    }
+
+    @Override
+    public OperatorContext getOperatorContext() {
+      return operatorContext;
+    }
+
+    @Override
+    public TsBlock next() {
+      int total = blockNum * rowsPerBlock;
+      TsBlockBuilder builder = new TsBlockBuilder(Collections.singletonList(TSDataType.INT64));
+      for (int i = blockIndex * rowsPerBlock; i < (blockIndex + 1) * rowsPerBlock; i++) {
+        builder.getTimeColumnBuilder().writeLong(i);
+        builder.getColumnBuilder(0).writeLong(i * 143L % total);
+        builder.declarePosition();
+      }
+      blockIndex++;
+      return builder.build();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return blockIndex < blockNum;
+    }
+
+    @Override
+    public boolean isFinished() {
+      return !hasNext();
+    }
+
+    @Override
+    public long calculateMaxPeekMemory() {
+      return 0;
+    }
+
+    @Override
+    public long calculateMaxReturnSize() {
+      return 0;
+    }
+
+    @Override
+    public long calculateRetainedSizeAfterCallingNext() {
+      return 0;
+    }
+  }
+}
@@ -69,8 +69,9 @@ public class SchemaFetchScanOperatorTest {
 
     Binary binary = tsBlock.getColumn(0).getBinary(0);
     InputStream inputStream = new ByteArrayInputStream(binary.getValues());
-    Assert.assertEquals(1, ReadWriteIOUtils.readByte(inputStream));
-    ISchemaTree schemaTree = ClusterSchemaTree.deserialize(inputStream);
+    Assert.assertEquals(2, ReadWriteIOUtils.readByte(inputStream));
+    ISchemaTree schemaTree =
+        ClusterSchemaTree.deserializeCompactly(inputStream, Collections.emptyMap());
 
     DeviceSchemaInfo deviceSchemaInfo =
         schemaTree.searchDeviceSchemaInfo(
@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.execution.operator.window;
+
+import org.apache.iotdb.tsfile.read.common.TimeRange;
+import org.apache.iotdb.tsfile.read.common.block.column.TimeColumn;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class TimeWindowTest {
+
+  @Test
+  public void testGetLeadingPointCount() {
+    TimeWindow timeWindow = new TimeWindow(new TimeRange(10, 19));
+
+    long[] ascTimes = new long[] {0, 10, 11, 15, 19, 20, 25};
+    assertEquals(0, timeWindow.getLeadingPointCount(new TimeColumn(7, ascTimes)));
+    assertEquals(
+        4, timeWindow.getLeadingPointCount((TimeColumn) new TimeColumn(7, ascTimes).subColumn(1)));
+    assertEquals(
+        2,
+        timeWindow.getLeadingPointCount(
+            (TimeColumn) new TimeColumn(7, ascTimes).getRegion(1, 2)));
+
+    long[] descTimes = new long[] {25, 19, 15, 11, 10, 5, 0};
+    assertEquals(0, timeWindow.getLeadingPointCount(new TimeColumn(7, descTimes)));
+    assertEquals(
+        4, timeWindow.getLeadingPointCount((TimeColumn) new TimeColumn(7, descTimes).subColumn(1)));
+  }
+}
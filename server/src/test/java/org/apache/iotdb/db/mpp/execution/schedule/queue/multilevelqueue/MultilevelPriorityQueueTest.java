@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.execution.schedule.queue.multilevelqueue;
+
+import org.apache.iotdb.db.mpp.common.FragmentInstanceId;
+import org.apache.iotdb.db.mpp.common.PlanFragmentId;
+import org.apache.iotdb.db.mpp.common.QueryId;
+import org.apache.iotdb.db.mpp.execution.driver.IDriver;
+import org.apache.iotdb.db.mpp.execution.schedule.task.DriverTask;
+import org.apache.iotdb.db.mpp.execution.schedule.task.DriverTaskId;
+import org.apache.iotdb.db.mpp.execution.schedule.task.DriverTaskStatus;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MultilevelPriorityQueueTest {
+
+  private DriverTask createTask(MultilevelPriorityQueue queue, int index) {
+    QueryId queryId = new QueryId("test");
+    FragmentInstanceId instanceId =
+        new FragmentInstanceId(new PlanFragmentId(queryId, 0), "inst-" + index);
+    IDriver driver = Mockito.mock(IDriver.class);
+    Mockito.when(driver.getDriverTaskId()).thenReturn(new DriverTaskId(instanceId, 0));
+    DriverTaskHandle driverTaskHandle =
+        new DriverTaskHandle(index, queue, OptionalInt.of(Integer.MAX_VALUE));
+    return new DriverTask(driver, 100L, DriverTaskStatus.READY, driverTaskHandle);
+  }
+
+  @Test
+  public void testPushPollAndRemove() throws InterruptedException {
+    MultilevelPriorityQueue queue = new MultilevelPriorityQueue(2, 10, new DriverTask(), 4);
+    DriverTask task1 = createTask(queue, 1);
+    DriverTask task2 = createTask(queue, 2);
+    queue.push(task1);
+    queue.push(task2);
+    Assert.assertEquals(2, queue.size());
+    Assert.assertEquals(task1, queue.get(task1.getDriverTaskId()));
+
+    Assert.assertEquals(task2, queue.remove(task2.getDriverTaskId()));
+    Assert.assertNull(queue.remove(task2.getDriverTaskId()));
+    Assert.assertEquals(1, queue.size());
+
+    Assert.assertEquals(task1, queue.poll());
+    Assert.assertEquals(0, queue.size());
+    Assert.assertNull(queue.get(task1.getDriverTaskId()));
+
+    // the polled task reserves its space, so it can be pushed again even if the queue is full
+    for (int i = 3; i < 12; i++) {
+      queue.push(createTask(queue, i));
+    }
+    try {
+      queue.push(createTask(queue, 12));
+      Assert.fail();
+    } catch (IllegalStateException e) {
+      // expected
+    }
+    queue.repush(task1);
+    Assert.assertEquals(10, queue.size());
+  }
+
+  @Test
+  public void testConcurrentPushNotExceedCapacity() throws InterruptedException {
+    int capacity = 100;
+    int pusherNum = 8;
+    int taskNumPerPusher = 50;
+    MultilevelPriorityQueue queue = new MultilevelPriorityQueue(2, capacity, new DriverTask(), 4);
+    AtomicInteger acceptedNum = new AtomicInteger(0);
+    CountDownLatch startLatch = new CountDownLatch(1);
+    List<Thread> pushers = new ArrayList<>();
+    for (int i = 0; i < pusherNum; i++) {
+      int pusherIndex = i;
+      Thread pusher =
+          new Thread(
+              () -> {
+                try {
+                  startLatch.await();
+                } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                  return;
+                }
+                for (int j = 0; j < taskNumPerPusher; j++) {
+                  try {
+                    queue.push(createTask(queue, pusherIndex * taskNumPerPusher + j));
+                    acceptedNum.incrementAndGet();
+                  } catch (IllegalStateException e) {
+                    // the queue is full
+                  }
+                }
+              });
+      pusher.start();
+      pushers.add(pusher);
+    }
+    startLatch.countDown();
+    for (Thread pusher : pushers) {
+      pusher.join();
+    }
+    Assert.assertEquals(capacity, acceptedNum.get());
+    Assert.assertEquals(capacity, queue.size());
+  }
+
+  @Test
+  public void testFailedPushReleasesCapacity() {
+    MultilevelPriorityQueue queue = new MultilevelPriorityQueue(2, 1, new DriverTask(), 4);
+    DriverTask brokenTask = Mockito.mock(DriverTask.class);
+    Mockito.when(brokenTask.getPriority()).thenThrow(new IllegalArgumentException("broken"));
+    try {
+      queue.push(brokenTask);
+      Assert.fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    Assert.assertEquals(0, queue.size());
+
+    // the slot reserved by the failed push has been rolled back
+    queue.push(createTask(queue, 1));
+    Assert.assertEquals(1, queue.size());
+  }
+
+  @Test
+  public void testConcurrentPoll() throws InterruptedException {
+    int workerNum = 4;
+    int taskNum = 1000;
+    MultilevelPriorityQueue queue =
+        new MultilevelPriorityQueue(2, taskNum, new DriverTask(), workerNum);
+    Set<DriverTask> polledTasks = ConcurrentHashMap.newKeySet();
+    AtomicBoolean polledTwice = new AtomicBoolean(false);
+    List<Thread> workers = new ArrayList<>();
+    for (int i = 0; i < workerNum; i++) {
+      Thread worker =
+          new Thread(
+              () -> {
+                try {
+                  while (true) {
+                    DriverTask task = queue.poll();
+                    if (!polledTasks.add(task)) {
+                      polledTwice.set(true);
+                    }
+                    // re-push half of the tasks from the worker to its own shard
+                    if (polledTasks.size() % 2 == 0 && task.getStatus() == DriverTaskStatus.READY) {
+                      task.setStatus(DriverTaskStatus.RUNNING);
+                      polledTasks.remove(task);
+                      queue.repush(task);
+                    }
+                  }
+                } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                }
+              });
+      worker.start();
+      workers.add(worker);
+    }
+    for (int i = 0; i < taskNum; i++) {
+      queue.push(createTask(queue, i));
+    }
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (polledTasks.size() < taskNum && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    for (Thread worker : workers) {
+      worker.interrupt();
+      worker.join();
+    }
+    Assert.assertFalse(polledTwice.get());
+    Assert.assertEquals(taskNum, polledTasks.size());
+    Assert.assertEquals(0, queue.size());
+  }
+}
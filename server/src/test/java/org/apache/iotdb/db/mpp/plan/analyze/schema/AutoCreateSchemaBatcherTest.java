@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.mpp.plan.analyze.schema;
+
+import org.apache.iotdb.commons.exception.IllegalPathException;
+import org.apache.iotdb.commons.path.PartialPath;
+import org.apache.iotdb.db.mpp.plan.execution.ExecutionResult;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.metedata.write.MeasurementGroup;
+import org.apache.iotdb.db.mpp.plan.statement.Statement;
+import org.apache.iotdb.db.mpp.plan.statement.internal.InternalCreateMultiTimeSeriesStatement;
+import org.apache.iotdb.rpc.RpcUtils;
+import org.apache.iotdb.rpc.TSStatusCode;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.utils.Pair;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+public class AutoCreateSchemaBatcherTest {
+
+  private static final String FAILED_DEVICE = "root.sg.failed";
+
+  @Test
+  public void testMergeConcurrentRequests() throws Exception {
+    List<Map<PartialPath, Pair<Boolean, MeasurementGroup>>> executedRequests =
+        Collections.synchronizedList(new ArrayList<>());
+    CountDownLatch firstExecution = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AutoCreateSchemaBatcher batcher =
+        new AutoCreateSchemaBatcher(blockingExecutor(executedRequests, firstExecution, release));
+
+    List<Thread> threads = new ArrayList<>();
+    threads.add(startRequest(batcher, "root.sg.d0", new AtomicReference<>()));
+    firstExecution.await();
+    for (int i = 1; i <= 4; i++) {
+      threads.add(startRequest(batcher, "root.sg.d" + i, new AtomicReference<>()));
+    }
+    // the same timeseries requested twice is created once
+    threads.add(startRequest(batcher, "root.sg.d1", new AtomicReference<>()));
+    waitUntilAllWaiting(threads);
+
+    release.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    Assert.assertEquals(2, executedRequests.size());
+    Assert.assertEquals(1, executedRequests.get(0).size());
+    Assert.assertEquals(4, executedRequests.get(1).size());
+    for (Pair<Boolean, MeasurementGroup> device : executedRequests.get(1).values()) {
+      Assert.assertEquals(1, device.right.size());
+    }
+  }
+
+  @Test
+  public void testFailureOnlyAffectsItsRequest() throws Exception {
+    List<Map<PartialPath, Pair<Boolean, MeasurementGroup>>> executedRequests =
+        Collections.synchronizedList(new ArrayList<>());
+    CountDownLatch firstExecution = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AutoCreateSchemaBatcher batcher =
+        new AutoCreateSchemaBatcher(blockingExecutor(executedRequests, firstExecution, release));
+
+    List<Thread> threads = new ArrayList<>();
+    threads.add(startRequest(batcher, "root.sg.d0", new AtomicReference<>()));
+    firstExecution.await();
+    AtomicReference<Throwable> succeededResult = new AtomicReference<>();
+    AtomicReference<Throwable> failedResult = new AtomicReference<>();
+    threads.add(startRequest(batcher, "root.sg.d1", succeededResult));
+    threads.add(startRequest(batcher, FAILED_DEVICE, failedResult));
+    waitUntilAllWaiting(threads);
+
+    release.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    // the merged batch fails and is retried request by request
+    Assert.assertEquals(4, executedRequests.size());
+    Assert.assertNull(succeededResult.get());
+    Assert.assertNotNull(failedResult.get());
+  }
+
+  private Function<Statement, ExecutionResult> blockingExecutor(
+      List<Map<PartialPath, Pair<Boolean, MeasurementGroup>>> executedRequests,
+      CountDownLatch firstExecution,
+      CountDownLatch release) {
+    return statement -> {
+      Map<PartialPath, Pair<Boolean, MeasurementGroup>> deviceMap =
+          ((InternalCreateMultiTimeSeriesStatement) statement).getDeviceMap();
+      executedRequests.add(deviceMap);
+      firstExecution.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      for (PartialPath devicePath : deviceMap.keySet()) {
+        if (devicePath.getFullPath().equals(FAILED_DEVICE)) {
+          return new ExecutionResult(
+              null, RpcUtils.getStatus(TSStatusCode.METADATA_ERROR, "failed"));
+        }
+      }
+      return new ExecutionResult(null, RpcUtils.getStatus(TSStatusCode.SUCCESS_STATUS));
+    };
+  }
+
+  private Thread startRequest(
+      AutoCreateSchemaBatcher batcher, String device, AtomicReference<Throwable> result)
+      throws IllegalPathException {
+    MeasurementGroup measurementGroup = new MeasurementGroup();
+    measurementGroup.addMeasurement("s1", TSDataType.INT64, TSEncoding.RLE, CompressionType.SNAPPY);
+    Map<PartialPath, Pair<Boolean, MeasurementGroup>> request =
+        Collections.singletonMap(new PartialPath(device), new Pair<>(false, measurementGroup));
+    Thread thread =
+        new Thread(
+            () -> {
+              try {
+                batcher.createTimeSeries(request);
+              } catch (Throwable t) {
+                result.set(t);
+              }
+            });
+    thread.start();
+    return thread;
+  }
+
+  private void waitUntilAllWaiting(List<Thread> threads) throws InterruptedException {
+    for (Thread thread : threads) {
+      while (thread.getState() != Thread.State.WAITING) {
+        Thread.sleep(10);
+      }
+    }
+  }
+}
@@ -57,6 +57,39 @@ public class StatementGeneratorTest {
     }
   }
 
+  @Test
+  public void testQueriesOfSameShape() {
+    List<String> selectExprList = Arrays.asList("s1", "s2");
+    List<String> prefixPaths = Collections.singletonList("root.sg1.d1");
+    checkQueryStatement(
+        "SELECT s1, s2 FROM root.sg1.d1 WHERE time > 1 LIMIT 10 OFFSET 10",
+        selectExprList,
+        prefixPaths,
+        10,
+        10);
+    // the second query reuses the parse tree of the first one with its own literals
+    checkQueryStatement(
+        "SELECT s1, s2 FROM root.sg1.d1 WHERE time > 2 LIMIT 20 OFFSET 5",
+        selectExprList,
+        prefixPaths,
+        20,
+        5);
+    QueryStatement statement =
+        (QueryStatement)
+            StatementGenerator.createStatement(
+                "SELECT s1, s2 FROM root.sg1.d1 WHERE time > 3 LIMIT 10 OFFSET 10",
+                ZonedDateTime.now().getOffset());
+    Assert.assertEquals("Time > 3", statement.getWhereCondition().getPredicate().toString());
+
+    // a different identifier is a different shape
+    checkQueryStatement(
+        "SELECT s1, s3 FROM root.sg1.d1 WHERE time > 2 LIMIT 20 OFFSET 5",
+        Arrays.asList("s1", "s3"),
+        prefixPaths,
+        20,
+        5);
+  }
+
   // TODO: add more tests
 
   private void checkQueryStatement(
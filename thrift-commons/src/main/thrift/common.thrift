@@ -139,5 +139,7 @@ enum TAggregationType {
   MAX_VALUE,
   MIN_VALUE,
   EXTREME,
-  COUNT_IF
+  COUNT_IF,
+  APPROX_COUNT_DISTINCT,
+  APPROX_PERCENTILE
 }
@@ -148,6 +148,19 @@ public class TSFileConfig implements Serializable {
   private String kerberosPrincipal = "principal";
   /** The acceptable error rate of bloom filter */
   private double bloomFilterErrorRate = 0.05;
+  /**
+   * The max number of series covered by one bloom filter partition. Bloom filters of files with
+   * more series than this are partitioned by device ranges. 0 means never partition.
+   */
+  private int bloomFilterPartitionSeriesNum = 100000;
+  /**
+   * Whether to keep a quantile sketch in the statistics of numeric pages and chunks, so that
+   * approximate percentiles can be computed from metadata. TsFiles written with sketches cannot be
+   * read by older versions.
+   */
+  private boolean enableQuantileSketchStatistics = false;
+  /** The parameter k of quantile sketches in statistics, larger k is more accurate but larger. */
+  private int quantileSketchStatisticsK = 128;
   /** The amount of data iterate each time */
   private int batchSize = 1000;
 
@@ -348,6 +361,30 @@ public class TSFileConfig implements Serializable {
     this.bloomFilterErrorRate = bloomFilterErrorRate;
   }
 
+  public int getBloomFilterPartitionSeriesNum() {
+    return bloomFilterPartitionSeriesNum;
+  }
+
+  public void setBloomFilterPartitionSeriesNum(int bloomFilterPartitionSeriesNum) {
+    this.bloomFilterPartitionSeriesNum = bloomFilterPartitionSeriesNum;
+  }
+
+  public boolean isEnableQuantileSketchStatistics() {
+    return enableQuantileSketchStatistics;
+  }
+
+  public void setEnableQuantileSketchStatistics(boolean enableQuantileSketchStatistics) {
+    this.enableQuantileSketchStatistics = enableQuantileSketchStatistics;
+  }
+
+  public int getQuantileSketchStatisticsK() {
+    return quantileSketchStatisticsK;
+  }
+
+  public void setQuantileSketchStatisticsK(int quantileSketchStatisticsK) {
+    this.quantileSketchStatisticsK = quantileSketchStatisticsK;
+  }
+
   public FSType getTSFileStorageFs() {
     return this.TSFileStorageFs;
   }
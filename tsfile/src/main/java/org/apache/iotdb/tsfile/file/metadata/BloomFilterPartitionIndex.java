@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.file.metadata;
+
+import org.apache.iotdb.tsfile.utils.Pair;
+import org.apache.iotdb.tsfile.utils.ReadWriteForEncodingUtils;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Directory of the partitioned bloom filters of a TsFile. Each partition covers a contiguous range
+ * of devices, in the same order as the device level of the {@link MetadataIndexNode} tree, and a
+ * device never spans two partitions. The entry name is the first device of the partition and the
+ * entry offset is the position of its serialized bloom filter.
+ */
+public class BloomFilterPartitionIndex {
+
+  private final List<MetadataIndexEntry> partitions;
+  private long endOffset;
+
+  public BloomFilterPartitionIndex() {
+    this.partitions = new ArrayList<>();
+    this.endOffset = -1L;
+  }
+
+  public void addPartition(String firstDevice, long offset) {
+    partitions.add(new MetadataIndexEntry(firstDevice, offset));
+  }
+
+  public void setEndOffset(long endOffset) {
+    this.endOffset = endOffset;
+  }
+
+  public int getPartitionNum() {
+    return partitions.size();
+  }
+
+  /**
+   * find the partition which may contain the given device.
+   *
+   * @return index of the partition, or -1 if there is no partition
+   */
+  public int findPartition(String device) {
+    if (partitions.isEmpty()) {
+      return -1;
+    }
+    int low = 0;
+    int high = partitions.size() - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int cmp = partitions.get(mid).getName().compareTo(device);
+      if (cmp < 0) {
+        low = mid + 1;
+      } else if (cmp > 0) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    // devices smaller than the first one can only be found in the first partition (if anywhere)
+    return Math.max(low - 1, 0);
+  }
+
+  /** @return the start offset and the length of the serialized bloom filter of the partition */
+  public Pair<Long, Integer> getPartitionOffsetAndSize(int partitionIndex) {
+    long start = partitions.get(partitionIndex).getOffset();
+    long end =
+        partitionIndex + 1 < partitions.size()
+            ? partitions.get(partitionIndex + 1).getOffset()
+            : endOffset;
+    return new Pair<>(start, (int) (end - start));
+  }
+
+  public int serializeTo(OutputStream outputStream) throws IOException {
+    int byteLen = 0;
+    byteLen += ReadWriteForEncodingUtils.writeUnsignedVarInt(partitions.size(), outputStream);
+    for (MetadataIndexEntry partition : partitions) {
+      byteLen += partition.serializeTo(outputStream);
+    }
+    byteLen += ReadWriteIOUtils.write(endOffset, outputStream);
+    return byteLen;
+  }
+
+  public static BloomFilterPartitionIndex deserializeFrom(ByteBuffer buffer) {
+    BloomFilterPartitionIndex index = new BloomFilterPartitionIndex();
+    int size = ReadWriteForEncodingUtils.readUnsignedVarInt(buffer);
+    for (int i = 0; i < size; i++) {
+      index.partitions.add(MetadataIndexEntry.deserializeFrom(buffer));
+    }
+    index.endOffset = ReadWriteIOUtils.readLong(buffer);
+    return index;
+  }
+}
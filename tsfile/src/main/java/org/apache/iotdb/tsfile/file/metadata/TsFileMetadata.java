@@ -36,6 +36,9 @@ public class TsFileMetadata {
   // bloom filter
   private BloomFilter bloomFilter;
 
+  // directory of the partitioned bloom filters, null if the bloom filter is not partitioned
+  private BloomFilterPartitionIndex bloomFilterPartitionIndex;
+
   // List of <name, offset, childMetadataIndexType>
   private MetadataIndexNode metadataIndex;
 
@@ -60,15 +63,27 @@ public class TsFileMetadata {
 
     // read bloom filter
     if (buffer.hasRemaining()) {
-      byte[] bytes = ReadWriteIOUtils.readByteBufferWithSelfDescriptionLength(buffer);
-      int filterSize = ReadWriteForEncodingUtils.readUnsignedVarInt(buffer);
-      int hashFunctionSize = ReadWriteForEncodingUtils.readUnsignedVarInt(buffer);
-      fileMetaData.bloomFilter = BloomFilter.buildBloomFilter(bytes, filterSize, hashFunctionSize);
+      fileMetaData.bloomFilter = deserializeBloomFilter(buffer);
+    }
+
+    // read the directory of partitioned bloom filters, which is absent in old files
+    if (buffer.hasRemaining()) {
+      fileMetaData.bloomFilterPartitionIndex = BloomFilterPartitionIndex.deserializeFrom(buffer);
     }
 
     return fileMetaData;
   }
 
+  /**
+   * deserialize a bloom filter written by {@link #serializeBloomFilter(OutputStream, BloomFilter)}.
+   */
+  public static BloomFilter deserializeBloomFilter(ByteBuffer buffer) {
+    byte[] bytes = ReadWriteIOUtils.readByteBufferWithSelfDescriptionLength(buffer);
+    int filterSize = ReadWriteForEncodingUtils.readUnsignedVarInt(buffer);
+    int hashFunctionSize = ReadWriteForEncodingUtils.readUnsignedVarInt(buffer);
+    return BloomFilter.buildBloomFilter(bytes, filterSize, hashFunctionSize);
+  }
+
   public BloomFilter getBloomFilter() {
     return bloomFilter;
   }
@@ -77,6 +92,14 @@ public class TsFileMetadata {
     this.bloomFilter = bloomFilter;
   }
 
+  public BloomFilterPartitionIndex getBloomFilterPartitionIndex() {
+    return bloomFilterPartitionIndex;
+  }
+
+  public void setBloomFilterPartitionIndex(BloomFilterPartitionIndex bloomFilterPartitionIndex) {
+    this.bloomFilterPartitionIndex = bloomFilterPartitionIndex;
+  }
+
   /**
    * use the given outputStream to serialize.
    *
@@ -111,7 +134,7 @@ public class TsFileMetadata {
     return serializeBloomFilter(outputStream, filter);
   }
 
-  public int serializeBloomFilter(OutputStream outputStream, BloomFilter filter)
+  public static int serializeBloomFilter(OutputStream outputStream, BloomFilter filter)
       throws IOException {
     int byteLen = 0;
     byte[] bytes = filter.serialize();
@@ -124,6 +147,19 @@ public class TsFileMetadata {
     return byteLen;
   }
 
+  /**
+   * use the given outputStream to serialize the directory of partitioned bloom filters. It must be
+   * written right after the file level bloom filter.
+   *
+   * @param outputStream -output stream to determine byte length
+   * @return -byte length
+   */
+  public int serializeBloomFilterPartitionIndex(OutputStream outputStream) throws IOException {
+    return bloomFilterPartitionIndex == null
+        ? 0
+        : bloomFilterPartitionIndex.serializeTo(outputStream);
+  }
+
   /**
    * build bloom filter
    *
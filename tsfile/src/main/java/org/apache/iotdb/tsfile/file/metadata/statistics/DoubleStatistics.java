@@ -125,7 +125,7 @@ public class DoubleStatistics extends Statistics<Double> {
 
   @Override
   public long calculateRamSize() {
-    return DOUBLE_STATISTICS_FIXED_RAM_SIZE;
+    return DOUBLE_STATISTICS_FIXED_RAM_SIZE + calculateQuantileSketchRamSize();
   }
 
   @Override
@@ -117,7 +117,7 @@ public class FloatStatistics extends Statistics<Float> {
 
   @Override
   public long calculateRamSize() {
-    return FLOAT_STATISTICS_FIXED_RAM_SIZE;
+    return FLOAT_STATISTICS_FIXED_RAM_SIZE + calculateQuantileSketchRamSize();
   }
 
   @Override
@@ -117,7 +117,7 @@ public class IntegerStatistics extends Statistics<Integer> {
 
   @Override
   public long calculateRamSize() {
-    return INTEGER_STATISTICS_FIXED_RAM_SIZE;
+    return INTEGER_STATISTICS_FIXED_RAM_SIZE + calculateQuantileSketchRamSize();
   }
 
   @Override
@@ -157,7 +157,7 @@ public class LongStatistics extends Statistics<Long> {
 
   @Override
   public long calculateRamSize() {
-    return LONG_STATISTICS_FIXED_RAM_SIZE;
+    return LONG_STATISTICS_FIXED_RAM_SIZE + calculateQuantileSketchRamSize();
   }
 
   @Override
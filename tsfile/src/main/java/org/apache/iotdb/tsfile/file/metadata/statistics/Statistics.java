@@ -18,11 +18,14 @@
  */
 package org.apache.iotdb.tsfile.file.metadata.statistics;
 
+import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
+import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
 import org.apache.iotdb.tsfile.exception.filter.StatisticsClassException;
 import org.apache.iotdb.tsfile.exception.write.UnknownColumnTypeException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 import org.apache.iotdb.tsfile.utils.Binary;
+import org.apache.iotdb.tsfile.utils.KLLSketch;
 import org.apache.iotdb.tsfile.utils.ReadWriteForEncodingUtils;
 import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
 
@@ -59,6 +62,15 @@ public abstract class Statistics<T extends Serializable> {
   private long startTime = Long.MAX_VALUE;
   private long endTime = Long.MIN_VALUE;
 
+  /**
+   * quantile sketch of the values, only kept for numeric data types when it is enabled. It is null
+   * if any of the merged statistics has no sketch.
+   */
+  private KLLSketch quantileSketch;
+
+  /** the sign bit of the serialized count marks that a quantile sketch follows the statistics */
+  private static final int QUANTILE_SKETCH_FLAG = Integer.MIN_VALUE;
+
   static final String STATS_UNSUPPORTED_MSG = "%s statistics does not support: %s";
 
   /**
@@ -68,6 +80,22 @@ public abstract class Statistics<T extends Serializable> {
    * @return Statistics
    */
   public static Statistics<? extends Serializable> getStatsByType(TSDataType type) {
+    Statistics<? extends Serializable> statistics = getStatsWithoutSketchByType(type);
+    TSFileConfig config = TSFileDescriptor.getInstance().getConfig();
+    if (config.isEnableQuantileSketchStatistics() && type.isNumeric()) {
+      statistics.quantileSketch = new KLLSketch(config.getQuantileSketchStatisticsK());
+    }
+    return statistics;
+  }
+
+  /**
+   * static method providing statistic instance without quantile sketch, used for statistics that
+   * are not built from all of their points, e.g. statistics of old TsFile versions.
+   *
+   * @param type - data type
+   * @return Statistics
+   */
+  public static Statistics<? extends Serializable> getStatsWithoutSketchByType(TSDataType type) {
     switch (type) {
       case INT32:
         return new IntegerStatistics();
@@ -112,20 +140,39 @@ public abstract class Statistics<T extends Serializable> {
   public abstract TSDataType getType();
 
   public int getSerializedSize() {
-    return ReadWriteForEncodingUtils.uVarIntSize(count) // count
+    return ReadWriteForEncodingUtils.uVarIntSize(getSerializedCount()) // count
         + 16 // startTime, endTime
-        + getStatsSize();
+        + getStatsSize()
+        + getQuantileSketchSize();
+  }
+
+  private int getSerializedCount() {
+    return quantileSketch == null ? count : count | QUANTILE_SKETCH_FLAG;
+  }
+
+  private int getQuantileSketchSize() {
+    if (quantileSketch == null) {
+      return 0;
+    }
+    int sketchSize = quantileSketch.getSerializedSize();
+    return ReadWriteForEncodingUtils.uVarIntSize(sketchSize) + sketchSize;
   }
 
   public abstract int getStatsSize();
 
   public int serialize(OutputStream outputStream) throws IOException {
     int byteLen = 0;
-    byteLen += ReadWriteForEncodingUtils.writeUnsignedVarInt(count, outputStream);
+    byteLen += ReadWriteForEncodingUtils.writeUnsignedVarInt(getSerializedCount(), outputStream);
     byteLen += ReadWriteIOUtils.write(startTime, outputStream);
     byteLen += ReadWriteIOUtils.write(endTime, outputStream);
     // value statistics of different data type
     byteLen += serializeStats(outputStream);
+    if (quantileSketch != null) {
+      byte[] sketch = quantileSketch.serialize();
+      byteLen += ReadWriteForEncodingUtils.writeUnsignedVarInt(sketch.length, outputStream);
+      outputStream.write(sketch);
+      byteLen += sketch.length;
+    }
     return byteLen;
   }
 
@@ -157,6 +204,7 @@ public abstract class Statistics<T extends Serializable> {
   public void mergeStatistics(Statistics<? extends Serializable> stats) {
     if (this.getClass() == stats.getClass()) {
       if (!stats.isEmpty) {
+        mergeQuantileSketch(stats);
         if (stats.startTime < this.startTime) {
           this.startTime = stats.startTime;
         }
@@ -177,6 +225,17 @@ public abstract class Statistics<T extends Serializable> {
     }
   }
 
+  private void mergeQuantileSketch(Statistics<? extends Serializable> stats) {
+    if (stats.quantileSketch == null) {
+      quantileSketch = null;
+    } else if (isEmpty) {
+      quantileSketch = new KLLSketch(stats.quantileSketch.getK());
+      quantileSketch.merge(stats.quantileSketch);
+    } else if (quantileSketch != null) {
+      quantileSketch.merge(stats.quantileSketch);
+    }
+  }
+
   public void update(long time, boolean value) {
     update(time);
     updateStats(value);
@@ -185,21 +244,33 @@ public abstract class Statistics<T extends Serializable> {
   public void update(long time, int value) {
     update(time);
     updateStats(value);
+    if (quantileSketch != null) {
+      quantileSketch.update(value);
+    }
   }
 
   public void update(long time, long value) {
     update(time);
     updateStats(value);
+    if (quantileSketch != null) {
+      quantileSketch.update(value);
+    }
   }
 
   public void update(long time, float value) {
     update(time);
     updateStats(value);
+    if (quantileSketch != null) {
+      quantileSketch.update(value);
+    }
   }
 
   public void update(long time, double value) {
     update(time);
     updateStats(value);
+    if (quantileSketch != null) {
+      quantileSketch.update(value);
+    }
   }
 
   public void update(long time, Binary value) {
@@ -225,21 +296,41 @@ public abstract class Statistics<T extends Serializable> {
   public void update(long[] time, int[] values, int batchSize) {
     update(time, batchSize);
     updateStats(values, batchSize);
+    if (quantileSketch != null) {
+      for (int i = 0; i < batchSize; i++) {
+        quantileSketch.update(values[i]);
+      }
+    }
   }
 
   public void update(long[] time, long[] values, int batchSize) {
     update(time, batchSize);
     updateStats(values, batchSize);
+    if (quantileSketch != null) {
+      for (int i = 0; i < batchSize; i++) {
+        quantileSketch.update(values[i]);
+      }
+    }
   }
 
   public void update(long[] time, float[] values, int batchSize) {
     update(time, batchSize);
     updateStats(values, batchSize);
+    if (quantileSketch != null) {
+      for (int i = 0; i < batchSize; i++) {
+        quantileSketch.update(values[i]);
+      }
+    }
   }
 
   public void update(long[] time, double[] values, int batchSize) {
     update(time, batchSize);
     updateStats(values, batchSize);
+    if (quantileSketch != null) {
+      for (int i = 0; i < batchSize; i++) {
+        quantileSketch.update(values[i]);
+      }
+    }
   }
 
   public void update(long[] time, Binary[] values, int batchSize) {
@@ -338,22 +429,34 @@ public abstract class Statistics<T extends Serializable> {
 
   public static Statistics<? extends Serializable> deserialize(
       InputStream inputStream, TSDataType dataType) throws IOException {
-    Statistics<? extends Serializable> statistics = getStatsByType(dataType);
-    statistics.setCount(ReadWriteForEncodingUtils.readUnsignedVarInt(inputStream));
+    Statistics<? extends Serializable> statistics = getStatsWithoutSketchByType(dataType);
+    int serializedCount = ReadWriteForEncodingUtils.readUnsignedVarInt(inputStream);
+    statistics.setCount(serializedCount & ~QUANTILE_SKETCH_FLAG);
     statistics.setStartTime(ReadWriteIOUtils.readLong(inputStream));
     statistics.setEndTime(ReadWriteIOUtils.readLong(inputStream));
     statistics.deserialize(inputStream);
+    if ((serializedCount & QUANTILE_SKETCH_FLAG) != 0) {
+      int sketchSize = ReadWriteForEncodingUtils.readUnsignedVarInt(inputStream);
+      statistics.quantileSketch =
+          KLLSketch.deserialize(ReadWriteIOUtils.readBytes(inputStream, sketchSize));
+    }
     statistics.isEmpty = false;
     return statistics;
   }
 
   public static Statistics<? extends Serializable> deserialize(
       ByteBuffer buffer, TSDataType dataType) {
-    Statistics<? extends Serializable> statistics = getStatsByType(dataType);
-    statistics.setCount(ReadWriteForEncodingUtils.readUnsignedVarInt(buffer));
+    Statistics<? extends Serializable> statistics = getStatsWithoutSketchByType(dataType);
+    int serializedCount = ReadWriteForEncodingUtils.readUnsignedVarInt(buffer);
+    statistics.setCount(serializedCount & ~QUANTILE_SKETCH_FLAG);
     statistics.setStartTime(ReadWriteIOUtils.readLong(buffer));
     statistics.setEndTime(ReadWriteIOUtils.readLong(buffer));
     statistics.deserialize(buffer);
+    if ((serializedCount & QUANTILE_SKETCH_FLAG) != 0) {
+      int sketchSize = ReadWriteForEncodingUtils.readUnsignedVarInt(buffer);
+      statistics.quantileSketch =
+          KLLSketch.deserialize(ReadWriteIOUtils.readBytes(buffer, sketchSize));
+    }
     statistics.isEmpty = false;
     return statistics;
   }
@@ -384,6 +487,15 @@ public abstract class Statistics<T extends Serializable> {
 
   public abstract long calculateRamSize();
 
+  protected long calculateQuantileSketchRamSize() {
+    return quantileSketch == null ? 0 : quantileSketch.getSerializedSize();
+  }
+
+  /** @return quantile sketch of the values, or null if it is not kept */
+  public KLLSketch getQuantileSketch() {
+    return quantileSketch;
+  }
+
   public boolean containedByTimeFilter(Filter timeFilter) {
     return timeFilter == null || timeFilter.containStartEndTime(getStartTime(), getEndTime());
   }
@@ -31,6 +31,7 @@ import org.apache.iotdb.tsfile.file.header.ChunkHeader;
 import org.apache.iotdb.tsfile.file.header.PageHeader;
 import org.apache.iotdb.tsfile.file.metadata.AlignedChunkMetadata;
 import org.apache.iotdb.tsfile.file.metadata.AlignedTimeSeriesMetadata;
+import org.apache.iotdb.tsfile.file.metadata.BloomFilterPartitionIndex;
 import org.apache.iotdb.tsfile.file.metadata.ChunkGroupMetadata;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
 import org.apache.iotdb.tsfile.file.metadata.IChunkMetadata;
@@ -302,6 +303,46 @@ public class TsFileSequenceReader implements AutoCloseable {
     return tsFileMetaData.getBloomFilter();
   }
 
+  /**
+   * find the bloom filter partition which may contain the given device. this function does not
+   * modify the position of the file reader.
+   *
+   * @return index of the partition, or -1 if the bloom filter of this file is not partitioned
+   * @throws IOException io error
+   */
+  public int getBloomFilterPartition(String device) throws IOException {
+    readFileMetadata();
+    BloomFilterPartitionIndex partitionIndex = tsFileMetaData.getBloomFilterPartitionIndex();
+    return partitionIndex == null ? -1 : partitionIndex.findPartition(device);
+  }
+
+  /**
+   * read one partition of the bloom filter, or the file level bloom filter if partitionIndex is
+   * negative. this function does not modify the position of the file reader.
+   *
+   * @throws IOException io error
+   */
+  public BloomFilter readBloomFilter(int partitionIndex) throws IOException {
+    if (partitionIndex < 0) {
+      return readBloomFilter();
+    }
+    readFileMetadata();
+    Pair<Long, Integer> offsetAndSize =
+        tsFileMetaData.getBloomFilterPartitionIndex().getPartitionOffsetAndSize(partitionIndex);
+    return TsFileMetadata.deserializeBloomFilter(
+        readData(offsetAndSize.left, offsetAndSize.right));
+  }
+
+  /**
+   * read the bloom filter which covers all series of the given device. this function does not
+   * modify the position of the file reader.
+   *
+   * @throws IOException io error
+   */
+  public BloomFilter readBloomFilter(String device) throws IOException {
+    return readBloomFilter(getBloomFilterPartition(device));
+  }
+
   /**
    * this function reads measurements and TimeseriesMetaDatas in given device Thread Safe
    *
@@ -75,6 +75,19 @@ public class BloomFilter {
         Math.max(MINIMAL_SIZE, size), Math.min(MAXIMAL_HASH_FUNCTION_SIZE, hashFunctionSize));
   }
 
+  /**
+   * get a bloom filter that contains every value. It is written as the file level bloom filter when
+   * the real filters are partitioned, so that readers unaware of partitions never skip a file by
+   * mistake.
+   *
+   * @return bloom filter with all bits set
+   */
+  public static BloomFilter getPassThroughBloomFilter() {
+    BloomFilter filter = new BloomFilter(MINIMAL_SIZE, 1);
+    filter.bits.set(0, MINIMAL_SIZE);
+    return filter;
+  }
+
   /**
    * build bloom filter by bytes
    *
@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.utils;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * HyperLogLog sketch estimating the number of distinct values. Sketches with the same precision can
+ * be merged, so distinct counts can be computed partially and combined afterwards.
+ *
+ * <p>The relative standard error is about 1.04 / sqrt(2 ^ precision).
+ */
+public class HyperLogLog {
+
+  public static final int DEFAULT_PRECISION = 12;
+
+  private static final int MIN_PRECISION = 4;
+  private static final int MAX_PRECISION = 16;
+
+  private static final byte DENSE = 0;
+  private static final byte SPARSE = 1;
+
+  private static final int BINARY_HASH_SEED = 0x5bd1e995;
+
+  private final int precision;
+  private final byte[] registers;
+
+  public HyperLogLog() {
+    this(DEFAULT_PRECISION);
+  }
+
+  public HyperLogLog(int precision) {
+    if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+      throw new IllegalArgumentException(
+          String.format(
+              "precision of HyperLogLog should be in [%d, %d], but is %d",
+              MIN_PRECISION, MAX_PRECISION, precision));
+    }
+    this.precision = precision;
+    this.registers = new byte[1 << precision];
+  }
+
+  public int getPrecision() {
+    return precision;
+  }
+
+  public void offer(int value) {
+    offerHash(Murmur128Hash.hash64(value));
+  }
+
+  public void offer(long value) {
+    offerHash(Murmur128Hash.hash64(value));
+  }
+
+  public void offer(float value) {
+    offerHash(Murmur128Hash.hash64(Float.floatToIntBits(value)));
+  }
+
+  public void offer(double value) {
+    offerHash(Murmur128Hash.hash64(Double.doubleToLongBits(value)));
+  }
+
+  public void offer(boolean value) {
+    offerHash(Murmur128Hash.hash64(value ? 1L : 0L));
+  }
+
+  public void offer(Binary value) {
+    offerHash(Murmur128Hash.hash64(value.getValues(), BINARY_HASH_SEED));
+  }
+
+  private void offerHash(long hash) {
+    int index = (int) (hash >>> (Long.SIZE - precision));
+    // the sentinel bit bounds the rank when all the remaining bits are zero
+    long remaining = (hash << precision) | (1L << (precision - 1));
+    byte rank = (byte) (Long.numberOfLeadingZeros(remaining) + 1);
+    if (registers[index] < rank) {
+      registers[index] = rank;
+    }
+  }
+
+  public void merge(HyperLogLog other) {
+    if (other.precision != precision) {
+      throw new IllegalArgumentException(
+          String.format(
+              "Cannot merge HyperLogLog of precision %d into precision %d",
+              other.precision, precision));
+    }
+    for (int i = 0; i < registers.length; i++) {
+      if (registers[i] < other.registers[i]) {
+        registers[i] = other.registers[i];
+      }
+    }
+  }
+
+  /** @return estimated number of distinct values offered to this sketch and the merged ones */
+  public long cardinality() {
+    int registerNum = registers.length;
+    double sum = 0;
+    int zeroNum = 0;
+    for (byte register : registers) {
+      sum += 1.0 / (1L << register);
+      if (register == 0) {
+        zeroNum++;
+      }
+    }
+    double estimate = getAlpha(registerNum) * registerNum * registerNum / sum;
+    if (estimate <= 2.5 * registerNum && zeroNum != 0) {
+      // linear counting is more accurate for small cardinalities
+      estimate = registerNum * Math.log((double) registerNum / zeroNum);
+    }
+    return Math.round(estimate);
+  }
+
+  private static double getAlpha(int registerNum) {
+    switch (registerNum) {
+      case 16:
+        return 0.673;
+      case 32:
+        return 0.697;
+      case 64:
+        return 0.709;
+      default:
+        return 0.7213 / (1 + 1.079 / registerNum);
+    }
+  }
+
+  public boolean isEmpty() {
+    for (byte register : registers) {
+      if (register != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public void reset() {
+    Arrays.fill(registers, (byte) 0);
+  }
+
+  /**
+   * Serialize the sketch. Registers are written sparsely as (index, rank) pairs when less than a
+   * third of them are set, which is the common case for partial results of small groups.
+   */
+  public byte[] serialize() {
+    int nonZeroNum = 0;
+    for (byte register : registers) {
+      if (register != 0) {
+        nonZeroNum++;
+      }
+    }
+    ByteBuffer buffer;
+    if (nonZeroNum * 3 < registers.length) {
+      buffer = ByteBuffer.allocate(2 + Integer.BYTES + nonZeroNum * (Short.BYTES + 1));
+      buffer.put((byte) precision);
+      buffer.put(SPARSE);
+      buffer.putInt(nonZeroNum);
+      for (int i = 0; i < registers.length; i++) {
+        if (registers[i] != 0) {
+          buffer.putShort((short) i);
+          buffer.put(registers[i]);
+        }
+      }
+    } else {
+      buffer = ByteBuffer.allocate(2 + registers.length);
+      buffer.put((byte) precision);
+      buffer.put(DENSE);
+      buffer.put(registers);
+    }
+    return buffer.array();
+  }
+
+  public static HyperLogLog deserialize(byte[] bytes) {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    HyperLogLog hyperLogLog = new HyperLogLog(buffer.get());
+    byte format = buffer.get();
+    if (format == SPARSE) {
+      int nonZeroNum = buffer.getInt();
+      for (int i = 0; i < nonZeroNum; i++) {
+        int index = Short.toUnsignedInt(buffer.getShort());
+        hyperLogLog.registers[index] = buffer.get();
+      }
+    } else {
+      buffer.get(hyperLogLog.registers);
+    }
+    return hyperLogLog;
+  }
+}
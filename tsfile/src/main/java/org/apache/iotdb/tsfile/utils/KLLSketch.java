@@ -0,0 +1,269 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.utils;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * KLL sketch estimating quantiles of double values with bounded memory. It keeps a hierarchy of
+ * compactors, where an item at level h stands for 2 ^ h input values. Sketches with the same k can
+ * be merged, so quantiles can be computed partially and combined afterwards.
+ *
+ * <p>The normalized rank error is about 1.65 / k.
+ *
+ * <p>See Karnin, Lang and Liberty, "Optimal Quantile Approximation in Streams", FOCS 2016.
+ */
+public class KLLSketch {
+
+  public static final int DEFAULT_K = 200;
+
+  private static final int MIN_K = 8;
+  private static final int MAX_K = 65535;
+
+  /** Minimal capacity of one level. */
+  private static final int MIN_LEVEL_CAPACITY = 8;
+
+  private static final double LEVEL_CAPACITY_DECAY = 2.0 / 3.0;
+
+  private final int k;
+
+  private long count;
+  private double minValue = Double.MAX_VALUE;
+  private double maxValue = -Double.MAX_VALUE;
+
+  private double[][] levels;
+  private int[] levelSizes;
+  private int levelNum;
+
+  private int itemNum;
+  private int maxItemNum;
+
+  public KLLSketch() {
+    this(DEFAULT_K);
+  }
+
+  public KLLSketch(int k) {
+    if (k < MIN_K || k > MAX_K) {
+      throw new IllegalArgumentException(
+          String.format("k of KLLSketch should be in [%d, %d], but is %d", MIN_K, MAX_K, k));
+    }
+    this.k = k;
+    reset();
+  }
+
+  public int getK() {
+    return k;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public boolean isEmpty() {
+    return count == 0;
+  }
+
+  public void update(double value) {
+    if (Double.isNaN(value)) {
+      return;
+    }
+    count++;
+    minValue = Math.min(minValue, value);
+    maxValue = Math.max(maxValue, value);
+    append(0, value);
+    if (itemNum >= maxItemNum) {
+      compress();
+    }
+  }
+
+  /**
+   * Merge another sketch into this one. The merged sketch is not exact: it is approximate like a
+   * sketch built from both inputs directly, with the same rank error bound, but its compactions
+   * are random, so its estimates may differ from those of such a sketch.
+   */
+  public void merge(KLLSketch other) {
+    if (other.isEmpty()) {
+      return;
+    }
+    count += other.count;
+    minValue = Math.min(minValue, other.minValue);
+    maxValue = Math.max(maxValue, other.maxValue);
+    for (int level = 0; level < other.levelNum; level++) {
+      for (int i = 0; i < other.levelSizes[level]; i++) {
+        append(level, other.levels[level][i]);
+      }
+    }
+    compress();
+  }
+
+  /**
+   * @param quantile rank of the wanted value, which should be in [0, 1]
+   * @return estimated value of the quantile, or NaN if the sketch is empty
+   */
+  public double getQuantile(double quantile) {
+    if (quantile < 0 || quantile > 1) {
+      throw new IllegalArgumentException("quantile should be in [0, 1], but is " + quantile);
+    }
+    if (isEmpty()) {
+      return Double.NaN;
+    }
+    if (quantile == 0) {
+      return minValue;
+    }
+    if (quantile == 1) {
+      return maxValue;
+    }
+
+    double[] values = new double[itemNum];
+    long[] weights = new long[itemNum];
+    int index = 0;
+    for (int level = 0; level < levelNum; level++) {
+      for (int i = 0; i < levelSizes[level]; i++) {
+        values[index] = levels[level][i];
+        weights[index] = 1L << level;
+        index++;
+      }
+    }
+    Integer[] order = new Integer[itemNum];
+    for (int i = 0; i < itemNum; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+
+    double targetRank = quantile * count;
+    long rank = 0;
+    for (Integer i : order) {
+      rank += weights[i];
+      if (rank >= targetRank) {
+        return values[i];
+      }
+    }
+    return maxValue;
+  }
+
+  public void reset() {
+    count = 0;
+    minValue = Double.MAX_VALUE;
+    maxValue = -Double.MAX_VALUE;
+    levelNum = 1;
+    levels = new double[][] {new double[k]};
+    levelSizes = new int[1];
+    itemNum = 0;
+    maxItemNum = getLevelCapacity(0);
+  }
+
+  private void append(int level, double value) {
+    while (level >= levelNum) {
+      addLevel();
+    }
+    if (levelSizes[level] == levels[level].length) {
+      levels[level] = Arrays.copyOf(levels[level], levels[level].length * 2);
+    }
+    levels[level][levelSizes[level]++] = value;
+    itemNum++;
+  }
+
+  private void addLevel() {
+    levels = Arrays.copyOf(levels, levelNum + 1);
+    levelSizes = Arrays.copyOf(levelSizes, levelNum + 1);
+    levels[levelNum] = new double[MIN_LEVEL_CAPACITY];
+    levelNum++;
+    maxItemNum = 0;
+    for (int level = 0; level < levelNum; level++) {
+      maxItemNum += getLevelCapacity(level);
+    }
+  }
+
+  /** Lower levels have smaller capacities, the top level has capacity k. */
+  private int getLevelCapacity(int level) {
+    int depth = levelNum - 1 - level;
+    return Math.max(MIN_LEVEL_CAPACITY, (int) Math.ceil(k * Math.pow(LEVEL_CAPACITY_DECAY, depth)));
+  }
+
+  private void compress() {
+    while (itemNum >= maxItemNum) {
+      // as the capacities sum up to maxItemNum, at least one level is full
+      int level = 0;
+      while (levelSizes[level] < getLevelCapacity(level)) {
+        level++;
+      }
+      compact(level);
+    }
+  }
+
+  /**
+   * Sort the items of the level and promote every other one of them to the next level with a
+   * random offset. One item stays in the level if the number of items is odd.
+   */
+  private void compact(int level) {
+    double[] items = levels[level];
+    int size = levelSizes[level];
+    Arrays.sort(items, 0, size);
+    int start = size % 2;
+    int offset = ThreadLocalRandom.current().nextInt(2);
+    levelSizes[level] = start;
+    itemNum -= size - start;
+    for (int i = start + offset; i < size; i += 2) {
+      append(level + 1, items[i]);
+    }
+  }
+
+  public int getSerializedSize() {
+    return Short.BYTES
+        + Long.BYTES
+        + Double.BYTES * 2
+        + Integer.BYTES
+        + levelNum * Integer.BYTES
+        + itemNum * Double.BYTES;
+  }
+
+  public byte[] serialize() {
+    ByteBuffer buffer = ByteBuffer.allocate(getSerializedSize());
+    buffer.putShort((short) k);
+    buffer.putLong(count);
+    buffer.putDouble(minValue);
+    buffer.putDouble(maxValue);
+    buffer.putInt(levelNum);
+    for (int level = 0; level < levelNum; level++) {
+      buffer.putInt(levelSizes[level]);
+      for (int i = 0; i < levelSizes[level]; i++) {
+        buffer.putDouble(levels[level][i]);
+      }
+    }
+    return buffer.array();
+  }
+
+  public static KLLSketch deserialize(byte[] bytes) {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    KLLSketch sketch = new KLLSketch(Short.toUnsignedInt(buffer.getShort()));
+    sketch.count = buffer.getLong();
+    sketch.minValue = buffer.getDouble();
+    sketch.maxValue = buffer.getDouble();
+    int levelNum = buffer.getInt();
+    for (int level = 0; level < levelNum; level++) {
+      int size = buffer.getInt();
+      for (int i = 0; i < size; i++) {
+        sketch.append(level, buffer.getDouble());
+      }
+    }
+    return sketch;
+  }
+}
@@ -52,6 +52,28 @@ public class Murmur128Hash {
             seed);
   }
 
+  /**
+   * get 64 bits hashcode of bytes by seed
+   *
+   * @param value value
+   * @param seed seed
+   * @return hashcode of value
+   */
+  public static long hash64(byte[] value, int seed) {
+    return innerHash(value, 0, value.length, seed);
+  }
+
+  /**
+   * get 64 bits hashcode of a long value, which is well distributed even if the values are
+   * sequential
+   *
+   * @param value value
+   * @return hashcode of value
+   */
+  public static long hash64(long value) {
+    return fmix(value ^ 0x9e3779b97f4a7c15L);
+  }
+
   /** Methods to perform murmur 128 hash. */
   private static long getBlock(byte[] key, int offset, int index) {
     int i8 = index << 3;
@@ -36,7 +36,7 @@ public class StatisticsV2 {
 
   public static Statistics<? extends Serializable> deserialize(
       InputStream inputStream, TSDataType dataType) throws IOException {
-    Statistics<? extends Serializable> statistics = Statistics.getStatsByType(dataType);
+    Statistics<? extends Serializable> statistics = Statistics.getStatsWithoutSketchByType(dataType);
     statistics.setCount((int) ReadWriteIOUtils.readLong(inputStream));
     statistics.setStartTime(ReadWriteIOUtils.readLong(inputStream));
     statistics.setEndTime(ReadWriteIOUtils.readLong(inputStream));
@@ -70,7 +70,7 @@ public class StatisticsV2 {
 
   public static Statistics<? extends Serializable> deserialize(
       ByteBuffer buffer, TSDataType dataType) {
-    Statistics<? extends Serializable> statistics = Statistics.getStatsByType(dataType);
+    Statistics<? extends Serializable> statistics = Statistics.getStatsWithoutSketchByType(dataType);
     statistics.setCount((int) ReadWriteIOUtils.readLong(buffer));
     statistics.setStartTime(ReadWriteIOUtils.readLong(buffer));
     statistics.setEndTime(ReadWriteIOUtils.readLong(buffer));
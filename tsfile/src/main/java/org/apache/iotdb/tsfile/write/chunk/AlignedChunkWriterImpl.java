@@ -196,12 +196,18 @@ public class AlignedChunkWriterImpl implements IChunkWriter {
   }
 
   public void write(TimeColumn timeColumn, Column[] valueColumns, int batchSize) {
+    write(timeColumn, valueColumns, batchSize, 0);
+  }
+
+  /** Write batchSize rows of the columns starting from arrayOffset. */
+  public void write(TimeColumn timeColumn, Column[] valueColumns, int batchSize, int arrayOffset) {
     if (remainingPointsNumber < batchSize) {
       int pointsHasWritten = (int) remainingPointsNumber;
-      batchWrite(timeColumn, valueColumns, pointsHasWritten, 0);
-      batchWrite(timeColumn, valueColumns, batchSize - pointsHasWritten, pointsHasWritten);
+      batchWrite(timeColumn, valueColumns, pointsHasWritten, arrayOffset);
+      batchWrite(
+          timeColumn, valueColumns, batchSize - pointsHasWritten, arrayOffset + pointsHasWritten);
     } else {
-      batchWrite(timeColumn, valueColumns, batchSize, 0);
+      batchWrite(timeColumn, valueColumns, batchSize, arrayOffset);
     }
   }
 
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.write.writer;
+
+import org.apache.iotdb.tsfile.utils.PublicBAOS;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link TsFileOutput} that keeps the written bytes in memory. It is used to build chunk groups
+ * off the file and append them to a real TsFile later, see {@link
+ * TsFileIOWriter#appendChunkGroups(MemoryTsFileOutput, java.util.List)}.
+ */
+public class MemoryTsFileOutput implements TsFileOutput {
+
+  private final PublicBAOS buffer = new PublicBAOS();
+
+  @Override
+  public void write(byte[] b) throws IOException {
+    buffer.write(b);
+  }
+
+  @Override
+  public void write(byte b) {
+    buffer.write(b);
+  }
+
+  @Override
+  public void write(ByteBuffer b) {
+    buffer.write(b.array(), b.arrayOffset() + b.position(), b.remaining());
+    b.position(b.limit());
+  }
+
+  @Override
+  public long getPosition() {
+    return buffer.size();
+  }
+
+  @Override
+  public void close() throws IOException {
+    buffer.close();
+  }
+
+  @Override
+  public OutputStream wrapAsStream() {
+    return buffer;
+  }
+
+  @Override
+  public void flush() {
+    // nothing to flush
+  }
+
+  @Override
+  public void truncate(long size) {
+    buffer.truncate((int) size);
+  }
+
+  public PublicBAOS getBuffer() {
+    return buffer;
+  }
+}
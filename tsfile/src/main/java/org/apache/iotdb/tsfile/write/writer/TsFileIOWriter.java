@@ -24,6 +24,7 @@ import org.apache.iotdb.tsfile.common.constant.TsFileConstant;
 import org.apache.iotdb.tsfile.file.MetaMarker;
 import org.apache.iotdb.tsfile.file.header.ChunkGroupHeader;
 import org.apache.iotdb.tsfile.file.header.ChunkHeader;
+import org.apache.iotdb.tsfile.file.metadata.BloomFilterPartitionIndex;
 import org.apache.iotdb.tsfile.file.metadata.ChunkGroupMetadata;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
 import org.apache.iotdb.tsfile.file.metadata.IChunkMetadata;
@@ -145,7 +146,10 @@ public class TsFileIOWriter implements AutoCloseable {
     startFile();
   }
 
-  /** for test only */
+  /**
+   * for test, or for writing chunk groups without the file head, which are appended to another
+   * TsFile by {@link #appendChunkGroups(MemoryTsFileOutput, List)} later
+   */
   public TsFileIOWriter(TsFileOutput output, boolean test) {
     this.out = output;
   }
@@ -209,6 +213,37 @@ public class TsFileIOWriter implements AutoCloseable {
     return currentChunkGroupDeviceId != null;
   }
 
+  /**
+   * Append the chunk groups buffered in the given output to this file. The buffered chunk groups
+   * must be written by a writer without the file head, so the offsets in their chunk metadata are
+   * relative to the beginning of the buffer and only need to be shifted by the current position.
+   *
+   * @param bufferedOutput the output holding the serialized chunk groups
+   * @param bufferedChunkGroupMetadataList the chunk group metadata of the buffered chunk groups
+   * @throws IOException if an I/O error occurs.
+   */
+  public void appendChunkGroups(
+      MemoryTsFileOutput bufferedOutput, List<ChunkGroupMetadata> bufferedChunkGroupMetadataList)
+      throws IOException {
+    long offset = out.getPosition();
+    writeBytesToStream(bufferedOutput.getBuffer());
+    for (ChunkGroupMetadata chunkGroupMetadata : bufferedChunkGroupMetadataList) {
+      currentChunkGroupDeviceId = chunkGroupMetadata.getDevice();
+      chunkMetadataList = new ArrayList<>();
+      for (ChunkMetadata chunkMetadata : chunkGroupMetadata.getChunkMetadataList()) {
+        currentChunkMetadata =
+            new ChunkMetadata(
+                chunkMetadata.getMeasurementUid(),
+                chunkMetadata.getDataType(),
+                chunkMetadata.getOffsetOfChunkHeader() + offset,
+                chunkMetadata.getStatistics());
+        currentChunkMetadata.setMask(chunkMetadata.getMask());
+        endCurrentChunk();
+      }
+      endChunkGroup();
+    }
+  }
+
   /**
    * start a {@linkplain ChunkMetadata ChunkMetaData}.
    *
@@ -378,9 +413,17 @@ public class TsFileIOWriter implements AutoCloseable {
         new MetadataIndexNode(MetadataIndexNodeType.LEAF_MEASUREMENT);
     TSFileConfig config = TSFileDescriptor.getInstance().getConfig();
     int seriesIdxForCurrDevice = 0;
+    // when a file holds too many series for a single bloom filter, the filter is partitioned by
+    // device ranges and the file level one becomes a pass-through placeholder
+    int partitionSeriesNum = config.getBloomFilterPartitionSeriesNum();
+    boolean partitionBloomFilter = partitionSeriesNum > 0 && pathCount > partitionSeriesNum;
     BloomFilter filter =
-        BloomFilter.getEmptyBloomFilter(
-            TSFileDescriptor.getInstance().getConfig().getBloomFilterErrorRate(), pathCount);
+        partitionBloomFilter
+            ? BloomFilter.getPassThroughBloomFilter()
+            : BloomFilter.getEmptyBloomFilter(config.getBloomFilterErrorRate(), pathCount);
+    List<Pair<String, BloomFilter>> bloomFilterPartitions = new ArrayList<>();
+    BloomFilter partitionFilter = null;
+    int seriesNumInPartition = 0;
 
     int indexCount = 0;
     while (tsmIterator.hasNext()) {
@@ -389,13 +432,30 @@ public class TsFileIOWriter implements AutoCloseable {
       Pair<Path, TimeseriesMetadata> timeseriesMetadataPair = tsmIterator.next();
       TimeseriesMetadata timeseriesMetadata = timeseriesMetadataPair.right;
       currentPath = timeseriesMetadataPair.left;
+      currentDevice = currentPath.getDevice();
+
+      if (partitionBloomFilter
+          && !currentDevice.equals(prevDevice)
+          && (partitionFilter == null || seriesNumInPartition >= partitionSeriesNum)) {
+        // a partition only starts at a device boundary, so it may slightly exceed its capacity
+        partitionFilter =
+            BloomFilter.getEmptyBloomFilter(
+                config.getBloomFilterErrorRate(),
+                Math.min(partitionSeriesNum, pathCount - indexCount));
+        bloomFilterPartitions.add(new Pair<>(currentDevice, partitionFilter));
+        seriesNumInPartition = 0;
+      }
 
       indexCount++;
       // build bloom filter
-      filter.add(currentPath.getFullPath());
+      if (partitionBloomFilter) {
+        partitionFilter.add(currentPath.getFullPath());
+        seriesNumInPartition++;
+      } else {
+        filter.add(currentPath.getFullPath());
+      }
       // construct the index tree node for the series
 
-      currentDevice = currentPath.getDevice();
       if (!currentDevice.equals(prevDevice)) {
         if (prevDevice != null) {
           addCurrentIndexNodeToQueue(currentIndexNode, measurementMetadataIndexQueue, out);
@@ -442,8 +502,21 @@ public class TsFileIOWriter implements AutoCloseable {
     tsFileMetadata.setMetadataIndex(metadataIndex);
     tsFileMetadata.setMetaOffset(metaOffset);
 
+    // partitioned bloom filters are written outside the file metadata so that they can be loaded
+    // one by one
+    if (partitionBloomFilter) {
+      BloomFilterPartitionIndex bloomFilterPartitionIndex = new BloomFilterPartitionIndex();
+      for (Pair<String, BloomFilter> partition : bloomFilterPartitions) {
+        bloomFilterPartitionIndex.addPartition(partition.left, out.getPosition());
+        TsFileMetadata.serializeBloomFilter(out.wrapAsStream(), partition.right);
+      }
+      bloomFilterPartitionIndex.setEndOffset(out.getPosition());
+      tsFileMetadata.setBloomFilterPartitionIndex(bloomFilterPartitionIndex);
+    }
+
     int size = tsFileMetadata.serializeTo(out.wrapAsStream());
-    size += tsFileMetadata.serializeBloomFilter(out.wrapAsStream(), filter);
+    size += TsFileMetadata.serializeBloomFilter(out.wrapAsStream(), filter);
+    size += tsFileMetadata.serializeBloomFilterPartitionIndex(out.wrapAsStream());
 
     // write TsFileMetaData size
     ReadWriteIOUtils.write(size, out.wrapAsStream());
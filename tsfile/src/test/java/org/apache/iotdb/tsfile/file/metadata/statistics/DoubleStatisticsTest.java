@@ -18,10 +18,21 @@
  */
 package org.apache.iotdb.tsfile.file.metadata.statistics;
 
+import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
+import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
 public class DoubleStatisticsTest {
 
@@ -91,4 +102,46 @@ public class DoubleStatisticsTest {
     assertEquals(122.34d, doubleStats3.getFirstValue(), maxError);
     assertEquals(125.34d, doubleStats3.getLastValue(), maxError);
   }
+
+  @Test
+  public void testQuantileSketch() throws IOException {
+    TSFileConfig config = TSFileDescriptor.getInstance().getConfig();
+    boolean enableQuantileSketchStatistics = config.isEnableQuantileSketchStatistics();
+    config.setEnableQuantileSketchStatistics(true);
+    try {
+      Statistics<? extends Serializable> doubleStats1 =
+          Statistics.getStatsByType(TSDataType.DOUBLE);
+      Statistics<? extends Serializable> doubleStats2 =
+          Statistics.getStatsByType(TSDataType.DOUBLE);
+      for (int i = 0; i < 1000; i++) {
+        doubleStats1.update(i, (double) i);
+        doubleStats2.update(i + 1000, (double) (i + 1000));
+      }
+
+      // serialize and deserialize
+      ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+      assertEquals(doubleStats1.getSerializedSize(), doubleStats1.serialize(outputStream));
+      Statistics<? extends Serializable> deserialized =
+          Statistics.deserialize(ByteBuffer.wrap(outputStream.toByteArray()), TSDataType.DOUBLE);
+      assertEquals(1000, deserialized.getCount());
+      assertNotNull(deserialized.getQuantileSketch());
+      assertEquals(500d, deserialized.getQuantileSketch().getQuantile(0.5), 20);
+
+      // merge
+      Statistics<? extends Serializable> doubleStats3 =
+          Statistics.getStatsByType(TSDataType.DOUBLE);
+      doubleStats3.mergeStatistics(deserialized);
+      doubleStats3.mergeStatistics(doubleStats2);
+      assertEquals(2000, doubleStats3.getQuantileSketch().getCount());
+      assertEquals(1000d, doubleStats3.getQuantileSketch().getQuantile(0.5), 40);
+
+      // statistics without sketch make the merged sketch unusable
+      Statistics<Double> doubleStats4 = new DoubleStatistics();
+      doubleStats4.updateStats(1d);
+      doubleStats3.mergeStatistics(doubleStats4);
+      assertNull(doubleStats3.getQuantileSketch());
+    } finally {
+      config.setEnableQuantileSketchStatistics(enableQuantileSketchStatistics);
+    }
+  }
 }
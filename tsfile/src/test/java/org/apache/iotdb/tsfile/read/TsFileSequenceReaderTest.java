@@ -172,4 +172,37 @@ public class TsFileSequenceReaderTest {
         TsFileCheckStatus.COMPLETE_FILE,
         reader.selfCheck(new HashMap<>(), new ArrayList<>(), false));
   }
+
+  @Test
+  public void testReadPartitionedBloomFilter() throws IOException {
+    String filePath = FILE_PATH + ".partitioned";
+    int oldPartitionSeriesNum =
+        TSFileDescriptor.getInstance().getConfig().getBloomFilterPartitionSeriesNum();
+    TSFileDescriptor.getInstance().getConfig().setBloomFilterPartitionSeriesNum(2);
+    try {
+      FileGenerator.generateFile(100, 10000, filePath);
+      try (TsFileSequenceReader reader = new TsFileSequenceReader(filePath)) {
+        // each partition holds bloomFilterPartitionSeriesNum (2) series but only starts at a device
+        // boundary, so the 7 series of d1 fill partition 0 and d2 starts partition 1. devices
+        // absent from the file map to the partition whose device range covers them
+        Assert.assertEquals(0, reader.getBloomFilterPartition("d1"));
+        Assert.assertEquals(1, reader.getBloomFilterPartition("d2"));
+        Assert.assertEquals(1, reader.getBloomFilterPartition("d3"));
+        Assert.assertEquals(0, reader.getBloomFilterPartition("d0"));
+
+        Assert.assertTrue(reader.readBloomFilter("d1").contains("d1.s1"));
+        Assert.assertTrue(reader.readBloomFilter("d2").contains("d2.s2"));
+        // the file level bloom filter must not filter any series
+        Assert.assertTrue(reader.readBloomFilter().contains("d3.s1"));
+
+        // the partitions do not break the metadata index
+        Assert.assertEquals(4, reader.readChunkMetadataInDevice("d2").size());
+      }
+    } finally {
+      TSFileDescriptor.getInstance()
+          .getConfig()
+          .setBloomFilterPartitionSeriesNum(oldPartitionSeriesNum);
+      FileGenerator.after(filePath);
+    }
+  }
 }
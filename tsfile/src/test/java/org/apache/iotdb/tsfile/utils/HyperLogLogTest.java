@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HyperLogLogTest {
+
+  @Test
+  public void testCardinality() {
+    HyperLogLog hyperLogLog = new HyperLogLog();
+    assertTrue(hyperLogLog.isEmpty());
+    assertEquals(0, hyperLogLog.cardinality());
+    for (int i = 0; i < 100_000; i++) {
+      hyperLogLog.offer((long) i % 50_000);
+    }
+    assertEquals(50_000, hyperLogLog.cardinality(), 50_000 * 0.05);
+  }
+
+  @Test
+  public void testMergeAndSerialize() {
+    HyperLogLog left = new HyperLogLog();
+    HyperLogLog right = new HyperLogLog();
+    for (int i = 0; i < 1000; i++) {
+      left.offer(new Binary("device" + i));
+      right.offer(new Binary("device" + (i + 500)));
+    }
+    // sparse
+    HyperLogLog merged = HyperLogLog.deserialize(left.serialize());
+    merged.merge(right);
+    assertEquals(1500, merged.cardinality(), 1500 * 0.05);
+
+    // dense
+    for (int i = 0; i < 10_000; i++) {
+      merged.offer(i);
+    }
+    HyperLogLog deserialized = HyperLogLog.deserialize(merged.serialize());
+    assertEquals(merged.cardinality(), deserialized.cardinality());
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class KLLSketchTest {
+
+  @Test
+  public void testQuantile() {
+    KLLSketch sketch = new KLLSketch();
+    assertTrue(sketch.isEmpty());
+    assertTrue(Double.isNaN(sketch.getQuantile(0.5)));
+    for (int i = 0; i < 100_000; i++) {
+      sketch.update((i * 7919) % 100_000);
+    }
+    assertEquals(100_000, sketch.getCount());
+    assertEquals(0, sketch.getQuantile(0), 0);
+    assertEquals(99_999, sketch.getQuantile(1), 0);
+    assertEquals(50_000, sketch.getQuantile(0.5), 100_000 * 0.02);
+    assertEquals(99_000, sketch.getQuantile(0.99), 100_000 * 0.02);
+  }
+
+  @Test
+  public void testMergeAndSerialize() {
+    KLLSketch left = new KLLSketch();
+    KLLSketch right = new KLLSketch();
+    for (int i = 0; i < 50_000; i++) {
+      left.update(i);
+      right.update(i + 50_000);
+    }
+    KLLSketch merged = KLLSketch.deserialize(left.serialize());
+    merged.merge(KLLSketch.deserialize(right.serialize()));
+    assertEquals(100_000, merged.getCount());
+    assertEquals(50_000, merged.getQuantile(0.5), 100_000 * 0.02);
+    assertEquals(90_000, merged.getQuantile(0.9), 100_000 * 0.02);
+  }
+}
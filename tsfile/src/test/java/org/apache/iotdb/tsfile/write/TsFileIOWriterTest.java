@@ -24,6 +24,7 @@ import org.apache.iotdb.tsfile.constant.TestConstant;
 import org.apache.iotdb.tsfile.file.MetaMarker;
 import org.apache.iotdb.tsfile.file.header.ChunkGroupHeader;
 import org.apache.iotdb.tsfile.file.header.ChunkHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
 import org.apache.iotdb.tsfile.file.metadata.TimeseriesMetadata;
 import org.apache.iotdb.tsfile.file.metadata.TsFileMetadata;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
@@ -31,11 +32,14 @@ import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.file.metadata.utils.TestHelper;
 import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.Chunk;
 import org.apache.iotdb.tsfile.read.common.Path;
 import org.apache.iotdb.tsfile.utils.MeasurementGroup;
+import org.apache.iotdb.tsfile.write.chunk.ChunkWriterImpl;
 import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 import org.apache.iotdb.tsfile.write.schema.Schema;
 import org.apache.iotdb.tsfile.write.schema.VectorMeasurementSchema;
+import org.apache.iotdb.tsfile.write.writer.MemoryTsFileOutput;
 import org.apache.iotdb.tsfile.write.writer.TsFileIOWriter;
 
 import org.junit.After;
@@ -163,6 +167,52 @@ public class TsFileIOWriterTest {
     Assert.assertEquals(2, metaData.getMetadataIndex().getChildren().size());
   }
 
+  @Test
+  public void appendChunkGroupsTest() throws IOException {
+    String filePath = TestConstant.BASE_OUTPUT_PATH.concat("TsFileIOWriterAppendTest.tsfile");
+    MeasurementSchema measurementSchema =
+        new MeasurementSchema(SENSOR_1, TSDataType.INT64, TSEncoding.RLE);
+    try (TsFileIOWriter writer = new TsFileIOWriter(new File(filePath))) {
+      writeChunk(writer, DEVICE_1, measurementSchema, 0, 100);
+
+      // write the chunk group of device2 into memory, then append it to the file
+      MemoryTsFileOutput output = new MemoryTsFileOutput();
+      TsFileIOWriter bufferedWriter = new TsFileIOWriter(output, true);
+      writeChunk(bufferedWriter, DEVICE_2, measurementSchema, 100, 300);
+      writer.appendChunkGroups(output, bufferedWriter.getChunkGroupMetadataList());
+      writer.endFile();
+
+      try (TsFileSequenceReader reader = new TsFileSequenceReader(filePath)) {
+        List<ChunkMetadata> chunkMetadataList =
+            reader.getChunkMetadataList(new Path(DEVICE_2, SENSOR_1, true));
+        Assert.assertEquals(1, chunkMetadataList.size());
+        Assert.assertEquals(100, chunkMetadataList.get(0).getStartTime());
+        Assert.assertEquals(299, chunkMetadataList.get(0).getEndTime());
+        Chunk chunk = reader.readMemChunk(chunkMetadataList.get(0));
+        Assert.assertEquals(SENSOR_1, chunk.getHeader().getMeasurementID());
+        Assert.assertEquals(200, chunk.getChunkStatistic().getCount());
+      }
+    } finally {
+      new File(filePath).delete();
+    }
+  }
+
+  private void writeChunk(
+      TsFileIOWriter writer,
+      String device,
+      MeasurementSchema measurementSchema,
+      long startTime,
+      long endTime)
+      throws IOException {
+    writer.startChunkGroup(device);
+    ChunkWriterImpl chunkWriter = new ChunkWriterImpl(measurementSchema);
+    for (long time = startTime; time < endTime; time++) {
+      chunkWriter.write(time, time);
+    }
+    chunkWriter.writeToFileWriter(writer);
+    writer.endChunkGroup();
+  }
+
   private void writeChunkGroup(TsFileIOWriter writer, MeasurementSchema measurementSchema)
       throws IOException {
     for (int i = 0; i < CHUNK_GROUP_NUM; i++) {